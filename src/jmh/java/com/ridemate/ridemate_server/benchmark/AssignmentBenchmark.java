@@ -0,0 +1,63 @@
+package com.ridemate.ridemate_server.benchmark;
+
+import com.ridemate.ridemate_server.application.dto.match.DriverCandidate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of solving one dispatch window: greedy per-request vs joint min-cost assignment
+ * Pools are pre-scored so only the assignment step is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssignmentBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int requestsPerWindow;
+
+    @Param({"1000", "10000"})
+    public int fleetSize;
+
+    @Param({"10"})
+    public int poolSize;
+
+    private List<List<DriverCandidate>> pools;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticFleet fleet = SyntheticFleet.generate(fleetSize, 0.05, 42);
+        double[][] pickups = SyntheticFleet.pickups(requestsPerWindow, 0.05, 7);
+        pools = new ArrayList<>(requestsPerWindow);
+        for (double[] pickup : pickups) {
+            pools.add(fleet.scoredPool(pickup[0], pickup[1], 7.0, poolSize, null));
+        }
+    }
+
+    @Benchmark
+    public long[] greedy() {
+        return DispatchStrategies.greedy(pools);
+    }
+
+    @Benchmark
+    public long[] batched() {
+        return DispatchStrategies.batched(pools);
+    }
+}
@@ -0,0 +1,182 @@
+package com.ridemate.ridemate_server.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.ridemate.ridemate_server.application.service.match.DriverMatchingService;
+import com.ridemate.ridemate_server.application.service.match.DriverSpatialIndex;
+import com.ridemate.ridemate_server.application.service.match.RoadEtaService;
+import com.ridemate.ridemate_server.application.service.vehicle.ApprovedVehicleCache;
+import com.ridemate.ridemate_server.domain.entity.User;
+import com.ridemate.ridemate_server.domain.entity.Vehicle;
+import com.ridemate.ridemate_server.domain.repository.UserRepository;
+import com.ridemate.ridemate_server.domain.repository.VehicleRepository;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wiring for benchmarks that run real services without a Spring context or database:
+ * repositories are proxies over in-memory maps built from a {@link SyntheticFleet}.
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Without a Spring context logback falls back to DEBUG on stdout, which would dominate every benchmark
+     */
+    static void quietLogging() {
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    /**
+     * ONLINE driver users for every fleet member, all with an approved vehicle
+     */
+    static Map<Long, User> drivers(SyntheticFleet fleet) {
+        Map<Long, User> drivers = new HashMap<>(fleet.size * 2);
+        for (int i = 0; i < fleet.size; i++) {
+            User driver = User.builder()
+                    .fullName("Driver " + fleet.driverIds[i])
+                    .phoneNumber("09" + (10000000 + fleet.driverIds[i]))
+                    .userType(User.UserType.DRIVER)
+                    .driverStatus(User.DriverStatus.ONLINE)
+                    .currentLatitude(fleet.latitudes[i])
+                    .currentLongitude(fleet.longitudes[i])
+                    .rating(fleet.ratings[i])
+                    .acceptanceRate(fleet.acceptanceRates[i])
+                    .completionRate(fleet.completionRates[i])
+                    .totalRidesCompleted(fleet.ridesCompleted[i])
+                    .build();
+            driver.setId(fleet.driverIds[i]);
+            drivers.put(driver.getId(), driver);
+        }
+        return drivers;
+    }
+
+    static Map<Long, Vehicle> vehicles(Map<Long, User> drivers) {
+        Map<Long, Vehicle> vehicles = new HashMap<>(drivers.size() * 2);
+        for (User driver : drivers.values()) {
+            Vehicle vehicle = Vehicle.builder()
+                    .driver(driver)
+                    .make("Toyota")
+                    .model("Vios")
+                    .licensePlate("51A-" + driver.getId())
+                    .color("White")
+                    .capacity(4)
+                    .vehicleType(Vehicle.VehicleType.CAR)
+                    .status(Vehicle.VehicleStatus.APPROVED)
+                    .build();
+            vehicle.setId(driver.getId());
+            vehicles.put(driver.getId(), vehicle);
+        }
+        return vehicles;
+    }
+
+    /**
+     * Only the queries used by matching are implemented; anything else fails loudly
+     */
+    static UserRepository userRepository(Map<Long, User> drivers) {
+        return repository(UserRepository.class, (method, args) -> switch (method) {
+            case "findScoringRowsByIdIn" -> {
+                List<Object[]> found = new ArrayList<>();
+                for (Object id : (Iterable<?>) args[0]) {
+                    User user = drivers.get((Long) id);
+                    if (user != null) {
+                        found.add(new Object[]{user.getId(), user.getUserType(), user.getDriverStatus(),
+                                user.getRating(), user.getAcceptanceRate(), user.getCompletionRate()});
+                    }
+                }
+                yield found;
+            }
+            case "findCandidateRowsByIdIn" -> {
+                List<Object[]> found = new ArrayList<>();
+                for (Object id : (Iterable<?>) args[0]) {
+                    User user = drivers.get((Long) id);
+                    if (user != null) {
+                        found.add(new Object[]{user.getId(), user.getFullName(), user.getPhoneNumber(),
+                                user.getTotalRidesCompleted()});
+                    }
+                }
+                yield found;
+            }
+            case "findByUserTypeAndDriverStatus" -> drivers.values().stream()
+                    .filter(user -> user.getUserType() == args[0] && user.getDriverStatus() == args[1])
+                    .toList();
+            default -> throw new UnsupportedOperationException("UserRepository." + method);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    static VehicleRepository vehicleRepository(Map<Long, Vehicle> vehiclesByDriver) {
+        return repository(VehicleRepository.class, (method, args) -> switch (method) {
+            case "findByDriverIdAndStatus" -> {
+                Vehicle vehicle = vehiclesByDriver.get((Long) args[0]);
+                yield vehicle != null && vehicle.getStatus() == args[1] ? List.of(vehicle) : List.of();
+            }
+            case "findByDriverIdInAndStatus" -> {
+                List<Vehicle> found = new ArrayList<>();
+                for (Long driverId : (Collection<Long>) args[0]) {
+                    Vehicle vehicle = vehiclesByDriver.get(driverId);
+                    if (vehicle != null && vehicle.getStatus() == args[1]) {
+                        found.add(vehicle);
+                    }
+                }
+                yield found;
+            }
+            default -> throw new UnsupportedOperationException("VehicleRepository." + method);
+        });
+    }
+
+    /**
+     * Matching service plus the index it reads from
+     */
+    record MatchingStack(DriverMatchingService service, DriverSpatialIndex index) {
+    }
+
+    /**
+     * DriverMatchingService over the fleet, with the real spatial index and vehicle cache.
+     * The index is filled and the vehicle cache warmed, as on a node that has been up for a while.
+     */
+    static MatchingStack matchingStack(SyntheticFleet fleet) {
+        Map<Long, User> drivers = drivers(fleet);
+        UserRepository userRepository = userRepository(drivers);
+
+        DriverSpatialIndex index = new DriverSpatialIndex(userRepository);
+        index.warmUp();
+
+        ApprovedVehicleCache vehicleCache = new ApprovedVehicleCache(vehicleRepository(vehicles(drivers)));
+        ReflectionTestUtils.setField(vehicleCache, "ttlSeconds", Long.MAX_VALUE / 1000);
+        vehicleCache.getAll(drivers.keySet());
+
+        DriverMatchingService service = new DriverMatchingService();
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "approvedVehicleCache", vehicleCache);
+        ReflectionTestUtils.setField(service, "driverSpatialIndex", index);
+        // No graph file: straight-line ETAs, RoadEtaBenchmark covers the routed path
+        ReflectionTestUtils.setField(service, "roadEtaService", new RoadEtaService());
+        return new MatchingStack(service, index);
+    }
+
+    @FunctionalInterface
+    private interface QueryHandler {
+        Object handle(String method, Object[] args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T repository(Class<T> type, QueryHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "toString" -> "InMemory" + type.getSimpleName();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> handler.handle(method.getName(), args);
+                });
+    }
+}
@@ -0,0 +1,76 @@
+package com.ridemate.ridemate_server.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.ridemate.ridemate_server.application.dto.match.DriverCandidate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of candidate lists, as written to matches.matched_driver_candidates
+ * newMapperPerCall mirrors MatchOfferService, which builds an ObjectMapper for every offer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CandidateSerializationBenchmark {
+
+    @Param({"2", "5", "50"})
+    public int candidateCount;
+
+    private List<DriverCandidate> candidates;
+    private ObjectMapper sharedMapper;
+    private ObjectWriter listWriter;
+    private String json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JsonProcessingException {
+        SyntheticFleet fleet = SyntheticFleet.generate(10_000, 0.05, 42);
+        candidates = fleet.scoredPool(SyntheticFleet.BASE_LAT, SyntheticFleet.BASE_LON, 7.0, candidateCount, null);
+        sharedMapper = new ObjectMapper();
+        listWriter = sharedMapper.writerFor(sharedMapper.getTypeFactory()
+                .constructCollectionType(List.class, DriverCandidate.class));
+        json = listWriter.writeValueAsString(candidates);
+    }
+
+    @Benchmark
+    public String newMapperPerCall() throws JsonProcessingException {
+        return new ObjectMapper().writeValueAsString(candidates);
+    }
+
+    @Benchmark
+    public String sharedMapper() throws JsonProcessingException {
+        return sharedMapper.writeValueAsString(candidates);
+    }
+
+    @Benchmark
+    public String sharedListWriter() throws JsonProcessingException {
+        return listWriter.writeValueAsString(candidates);
+    }
+
+    /**
+     * Read side, as in MatchServiceImpl.getMatchById for WAITING matches
+     */
+    @Benchmark
+    public List<DriverCandidate> deserialize() throws JsonProcessingException {
+        return sharedMapper.readValue(json, sharedMapper.getTypeFactory()
+                .constructCollectionType(List.class, DriverCandidate.class));
+    }
+}
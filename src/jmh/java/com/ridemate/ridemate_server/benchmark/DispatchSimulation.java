@@ -0,0 +1,154 @@
+package com.ridemate.ridemate_server.benchmark;
+
+import com.ridemate.ridemate_server.application.dto.match.DriverCandidate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Rush-hour dispatch simulation: greedy vs batched assignment on the same demand stream
+ *
+ * Time advances in dispatch windows. Each window brings a Poisson batch of ride requests;
+ * unmatched requests carry over (and eventually give up). Matched drivers are busy for a random
+ * trip length and then reappear elsewhere. Reports match rate, average pickup ETA and how many
+ * extra windows passengers waited (the batching window itself is not counted).
+ *
+ * Usage: DispatchSimulation [drivers] [requestsPerWindow] [windows] [windowSeconds]
+ */
+public final class DispatchSimulation {
+
+    private static final double SPREAD_DEGREES = 0.08;
+    private static final double SEARCH_RADIUS_KM = 7.0;
+    private static final int POOL_SIZE = 10;
+    private static final int MAX_WAIT_WINDOWS = 30;
+
+    private DispatchSimulation() {
+    }
+
+    private record Request(double latitude, double longitude, int createdWindow) {
+    }
+
+    private record Result(String name, int requests, int matched, int abandoned, double avgEtaMinutes,
+                          double avgWaitSeconds, double avgScore) {
+        @Override
+        public String toString() {
+            return String.format("%-8s requests=%d matched=%d (%.1f%%) abandoned=%d avgPickupEta=%.2fmin avgWait=%.1fs avgScore=%.3f",
+                    name, requests, matched, 100.0 * matched / Math.max(requests, 1), abandoned,
+                    avgEtaMinutes, avgWaitSeconds, avgScore);
+        }
+    }
+
+    public static void main(String[] args) {
+        int drivers = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int requestsPerWindow = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int windows = args.length > 2 ? Integer.parseInt(args[2]) : 600;
+        int windowSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+
+        System.out.printf("Simulating %d drivers, ~%d requests per %ds window, %d windows%n",
+                drivers, requestsPerWindow, windowSeconds, windows);
+
+        System.out.println(run("greedy", DispatchStrategies::greedy, drivers, requestsPerWindow, windows, windowSeconds));
+        System.out.println(run("batched", DispatchStrategies::batched, drivers, requestsPerWindow, windows, windowSeconds));
+    }
+
+    private static Result run(String name, Function<List<List<DriverCandidate>>, long[]> strategy,
+                              int drivers, int requestsPerWindow, int windows, int windowSeconds) {
+        // Same seeds for both strategies so they see identical fleets and demand
+        SyntheticFleet fleet = SyntheticFleet.generate(drivers, SPREAD_DEGREES, 42);
+        Random demand = new Random(7);
+        Random trips = new Random(11);
+
+        boolean[] available = new boolean[drivers];
+        int[] busyUntil = new int[drivers];
+        Arrays.fill(available, true);
+
+        Map<Long, Integer> indexOfDriver = new HashMap<>();
+        for (int i = 0; i < drivers; i++) {
+            indexOfDriver.put(fleet.driverIds[i], i);
+        }
+
+        List<Request> waiting = new ArrayList<>();
+        int total = 0;
+        int matched = 0;
+        int abandoned = 0;
+        double etaSum = 0;
+        double waitSum = 0;
+        double scoreSum = 0;
+
+        for (int window = 0; window < windows; window++) {
+            // Drivers finishing trips become available again
+            for (int i = 0; i < drivers; i++) {
+                if (!available[i] && busyUntil[i] <= window) {
+                    available[i] = true;
+                }
+            }
+
+            int arrivals = poisson(demand, requestsPerWindow);
+            double[][] pickups = SyntheticFleet.pickups(arrivals, SPREAD_DEGREES, demand.nextLong());
+            for (double[] pickup : pickups) {
+                waiting.add(new Request(pickup[0], pickup[1], window));
+            }
+            total += arrivals;
+
+            List<List<DriverCandidate>> pools = new ArrayList<>(waiting.size());
+            for (Request request : waiting) {
+                pools.add(fleet.scoredPool(request.latitude(), request.longitude(), SEARCH_RADIUS_KM, POOL_SIZE, available));
+            }
+
+            long[] assigned = strategy.apply(pools);
+            List<Request> stillWaiting = new ArrayList<>();
+            for (int r = 0; r < waiting.size(); r++) {
+                Request request = waiting.get(r);
+                if (assigned[r] < 0) {
+                    if (window - request.createdWindow() >= MAX_WAIT_WINDOWS) {
+                        abandoned++;
+                    } else {
+                        stillWaiting.add(request);
+                    }
+                    continue;
+                }
+
+                DriverCandidate chosen = null;
+                for (DriverCandidate candidate : pools.get(r)) {
+                    if (candidate.getDriverId() == assigned[r]) {
+                        chosen = candidate;
+                        break;
+                    }
+                }
+                int driver = indexOfDriver.get(assigned[r]);
+                available[driver] = false;
+                int tripWindows = chosen.getEstimatedArrivalTime() * 60 / windowSeconds
+                        + (300 + trips.nextInt(900)) / windowSeconds;
+                busyUntil[driver] = window + tripWindows;
+                // Driver reappears somewhere else after the trip
+                fleet.latitudes[driver] = SyntheticFleet.BASE_LAT + (trips.nextDouble() * 2 - 1) * SPREAD_DEGREES;
+                fleet.longitudes[driver] = SyntheticFleet.BASE_LON + (trips.nextDouble() * 2 - 1) * SPREAD_DEGREES;
+
+                matched++;
+                etaSum += chosen.getEstimatedArrivalTime();
+                waitSum += (window - request.createdWindow()) * windowSeconds;
+                scoreSum += chosen.getMatchScore();
+            }
+            waiting = stillWaiting;
+        }
+
+        return new Result(name, total, matched, abandoned,
+                etaSum / Math.max(matched, 1), waitSum / Math.max(matched, 1), scoreSum / Math.max(matched, 1));
+    }
+
+    private static int poisson(Random random, double mean) {
+        double limit = Math.exp(-mean);
+        double product = random.nextDouble();
+        int count = 0;
+        while (product > limit) {
+            product *= random.nextDouble();
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,76 @@
+package com.ridemate.ridemate_server.benchmark;
+
+import com.ridemate.ridemate_server.application.dto.match.DriverCandidate;
+import com.ridemate.ridemate_server.application.service.match.MinCostAssignment;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The two dispatch policies compared by the benchmarks, over pre-scored candidate pools
+ */
+final class DispatchStrategies {
+
+    private DispatchStrategies() {
+    }
+
+    /**
+     * Today's bookRide behaviour: every request is matched on its own and offered to its top-scored
+     * driver. When two requests in the same window share a top driver only the first one gets it;
+     * the other is left unmatched and has to be retried.
+     * @return assigned driver id per request, -1 if none
+     */
+    static long[] greedy(List<List<DriverCandidate>> pools) {
+        long[] assigned = new long[pools.size()];
+        Set<Long> taken = new HashSet<>();
+        for (int i = 0; i < pools.size(); i++) {
+            assigned[i] = -1;
+            List<DriverCandidate> pool = pools.get(i);
+            if (!pool.isEmpty() && taken.add(pool.get(0).getDriverId())) {
+                assigned[i] = pool.get(0).getDriverId();
+            }
+        }
+        return assigned;
+    }
+
+    /**
+     * Batched mode: one min-cost assignment over (1 - score) for the whole window,
+     * built the same way BatchDispatchService builds it
+     */
+    static long[] batched(List<List<DriverCandidate>> pools) {
+        Map<Long, Integer> columns = new HashMap<>();
+        for (List<DriverCandidate> pool : pools) {
+            for (DriverCandidate candidate : pool) {
+                columns.putIfAbsent(candidate.getDriverId(), columns.size());
+            }
+        }
+
+        long[] assigned = new long[pools.size()];
+        Arrays.fill(assigned, -1);
+        if (columns.isEmpty()) {
+            return assigned;
+        }
+
+        double[][] cost = new double[pools.size()][columns.size()];
+        for (int i = 0; i < pools.size(); i++) {
+            Arrays.fill(cost[i], MinCostAssignment.INFEASIBLE);
+            for (DriverCandidate candidate : pools.get(i)) {
+                cost[i][columns.get(candidate.getDriverId())] = 1.0 - candidate.getMatchScore();
+            }
+        }
+
+        long[] driverOfColumn = new long[columns.size()];
+        columns.forEach((driverId, column) -> driverOfColumn[column] = driverId);
+        int[] assignment = MinCostAssignment.solve(cost);
+        for (int i = 0; i < assignment.length; i++) {
+            if (assignment[i] >= 0) {
+                assigned[i] = driverOfColumn[assignment[i]];
+            }
+        }
+        return assigned;
+    }
+}
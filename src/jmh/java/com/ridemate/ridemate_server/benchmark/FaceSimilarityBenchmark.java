@@ -0,0 +1,79 @@
+package com.ridemate.ridemate_server.benchmark;
+
+import com.ridemate.ridemate_server.application.service.face.impl.FaceEmbeddingServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FaceEmbeddingServiceImpl.compareFaces (cosine similarity) for common embedding sizes
+ * Logging is at WARN here, so the per-call INFO log only costs its level check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FaceSimilarityBenchmark {
+
+    private static final int GALLERY_SIZE = 256;
+
+    @Param({"128", "512"})
+    public int dimensions;
+
+    private FaceEmbeddingServiceImpl faceService;
+    private float[] probe;
+    private float[][] gallery;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        faceService = new FaceEmbeddingServiceImpl();
+        Random random = new Random(42);
+        probe = randomEmbedding(random);
+        gallery = new float[GALLERY_SIZE][];
+        for (int i = 0; i < GALLERY_SIZE; i++) {
+            gallery[i] = randomEmbedding(random);
+        }
+    }
+
+    private float[] randomEmbedding(Random random) {
+        float[] embedding = new float[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            embedding[i] = (float) random.nextGaussian();
+        }
+        return embedding;
+    }
+
+    @Benchmark
+    public float compareOne() {
+        return faceService.compareFaces(probe, gallery[0]);
+    }
+
+    /**
+     * One probe against a gallery, reported per comparison
+     */
+    @Benchmark
+    @OperationsPerInvocation(GALLERY_SIZE)
+    public float compareGallery() {
+        float best = 0;
+        for (float[] candidate : gallery) {
+            best = Math.max(best, faceService.compareFaces(probe, candidate));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,118 @@
+package com.ridemate.ridemate_server.benchmark;
+
+import com.ridemate.ridemate_server.application.service.match.DriverSpatialIndex;
+import com.ridemate.ridemate_server.application.service.match.impl.CoinCalculationServiceImpl;
+import com.ridemate.ridemate_server.application.service.route.impl.FixedRouteServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Haversine copies spread over the services, each called through its own private method
+ *
+ * Private methods are reached with static final MethodHandles, which the JIT inlines like a
+ * direct call. The boxed Double variant (FixedRouteServiceImpl) is measured with its boxing, as
+ * that is what its callers pay. DriverMatchingService, MatchServiceImpl and RouteBookingServiceImpl
+ * no longer have their own copies.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoDistanceBenchmark {
+
+    private static final int PAIRS = 1024;
+
+    private static final MethodType PRIMITIVE = MethodType.methodType(double.class,
+            double.class, double.class, double.class, double.class);
+    private static final MethodType BOXED = MethodType.methodType(Double.class,
+            Double.class, Double.class, Double.class, Double.class);
+
+    private static final MethodHandle SPATIAL_INDEX = find(DriverSpatialIndex.class, null, "distanceKm", PRIMITIVE);
+    private static final MethodHandle COIN_CALCULATION = find(CoinCalculationServiceImpl.class,
+            new CoinCalculationServiceImpl(), "calculateHaversineDistance", PRIMITIVE);
+    private static final MethodHandle FIXED_ROUTE = find(FixedRouteServiceImpl.class, new FixedRouteServiceImpl(),
+            "calculateDistance", BOXED).asType(PRIMITIVE);
+
+    private double[] fromLat;
+    private double[] fromLon;
+    private double[] toLat;
+    private double[] toLon;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        double[][] from = SyntheticFleet.pickups(PAIRS, 0.1, 1);
+        double[][] to = SyntheticFleet.pickups(PAIRS, 0.1, 2);
+        fromLat = new double[PAIRS];
+        fromLon = new double[PAIRS];
+        toLat = new double[PAIRS];
+        toLon = new double[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            fromLat[i] = from[i][0];
+            fromLon[i] = from[i][1];
+            toLat[i] = to[i][0];
+            toLon[i] = to[i][1];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public double spatialIndex() throws Throwable {
+        double sum = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            sum += (double) SPATIAL_INDEX.invokeExact(fromLat[i], fromLon[i], toLat[i], toLon[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public double coinCalculation() throws Throwable {
+        double sum = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            sum += (double) COIN_CALCULATION.invokeExact(fromLat[i], fromLon[i], toLat[i], toLon[i]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public double fixedRoute() throws Throwable {
+        double sum = 0;
+        for (int i = 0; i < PAIRS; i++) {
+            sum += (double) FIXED_ROUTE.invokeExact(fromLat[i], fromLon[i], toLat[i], toLon[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * Private method handle, bound to the receiver for instance methods
+     */
+    private static MethodHandle find(Class<?> owner, Object receiver, String name, MethodType type) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+            return receiver == null
+                    ? lookup.findStatic(owner, name, type)
+                    : lookup.findVirtual(owner, name, type).bindTo(receiver);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot access " + owner.getSimpleName() + "." + name, e);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.ridemate.ridemate_server.benchmark;
+
+import com.ridemate.ridemate_server.application.dto.match.DriverCandidate;
+import com.ridemate.ridemate_server.application.service.match.DriverMatchingService;
+import com.ridemate.ridemate_server.application.service.match.DriverScoringBatch;
+import com.ridemate.ridemate_server.application.service.match.DriverSpatialIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Candidate search and scoring in DriverMatchingService over synthetic fleets
+ *
+ * findBestDrivers runs the real service (spatial index, vehicle cache, scoring) on in-memory
+ * repositories, so it measures the CPU side of matching without database round-trips.
+ * linearScan is the old full-scan approach, kept as a baseline for the index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchingBenchmark {
+
+    // ~11km around the city center; 100k drivers is far denser than today's fleet on purpose
+    private static final double SPREAD_DEGREES = 0.1;
+    private static final int PICKUP_COUNT = 256;
+    private static final double SEARCH_RADIUS_KM = 2.0;
+
+    @Param({"1000", "10000", "100000"})
+    public int fleetSize;
+
+    private SyntheticFleet fleet;
+    private DriverMatchingService matchingService;
+    private DriverSpatialIndex spatialIndex;
+    private double[][] pickups;
+    private List<DriverCandidate> candidatesNearCenter;
+    private DriverScoringBatch batchNearCenter;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.quietLogging();
+        fleet = SyntheticFleet.generate(fleetSize, SPREAD_DEGREES, 42);
+        BenchmarkSupport.MatchingStack stack = BenchmarkSupport.matchingStack(fleet);
+        matchingService = stack.service();
+        spatialIndex = stack.index();
+        pickups = SyntheticFleet.pickups(PICKUP_COUNT, SPREAD_DEGREES / 2, 7);
+
+        candidatesNearCenter = new ArrayList<>();
+        for (int i = 0; i < fleet.size; i++) {
+            if (SyntheticFleet.haversineKm(SyntheticFleet.BASE_LAT, SyntheticFleet.BASE_LON,
+                    fleet.latitudes[i], fleet.longitudes[i]) <= SEARCH_RADIUS_KM) {
+                candidatesNearCenter.add(fleet.candidate(i, SyntheticFleet.BASE_LAT, SyntheticFleet.BASE_LON));
+            }
+        }
+        candidatesNearCenter.sort(Comparator.comparing(DriverCandidate::getDistanceToPickup));
+
+        batchNearCenter = new DriverScoringBatch(candidatesNearCenter.size());
+        for (DriverCandidate candidate : candidatesNearCenter) {
+            batchNearCenter.add(candidate.getDriverId(), candidate.getCurrentLatitude(), candidate.getCurrentLongitude(),
+                    candidate.getDistanceToPickup(), candidate.getDriverRating(), candidate.getAcceptanceRate(),
+                    candidate.getCompletionRate());
+        }
+    }
+
+    private double[] nextPickup() {
+        double[] pickup = pickups[next];
+        next = (next + 1) & (PICKUP_COUNT - 1);
+        return pickup;
+    }
+
+    @Benchmark
+    public List<DriverCandidate> findBestDrivers() {
+        double[] pickup = nextPickup();
+        return matchingService.findBestDrivers(pickup[0], pickup[1], 5);
+    }
+
+    @Benchmark
+    public List<DriverSpatialIndex.NearbyDriver> indexRadiusQuery() {
+        double[] pickup = nextPickup();
+        return spatialIndex.findWithinRadius(pickup[0], pickup[1], SEARCH_RADIUS_KM);
+    }
+
+    @Benchmark
+    public int linearScan() {
+        double[] pickup = nextPickup();
+        int found = 0;
+        for (int i = 0; i < fleet.size; i++) {
+            if (SyntheticFleet.haversineKm(pickup[0], pickup[1], fleet.latitudes[i], fleet.longitudes[i]) <= SEARCH_RADIUS_KM) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Scoring only, over every driver within 2km of the center (grows with fleet density)
+     */
+    @Benchmark
+    public void scoreCandidates(Blackhole blackhole) {
+        for (DriverCandidate candidate : candidatesNearCenter) {
+            matchingService.calculateMatchScore(candidate);
+            blackhole.consume(candidate.getMatchScore());
+        }
+    }
+
+    /**
+     * Same drivers as scoreCandidates, scored in bulk over primitive columns plus top-5 selection
+     */
+    @Benchmark
+    public int[] scoreBatch() {
+        int count = batchNearCenter.size();
+        matchingService.scoreBatch(batchNearCenter, count);
+        return batchNearCenter.topN(count, 5);
+    }
+}
@@ -0,0 +1,146 @@
+package com.ridemate.ridemate_server.benchmark;
+
+import com.ridemate.ridemate_server.application.service.match.RoadEtaService;
+import com.ridemate.ridemate_server.infrastructure.routing.ContractionHierarchyBuilder;
+import com.ridemate.ridemate_server.infrastructure.routing.RoadGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One pickup to 50 drivers over a contraction hierarchy, the per-request road ETA cost
+ *
+ * The city is a synthetic 150 x 150 street grid (~30k nodes, ~20 x 20 km) with fast arterials
+ * every 10th street and a river crossed by four bridges, so routes are not straight lines.
+ * The hierarchy is built and written to a temp file in setup (takes several seconds).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoadEtaBenchmark {
+
+    private static final int GRID = 150;
+    private static final double STEP_DEGREES = 0.0013; // ~145m blocks
+    private static final int DRIVERS = 50;
+    private static final int QUERIES = 256;
+    private static final double DRIVER_SPREAD_DEGREES = 0.03;
+
+    private Path graphFile;
+    private RoadGraph graph;
+    private RoadEtaService etaService;
+
+    private double[][] pickups;
+    private double[][] driverLatitudes;
+    private double[][] driverLongitudes;
+    private int[] pickupNodes;
+    private int[][] driverNodes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkSupport.quietLogging();
+        graphFile = Files.createTempFile("ridemate-bench", ".graph");
+        buildCity().write(graphFile);
+        graph = RoadGraph.open(graphFile);
+
+        etaService = new RoadEtaService();
+        ReflectionTestUtils.setField(etaService, "graphFile", graphFile.toString());
+        ReflectionTestUtils.setField(etaService, "maxSnapMeters", 300.0);
+        ReflectionTestUtils.setField(etaService, "maxEtaCandidates", DRIVERS);
+        etaService.loadGraph();
+
+        Random random = new Random(11);
+        double center = GRID * STEP_DEGREES / 2;
+        pickups = new double[QUERIES][];
+        driverLatitudes = new double[QUERIES][DRIVERS];
+        driverLongitudes = new double[QUERIES][DRIVERS];
+        pickupNodes = new int[QUERIES];
+        driverNodes = new int[QUERIES][DRIVERS];
+        for (int q = 0; q < QUERIES; q++) {
+            double lat = SyntheticFleet.BASE_LAT + center + (random.nextDouble() - 0.5) * center;
+            double lon = SyntheticFleet.BASE_LON + center + (random.nextDouble() - 0.5) * center;
+            pickups[q] = new double[]{lat, lon};
+            pickupNodes[q] = graph.nearestNode(lat, lon, 300);
+            for (int d = 0; d < DRIVERS; d++) {
+                driverLatitudes[q][d] = lat + (random.nextDouble() - 0.5) * DRIVER_SPREAD_DEGREES;
+                driverLongitudes[q][d] = lon + (random.nextDouble() - 0.5) * DRIVER_SPREAD_DEGREES;
+                driverNodes[q][d] = graph.nearestNode(driverLatitudes[q][d], driverLongitudes[q][d], 300);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(graphFile);
+    }
+
+    private static ContractionHierarchyBuilder buildCity() {
+        ContractionHierarchyBuilder builder = new ContractionHierarchyBuilder(GRID * GRID);
+        for (int row = 0; row < GRID; row++) {
+            for (int col = 0; col < GRID; col++) {
+                builder.setNode(row * GRID + col, SyntheticFleet.BASE_LAT + row * STEP_DEGREES,
+                        SyntheticFleet.BASE_LON + col * STEP_DEGREES);
+            }
+        }
+
+        int river = GRID / 2;
+        int blockMillis = (int) (145 / (25 / 3.6) * 1000);
+        int arterialMillis = (int) (145 / (50 / 3.6) * 1000);
+        for (int row = 0; row < GRID; row++) {
+            for (int col = 0; col < GRID; col++) {
+                int node = row * GRID + col;
+                if (col + 1 < GRID) {
+                    int millis = row % 10 == 0 ? arterialMillis : blockMillis;
+                    builder.addEdge(node, node + 1, millis);
+                    builder.addEdge(node + 1, node, millis);
+                }
+                boolean bridge = col % (GRID / 4) == GRID / 8;
+                if (row + 1 < GRID && (row != river || bridge)) {
+                    int millis = col % 10 == 0 ? arterialMillis : blockMillis;
+                    builder.addEdge(node, node + GRID, millis);
+                    builder.addEdge(node + GRID, node, millis);
+                }
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Graph search only: drivers and pickup already snapped
+     */
+    @Benchmark
+    public int[] oneToManyGraph() {
+        int q = next;
+        next = (next + 1) & (QUERIES - 1);
+        return graph.travelTimesTo(pickupNodes[q], driverNodes[q], DRIVERS);
+    }
+
+    /**
+     * What DriverMatchingService pays per request: snapping plus the graph search
+     */
+    @Benchmark
+    public int[] oneToManyService() {
+        int q = next;
+        next = (next + 1) & (QUERIES - 1);
+        return etaService.etaSeconds(pickups[q][0], pickups[q][1], driverLatitudes[q], driverLongitudes[q], DRIVERS);
+    }
+}
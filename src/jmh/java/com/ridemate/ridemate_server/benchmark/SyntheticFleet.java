@@ -0,0 +1,128 @@
+package com.ridemate.ridemate_server.benchmark;
+
+import com.ridemate.ridemate_server.application.dto.match.DriverCandidate;
+import com.ridemate.ridemate_server.application.service.match.DriverMatchingService;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic fleet around Ho Chi Minh city center for benchmarks and simulations
+ * Column arrays rather than entities so generating 100k drivers stays cheap.
+ */
+public final class SyntheticFleet {
+
+    public static final double BASE_LAT = 10.7769;
+    public static final double BASE_LON = 106.7009;
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double AVERAGE_SPEED_KMH = 30.0;
+
+    // Scoring is stateless, the service can be used without a Spring context
+    private static final DriverMatchingService SCORER = new DriverMatchingService();
+
+    public final int size;
+    public final long[] driverIds;
+    public final double[] latitudes;
+    public final double[] longitudes;
+    public final float[] ratings;
+    public final float[] acceptanceRates;
+    public final float[] completionRates;
+    public final int[] ridesCompleted;
+
+    private SyntheticFleet(int size) {
+        this.size = size;
+        this.driverIds = new long[size];
+        this.latitudes = new double[size];
+        this.longitudes = new double[size];
+        this.ratings = new float[size];
+        this.acceptanceRates = new float[size];
+        this.completionRates = new float[size];
+        this.ridesCompleted = new int[size];
+    }
+
+    /**
+     * @param spreadDegrees drivers are placed uniformly within +/- spread of the city center (0.1 ~ 11km)
+     */
+    public static SyntheticFleet generate(int size, double spreadDegrees, long seed) {
+        Random random = new Random(seed);
+        SyntheticFleet fleet = new SyntheticFleet(size);
+        for (int i = 0; i < size; i++) {
+            fleet.driverIds[i] = i + 1;
+            fleet.latitudes[i] = BASE_LAT + (random.nextDouble() * 2 - 1) * spreadDegrees;
+            fleet.longitudes[i] = BASE_LON + (random.nextDouble() * 2 - 1) * spreadDegrees;
+            fleet.ratings[i] = 3.5f + random.nextFloat() * 1.5f;
+            fleet.acceptanceRates[i] = 50f + random.nextFloat() * 50f;
+            fleet.completionRates[i] = 70f + random.nextFloat() * 30f;
+            fleet.ridesCompleted[i] = random.nextInt(2000);
+        }
+        return fleet;
+    }
+
+    /**
+     * Candidate DTO for driver i, built the same way DriverMatchingService builds it
+     */
+    public DriverCandidate candidate(int i, double pickupLat, double pickupLon) {
+        double distance = haversineKm(pickupLat, pickupLon, latitudes[i], longitudes[i]);
+        return DriverCandidate.builder()
+                .driverId(driverIds[i])
+                .driverName("Driver " + driverIds[i])
+                .driverPhone("09" + (10000000 + driverIds[i]))
+                .vehicleId(driverIds[i])
+                .vehicleInfo("Toyota Vios - 51A-" + driverIds[i])
+                .currentLatitude(latitudes[i])
+                .currentLongitude(longitudes[i])
+                .distanceToPickup(distance)
+                .driverRating(ratings[i])
+                .acceptanceRate(acceptanceRates[i])
+                .completionRate(completionRates[i])
+                .totalRidesCompleted(ridesCompleted[i])
+                .estimatedArrivalTime((int) Math.ceil(distance / AVERAGE_SPEED_KMH * 60))
+                .build();
+    }
+
+    /**
+     * Scored candidate pool for a pickup: drivers within radiusKm, best score first, at most limit
+     * @param available drivers to consider (null = all)
+     */
+    public List<DriverCandidate> scoredPool(double pickupLat, double pickupLon, double radiusKm, int limit,
+                                            boolean[] available) {
+        List<DriverCandidate> pool = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (available != null && !available[i]) {
+                continue;
+            }
+            if (haversineKm(pickupLat, pickupLon, latitudes[i], longitudes[i]) <= radiusKm) {
+                DriverCandidate candidate = candidate(i, pickupLat, pickupLon);
+                SCORER.calculateMatchScore(candidate);
+                pool.add(candidate);
+            }
+        }
+        pool.sort(Comparator.comparing(DriverCandidate::getMatchScore).reversed());
+        return pool.size() > limit ? new ArrayList<>(pool.subList(0, limit)) : pool;
+    }
+
+    /**
+     * Random pickup points in the same area as the fleet
+     */
+    public static double[][] pickups(int count, double spreadDegrees, long seed) {
+        Random random = new Random(seed);
+        double[][] points = new double[count][2];
+        for (int i = 0; i < count; i++) {
+            points[i][0] = BASE_LAT + (random.nextDouble() * 2 - 1) * spreadDegrees;
+            points[i][1] = BASE_LON + (random.nextDouble() * 2 - 1) * spreadDegrees;
+        }
+        return points;
+    }
+
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                   Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                   Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
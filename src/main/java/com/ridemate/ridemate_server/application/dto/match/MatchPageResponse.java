@@ -0,0 +1,20 @@
+package com.ridemate.ridemate_server.application.dto.match;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatchPageResponse {
+    private List<MatchResponse> matches;
+    private Integer page;
+    private Integer size;
+    private Long total;
+    private Boolean hasMore;
+}
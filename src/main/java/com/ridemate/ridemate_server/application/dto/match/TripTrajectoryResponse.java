@@ -0,0 +1,34 @@
+package com.ridemate.ridemate_server.application.dto.match;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Recorded path of a match, possibly downsampled
+ * Distance and duration are computed from every recorded fix, not only the returned ones
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripTrajectoryResponse {
+    private Long matchId;
+    private Integer recordedPoints;
+    private Integer returnedPoints;
+    private Double distanceMeters;
+    private Long durationSeconds;
+    private List<Point> points;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+        private Double latitude;
+        private Double longitude;
+        private Long timestamp; // epoch millis
+    }
+}
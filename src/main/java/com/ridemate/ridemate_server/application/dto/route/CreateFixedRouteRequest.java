@@ -7,7 +7,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.List;
 
 @Data
 @Builder
@@ -62,15 +64,25 @@ public class CreateFixedRouteRequest {
     @Schema(description = "Dropoff longitude", example = "106.8069")
     private Double dropoffLongitude;
 
+    @Size(max = 100000, message = "Route polyline must not exceed 100000 characters")
+    @Schema(description = "Encoded polyline of the driving path from pickup to dropoff (from OSRM Directions API); passengers along it can book", example = "encoded_polyline_string")
+    private String routePolyline;
+
     // Schedule
     @NotNull(message = "Departure time is required")
     @Schema(description = "Scheduled departure time", example = "07:30:00")
     private LocalTime departureTime;
 
-    @NotBlank(message = "Specific dates is required")
-    @Schema(description = "Specific dates for this route (comma-separated in yyyy-MM-dd format)", example = "2025-12-22,2025-12-23,2025-12-24", required = true)
+    // At least one of specificDates / recurringDays is required
+    @Schema(description = "Specific dates for this route (comma-separated in yyyy-MM-dd format)", example = "2025-12-22,2025-12-23,2025-12-24")
     private String specificDates;
 
+    @Schema(description = "Weekdays the route runs every week, from today", example = "[\"MON\", \"WED\", \"FRI\"]")
+    private List<String> recurringDays;
+
+    @Schema(description = "Last date of the weekly schedule (none if empty)", example = "2026-06-30")
+    private LocalDate recurringUntil;
+
     // Pricing
     @NotNull(message = "Price per seat is required")
     @Min(value = 0, message = "Price must be non-negative")
@@ -6,11 +6,13 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Schema(description = "Fixed route details response")
@@ -79,6 +81,12 @@ public class FixedRouteResponse {
     @Schema(description = "Specific dates for this route (comma-separated in yyyy-MM-dd format)", example = "2025-12-22,2025-12-23")
     private String specificDates;
 
+    @Schema(description = "Weekdays the route runs every week", example = "[\"MON\", \"WED\", \"FRI\"]")
+    private List<String> recurringDays;
+
+    @Schema(description = "Last date of the weekly schedule (none if empty)", example = "2026-06-30")
+    private LocalDate recurringUntil;
+
     // Pricing and capacity
     @Schema(description = "Price per seat in VND", example = "20000")
     private Integer pricePerSeat;
@@ -92,6 +100,9 @@ public class FixedRouteResponse {
     @Schema(description = "Distance in meters", example = "15000")
     private Double distance;
 
+    @Schema(description = "Encoded polyline of the driving path, null if the route has none")
+    private String routePolyline;
+
     @Schema(description = "Route status", example = "ACTIVE")
     private String status;
 
@@ -108,10 +119,10 @@ public class FixedRouteResponse {
     private LocalDateTime updatedAt;
 
     // Distance from user's search location (optional, calculated during search)
-    @Schema(description = "Distance from user's pickup location to route's pickup point (meters)")
+    @Schema(description = "Distance from user's pickup location to the route (meters)")
     private Double pickupDistanceFromUser;
 
-    @Schema(description = "Distance from user's dropoff location to route's dropoff point (meters)")
+    @Schema(description = "Distance from user's dropoff location to the route (meters)")
     private Double dropoffDistanceFromUser;
 }
 
@@ -7,7 +7,9 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.List;
 
 @Data
 @Builder
@@ -26,9 +28,19 @@ public class UpdateFixedRouteRequest {
     @Schema(description = "Scheduled departure time", example = "08:00:00")
     private LocalTime departureTime;
 
+    @Size(max = 100000, message = "Route polyline must not exceed 100000 characters")
+    @Schema(description = "Encoded polyline of the driving path (empty to remove it)", example = "encoded_polyline_string")
+    private String routePolyline;
+
     @Schema(description = "Specific dates for this route (comma-separated in yyyy-MM-dd format)", example = "2025-12-22,2025-12-23")
     private String specificDates;
 
+    @Schema(description = "Weekdays the route runs every week (empty list to stop)", example = "[\"MON\", \"WED\", \"FRI\"]")
+    private List<String> recurringDays;
+
+    @Schema(description = "Last date of the weekly schedule", example = "2026-06-30")
+    private LocalDate recurringUntil;
+
     @Min(value = 0, message = "Price must be non-negative")
     @Schema(description = "Price per seat in VND", example = "25000")
     private Integer pricePerSeat;
@@ -18,7 +18,10 @@ public interface FixedRouteMapper {
     @Mapping(source = "vehicle.licensePlate", target = "licensePlate")
     @Mapping(target = "vehicleInfo", expression = "java(route.getVehicle().getModel() + \" - \" + route.getVehicle().getLicensePlate())")
     @Mapping(target = "status", expression = "java(route.getStatus().name())")
-    @Mapping(source = "specificDates", target = "specificDates")
+    @Mapping(target = "specificDates", expression = "java(route.getSchedule() != null ? route.getSchedule().specificDatesText() : null)")
+    @Mapping(target = "recurringDays", expression = "java(route.getSchedule() != null ? route.getSchedule().recurringDayCodes() : java.util.List.of())")
+    @Mapping(source = "schedule.recurringUntil", target = "recurringUntil")
+    @Mapping(target = "routePolyline", expression = "java(route.getPath() != null ? com.ridemate.ridemate_server.infrastructure.codec.PolylineCodec.toEncoded(route.getPath()) : null)")
     @Mapping(target = "pickupDistanceFromUser", ignore = true)
     @Mapping(target = "dropoffDistanceFromUser", ignore = true)
     FixedRouteResponse toResponse(FixedRoute route);
@@ -34,6 +34,7 @@ public interface MatchMapper {
     @Mapping(target = "passengerReviews", ignore = true)
     @Mapping(target = "driverRating", ignore = true)
     @Mapping(target = "estimatedPrice", ignore = true)
+    @Mapping(target = "routePolyline", ignore = true)
     MatchResponse toResponse(Match match);
 
     @Named("mapVehicleInfo")
@@ -27,9 +27,7 @@ public class AdminDashboardServiceImpl implements AdminDashboardService {
     @Override
     public DashboardStatsResponse getComprehensiveDashboardStats() {
         Long totalDrivers = driverAnalyticsService.getTotalDrivers();
-        Long totalPassengers = userRepository.findAll().stream()
-                .filter(u -> u.getUserType() == User.UserType.PASSENGER)
-                .count();
+        Long totalPassengers = userRepository.countByUserType(User.UserType.PASSENGER);
         
         Long totalTrips = tripAnalyticsService.getTotalTrips();
         Long totalRevenue = revenueAnalyticsService.getTotalRevenue();
@@ -44,11 +42,7 @@ public class AdminDashboardServiceImpl implements AdminDashboardService {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime startOfLastMonth = now.minusMonths(1).truncatedTo(ChronoUnit.DAYS);
         
-        long driversLastMonth = userRepository.findAll().stream()
-                .filter(u -> u.getUserType() == User.UserType.DRIVER && 
-                             u.getCreatedAt() != null && 
-                             u.getCreatedAt().isAfter(startOfLastMonth))
-                .count();
+        long driversLastMonth = userRepository.countByUserTypeSince(User.UserType.DRIVER, startOfLastMonth);
         
         Double driversGrowth = totalDrivers > 0 ? (driversLastMonth * 100.0 / totalDrivers) : 0.0;
         Double revenueGrowth = revenueAnalyticsService.getRevenueGrowthPercentage();
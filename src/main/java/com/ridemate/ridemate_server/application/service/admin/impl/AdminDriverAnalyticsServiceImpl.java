@@ -2,17 +2,19 @@ package com.ridemate.ridemate_server.application.service.admin.impl;
 
 import com.ridemate.ridemate_server.application.dto.admin.DriverRankingResponse;
 import com.ridemate.ridemate_server.application.service.admin.AdminDriverAnalyticsService;
-import com.ridemate.ridemate_server.domain.entity.Feedback;
 import com.ridemate.ridemate_server.domain.entity.Match;
 import com.ridemate.ridemate_server.domain.entity.User;
 import com.ridemate.ridemate_server.domain.repository.FeedbackRepository;
 import com.ridemate.ridemate_server.domain.repository.MatchRepository;
 import com.ridemate.ridemate_server.domain.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,93 +27,73 @@ public class AdminDriverAnalyticsServiceImpl implements AdminDriverAnalyticsServ
 
     @Override
     public List<DriverRankingResponse> getTopDrivers(int limit) {
-        List<Match> completedMatches = matchRepository.findByStatus(Match.MatchStatus.COMPLETED);
-        
-        Map<Long, List<Match>> driverMatches = completedMatches.stream()
-                .filter(m -> m.getDriver() != null)
-                .collect(Collectors.groupingBy(m -> m.getDriver().getId()));
-        
-        List<DriverRankingResponse> rankings = driverMatches.entrySet().stream()
-                .map(entry -> {
-                    Long driverId = entry.getKey();
-                    List<Match> matches = entry.getValue();
-                    
-                    User driver = userRepository.findById(driverId).orElse(null);
-                    if (driver == null) return null;
-                    
-                    int totalTrips = matches.size();
-                    int totalCoins = matches.stream()
-                            .mapToInt(m -> m.getCoin() != null ? m.getCoin() : 0)
-                            .sum();
-                    
-                    List<Feedback> driverFeedbacks = feedbackRepository.findAll().stream()
-                            .filter(f -> f.getReviewed() != null && f.getReviewed().getId().equals(driverId))
-                            .collect(Collectors.toList());
-                    
-                    double avgRating = driverFeedbacks.stream()
-                            .mapToDouble(f -> f.getRating() != null ? f.getRating() : 0)
-                            .average()
-                            .orElse(0.0);
-                    
-                    List<Match> allDriverMatches = matchRepository.findByDriverId(driverId);
-                    long acceptedMatches = allDriverMatches.stream()
-                            .filter(m -> m.getStatus() != Match.MatchStatus.PENDING && 
-                                         m.getStatus() != Match.MatchStatus.WAITING)
-                            .count();
-                    
-                    double acceptanceRate = allDriverMatches.size() > 0 
-                            ? (acceptedMatches * 100.0 / allDriverMatches.size()) : 0;
-                    double completionRate = acceptedMatches > 0 
-                            ? (totalTrips * 100.0 / acceptedMatches) : 0;
-                    
-                    return DriverRankingResponse.builder()
-                            .driverId(driverId)
-                            .driverName(driver.getFullName())
-                            .driverPhone(driver.getPhoneNumber())
-                            .avatarUrl(driver.getProfilePictureUrl())
-                            .totalTrips(totalTrips)
-                            .totalCoinsEarned(totalCoins)
-                            .averageRating(avgRating)
-                            .acceptanceRate(acceptanceRate)
-                            .completionRate(completionRate)
-                            .build();
-                })
-                .filter(r -> r != null)
-                .sorted((a, b) -> Integer.compare(b.getTotalCoinsEarned(), a.getTotalCoinsEarned()))
-                .limit(limit)
-                .collect(Collectors.toList());
-        
-        int rank = 1;
-        for (DriverRankingResponse ranking : rankings) {
-            ranking.setRank(rank++);
+        if (limit <= 0) {
+            return new ArrayList<>();
         }
-        
+        // (driver id, completed trips, coins earned), highest earners first
+        List<Object[]> earnings = matchRepository.findTopDriverEarnings(
+                Match.MatchStatus.COMPLETED, PageRequest.of(0, limit));
+        if (earnings.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> driverIds = earnings.stream().map(row -> (Long) row[0]).collect(Collectors.toList());
+
+        Map<Long, User> drivers = userRepository.findAllById(driverIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        Map<Long, Double> ratings = feedbackRepository.findAverageRatingByReviewedIds(driverIds).stream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> ((Number) row[1]).doubleValue()));
+        Map<Long, long[]> acceptance = matchRepository.countAcceptedByDriverIds(driverIds).stream()
+                .collect(Collectors.toMap(row -> (Long) row[0],
+                        row -> new long[]{((Number) row[1]).longValue(), ((Number) row[2]).longValue()}));
+
+        List<DriverRankingResponse> rankings = new ArrayList<>();
+        for (Object[] row : earnings) {
+            Long driverId = (Long) row[0];
+            User driver = drivers.get(driverId);
+            if (driver == null) continue;
+
+            int totalTrips = ((Number) row[1]).intValue();
+            int totalCoins = ((Number) row[2]).intValue();
+
+            long[] matchCounts = acceptance.getOrDefault(driverId, new long[]{0, 0});
+            long allDriverMatches = matchCounts[0];
+            long acceptedMatches = matchCounts[1];
+
+            double acceptanceRate = allDriverMatches > 0
+                    ? (acceptedMatches * 100.0 / allDriverMatches) : 0;
+            double completionRate = acceptedMatches > 0
+                    ? (totalTrips * 100.0 / acceptedMatches) : 0;
+
+            rankings.add(DriverRankingResponse.builder()
+                    .rank(rankings.size() + 1)
+                    .driverId(driverId)
+                    .driverName(driver.getFullName())
+                    .driverPhone(driver.getPhoneNumber())
+                    .avatarUrl(driver.getProfilePictureUrl())
+                    .totalTrips(totalTrips)
+                    .totalCoinsEarned(totalCoins)
+                    .averageRating(ratings.getOrDefault(driverId, 0.0))
+                    .acceptanceRate(acceptanceRate)
+                    .completionRate(completionRate)
+                    .build());
+        }
+
         return rankings;
     }
 
     @Override
     public Long getTotalDrivers() {
-        return userRepository.findAll().stream()
-                .filter(u -> u.getUserType() == User.UserType.DRIVER)
-                .count();
+        return userRepository.countByUserType(User.UserType.DRIVER);
     }
 
     @Override
     public Long getActiveDrivers() {
-        return userRepository.findByUserTypeAndDriverStatus(
-                User.UserType.DRIVER, 
-                User.DriverStatus.ONLINE
-        ).stream().count();
+        return userRepository.countActiveDrivers();
     }
 
     @Override
     public Double getAverageDriverRating() {
-        List<Feedback> allFeedbacks = feedbackRepository.findAll();
-        
-        return allFeedbacks.stream()
-                .filter(f -> f.getRating() != null)
-                .mapToDouble(Feedback::getRating)
-                .average()
-                .orElse(0.0);
+        Double averageRating = feedbackRepository.findAverageRating();
+        return averageRating != null ? averageRating : 0.0;
     }
 }
@@ -15,24 +15,20 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AdminRealTimeMonitoringServiceImpl implements AdminRealTimeMonitoringService {
 
+    private static final List<Match.MatchStatus> ACTIVE_STATUSES =
+            List.of(Match.MatchStatus.ACCEPTED, Match.MatchStatus.IN_PROGRESS);
+
     private final MatchRepository matchRepository;
 
     @Override
     public List<ActiveTripResponse> getActiveTrips() {
-        List<Match> activeMatches = matchRepository.findAll().stream()
-                .filter(m -> m.getStatus() == Match.MatchStatus.ACCEPTED || 
-                             m.getStatus() == Match.MatchStatus.IN_PROGRESS)
-                .collect(Collectors.toList());
-        
+        List<Match> activeMatches = matchRepository.findByStatusIn(ACTIVE_STATUSES);
         return convertToActiveTripResponses(activeMatches);
     }
 
     @Override
     public Long getActiveTripsCount() {
-        return matchRepository.findAll().stream()
-                .filter(m -> m.getStatus() == Match.MatchStatus.ACCEPTED || 
-                             m.getStatus() == Match.MatchStatus.IN_PROGRESS)
-                .count();
+        return matchRepository.countByStatusIn(ACTIVE_STATUSES);
     }
 
     @Override
@@ -9,7 +9,6 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -19,32 +18,19 @@ public class AdminRevenueAnalyticsServiceImpl implements AdminRevenueAnalyticsSe
 
     @Override
     public Long getTotalRevenue() {
-        return matchRepository.findByStatus(Match.MatchStatus.COMPLETED).stream()
-                .mapToLong(m -> m.getCoin() != null ? m.getCoin() : 0)
-                .sum();
+        return matchRepository.sumCoinByStatus(Match.MatchStatus.COMPLETED);
     }
 
     @Override
     public Long getTodayRevenue() {
         LocalDateTime startOfToday = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS);
-        return matchRepository.findByStatus(Match.MatchStatus.COMPLETED).stream()
-                .filter(m -> m.getCreatedAt().isAfter(startOfToday))
-                .mapToLong(m -> m.getCoin() != null ? m.getCoin() : 0)
-                .sum();
+        return matchRepository.sumCoinByStatusBetween(Match.MatchStatus.COMPLETED, startOfToday, startOfToday.plusDays(1));
     }
 
     @Override
     public Long getRevenueByDateRange(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-        
-        return matchRepository.findByStatus(Match.MatchStatus.COMPLETED).stream()
-                .filter(m -> {
-                    LocalDateTime createdAt = m.getCreatedAt();
-                    return !createdAt.isBefore(startDateTime) && !createdAt.isAfter(endDateTime);
-                })
-                .mapToLong(m -> m.getCoin() != null ? m.getCoin() : 0)
-                .sum();
+        return matchRepository.sumCoinByStatusBetween(Match.MatchStatus.COMPLETED,
+                startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
     }
 
     @Override
@@ -53,20 +39,10 @@ public class AdminRevenueAnalyticsServiceImpl implements AdminRevenueAnalyticsSe
         LocalDateTime startOfThisMonth = now.withDayOfMonth(1).truncatedTo(ChronoUnit.DAYS);
         LocalDateTime startOfLastMonth = startOfThisMonth.minusMonths(1);
         
-        List<Match> completedMatches = matchRepository.findByStatus(Match.MatchStatus.COMPLETED);
-        
-        long thisMonthRevenue = completedMatches.stream()
-                .filter(m -> m.getCreatedAt().isAfter(startOfThisMonth))
-                .mapToLong(m -> m.getCoin() != null ? m.getCoin() : 0)
-                .sum();
-        
-        long lastMonthRevenue = completedMatches.stream()
-                .filter(m -> {
-                    LocalDateTime createdAt = m.getCreatedAt();
-                    return !createdAt.isBefore(startOfLastMonth) && createdAt.isBefore(startOfThisMonth);
-                })
-                .mapToLong(m -> m.getCoin() != null ? m.getCoin() : 0)
-                .sum();
+        long thisMonthRevenue = matchRepository.sumCoinByStatusBetween(
+                Match.MatchStatus.COMPLETED, startOfThisMonth, startOfThisMonth.plusMonths(1));
+        long lastMonthRevenue = matchRepository.sumCoinByStatusBetween(
+                Match.MatchStatus.COMPLETED, startOfLastMonth, startOfThisMonth);
         
         if (lastMonthRevenue == 0) return 0.0;
         
@@ -1,6 +1,7 @@
 package com.ridemate.ridemate_server.application.service.admin.impl;
 
 import com.ridemate.ridemate_server.application.service.admin.AdminService;
+import com.ridemate.ridemate_server.application.service.vehicle.ApprovedVehicleCache;
 import com.ridemate.ridemate_server.domain.entity.Match;
 import com.ridemate.ridemate_server.domain.entity.Report;
 import com.ridemate.ridemate_server.domain.entity.Session;
@@ -32,6 +33,7 @@ public class AdminServiceImpl implements AdminService {
     private final SessionRepository sessionRepository;
     private final VoucherRepository voucherRepository;
     private final VehicleRepository vehicleRepository;
+    private final ApprovedVehicleCache approvedVehicleCache;
     private final com.ridemate.ridemate_server.domain.repository.MessageRepository messageRepository;
     private final com.ridemate.ridemate_server.domain.repository.UserVoucherRepository userVoucherRepository;
     private final com.ridemate.ridemate_server.domain.repository.MatchRepository matchRepository;
@@ -359,18 +361,15 @@ public class AdminServiceImpl implements AdminService {
 
         TripManagementDto.DriverInfo driverInfo = null;
         if (driver != null) {
-            var vehicle = vehicleRepository.findByDriverIdAndStatus(
-                    driver.getId(),
-                    com.ridemate.ridemate_server.domain.entity.Vehicle.VehicleStatus.APPROVED
-            ).stream().findFirst().orElse(null);
+            var vehicle = approvedVehicleCache.get(driver.getId()).orElse(null);
             
             TripManagementDto.VehicleInfo vehicleInfo = null;
             if (vehicle != null) {
                 vehicleInfo = TripManagementDto.VehicleInfo.builder()
-                        .id(vehicle.getId())
-                        .vehicleType(vehicle.getVehicleType().toString())
-                        .licensePlate(vehicle.getLicensePlate())
-                        .model(vehicle.getModel())
+                        .id(vehicle.vehicleId())
+                        .vehicleType(vehicle.vehicleType().toString())
+                        .licensePlate(vehicle.licensePlate())
+                        .model(vehicle.model())
                         .build();
             }
             
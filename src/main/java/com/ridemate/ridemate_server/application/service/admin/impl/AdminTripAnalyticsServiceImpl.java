@@ -11,7 +11,6 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,42 +21,15 @@ public class AdminTripAnalyticsServiceImpl implements AdminTripAnalyticsService
 
     @Override
     public List<TripVolumeResponse> getTripVolumeByDateRange(LocalDate startDate, LocalDate endDate) {
-        List<Match> matches = matchRepository.findAll();
-        
-        Map<LocalDate, List<Match>> groupedByDate = matches.stream()
-                .filter(m -> {
-                    LocalDate matchDate = m.getCreatedAt().toLocalDate();
-                    return !matchDate.isBefore(startDate) && !matchDate.isAfter(endDate);
-                })
-                .collect(Collectors.groupingBy(m -> m.getCreatedAt().toLocalDate()));
-        
-        return groupedByDate.entrySet().stream()
-                .map(entry -> {
-                    LocalDate date = entry.getKey();
-                    List<Match> dayMatches = entry.getValue();
-                    
-                    long completedTrips = dayMatches.stream()
-                            .filter(m -> m.getStatus() == Match.MatchStatus.COMPLETED)
-                            .count();
-                    
-                    long cancelledTrips = dayMatches.stream()
-                            .filter(m -> m.getStatus() == Match.MatchStatus.CANCELLED)
-                            .count();
-                    
-                    long totalCoin = dayMatches.stream()
-                            .filter(m -> m.getStatus() == Match.MatchStatus.COMPLETED)
-                            .mapToLong(m -> m.getCoin() != null ? m.getCoin() : 0)
-                            .sum();
-                    
-                    return TripVolumeResponse.builder()
-                            .date(date)
-                            .tripCount((long) dayMatches.size())
-                            .totalCoin(totalCoin)
-                            .completedTrips(completedTrips)
-                            .cancelledTrips(cancelledTrips)
-                            .build();
-                })
-                .sorted((a, b) -> a.getDate().compareTo(b.getDate()))
+        // One aggregated row per day, already in date order
+        return matchRepository.findDailyTripVolume(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay()).stream()
+                .map(day -> TripVolumeResponse.builder()
+                        .date(day.getDay())
+                        .tripCount(day.getTripCount())
+                        .totalCoin(day.getTotalCoin())
+                        .completedTrips(day.getCompletedTrips())
+                        .cancelledTrips(day.getCancelledTrips())
+                        .build())
                 .collect(Collectors.toList());
     }
 
@@ -69,9 +41,7 @@ public class AdminTripAnalyticsServiceImpl implements AdminTripAnalyticsService
     @Override
     public Long getTodayTrips() {
         LocalDateTime startOfToday = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS);
-        return matchRepository.findAll().stream()
-                .filter(m -> m.getCreatedAt().isAfter(startOfToday))
-                .count();
+        return matchRepository.countByCreatedAtGreaterThanEqual(startOfToday);
     }
 
     @Override
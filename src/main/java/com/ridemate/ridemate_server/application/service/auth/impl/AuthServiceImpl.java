@@ -488,6 +488,7 @@ public class AuthServiceImpl implements AuthService {
                 user.setDriverStatus(User.DriverStatus.OFFLINE);
                 user.setLastLocationUpdate(LocalDateTime.now());
                 userRepository.save(user);
+                driverLocationService.removeFromMatching(userId);
                 log.info("Driver {} set to OFFLINE on logout.", userId);
             } else {
                 log.info("User {} logged out.", userId);
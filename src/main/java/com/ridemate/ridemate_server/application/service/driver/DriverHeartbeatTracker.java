@@ -0,0 +1,152 @@
+package com.ridemate.ridemate_server.application.service.driver;
+
+import com.ridemate.ridemate_server.application.service.match.DriverSpatialIndex;
+import com.ridemate.ridemate_server.infrastructure.scheduling.HashedTimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes ONLINE drivers whose app went silent out of matching
+ *
+ * Every driver entering the DriverSpatialIndex gets one timeout on a timing wheel, due staleAfter
+ * later. Pings do not touch the wheel: when the timeout fires it reads the driver's last index
+ * update and, if the driver pinged meanwhile, re-arms itself for the remaining time. A driver
+ * silent for the whole period is queued as stale; the sweeper removes queued drivers from the
+ * index and from Supabase driver_locations and sets them OFFLINE in one JDBC batch.
+ */
+@Component
+@Slf4j
+public class DriverHeartbeatTracker {
+
+    // Only ONLINE drivers go OFFLINE: a status change since the driver went silent wins
+    private static final String MARK_OFFLINE_SQL =
+            "UPDATE users SET driver_status = 'OFFLINE' WHERE id = ? AND driver_status = 'ONLINE'";
+
+    @Autowired
+    private DriverSpatialIndex driverSpatialIndex;
+
+    @Autowired
+    private SupabaseRealtimeService supabaseRealtimeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${driver-heartbeat.stale-after-seconds:120}")
+    private long staleAfterSeconds;
+
+    @Value("${driver-heartbeat.sweep-interval-ms:5000}")
+    private long sweepIntervalMs;
+
+    private final Map<Long, HashedTimingWheel.Timeout> armed = new ConcurrentHashMap<>();
+    private final Set<Long> stale = ConcurrentHashMap.newKeySet();
+    private HashedTimingWheel wheel;
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void start() {
+        // Expiry only reads the index and re-arms or queues, so it runs on the wheel thread itself
+        wheel = new HashedTimingWheel("driver-heartbeats", 1, TimeUnit.SECONDS, 512, Runnable::run);
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "driver-stale-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweepQuietly, sweepIntervalMs, sweepIntervalMs, TimeUnit.MILLISECONDS);
+        // Registered before the index is warmed, so drivers loaded on startup are tracked too
+        driverSpatialIndex.setIndexedListener(driverId -> arm(driverId, staleAfterMillis()));
+    }
+
+    @PreDestroy
+    public void stop() {
+        driverSpatialIndex.setIndexedListener(null);
+        sweeper.shutdown();
+        wheel.stop();
+    }
+
+    private long staleAfterMillis() {
+        return TimeUnit.SECONDS.toMillis(staleAfterSeconds);
+    }
+
+    private void arm(Long driverId, long delayMillis) {
+        armed.computeIfAbsent(driverId,
+                id -> wheel.schedule(() -> check(id), delayMillis, TimeUnit.MILLISECONDS));
+    }
+
+    private void check(Long driverId) {
+        // Removed before reading the index, so a driver re-indexed from now on arms a new timeout
+        armed.remove(driverId);
+        DriverSpatialIndex.Position position = driverSpatialIndex.getPosition(driverId);
+        if (position == null) {
+            // OFFLINE or BUSY meanwhile; tracked again when it comes back ONLINE
+            return;
+        }
+        long idleMillis = System.currentTimeMillis() - position.updatedAtMillis();
+        if (idleMillis < staleAfterMillis()) {
+            arm(driverId, staleAfterMillis() - idleMillis);
+        } else {
+            stale.add(driverId);
+        }
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (Exception e) {
+            log.error("Stale driver sweep failed: {}", e.getMessage(), e);
+        }
+    }
+
+    void sweep() {
+        if (stale.isEmpty()) {
+            return;
+        }
+
+        long cutoffMillis = System.currentTimeMillis() - staleAfterMillis();
+        List<Long> expired = new ArrayList<>();
+        for (Iterator<Long> iterator = stale.iterator(); iterator.hasNext(); ) {
+            Long driverId = iterator.next();
+            iterator.remove();
+            if (driverSpatialIndex.removeIfIdleSince(driverId, cutoffMillis)) {
+                expired.add(driverId);
+            } else {
+                // Pinged after being queued: keep watching it (the timeout drops it if it left the index)
+                arm(driverId, staleAfterMillis());
+            }
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+
+        expired.forEach(supabaseRealtimeService::removeDriverLocation);
+        jdbcTemplate.batchUpdate(MARK_OFFLINE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                statement.setLong(1, expired.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return expired.size();
+            }
+        });
+        log.info("Set {} silent drivers OFFLINE (no location for {}s)", expired.size(), staleAfterSeconds);
+    }
+}
@@ -1,13 +1,21 @@
 package com.ridemate.ridemate_server.application.service.driver;
 
+import com.ridemate.ridemate_server.application.service.match.DriverSpatialIndex;
+import com.ridemate.ridemate_server.application.service.trajectory.TripTrajectoryRecorder;
 import com.ridemate.ridemate_server.domain.entity.User;
 import com.ridemate.ridemate_server.domain.repository.UserRepository;
+import com.ridemate.ridemate_server.infrastructure.codec.LocationBatchCodec;
+import com.ridemate.ridemate_server.infrastructure.routing.RoadGraph;
+import com.ridemate.ridemate_server.presentation.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +33,10 @@ public class DriverLocationService {
 
     private final UserRepository userRepository;
     private final SupabaseRealtimeService supabaseRealtimeService;
+    private final DriverSpatialIndex driverSpatialIndex;
+    private final DriverLocationStore locationStore;
+    private final TripTrajectoryRecorder tripTrajectoryRecorder;
+    private final LocationSamplingPolicy samplingPolicy;
     private static final Random RANDOM = new Random();
     
     // Simulate drivers moving around Ho Chi Minh city center
@@ -51,15 +63,17 @@ public class DriverLocationService {
             return;
         }
 
-        // Simulate slight movement (random walk)
-        double newLat = driver.getCurrentLatitude() + (RANDOM.nextDouble() - 0.5) * 0.01;
-        double newLon = driver.getCurrentLongitude() + (RANDOM.nextDouble() - 0.5) * 0.01;
+        DriverLocationStore.Location current = locationStore.latestOf(driver);
+        if (current == null) {
+            return;
+        }
 
-        driver.setCurrentLatitude(newLat);
-        driver.setCurrentLongitude(newLon);
-        driver.setLastLocationUpdate(LocalDateTime.now());
+        // Simulate slight movement (random walk)
+        double newLat = current.latitude() + (RANDOM.nextDouble() - 0.5) * 0.01;
+        double newLon = current.longitude() + (RANDOM.nextDouble() - 0.5) * 0.01;
 
-        userRepository.save(driver);
+        locationStore.record(driverId, newLat, newLon);
+        driverSpatialIndex.upsert(driverId, newLat, newLon);
 
         supabaseRealtimeService.updateDriverLocation(
                 driverId,
@@ -102,34 +116,126 @@ public class DriverLocationService {
     }
 
     /**
-     * Set driver to a specific location (for testing)
+     * Result of a location report: whether it moved the driver, and when the app should report next
      */
-    @Transactional
-    public void setDriverLocation(Long driverId, Double latitude, Double longitude) {
-        User driver = userRepository.findById(driverId)
-                .orElseThrow(() -> new RuntimeException("Driver not found: " + driverId));
+    public record LocationAck(boolean applied, int nextReportSeconds) {
+    }
 
-        driver.setCurrentLatitude(latitude);
-        driver.setCurrentLongitude(longitude);
-        driver.setLastLocationUpdate(LocalDateTime.now());
+    /**
+     * Set driver to a specific location
+     * Called on every GPS ping: the position goes to the write-behind store and the matching index
+     * without loading or saving the User row; the status is only read for drivers not in the index.
+     */
+    public LocationAck setDriverLocation(Long driverId, Double latitude, Double longitude) {
+        requireKnownDriver(driverId);
+        DriverLocationStore.Location previous = locationStore.get(driverId);
+        DriverLocationStore.Location current = locationStore.record(driverId, latitude, longitude);
+        tripTrajectoryRecorder.record(driverId, latitude, longitude, System.currentTimeMillis());
+        User.DriverStatus status = propagateLocation(driverId, latitude, longitude);
 
-        userRepository.save(driver);
+        double speed = -1;
+        if (previous != null && previous.updatedAt() != null && current != null) {
+            long elapsedMillis = Duration.between(previous.updatedAt(), current.updatedAt()).toMillis();
+            speed = speedMetersPerSecond(previous.latitude(), previous.longitude(), latitude, longitude, elapsedMillis);
+        }
+        return new LocationAck(true, samplingPolicy.nextReportSeconds(driverId, status, speed, latitude, longitude));
+    }
+
+    public LocationAck updateDriverLocation(Long driverId, Double latitude, Double longitude) {
+        return setDriverLocation(driverId, latitude, longitude);
+    }
+
+    /**
+     * Apply a batch of fixes uploaded by the driver app; the newest one becomes the current location
+     * unless a newer fix has already been received (batches can arrive late or out of order)
+     */
+    public LocationAck ingestFixes(Long driverId, LocationBatchCodec.Fixes fixes) {
+        requireKnownDriver(driverId);
+        // Every fix counts for the trip path, even when the batch is too old to move the driver
+        tripTrajectoryRecorder.recordAll(driverId, fixes);
+
+        int newest = fixes.count() - 1;
+        // Never trust a device clock that runs ahead of ours
+        long takenAtMillis = Math.min(fixes.timeMillis(newest), System.currentTimeMillis());
+        LocalDateTime takenAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(takenAtMillis), ZoneId.systemDefault());
+
+        double latitude = fixes.latitude(newest);
+        double longitude = fixes.longitude(newest);
+        double speed = newest > 0
+                ? speedMetersPerSecond(fixes.latitude(newest - 1), fixes.longitude(newest - 1), latitude, longitude,
+                        fixes.timeMillis(newest) - fixes.timeMillis(newest - 1))
+                : -1;
+        if (locationStore.record(driverId, latitude, longitude, takenAt) == null) {
+            log.debug("Driver {} sent a batch older than its current location, ignored", driverId);
+            // The newer report already got its own interval; keep this client on the short one
+            return new LocationAck(false, samplingPolicy.nextReportSeconds(driverId, null, -1, latitude, longitude));
+        }
+        User.DriverStatus status = propagateLocation(driverId, latitude, longitude);
+        return new LocationAck(true, samplingPolicy.nextReportSeconds(driverId, status, speed, latitude, longitude));
+    }
+
+    /**
+     * Reject pings from ids that are not drivers before anything is kept in memory for them.
+     * Drivers already in the store or the matching index were checked before, so only the first
+     * ping of a driver after startup costs a query.
+     */
+    private void requireKnownDriver(Long driverId) {
+        if (locationStore.get(driverId) != null || driverSpatialIndex.getPosition(driverId) != null) {
+            return;
+        }
+        if (!userRepository.existsByIdAndUserType(driverId, User.UserType.DRIVER)) {
+            throw new ResourceNotFoundException("Driver not found: " + driverId);
+        }
+    }
+
+    private static double speedMetersPerSecond(double fromLatitude, double fromLongitude,
+                                               double toLatitude, double toLongitude, long elapsedMillis) {
+        // Two reports less than a second apart say more about GPS noise than about speed
+        if (elapsedMillis < 1000) {
+            return -1;
+        }
+        return RoadGraph.distanceMeters(fromLatitude, fromLongitude, toLatitude, toLongitude) * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * @return the driver's status, or null if it has none
+     */
+    private User.DriverStatus propagateLocation(Long driverId, double latitude, double longitude) {
+        // Indexed means ONLINE; anyone else (BUSY during a ride, OFFLINE) keeps pinging but stays unmatchable
+        User.DriverStatus status;
+        if (driverSpatialIndex.moveIfIndexed(driverId, latitude, longitude)) {
+            status = User.DriverStatus.ONLINE;
+        } else {
+            status = userRepository.findDriverStatusById(driverId).orElseGet(() -> {
+                if (!userRepository.existsById(driverId)) {
+                    throw new RuntimeException("Driver not found: " + driverId);
+                }
+                return null;
+            });
+            if (status == User.DriverStatus.ONLINE) {
+                // ONLINE but missing from the index (went online without a position, removed by a
+                // rolled back accept, ...): the ping makes the driver matchable again
+                driverSpatialIndex.upsert(driverId, latitude, longitude);
+            }
+        }
 
-        // Always update Supabase for real-time tracking (even during rides)
+        // OFFLINE drivers were removed from driver_locations (by hand or for going silent); do not bring them back
+        if (status == User.DriverStatus.OFFLINE) {
+            log.debug("Driver {} is OFFLINE, location kept but not published", driverId);
+            return status;
+        }
+
+        // Update Supabase for real-time tracking (even during rides)
         supabaseRealtimeService.updateDriverLocation(
                 driverId,
                 latitude,
                 longitude,
-                driver.getDriverStatus() != null ? driver.getDriverStatus().name() : "UNKNOWN"
+                status != null ? status.name() : "UNKNOWN"
         );
 
-        log.info("Driver {} location set to ({}, {}) with status {}", 
-                driverId, latitude, longitude, driver.getDriverStatus());
-    }
-
-    @Transactional
-    public void updateDriverLocation(Long driverId, Double latitude, Double longitude) {
-        setDriverLocation(driverId, latitude, longitude);
+        log.debug("Driver {} location set to ({}, {}) with status {}",
+                driverId, latitude, longitude, status);
+        return status;
     }
 
     @Transactional
@@ -137,8 +243,10 @@ public class DriverLocationService {
         User driver = userRepository.findById(driverId)
                 .orElseThrow(() -> new RuntimeException("Driver not found: " + driverId));
 
+        locationStore.applyLatest(driver);
         driver.setDriverStatus(status);
         userRepository.save(driver);
+        driverSpatialIndex.onStatusChanged(driverId, status, driver.getCurrentLatitude(), driver.getCurrentLongitude());
 
         if (status == User.DriverStatus.ONLINE) {
             supabaseRealtimeService.updateDriverLocation(
@@ -154,18 +262,26 @@ public class DriverLocationService {
         log.info("Driver {} status changed to {}", driverId, status);
     }
 
+    /**
+     * Drop a driver from the matching index (e.g. on logout)
+     */
+    public void removeFromMatching(Long driverId) {
+        driverSpatialIndex.remove(driverId);
+    }
+
     public List<Map<String, Object>> getOnlineDriversWithLocations() {
         List<User> onlineDrivers = getOnlineDrivers();
         
         return onlineDrivers.stream()
                 .map(driver -> {
+                    DriverLocationStore.Location location = locationStore.latestOf(driver);
                     Map<String, Object> driverData = new HashMap<>();
                     driverData.put("driver_id", driver.getId());
                     driverData.put("driver_name", driver.getFullName());
-                    driverData.put("latitude", driver.getCurrentLatitude());
-                    driverData.put("longitude", driver.getCurrentLongitude());
+                    driverData.put("latitude", location != null ? location.latitude() : null);
+                    driverData.put("longitude", location != null ? location.longitude() : null);
                     driverData.put("driver_status", driver.getDriverStatus().name());
-                    driverData.put("last_updated", driver.getLastLocationUpdate());
+                    driverData.put("last_updated", location != null ? location.updatedAt() : null);
                     return driverData;
                 })
                 .collect(Collectors.toList());
@@ -177,6 +293,7 @@ public class DriverLocationService {
                 .orElseThrow(() -> new RuntimeException("Driver not found: " + driverId));
 
         User.DriverStatus driverStatus = User.DriverStatus.valueOf(status.toUpperCase());
+        locationStore.applyLatest(driver);
         driver.setDriverStatus(driverStatus);
         
         if (driverStatus == User.DriverStatus.ONLINE) {
@@ -190,6 +307,7 @@ public class DriverLocationService {
             driver.setLastLocationUpdate(LocalDateTime.now());
             
             userRepository.save(driver);
+            driverSpatialIndex.upsert(driverId, driver.getCurrentLatitude(), driver.getCurrentLongitude());
             
             // Sync lên Supabase để frontend có thể fetch nearby drivers
             supabaseRealtimeService.updateDriverLocation(
@@ -203,6 +321,7 @@ public class DriverLocationService {
                     driverId, driver.getCurrentLatitude(), driver.getCurrentLongitude());
         } else {
             userRepository.save(driver);
+            driverSpatialIndex.remove(driverId);
             supabaseRealtimeService.removeDriverLocation(driverId);
         }
 
@@ -0,0 +1,194 @@
+package com.ridemate.ridemate_server.application.service.driver;
+
+import com.ridemate.ridemate_server.domain.entity.User;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind store of the latest driver positions
+ *
+ * Location pings land here and are readable immediately; a background thread writes the latest
+ * position of every driver that moved since the last flush in one JDBC batch, touching only the
+ * current_latitude / current_longitude / last_location_update columns. Pings between two flushes
+ * coalesce into a single row update, and a crash loses at most one flush interval of positions
+ * (drivers re-send theirs on the next ping anyway).
+ */
+@Component
+@Slf4j
+public class DriverLocationStore {
+
+    // Never move a row back in time: a status change may have written a newer position meanwhile
+    private static final String UPDATE_SQL = "UPDATE users SET current_latitude = ?, current_longitude = ?, " +
+            "last_location_update = ? WHERE id = ? " +
+            "AND (last_location_update IS NULL OR last_location_update <= ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${driver-location.flush-interval-ms:2000}")
+    private long flushIntervalMs;
+
+    @Value("${driver-location.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    /**
+     * Latest known position of a driver
+     */
+    public record Location(long driverId, double latitude, double longitude, LocalDateTime updatedAt) {
+    }
+
+    private final Map<Long, Location> latest = new ConcurrentHashMap<>();
+    private final Map<Long, Location> dirty = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "driver-location-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(flushIntervalMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    /**
+     * Record a ping; the database is updated on the next flush
+     */
+    public Location record(Long driverId, double latitude, double longitude) {
+        return record(driverId, latitude, longitude, LocalDateTime.now());
+    }
+
+    /**
+     * Record a fix taken at the given time (batched uploads arrive late and possibly out of order)
+     * @return the stored location, or null if a newer one is already known
+     */
+    public Location record(Long driverId, double latitude, double longitude, LocalDateTime takenAt) {
+        Location location = new Location(driverId, latitude, longitude, takenAt);
+        Location stored = latest.compute(driverId, (id, previous) -> {
+            if (previous != null && previous.updatedAt() != null && previous.updatedAt().isAfter(takenAt)) {
+                return previous;
+            }
+            dirty.put(id, location);
+            return location;
+        });
+        return stored == location ? location : null;
+    }
+
+    /**
+     * Latest position seen by this node, or null if the driver has not pinged since startup
+     */
+    public Location get(Long driverId) {
+        return driverId != null ? latest.get(driverId) : null;
+    }
+
+    /**
+     * Latest position of a loaded driver: this store if the driver pinged since startup, else the User row
+     * @return null if neither knows a position
+     */
+    public Location latestOf(User driver) {
+        Location location = latest.get(driver.getId());
+        if (location != null || driver.getCurrentLatitude() == null || driver.getCurrentLongitude() == null) {
+            return location;
+        }
+        return new Location(driver.getId(), driver.getCurrentLatitude(), driver.getCurrentLongitude(),
+                driver.getLastLocationUpdate());
+    }
+
+    /**
+     * Copy the latest known position onto a loaded driver before it is saved,
+     * so a full-row save does not write back a position older than the last ping
+     */
+    public void applyLatest(User driver) {
+        Location location = latest.get(driver.getId());
+        if (location != null) {
+            driver.setCurrentLatitude(location.latitude());
+            driver.setCurrentLongitude(location.longitude());
+            driver.setLastLocationUpdate(location.updatedAt());
+        }
+    }
+
+    public int pendingCount() {
+        return dirty.size();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Driver location flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Write every pending position in batches of flushBatchSize
+     * @return number of positions written
+     */
+    int flush() {
+        if (dirty.isEmpty()) {
+            return 0;
+        }
+
+        List<Location> pending = new ArrayList<>(dirty.values());
+        int written = 0;
+        for (int from = 0; from < pending.size(); from += flushBatchSize) {
+            List<Location> chunk = pending.subList(from, Math.min(from + flushBatchSize, pending.size()));
+            writeBatch(chunk);
+            // A ping that arrived while writing stays dirty for the next flush
+            for (Location location : chunk) {
+                dirty.remove(location.driverId(), location);
+            }
+            written += chunk.size();
+        }
+        log.debug("Flushed {} driver locations", written);
+        return written;
+    }
+
+    private void writeBatch(List<Location> chunk) {
+        jdbcTemplate.batchUpdate(UPDATE_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                Location location = chunk.get(i);
+                Timestamp updatedAt = Timestamp.valueOf(location.updatedAt());
+                statement.setDouble(1, location.latitude());
+                statement.setDouble(2, location.longitude());
+                statement.setTimestamp(3, updatedAt);
+                statement.setLong(4, location.driverId());
+                statement.setTimestamp(5, updatedAt);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return chunk.size();
+            }
+        });
+    }
+}
@@ -0,0 +1,172 @@
+package com.ridemate.ridemate_server.application.service.driver;
+
+import com.ridemate.ridemate_server.domain.entity.Match;
+import com.ridemate.ridemate_server.domain.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides how long a driver app should wait before its next location report
+ *
+ * The answer goes back in every location ack:
+ * - on a trip: short while heading to the pickup (ETA shown to the passenger), long while waiting
+ *   at the pickup, medium during the ride (the app keeps sampling at 1 Hz and uploads batches,
+ *   so the trip path is unaffected)
+ * - ONLINE: about one report per target distance at the current speed, long when parked, shorter
+ *   where passengers recently booked (dispatch needs fresh positions), longer where nobody did
+ * - OFFLINE: rarely
+ *
+ * Demand is the number of bookings in the 3x3 grid cells around the driver over the last one to
+ * two windows, counted in memory per 0.01 degree cell (the DriverSpatialIndex grid).
+ */
+@Component
+public class LocationSamplingPolicy {
+
+    private static final double CELL_SIZE_DEGREES = 0.01;
+    private static final double PARKED_SPEED_MPS = 1.0;
+
+    @Value("${location-sampling.approaching-pickup-seconds:2}")
+    private int approachingPickupSeconds;
+
+    @Value("${location-sampling.at-pickup-seconds:10}")
+    private int atPickupSeconds;
+
+    @Value("${location-sampling.in-progress-seconds:4}")
+    private int inProgressSeconds;
+
+    @Value("${location-sampling.online-min-seconds:5}")
+    private int onlineMinSeconds;
+
+    @Value("${location-sampling.online-max-seconds:60}")
+    private int onlineMaxSeconds;
+
+    @Value("${location-sampling.parked-seconds:30}")
+    private int parkedSeconds;
+
+    @Value("${location-sampling.busy-area-max-seconds:10}")
+    private int busyAreaMaxSeconds;
+
+    @Value("${location-sampling.offline-seconds:120}")
+    private int offlineSeconds;
+
+    @Value("${location-sampling.meters-per-report:150}")
+    private double metersPerReport;
+
+    @Value("${location-sampling.demand-window-minutes:5}")
+    private long demandWindowMinutes;
+
+    @Value("${location-sampling.busy-area-bookings:3}")
+    private int busyAreaBookings;
+
+    // Phase of the trip each BUSY driver is on; BUSY drivers missing here (e.g. after a restart) count as heading to the pickup
+    private final Map<Long, Match.MatchStatus> tripPhases = new ConcurrentHashMap<>();
+
+    private volatile Map<Long, AtomicInteger> currentDemand = new ConcurrentHashMap<>();
+    private volatile Map<Long, AtomicInteger> previousDemand = Map.of();
+    private volatile long demandWindowStartMillis = System.currentTimeMillis();
+
+    /**
+     * @param status driver status, or null if unknown
+     * @param speedMetersPerSecond speed over the last reports, negative if unknown
+     * @return seconds until the next report
+     */
+    public int nextReportSeconds(Long driverId, User.DriverStatus status, double speedMetersPerSecond,
+                                 double latitude, double longitude) {
+        if (status == User.DriverStatus.BUSY) {
+            Match.MatchStatus phase = tripPhases.getOrDefault(driverId, Match.MatchStatus.ACCEPTED);
+            return switch (phase) {
+                case DRIVER_ARRIVED -> atPickupSeconds;
+                case IN_PROGRESS -> inProgressSeconds;
+                default -> approachingPickupSeconds;
+            };
+        }
+        if (status == User.DriverStatus.OFFLINE) {
+            return offlineSeconds;
+        }
+        if (status == null || speedMetersPerSecond < 0) {
+            return onlineMinSeconds;
+        }
+
+        double seconds = speedMetersPerSecond < PARKED_SPEED_MPS
+                ? parkedSeconds
+                : metersPerReport / speedMetersPerSecond;
+        int demand = demandAround(latitude, longitude);
+        if (demand >= busyAreaBookings) {
+            seconds = Math.min(seconds, busyAreaMaxSeconds);
+        } else if (demand == 0) {
+            seconds *= 2;
+        }
+        return (int) Math.round(Math.max(onlineMinSeconds, Math.min(seconds, onlineMaxSeconds)));
+    }
+
+    /**
+     * Track the trip phase of a driver; any status other than ACCEPTED / DRIVER_ARRIVED / IN_PROGRESS ends it
+     */
+    public void onTripStatus(Long driverId, Match.MatchStatus status) {
+        if (driverId == null) {
+            return;
+        }
+        if (status == Match.MatchStatus.ACCEPTED || status == Match.MatchStatus.DRIVER_ARRIVED
+                || status == Match.MatchStatus.IN_PROGRESS) {
+            tripPhases.put(driverId, status);
+        } else {
+            tripPhases.remove(driverId);
+        }
+    }
+
+    /**
+     * Count a booking at this pickup
+     */
+    public void recordDemand(double latitude, double longitude) {
+        rotateDemandWindow();
+        currentDemand.computeIfAbsent(cellKey(cellIndex(latitude), cellIndex(longitude)), key -> new AtomicInteger())
+                .incrementAndGet();
+    }
+
+    int demandAround(double latitude, double longitude) {
+        rotateDemandWindow();
+        Map<Long, AtomicInteger> current = currentDemand;
+        Map<Long, AtomicInteger> previous = previousDemand;
+        int latIdx = cellIndex(latitude);
+        int lonIdx = cellIndex(longitude);
+        int total = 0;
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            for (int dLon = -1; dLon <= 1; dLon++) {
+                long key = cellKey(latIdx + dLat, lonIdx + dLon);
+                AtomicInteger now = current.get(key);
+                AtomicInteger before = previous.get(key);
+                total += (now != null ? now.get() : 0) + (before != null ? before.get() : 0);
+            }
+        }
+        return total;
+    }
+
+    private void rotateDemandWindow() {
+        long now = System.currentTimeMillis();
+        if (now - demandWindowStartMillis < TimeUnit.MINUTES.toMillis(demandWindowMinutes)) {
+            return;
+        }
+        synchronized (this) {
+            long windowMillis = TimeUnit.MINUTES.toMillis(demandWindowMinutes);
+            if (now - demandWindowStartMillis >= windowMillis) {
+                // After a quiet spell longer than a window the current counts are too old to keep
+                previousDemand = now - demandWindowStartMillis < 2 * windowMillis ? currentDemand : Map.of();
+                currentDemand = new ConcurrentHashMap<>();
+                demandWindowStartMillis = now;
+            }
+        }
+    }
+
+    private static int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / CELL_SIZE_DEGREES);
+    }
+
+    private static long cellKey(int latIdx, int lonIdx) {
+        return ((long) latIdx << 32) | (lonIdx & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,299 @@
+package com.ridemate.ridemate_server.application.service.driver;
+
+import com.ridemate.ridemate_server.application.service.match.DriverSpatialIndex;
+import com.ridemate.ridemate_server.presentation.exception.ResourceNotFoundException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-sent stream of the ONLINE drivers inside a map area
+ *
+ * A client subscribes to a viewport box or a radius and receives only deltas: drivers that entered
+ * the area, moved by more than the move threshold, or left it. Frames are computed from the
+ * in-process DriverSpatialIndex (fed by location pings), at most one per interval per subscriber,
+ * and empty frames are not sent. A subscriber whose previous frame is still being written skips
+ * ticks instead of queueing them; its next frame is diffed against what it actually received.
+ */
+@Service
+@Slf4j
+public class NearbyDriverStreamService {
+
+    private static final double KM_PER_DEGREE_LAT = 111.32;
+
+    @Autowired
+    private DriverSpatialIndex driverSpatialIndex;
+
+    @Value("${driver-stream.frame-interval-ms:1000}")
+    private long frameIntervalMs;
+
+    @Value("${driver-stream.heartbeat-seconds:15}")
+    private long heartbeatSeconds;
+
+    @Value("${driver-stream.timeout-minutes:30}")
+    private long timeoutMinutes;
+
+    @Value("${driver-stream.max-drivers-per-frame:200}")
+    private int maxDriversPerFrame;
+
+    @Value("${driver-stream.max-area-km:30}")
+    private double maxAreaKm;
+
+    @Value("${driver-stream.move-threshold-meters:10}")
+    private double moveThresholdMeters;
+
+    @Value("${driver-stream.max-subscriptions:10000}")
+    private int maxSubscriptions;
+
+    @Value("${driver-stream.sender-threads:2}")
+    private int senderThreads;
+
+    /**
+     * Area a subscriber watches: a lat/lon box, or a circle (radiusKm > 0) around the box centre
+     */
+    public record Area(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude, double radiusKm) {
+
+        public static Area box(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+            if (minLatitude > maxLatitude || minLongitude > maxLongitude) {
+                throw new IllegalArgumentException("Viewport minimum must not exceed its maximum");
+            }
+            return new Area(minLatitude, minLongitude, maxLatitude, maxLongitude, 0);
+        }
+
+        public static Area circle(double latitude, double longitude, double radiusKm) {
+            if (radiusKm <= 0) {
+                throw new IllegalArgumentException("Radius must be positive");
+            }
+            double latSpan = radiusKm / KM_PER_DEGREE_LAT;
+            double lonSpan = radiusKm / (KM_PER_DEGREE_LAT * Math.max(Math.cos(Math.toRadians(latitude)), 0.01));
+            return new Area(latitude - latSpan, longitude - lonSpan, latitude + latSpan, longitude + lonSpan, radiusKm);
+        }
+
+        double centerLatitude() {
+            return (minLatitude + maxLatitude) / 2;
+        }
+
+        double centerLongitude() {
+            return (minLongitude + maxLongitude) / 2;
+        }
+
+        double heightKm() {
+            return (maxLatitude - minLatitude) * KM_PER_DEGREE_LAT;
+        }
+    }
+
+    public record DriverPosition(long driverId, double latitude, double longitude) {
+    }
+
+    /**
+     * One "drivers" event: changes since the previous frame sent to this subscriber
+     */
+    public record Frame(List<DriverPosition> entered, List<DriverPosition> moved, List<Long> left) {
+    }
+
+    private static final class Subscription {
+        final String id = UUID.randomUUID().toString();
+        final Long userId;
+        final SseEmitter emitter;
+        final long intervalMs;
+        final AtomicBoolean busy = new AtomicBoolean();
+        // Driver positions as last sent to this subscriber; only touched by the thread holding busy
+        final Map<Long, DriverPosition> sent = new HashMap<>();
+        volatile Area area;
+        volatile long lastFrameAt;
+        long lastWriteAt;
+
+        Subscription(Long userId, Area area, long intervalMs, SseEmitter emitter) {
+            this.userId = userId;
+            this.area = area;
+            this.intervalMs = intervalMs;
+            this.emitter = emitter;
+        }
+    }
+
+    private final Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private ScheduledExecutorService ticker;
+    private ExecutorService senders;
+
+    @PostConstruct
+    public void start() {
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "driver-stream-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(Math.max(senderThreads, 1), runnable -> {
+            Thread thread = new Thread(runnable, "driver-stream-send-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, frameIntervalMs, frameIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.shutdown();
+        senders.shutdown();
+        subscriptions.values().forEach(subscription -> subscription.emitter.complete());
+        subscriptions.clear();
+    }
+
+    /**
+     * Open a stream; the first event ("subscribed") carries the id used to move the area later
+     * @param intervalMs minimum time between two frames, raised to the server frame interval
+     */
+    public SseEmitter subscribe(Long userId, Area area, Long intervalMs) {
+        validate(area);
+        if (subscriptions.size() >= maxSubscriptions) {
+            throw new IllegalStateException("Too many open driver streams, try again later");
+        }
+
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(timeoutMinutes));
+        long interval = Math.max(intervalMs != null ? intervalMs : frameIntervalMs, frameIntervalMs);
+        Subscription subscription = new Subscription(userId, area, interval, emitter);
+
+        emitter.onCompletion(() -> subscriptions.remove(subscription.id));
+        emitter.onTimeout(() -> subscriptions.remove(subscription.id));
+        emitter.onError(error -> subscriptions.remove(subscription.id));
+
+        try {
+            emitter.send(SseEmitter.event().name("subscribed").data(Map.of("subscriptionId", subscription.id)));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        subscriptions.put(subscription.id, subscription);
+        log.debug("User {} opened driver stream {} ({} open)", userId, subscription.id, subscriptions.size());
+        return emitter;
+    }
+
+    /**
+     * Move the area of an open stream (map panned or zoomed); the next frame is diffed against it
+     */
+    public void updateArea(Long userId, String subscriptionId, Area area) {
+        validate(area);
+        Subscription subscription = subscriptions.get(subscriptionId);
+        if (subscription == null || !subscription.userId.equals(userId)) {
+            throw new ResourceNotFoundException("Driver stream not found");
+        }
+        subscription.area = area;
+        // Do not wait for the rest of the interval: the client is looking at a new area
+        subscription.lastFrameAt = 0;
+    }
+
+    public int subscriptionCount() {
+        return subscriptions.size();
+    }
+
+    private void validate(Area area) {
+        double widthKm = (area.maxLongitude() - area.minLongitude())
+                * KM_PER_DEGREE_LAT * Math.cos(Math.toRadians(area.centerLatitude()));
+        if (area.heightKm() > maxAreaKm || widthKm > maxAreaKm) {
+            throw new IllegalArgumentException("Area is too large, zoom in (max " + maxAreaKm + " km across)");
+        }
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        for (Subscription subscription : subscriptions.values()) {
+            if (now - subscription.lastFrameAt < subscription.intervalMs) {
+                continue;
+            }
+            // Still writing the previous frame: skip this tick rather than queue behind a slow client
+            if (!subscription.busy.compareAndSet(false, true)) {
+                continue;
+            }
+            try {
+                senders.execute(() -> {
+                    try {
+                        push(subscription, now);
+                    } finally {
+                        subscription.busy.set(false);
+                    }
+                });
+            } catch (Exception e) {
+                subscription.busy.set(false);
+            }
+        }
+    }
+
+    private void push(Subscription subscription, long now) {
+        subscription.lastFrameAt = now;
+        Frame frame = nextFrame(subscription);
+        try {
+            if (!frame.entered().isEmpty() || !frame.moved().isEmpty() || !frame.left().isEmpty()) {
+                subscription.emitter.send(SseEmitter.event().name("drivers").data(frame));
+                subscription.lastWriteAt = now;
+            } else if (now - subscription.lastWriteAt >= TimeUnit.SECONDS.toMillis(heartbeatSeconds)) {
+                // Keeps proxies from closing an idle stream and detects clients that went away
+                subscription.emitter.send(SseEmitter.event().comment("heartbeat"));
+                subscription.lastWriteAt = now;
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscriptions.remove(subscription.id);
+            subscription.emitter.completeWithError(e);
+            log.debug("Driver stream {} closed: {}", subscription.id, e.getMessage());
+        }
+    }
+
+    private Frame nextFrame(Subscription subscription) {
+        Area area = subscription.area;
+        List<DriverSpatialIndex.NearbyDriver> visible = area.radiusKm() > 0
+                ? driverSpatialIndex.findWithinRadius(area.centerLatitude(), area.centerLongitude(), area.radiusKm())
+                : driverSpatialIndex.findInBox(area.minLatitude(), area.minLongitude(), area.maxLatitude(), area.maxLongitude());
+        int limit = Math.min(visible.size(), maxDriversPerFrame);
+
+        List<DriverPosition> entered = new ArrayList<>();
+        List<DriverPosition> moved = new ArrayList<>();
+        Map<Long, DriverPosition> current = new HashMap<>(limit * 2);
+        double moveThresholdKm = moveThresholdMeters / 1000.0;
+
+        for (int i = 0; i < limit; i++) {
+            DriverSpatialIndex.NearbyDriver driver = visible.get(i);
+            DriverPosition previous = subscription.sent.get(driver.driverId());
+            DriverPosition position;
+            if (previous == null) {
+                position = new DriverPosition(driver.driverId(), driver.latitude(), driver.longitude());
+                entered.add(position);
+            } else if (DriverSpatialIndex.distanceKm(previous.latitude(), previous.longitude(),
+                    driver.latitude(), driver.longitude()) >= moveThresholdKm) {
+                position = new DriverPosition(driver.driverId(), driver.latitude(), driver.longitude());
+                moved.add(position);
+            } else {
+                // Small jitter: the client keeps the position it has, and so do we
+                position = previous;
+            }
+            current.put(driver.driverId(), position);
+        }
+
+        List<Long> left = new ArrayList<>();
+        for (Long driverId : subscription.sent.keySet()) {
+            if (!current.containsKey(driverId)) {
+                left.add(driverId);
+            }
+        }
+
+        subscription.sent.clear();
+        subscription.sent.putAll(current);
+        return new Frame(entered, moved, left);
+    }
+}
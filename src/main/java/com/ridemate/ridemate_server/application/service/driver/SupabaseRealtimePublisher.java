@@ -0,0 +1,420 @@
+package com.ridemate.ridemate_server.application.service.driver;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Coalescing, batched writer for the Supabase realtime tables
+ *
+ * Each driver and each match has one latest-wins slot: a driver pinging three times between two
+ * ticks is written once, and a removal replaces a pending upsert. Every tick drains the slots into
+ * bulk array upserts on /driver_locations and /matches (plus one bulk delete), with at most
+ * maxInFlight requests outstanding; whatever does not fit waits for the next tick. A key that is
+ * part of an outstanding request is not sent again until that request settles, so writes of one
+ * key never overtake each other.
+ *
+ * A failed write goes back to its slot for the next tick unless a newer one took the slot, the
+ * queue is full, or the key has already failed max-attempts times in a row. Rows Supabase rejects
+ * with a 4xx are discarded right away, since sending them again cannot succeed.
+ */
+@Component
+@Slf4j
+public class SupabaseRealtimePublisher {
+
+    @Autowired(required = false)
+    private WebClient supabaseWebClient;
+
+    @Value("${supabase.publisher.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    @Value("${supabase.publisher.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${supabase.publisher.max-in-flight:4}")
+    private int maxInFlight;
+
+    @Value("${supabase.publisher.max-pending:50000}")
+    private int maxPending;
+
+    @Value("${supabase.publisher.request-timeout-ms:5000}")
+    private long requestTimeoutMs;
+
+    @Value("${supabase.publisher.max-attempts:5}")
+    private int maxAttempts;
+
+    /**
+     * Counters since startup, plus the current queue depth
+     */
+    public record Stats(int pendingDriverLocations, int pendingMatches, int inFlightRequests,
+                        long enqueued, long coalesced, long dropped,
+                        long publishedRows, long failedRows, long discardedRows, long requests,
+                        double avgLatencyMs, long maxLatencyMs) {
+    }
+
+    // Pending driver write: a row to upsert, or null row for a removal
+    private record DriverLocationOp(Map<String, Object> row) {
+    }
+
+    private final Lane<Long, DriverLocationOp> driverLocations = new Lane<>();
+    private final Lane<String, Map<String, Object>> matches = new Lane<>();
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder publishedRows = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+    private final LongAdder discardedRows = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder totalLatencyMs = new LongAdder();
+    private final AtomicLong maxLatencyMs = new AtomicLong();
+
+    private Semaphore inFlight;
+    private ScheduledExecutorService ticker;
+
+    @PostConstruct
+    public void start() {
+        inFlight = new Semaphore(Math.max(maxInFlight, 1));
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "supabase-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop ticking and write what is still queued, waiting for those requests to settle.
+     * Gives up after two request timeouts, enough for one timed-out request and its retry.
+     */
+    @PreDestroy
+    public void stop() {
+        ticker.shutdown();
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(requestTimeoutMs * 2);
+        try {
+            ticker.awaitTermination(requestTimeoutMs, TimeUnit.MILLISECONDS);
+            do {
+                flushQuietly();
+            } while (awaitInFlight(deadlineNanos) && hasPending() && System.nanoTime() < deadlineNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (hasPending()) {
+            log.warn("Supabase publisher stopped with {} driver locations and {} matches unsent",
+                    driverLocations.pending.size(), matches.pending.size());
+        }
+    }
+
+    public void upsertDriverLocation(Long driverId, Map<String, Object> row) {
+        driverLocations.offer(driverId, new DriverLocationOp(row));
+    }
+
+    public void removeDriverLocation(Long driverId) {
+        driverLocations.offer(driverId, new DriverLocationOp(null));
+    }
+
+    public void upsertMatch(Object matchId, Map<String, Object> row) {
+        matches.offer(String.valueOf(matchId), row);
+    }
+
+    public Stats getStats() {
+        long count = requests.sum();
+        return new Stats(
+                driverLocations.pending.size(),
+                matches.pending.size(),
+                Math.max(maxInFlight, 1) - inFlight.availablePermits(),
+                enqueued.sum(),
+                coalesced.sum(),
+                dropped.sum(),
+                publishedRows.sum(),
+                failedRows.sum(),
+                discardedRows.sum(),
+                count,
+                count > 0 ? (double) totalLatencyMs.sum() / count : 0.0,
+                maxLatencyMs.get());
+    }
+
+    private boolean hasPending() {
+        return !driverLocations.pending.isEmpty() || !matches.pending.isEmpty();
+    }
+
+    /**
+     * Wait until no request is outstanding
+     * @return false if the deadline passed first
+     */
+    private boolean awaitInFlight(long deadlineNanos) throws InterruptedException {
+        int permits = Math.max(maxInFlight, 1);
+        if (!inFlight.tryAcquire(permits, Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            return false;
+        }
+        inFlight.release(permits);
+        return true;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Supabase publisher tick failed: {}", e.getMessage(), e);
+        }
+    }
+
+    void flush() {
+        if (supabaseWebClient == null) {
+            driverLocations.pending.clear();
+            matches.pending.clear();
+            return;
+        }
+
+        // Alternate lanes so a backlog of driver pings cannot starve match updates
+        boolean progress = true;
+        while (progress) {
+            progress = flushMatches() | flushDriverLocations();
+        }
+    }
+
+    private boolean flushDriverLocations() {
+        if (driverLocations.pending.isEmpty() || !inFlight.tryAcquire()) {
+            return false;
+        }
+        Map<Long, DriverLocationOp> batch = driverLocations.drain(maxBatchSize);
+        if (batch.isEmpty()) {
+            inFlight.release();
+            return false;
+        }
+
+        List<Map<String, Object>> upserts = new ArrayList<>();
+        List<Long> removals = new ArrayList<>();
+        batch.forEach((driverId, op) -> {
+            if (op.row() != null) {
+                upserts.add(op.row());
+            } else {
+                removals.add(driverId);
+            }
+        });
+
+        Mono<Void> call = Mono.empty();
+        if (!upserts.isEmpty()) {
+            call = call.then(supabaseWebClient
+                    .post()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/driver_locations")
+                            .queryParam("on_conflict", "driver_id")
+                            .build())
+                    .header("Prefer", "resolution=merge-duplicates,return=minimal")
+                    .bodyValue(upserts)
+                    .retrieve()
+                    .bodyToMono(Void.class));
+        }
+        if (!removals.isEmpty()) {
+            String ids = removals.stream().map(String::valueOf).collect(Collectors.joining(","));
+            call = call.then(supabaseWebClient
+                    .delete()
+                    .uri(uriBuilder -> uriBuilder
+                            .path("/driver_locations")
+                            .queryParam("driver_id", "in.(" + ids + ")")
+                            .build())
+                    .retrieve()
+                    .bodyToMono(Void.class));
+        }
+
+        send(call, driverLocations, batch.keySet(), batch.size(), error -> {
+            driverLocations.retry(batch, error);
+            return Mono.empty();
+        });
+        return true;
+    }
+
+    private boolean flushMatches() {
+        if (matches.pending.isEmpty() || !inFlight.tryAcquire()) {
+            return false;
+        }
+        Map<String, Map<String, Object>> batch = matches.drain(maxBatchSize);
+        if (batch.isEmpty()) {
+            inFlight.release();
+            return false;
+        }
+
+        // PostgREST bulk inserts need the same columns in every row
+        Map<Set<String>, List<Map<String, Object>>> byColumns = batch.values().stream()
+                .collect(Collectors.groupingBy(Map::keySet, LinkedHashMap::new, Collectors.toList()));
+        Mono<Void> call = Flux.fromIterable(byColumns.values())
+                .concatMap(rows -> supabaseWebClient
+                        .post()
+                        .uri(uriBuilder -> uriBuilder
+                                .path("/matches")
+                                .queryParam("on_conflict", "id")
+                                .build())
+                        .header("Prefer", "resolution=merge-duplicates,return=minimal")
+                        .bodyValue(rows)
+                        .retrieve()
+                        .bodyToMono(Void.class))
+                .then();
+
+        send(call, matches, batch.keySet(), batch.size(), error -> {
+            if (!isRejected(error)) {
+                matches.retry(batch, error);
+                return Mono.empty();
+            }
+            // Same fallback as a single publish: PATCH each match, as it may already exist
+            return Flux.fromIterable(batch.entrySet())
+                    .flatMap(entry -> patchMatch(entry.getKey(), entry.getValue()), Math.max(maxInFlight, 1))
+                    .then();
+        });
+        return true;
+    }
+
+    private Mono<Void> patchMatch(String matchId, Map<String, Object> row) {
+        return supabaseWebClient
+                .patch()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/matches")
+                        .queryParam("id", "eq." + matchId)
+                        .build())
+                .bodyValue(row)
+                .retrieve()
+                .bodyToMono(Void.class)
+                .timeout(Duration.ofMillis(requestTimeoutMs))
+                .doOnSuccess(ignored -> matches.succeeded(List.of(matchId)))
+                .onErrorResume(error -> {
+                    log.error("Failed to update match {} in Supabase via PATCH: {}", matchId, error.getMessage());
+                    matches.retry(Map.of(matchId, row), error);
+                    return Mono.empty();
+                });
+    }
+
+    private <K> void send(Mono<Void> call, Lane<K, ?> lane, Collection<K> keys, int rows,
+                          Function<Throwable, Mono<Void>> onFailure) {
+        List<K> sent = new ArrayList<>(keys);
+        long startNanos = System.nanoTime();
+        call.timeout(Duration.ofMillis(requestTimeoutMs))
+                .doOnSuccess(ignored -> {
+                    publishedRows.add(rows);
+                    lane.succeeded(sent);
+                })
+                .onErrorResume(error -> {
+                    failedRows.add(rows);
+                    log.warn("Supabase bulk write of {} rows failed: {}", rows, error.getMessage());
+                    return onFailure.apply(error);
+                })
+                .doFinally(signal -> {
+                    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+                    requests.increment();
+                    totalLatencyMs.add(elapsedMs);
+                    maxLatencyMs.accumulateAndGet(elapsedMs, Math::max);
+                    lane.sending.removeAll(sent);
+                    inFlight.release();
+                })
+                .subscribe();
+    }
+
+    /**
+     * A 4xx other than 408 and 429: the request itself is wrong and would fail the same way again
+     */
+    private static boolean isRejected(Throwable error) {
+        if (!(error instanceof WebClientResponseException response)) {
+            return false;
+        }
+        int status = response.getStatusCode().value();
+        return response.getStatusCode().is4xxClientError() && status != 408 && status != 429;
+    }
+
+    /**
+     * Latest-wins slots of one table, and the keys currently being written
+     */
+    private final class Lane<K, V> {
+
+        final Map<K, V> pending = new ConcurrentHashMap<>();
+        final Set<K> sending = ConcurrentHashMap.newKeySet();
+        // Consecutive failed writes per key, only for keys that failed at least once
+        final Map<K, Integer> attempts = new ConcurrentHashMap<>();
+
+        void offer(K key, V value) {
+            enqueued.increment();
+            // Beyond the cap only keys that already have a slot are accepted (they do not grow the queue)
+            if (pending.size() >= maxPending && !pending.containsKey(key)) {
+                dropped.increment();
+                return;
+            }
+            if (pending.put(key, value) != null) {
+                coalesced.increment();
+            }
+        }
+
+        void succeeded(Collection<K> keys) {
+            if (!attempts.isEmpty()) {
+                keys.forEach(attempts::remove);
+            }
+        }
+
+        /**
+         * Put a failed batch back for the next tick, discarding rows that cannot or should not be retried
+         */
+        void retry(Map<K, V> batch, Throwable error) {
+            boolean rejected = isRejected(error);
+            int discarded = 0;
+            for (Map.Entry<K, V> entry : batch.entrySet()) {
+                K key = entry.getKey();
+                int attempt = rejected ? maxAttempts : attempts.merge(key, 1, Integer::sum);
+                if (attempt >= maxAttempts) {
+                    attempts.remove(key);
+                    discarded++;
+                } else if (pending.size() >= maxPending) {
+                    // Same cap as new writes; a newer write of the key may still fill the slot later
+                    attempts.remove(key);
+                    dropped.increment();
+                } else if (pending.putIfAbsent(key, entry.getValue()) != null) {
+                    // A newer write queued meanwhile wins and starts over
+                    attempts.remove(key);
+                }
+            }
+            if (discarded > 0) {
+                discardedRows.add(discarded);
+                log.warn("Discarded {} Supabase rows after {}: {}", discarded,
+                        rejected ? "a rejected request" : maxAttempts + " failed attempts", error.getMessage());
+            }
+        }
+
+        Map<K, V> drain(int max) {
+            Map<K, V> batch = new LinkedHashMap<>();
+            for (K key : pending.keySet()) {
+                if (batch.size() >= max) {
+                    break;
+                }
+                if (sending.contains(key)) {
+                    continue;
+                }
+                V value = pending.remove(key);
+                if (value != null) {
+                    sending.add(key);
+                    batch.put(key, value);
+                }
+            }
+            return batch;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.ridemate.ridemate_server.application.service.match;
+
+import com.ridemate.ridemate_server.application.dto.match.DriverCandidate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batched global assignment mode for ride dispatch (matching.dispatch.mode=batched)
+ *
+ * Instead of matching each bookRide greedily on its own, PENDING requests are collected per area
+ * for a short window. At the end of the window the driver <-> passenger assignment of the whole
+ * area is solved jointly with {@link MinCostAssignment} over (1 - matchScore), so two passengers a
+ * block apart no longer both get the same top driver.
+ *
+ * Each request then runs an offer cascade: its assigned driver first, followed by the rest of its
+ * pool minus drivers that are another request's first choice. Requests left unassigned are retried in the
+ * next window, up to batch-max-rounds.
+ */
+@Service
+@Slf4j
+public class BatchDispatchService {
+
+    // ~5.5km areas; requests in the same area compete for the same drivers
+    private static final double AREA_SIZE_DEGREES = 0.05;
+    private static final int MAX_CANDIDATES_PER_OFFER = 5;
+
+    @Autowired
+    private DriverMatchingService driverMatchingService;
+
+    @Autowired
+    private OfferCascadeService offerCascadeService;
+
+    @Value("${matching.dispatch.mode:greedy}")
+    private String dispatchMode;
+
+    @Value("${matching.dispatch.batch-window-ms:2000}")
+    private long batchWindowMs;
+
+    @Value("${matching.dispatch.batch-max-rounds:3}")
+    private int batchMaxRounds;
+
+    @Value("${matching.dispatch.candidate-pool-size:10}")
+    private int candidatePoolSize;
+
+    private final Map<Long, Queue<PendingRequest>> pendingByArea = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private record PendingRequest(Long matchId, double pickupLatitude, double pickupLongitude, int round) {
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "batch-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::dispatchWindow, batchWindowMs, batchWindowMs, TimeUnit.MILLISECONDS);
+        log.info("Batch dispatch enabled: window={}ms, maxRounds={}, poolSize={}",
+                batchWindowMs, batchMaxRounds, candidatePoolSize);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return "batched".equalsIgnoreCase(dispatchMode);
+    }
+
+    /**
+     * Queue a PENDING match for the next window.
+     * Inside a transaction the match is queued only after commit, so the worker can see it.
+     */
+    public void submit(Long matchId, double pickupLatitude, double pickupLongitude) {
+        PendingRequest request = new PendingRequest(matchId, pickupLatitude, pickupLongitude, 1);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(request);
+                }
+            });
+        } else {
+            enqueue(request);
+        }
+    }
+
+    private void enqueue(PendingRequest request) {
+        // Add inside compute so the queue cannot be removed as drained in between
+        pendingByArea.compute(areaKey(request.pickupLatitude(), request.pickupLongitude()), (key, queue) -> {
+            Queue<PendingRequest> area = queue != null ? queue : new ConcurrentLinkedQueue<>();
+            area.add(request);
+            return area;
+        });
+    }
+
+    /**
+     * Drain every area and solve it. Drivers assigned in one area are excluded as first choice elsewhere.
+     */
+    void dispatchWindow() {
+        try {
+            Set<Long> assignedThisWindow = new HashSet<>();
+            for (Map.Entry<Long, Queue<PendingRequest>> area : pendingByArea.entrySet()) {
+                List<PendingRequest> batch = new ArrayList<>();
+                PendingRequest request;
+                while ((request = area.getValue().poll()) != null) {
+                    batch.add(request);
+                }
+                // Drop the drained queue so areas used once do not stay in the map
+                pendingByArea.computeIfPresent(area.getKey(), (key, queue) -> queue.isEmpty() ? null : queue);
+                if (!batch.isEmpty()) {
+                    dispatchBatch(batch, assignedThisWindow);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Batch dispatch window failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void dispatchBatch(List<PendingRequest> batch, Set<Long> assignedThisWindow) {
+        // Candidate pools per request, and the union of drivers as assignment columns
+        List<List<DriverCandidate>> pools = new ArrayList<>(batch.size());
+        Map<Long, Integer> driverColumns = new HashMap<>();
+        for (PendingRequest request : batch) {
+            List<DriverCandidate> pool = driverMatchingService.findBestDrivers(
+                    request.pickupLatitude(), request.pickupLongitude(), candidatePoolSize);
+            pool.removeIf(candidate -> assignedThisWindow.contains(candidate.getDriverId()));
+            pools.add(pool);
+            for (DriverCandidate candidate : pool) {
+                driverColumns.putIfAbsent(candidate.getDriverId(), driverColumns.size());
+            }
+        }
+
+        int[] assignment = new int[batch.size()];
+        Arrays.fill(assignment, -1);
+        if (!driverColumns.isEmpty()) {
+            double[][] cost = new double[batch.size()][driverColumns.size()];
+            for (int i = 0; i < batch.size(); i++) {
+                Arrays.fill(cost[i], MinCostAssignment.INFEASIBLE);
+                for (DriverCandidate candidate : pools.get(i)) {
+                    cost[i][driverColumns.get(candidate.getDriverId())] = 1.0 - candidate.getMatchScore();
+                }
+            }
+            assignment = MinCostAssignment.solve(cost);
+        }
+
+        // Column -> driver id for the assigned first choices
+        Long[] driverOfColumn = new Long[driverColumns.size()];
+        driverColumns.forEach((driverId, column) -> driverOfColumn[column] = driverId);
+        Set<Long> firstChoices = new HashSet<>();
+        for (int column : assignment) {
+            if (column >= 0) {
+                firstChoices.add(driverOfColumn[column]);
+            }
+        }
+        assignedThisWindow.addAll(firstChoices);
+
+        int assignedCount = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            PendingRequest request = batch.get(i);
+            List<DriverCandidate> pool = pools.get(i);
+            Long firstChoice = assignment[i] >= 0 ? driverOfColumn[assignment[i]] : null;
+
+            if (firstChoice == null && request.round() < batchMaxRounds && !pool.isEmpty()) {
+                // Lost every driver to neighbours this round, try again next window
+                enqueue(new PendingRequest(request.matchId(), request.pickupLatitude(),
+                        request.pickupLongitude(), request.round() + 1));
+                continue;
+            }
+            if (pool.isEmpty()) {
+                log.warn("No available drivers found for match {} - Status remains PENDING", request.matchId());
+                continue;
+            }
+
+            List<DriverCandidate> offer = buildOffer(pool, firstChoice, firstChoices);
+            try {
+                offerCascadeService.offer(request.matchId(), offer);
+                if (firstChoice != null) {
+                    assignedCount++;
+                }
+            } catch (Exception e) {
+                log.error("Failed to offer candidates for match {}: {}", request.matchId(), e.getMessage(), e);
+            }
+        }
+
+        log.info("Batch dispatch solved {} requests over {} drivers, {} got a dedicated first choice",
+                batch.size(), driverColumns.size(), assignedCount);
+    }
+
+    /**
+     * Assigned driver first, then the remaining pool minus other requests' first choices
+     * (falls back to the full pool when nothing else is left)
+     */
+    private List<DriverCandidate> buildOffer(List<DriverCandidate> pool, Long firstChoice, Set<Long> firstChoices) {
+        List<DriverCandidate> offer = new ArrayList<>(MAX_CANDIDATES_PER_OFFER);
+        for (DriverCandidate candidate : pool) {
+            if (candidate.getDriverId().equals(firstChoice)) {
+                offer.add(candidate);
+                break;
+            }
+        }
+        for (DriverCandidate candidate : pool) {
+            if (offer.size() >= MAX_CANDIDATES_PER_OFFER) {
+                break;
+            }
+            if (!firstChoices.contains(candidate.getDriverId())) {
+                offer.add(candidate);
+            }
+        }
+        if (offer.isEmpty()) {
+            offer.addAll(pool.subList(0, Math.min(MAX_CANDIDATES_PER_OFFER, pool.size())));
+        }
+        return offer;
+    }
+
+    private static long areaKey(double latitude, double longitude) {
+        long latIdx = (long) Math.floor(latitude / AREA_SIZE_DEGREES);
+        long lonIdx = (long) Math.floor(longitude / AREA_SIZE_DEGREES);
+        return (latIdx << 32) | (lonIdx & 0xFFFFFFFFL);
+    }
+}
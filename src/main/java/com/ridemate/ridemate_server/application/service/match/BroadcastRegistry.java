@@ -0,0 +1,293 @@
+package com.ridemate.ridemate_server.application.service.match;
+
+import com.ridemate.ridemate_server.application.dto.match.BroadcastDriverRequest;
+import com.ridemate.ridemate_server.application.dto.match.BroadcastPassengerRequest;
+import com.ridemate.ridemate_server.infrastructure.scheduling.HashedTimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Live driver and passenger broadcasts ("I'm going from A to B"), one per user
+ *
+ * Each side is a grid over pickup points, like {@link DriverSpatialIndex}, so a lookup only
+ * visits the cells around the searcher's pickup. Candidates must also end near the searcher's
+ * destination and head the same way. Entries expire after matching.broadcast.ttl-seconds unless
+ * the user broadcasts again, so the registry only ever holds currently active users.
+ */
+@Slf4j
+@Component
+public class BroadcastRegistry {
+
+    private static final double KM_PER_DEGREE_LAT = 111.32;
+    private static final double CELL_SIZE_DEGREES = 0.01;
+
+    // Trips shorter than this have no meaningful heading; they only need matching endpoints
+    private static final double MIN_HEADING_TRIP_KM = 0.5;
+
+    @Value("${matching.broadcast.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${matching.broadcast.pickup-radius-km:5}")
+    private double pickupRadiusKm;
+
+    @Value("${matching.broadcast.destination-radius-km:10}")
+    private double destinationRadiusKm;
+
+    @Value("${matching.broadcast.max-heading-difference-degrees:60}")
+    private double maxHeadingDifferenceDegrees;
+
+    private final Table<BroadcastDriverRequest> drivers = new Table<>();
+    private final Table<BroadcastPassengerRequest> passengers = new Table<>();
+
+    private HashedTimingWheel expiryWheel;
+
+    /**
+     * A broadcast as stored in the registry
+     */
+    public record Broadcast<T>(long userId, T request, double pickupLatitude, double pickupLongitude,
+                               double destinationLatitude, double destinationLongitude,
+                               long cellKey, long expiresAtMillis) {
+    }
+
+    /**
+     * Broadcast matching a search, with the distance between the two pickups
+     */
+    public record Hit<T>(Broadcast<T> broadcast, double pickupDistanceKm) {
+    }
+
+    @PostConstruct
+    public void start() {
+        // Expiry only removes map entries, so it runs on the wheel thread itself
+        expiryWheel = new HashedTimingWheel("broadcast-expiry", 1, TimeUnit.SECONDS, 512, Runnable::run);
+    }
+
+    @PreDestroy
+    public void stop() {
+        expiryWheel.stop();
+    }
+
+    public void putDriver(Long driverId, BroadcastDriverRequest request) {
+        put(drivers, driverId, request, request.getPickupLatitude(), request.getPickupLongitude(),
+                request.getDestinationLatitude(), request.getDestinationLongitude());
+    }
+
+    public void putPassenger(Long passengerId, BroadcastPassengerRequest request) {
+        put(passengers, passengerId, request, request.getPickupLatitude(), request.getPickupLongitude(),
+                request.getDestinationLatitude(), request.getDestinationLongitude());
+    }
+
+    /**
+     * Active passenger broadcast, or null if there is none or it has expired
+     */
+    public Broadcast<BroadcastPassengerRequest> getPassenger(Long passengerId) {
+        return passengers.get(passengerId);
+    }
+
+    /**
+     * Remove a passenger broadcast once a driver has taken it.
+     * @return false if it was already taken, replaced or expired
+     */
+    public boolean removePassenger(Broadcast<BroadcastPassengerRequest> broadcast) {
+        return passengers.remove(broadcast);
+    }
+
+    /**
+     * Passengers a driver with this trip could pick up
+     */
+    public List<Hit<BroadcastPassengerRequest>> findPassengers(double pickupLat, double pickupLon,
+                                                               double destinationLat, double destinationLon) {
+        return find(passengers, pickupLat, pickupLon, destinationLat, destinationLon);
+    }
+
+    /**
+     * Drivers that could take a passenger with this trip
+     */
+    public List<Hit<BroadcastDriverRequest>> findDrivers(double pickupLat, double pickupLon,
+                                                         double destinationLat, double destinationLon) {
+        return find(drivers, pickupLat, pickupLon, destinationLat, destinationLon);
+    }
+
+    public int driverCount() {
+        return drivers.entries.size();
+    }
+
+    public int passengerCount() {
+        return passengers.entries.size();
+    }
+
+    private <T> void put(Table<T> table, Long userId, T request, double pickupLat, double pickupLon,
+                         double destinationLat, double destinationLon) {
+        Broadcast<T> broadcast = new Broadcast<>(userId, request, pickupLat, pickupLon, destinationLat, destinationLon,
+                cellKey(pickupLat, pickupLon), System.currentTimeMillis() + ttlSeconds * 1000);
+        table.put(broadcast, () -> expiryWheel.schedule(() -> {
+            if (table.remove(broadcast)) {
+                log.debug("Broadcast of user {} expired", userId);
+            }
+        }, ttlSeconds, TimeUnit.SECONDS));
+    }
+
+    private <T> List<Hit<T>> find(Table<T> table, double pickupLat, double pickupLon,
+                                  double destinationLat, double destinationLon) {
+        List<Hit<T>> hits = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        double heading = tripHeading(pickupLat, pickupLon, destinationLat, destinationLon);
+
+        int minLatIdx = cellIndex(pickupLat - pickupRadiusKm / KM_PER_DEGREE_LAT);
+        int maxLatIdx = cellIndex(pickupLat + pickupRadiusKm / KM_PER_DEGREE_LAT);
+        double lonSpan = pickupRadiusKm / (KM_PER_DEGREE_LAT * Math.max(Math.cos(Math.toRadians(pickupLat)), 0.01));
+        int minLonIdx = cellIndex(pickupLon - lonSpan);
+        int maxLonIdx = cellIndex(pickupLon + lonSpan);
+
+        for (int latIdx = minLatIdx; latIdx <= maxLatIdx; latIdx++) {
+            for (int lonIdx = minLonIdx; lonIdx <= maxLonIdx; lonIdx++) {
+                Set<Long> userIds = table.cells.get(packCell(latIdx, lonIdx));
+                if (userIds == null) {
+                    continue;
+                }
+                for (Long userId : userIds) {
+                    Slot<T> slot = table.entries.get(userId);
+                    if (slot == null || slot.broadcast().expiresAtMillis() <= now) {
+                        continue;
+                    }
+                    Broadcast<T> broadcast = slot.broadcast();
+                    double pickupDistance = DriverSpatialIndex.distanceKm(pickupLat, pickupLon,
+                            broadcast.pickupLatitude(), broadcast.pickupLongitude());
+                    if (pickupDistance > pickupRadiusKm) {
+                        continue;
+                    }
+                    if (DriverSpatialIndex.distanceKm(destinationLat, destinationLon,
+                            broadcast.destinationLatitude(), broadcast.destinationLongitude()) > destinationRadiusKm) {
+                        continue;
+                    }
+                    if (!sameDirection(heading, broadcast)) {
+                        continue;
+                    }
+                    hits.add(new Hit<>(broadcast, pickupDistance));
+                }
+            }
+        }
+
+        hits.sort(Comparator.comparingDouble(Hit::pickupDistanceKm));
+        return hits;
+    }
+
+    private boolean sameDirection(double heading, Broadcast<?> broadcast) {
+        double other = tripHeading(broadcast.pickupLatitude(), broadcast.pickupLongitude(),
+                broadcast.destinationLatitude(), broadcast.destinationLongitude());
+        if (Double.isNaN(heading) || Double.isNaN(other)) {
+            return true;
+        }
+        double difference = Math.abs(heading - other) % 360;
+        return Math.min(difference, 360 - difference) <= maxHeadingDifferenceDegrees;
+    }
+
+    /**
+     * Initial bearing in degrees, NaN for trips too short to have a direction
+     */
+    private static double tripHeading(double fromLat, double fromLon, double toLat, double toLon) {
+        if (DriverSpatialIndex.distanceKm(fromLat, fromLon, toLat, toLon) < MIN_HEADING_TRIP_KM) {
+            return Double.NaN;
+        }
+        double phi1 = Math.toRadians(fromLat);
+        double phi2 = Math.toRadians(toLat);
+        double dLon = Math.toRadians(toLon - fromLon);
+        double y = Math.sin(dLon) * Math.cos(phi2);
+        double x = Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1) * Math.cos(phi2) * Math.cos(dLon);
+        return (Math.toDegrees(Math.atan2(y, x)) + 360) % 360;
+    }
+
+    private static int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / CELL_SIZE_DEGREES);
+    }
+
+    private static long cellKey(double latitude, double longitude) {
+        return packCell(cellIndex(latitude), cellIndex(longitude));
+    }
+
+    private static long packCell(int latIdx, int lonIdx) {
+        return ((long) latIdx << 32) | (lonIdx & 0xFFFFFFFFL);
+    }
+
+    /**
+     * A stored broadcast and its pending expiry
+     */
+    private record Slot<T>(Broadcast<T> broadcast, HashedTimingWheel.Timeout expiry) {
+    }
+
+    /**
+     * One side of the registry: latest broadcast per user plus pickup cell membership
+     */
+    private static final class Table<T> {
+        final Map<Long, Slot<T>> entries = new ConcurrentHashMap<>();
+        final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+
+        /**
+         * Store the broadcast, replacing the user's previous one and cancelling its expiry
+         * @param expiry schedules the expiry of the new broadcast
+         */
+        void put(Broadcast<T> broadcast, Supplier<HashedTimingWheel.Timeout> expiry) {
+            entries.compute(broadcast.userId(), (id, previous) -> {
+                if (previous != null) {
+                    previous.expiry().cancel();
+                    if (previous.broadcast().cellKey() != broadcast.cellKey()) {
+                        removeFromCell(previous.broadcast().cellKey(), id);
+                    }
+                }
+                if (previous == null || previous.broadcast().cellKey() != broadcast.cellKey()) {
+                    addToCell(broadcast.cellKey(), id);
+                }
+                return new Slot<>(broadcast, expiry.get());
+            });
+        }
+
+        Broadcast<T> get(Long userId) {
+            Slot<T> slot = userId != null ? entries.get(userId) : null;
+            return slot != null && slot.broadcast().expiresAtMillis() > System.currentTimeMillis() ? slot.broadcast() : null;
+        }
+
+        /**
+         * Remove this exact broadcast; a newer one from the same user is left alone
+         */
+        boolean remove(Broadcast<T> broadcast) {
+            boolean[] removed = new boolean[1];
+            entries.computeIfPresent(broadcast.userId(), (id, current) -> {
+                if (current.broadcast() != broadcast) {
+                    return current;
+                }
+                current.expiry().cancel();
+                removeFromCell(broadcast.cellKey(), id);
+                removed[0] = true;
+                return null;
+            });
+            return removed[0];
+        }
+
+        private void addToCell(long cellKey, Long userId) {
+            // Add inside compute so a concurrent removeFromCell cannot drop the set in between
+            cells.compute(cellKey, (key, members) -> {
+                Set<Long> cell = members != null ? members : ConcurrentHashMap.newKeySet();
+                cell.add(userId);
+                return cell;
+            });
+        }
+
+        private void removeFromCell(long cellKey, Long userId) {
+            cells.computeIfPresent(cellKey, (key, members) -> {
+                members.remove(userId);
+                return members.isEmpty() ? null : members;
+            });
+        }
+    }
+}
@@ -1,19 +1,18 @@
 package com.ridemate.ridemate_server.application.service.match;
 
 import com.ridemate.ridemate_server.application.dto.match.DriverCandidate;
+import com.ridemate.ridemate_server.application.service.vehicle.ApprovedVehicleCache;
 import com.ridemate.ridemate_server.domain.entity.Match;
 import com.ridemate.ridemate_server.domain.entity.User;
-import com.ridemate.ridemate_server.domain.entity.Vehicle;
 import com.ridemate.ridemate_server.domain.repository.UserRepository;
-import com.ridemate.ridemate_server.domain.repository.VehicleRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -21,6 +20,7 @@ import java.util.stream.Collectors;
  * Implements Uber/Grab-like matching algorithm:
  * 1. Haversine distance calculation
  * 2. Multi-factor scoring (distance, rating, acceptance rate, ETA)
+ *    ETA comes from the road graph when one is configured (RoadEtaService), else 30 km/h straight-line
  * 3. Sequential batch matching with timeout
  */
 @Service
@@ -31,7 +31,13 @@ public class DriverMatchingService {
     private UserRepository userRepository;
 
     @Autowired
-    private VehicleRepository vehicleRepository;
+    private ApprovedVehicleCache approvedVehicleCache;
+
+    @Autowired
+    private DriverSpatialIndex driverSpatialIndex;
+
+    @Autowired
+    private RoadEtaService roadEtaService;
 
     // Configuration constants
     private static final double INITIAL_SEARCH_RADIUS_KM = 2.0;  // Start with 2km (priority range)
@@ -63,182 +69,238 @@ public class DriverMatchingService {
             return new ArrayList<>();
         }
 
-        List<DriverCandidate> candidates = new ArrayList<>();
+        List<DriverCandidate> candidates = findBestDrivers(pickupLat, pickupLon, MAX_CANDIDATES_TO_RETURN);
+        if (candidates.isEmpty()) {
+            log.warn("No available drivers found within {} km for match {}", MAX_SEARCH_RADIUS_KM, match.getId());
+        }
+        return candidates;
+    }
+
+    /**
+     * Find best matching drivers around a pickup point
+     * @param limit max number of candidates (batch dispatch asks for a wider pool than the default 5)
+     * @return candidates sorted by match score (highest first)
+     */
+    public List<DriverCandidate> findBestDrivers(double pickupLat, double pickupLon, int limit) {
+        // One index lookup for the widest radius; the expanding steps below are row prefixes of the batch
+        List<DriverSpatialIndex.NearbyDriver> nearbyDrivers =
+                driverSpatialIndex.findWithinRadius(pickupLat, pickupLon, MAX_SEARCH_RADIUS_KM);
+        Map<Long, Object[]> scoringRows = loadOnlineDrivers(nearbyDrivers);
+        Map<Long, ApprovedVehicleCache.ApprovedVehicle> vehiclesByDriver = approvedVehicleCache.getAll(scoringRows.keySet());
+
+        DriverScoringBatch batch = buildScoringBatch(nearbyDrivers, scoringRows, vehiclesByDriver);
+
+        int count = 0;
         double searchRadius = INITIAL_SEARCH_RADIUS_KM;
 
-        // Expand search radius until we find enough candidates
-        while (candidates.size() < MAX_CANDIDATES_TO_RETURN && searchRadius <= MAX_SEARCH_RADIUS_KM) {
+        // Expand search radius until we find candidates
+        while (count == 0 && limit > 0 && searchRadius <= MAX_SEARCH_RADIUS_KM) {
             log.info("Searching for drivers within {} km radius", searchRadius);
-            candidates = searchDriversInRadius(pickupLat, pickupLon, searchRadius);
-            
-            if (candidates.isEmpty()) {
-                searchRadius += RADIUS_INCREMENT_KM;
-            } else {
-                break;
-            }
+            count = batch.countWithin(searchRadius);
+            searchRadius += RADIUS_INCREMENT_KM;
         }
 
-        if (candidates.isEmpty()) {
-            log.warn("No available drivers found within {} km for match {}", MAX_SEARCH_RADIUS_KM, match.getId());
+        if (count == 0) {
             return new ArrayList<>();
         }
 
-        // Calculate scores and sort
-        candidates.forEach(this::calculateMatchScore);
-        
-        return candidates.stream()
-                .sorted(Comparator.comparing(DriverCandidate::getMatchScore).reversed())
-                .limit(MAX_CANDIDATES_TO_RETURN)
-                .collect(Collectors.toList());
+        applyRoadEtas(batch, count, pickupLat, pickupLon);
+
+        // Score every driver in range, then build DTOs for the winners only
+        scoreBatch(batch, count);
+
+        int[] top = batch.topN(count, limit);
+        List<Long> topIds = new ArrayList<>(top.length);
+        for (int row : top) {
+            topIds.add(batch.driverId(row));
+        }
+        Map<Long, Object[]> candidateRows = new HashMap<>();
+        for (Object[] candidateRow : userRepository.findCandidateRowsByIdIn(topIds)) {
+            candidateRows.put((Long) candidateRow[0], candidateRow);
+        }
+
+        List<DriverCandidate> candidates = new ArrayList<>(top.length);
+        for (int row : top) {
+            long driverId = batch.driverId(row);
+            Object[] candidateRow = candidateRows.get(driverId);
+            if (candidateRow == null) {
+                continue;
+            }
+            candidates.add(toCandidate(batch, row, scoringRows.get(driverId), candidateRow, vehiclesByDriver.get(driverId)));
+        }
+        return candidates;
     }
 
     /**
-     * Search for available drivers within a radius
+     * Bulk variant of {@link #calculateMatchScore(DriverCandidate)} over the first count rows.
+     * Plain loop over primitive columns, which C2 compiles without any per-driver allocation.
      */
-    private List<DriverCandidate> searchDriversInRadius(Double centerLat, Double centerLon, double radiusKm) {
-        // Find all ONLINE drivers
-        List<User> onlineDrivers = userRepository.findByUserTypeAndDriverStatus(
-                User.UserType.DRIVER, 
-                User.DriverStatus.ONLINE
-        );
-
-        List<DriverCandidate> candidates = new ArrayList<>();
-
-        for (User driver : onlineDrivers) {
-            // Skip if location not available or stale
-            if (!isLocationValid(driver)) {
-                continue;
+    public void scoreBatch(DriverScoringBatch batch, int count) {
+        double[] distances = batch.distancesKm;
+        float[] ratings = batch.ratings;
+        float[] acceptanceRates = batch.acceptanceRates;
+        float[] completionRates = batch.completionRates;
+        int[] etaMinutes = batch.etaMinutes;
+        double[] scores = batch.scores;
+
+        for (int i = 0; i < count; i++) {
+            if (etaMinutes[i] < 0) {
+                etaMinutes[i] = calculateETA(distances[i]);
+            }
+            scores[i] = matchScore(distances[i], etaMinutes[i],
+                    ratings[i], acceptanceRates[i], completionRates[i]);
+        }
+    }
+
+    /**
+     * Road-network ETAs for the closest rows (one-to-many query against the pickup).
+     * Rows beyond the cap, or that could not be routed, keep the straight-line estimate.
+     */
+    private void applyRoadEtas(DriverScoringBatch batch, int count, double pickupLat, double pickupLon) {
+        if (!roadEtaService.isAvailable()) {
+            return;
+        }
+        int routed = Math.min(count, roadEtaService.getMaxEtaCandidates());
+        int[] seconds = roadEtaService.etaSeconds(pickupLat, pickupLon, batch.latitudes, batch.longitudes, routed);
+        for (int i = 0; i < routed; i++) {
+            if (seconds[i] >= 0) {
+                batch.etaMinutes[i] = Math.max(1, (int) Math.ceil(seconds[i] / 60.0));
             }
+        }
+    }
 
-            // Calculate distance
-            double distance = calculateHaversineDistance(
-                    centerLat, centerLon,
-                    driver.getCurrentLatitude(), driver.getCurrentLongitude()
-            );
+    /**
+     * Scoring columns of the indexed drivers in one IN query, dropping any whose DB status is no longer ONLINE
+     * @return rows of UserRepository.findScoringRowsByIdIn by driver id
+     */
+    private Map<Long, Object[]> loadOnlineDrivers(List<DriverSpatialIndex.NearbyDriver> nearbyDrivers) {
+        if (nearbyDrivers.isEmpty()) {
+            return Map.of();
+        }
 
-            // Skip if outside radius
-            if (distance > radiusKm) {
+        List<Long> driverIds = nearbyDrivers.stream()
+                .map(DriverSpatialIndex.NearbyDriver::driverId)
+                .collect(Collectors.toList());
+
+        Map<Long, Object[]> rowsById = new HashMap<>();
+        for (Object[] row : userRepository.findScoringRowsByIdIn(driverIds)) {
+            Long driverId = (Long) row[0];
+            if (row[1] == User.UserType.DRIVER && row[2] == User.DriverStatus.ONLINE) {
+                rowsById.put(driverId, row);
+            } else {
+                // Index missed a status change, fix it up
+                driverSpatialIndex.remove(driverId);
+            }
+        }
+        return rowsById;
+    }
+
+    /**
+     * Column snapshot of the ONLINE drivers with an approved vehicle, in distance order
+     * @param nearbyDrivers index hits for the maximum radius, sorted by distance
+     */
+    private DriverScoringBatch buildScoringBatch(List<DriverSpatialIndex.NearbyDriver> nearbyDrivers,
+                                                 Map<Long, Object[]> scoringRows,
+                                                 Map<Long, ApprovedVehicleCache.ApprovedVehicle> vehiclesByDriver) {
+        DriverScoringBatch batch = new DriverScoringBatch(nearbyDrivers.size());
+
+        for (DriverSpatialIndex.NearbyDriver nearby : nearbyDrivers) {
+            Object[] row = scoringRows.get(nearby.driverId());
+            if (row == null) {
                 continue;
             }
 
             // Check if driver has an approved vehicle
-            List<Vehicle> vehicles = vehicleRepository.findByDriverIdAndStatus(
-                    driver.getId(), 
-                    Vehicle.VehicleStatus.APPROVED
-            );
-
-            if (vehicles.isEmpty()) {
-                log.debug("Driver {} has no approved vehicle", driver.getId());
+            if (!vehiclesByDriver.containsKey(nearby.driverId())) {
+                log.debug("Driver {} has no approved vehicle", nearby.driverId());
                 continue;
             }
 
-            Vehicle vehicle = vehicles.get(0);
-            
-            // Calculate ETA
-            int eta = calculateETA(distance);
-
-            // Create candidate
-            DriverCandidate candidate = DriverCandidate.builder()
-                    .driverId(driver.getId())
-                    .driverName(driver.getFullName())
-                    .driverPhone(driver.getPhoneNumber())
-                    .vehicleId(vehicle.getId())
-                    .vehicleInfo(vehicle.getMake() + " " + vehicle.getModel() + " - " + vehicle.getLicensePlate())
-                    .currentLatitude(driver.getCurrentLatitude())
-                    .currentLongitude(driver.getCurrentLongitude())
-                    .distanceToPickup(distance)
-                    .driverRating(driver.getRating())
-                    .acceptanceRate(driver.getAcceptanceRate())
-                    .completionRate(driver.getCompletionRate())
-                    .totalRidesCompleted(driver.getTotalRidesCompleted())
-                    .estimatedArrivalTime(eta)
-                    .build();
-
-            candidates.add(candidate);
+            batch.add(nearby.driverId(), nearby.latitude(), nearby.longitude(), nearby.distanceKm(),
+                    (Float) row[3], (Float) row[4], (Float) row[5]);
         }
 
-        return candidates;
+        return batch;
+    }
+
+    /**
+     * @param scoringRow row of UserRepository.findScoringRowsByIdIn
+     * @param candidateRow row of UserRepository.findCandidateRowsByIdIn
+     */
+    private DriverCandidate toCandidate(DriverScoringBatch batch, int row, Object[] scoringRow, Object[] candidateRow,
+                                        ApprovedVehicleCache.ApprovedVehicle vehicle) {
+        double distance = batch.distanceKm(row);
+        return DriverCandidate.builder()
+                .driverId(batch.driverId(row))
+                .driverName((String) candidateRow[1])
+                .driverPhone((String) candidateRow[2])
+                .vehicleId(vehicle.vehicleId())
+                .vehicleInfo(vehicle.displayName())
+                .currentLatitude(batch.latitude(row))
+                .currentLongitude(batch.longitude(row))
+                .distanceToPickup(distance)
+                .driverRating((Float) scoringRow[3])
+                .acceptanceRate((Float) scoringRow[4])
+                .completionRate((Float) scoringRow[5])
+                .totalRidesCompleted((Integer) candidateRow[3])
+                .estimatedArrivalTime(batch.etaMinutes(row))
+                .matchScore(batch.score(row))
+                .build();
     }
 
     /**
      * Calculate match score using weighted multi-factor algorithm
      * Score = w1*(1/distance) + w2*rating + w3*acceptanceRate + w4*(1/ETA) + w5*completionRate
      */
-    private void calculateMatchScore(DriverCandidate candidate) {
+    public void calculateMatchScore(DriverCandidate candidate) {
+        double score = matchScore(candidate.getDistanceToPickup(), candidate.getEstimatedArrivalTime(),
+                candidate.getDriverRating(), candidate.getAcceptanceRate(), candidate.getCompletionRate());
+
+        candidate.setMatchScore(score);
+        
+        log.debug("Driver {} score: {:.3f} (dist={:.2f}km, rating={:.1f}, acceptance={:.1f}%, ETA={}min)",
+                candidate.getDriverId(), score, candidate.getDistanceToPickup(), 
+                candidate.getDriverRating(), candidate.getAcceptanceRate(),
+                candidate.getEstimatedArrivalTime());
+    }
+
+    /**
+     * Weighted score shared by the single-candidate and batch paths, so both rank drivers identically
+     */
+    private static double matchScore(double distanceKm, int etaMinutes, float rating,
+                                     float acceptanceRate, float completionRate) {
         // Normalize factors to 0-1 range
         
         // Distance score: closer is better (inverse relationship)
         // Normalize: 1km = 1.0, 10km = 0.1
-        double distanceScore = Math.min(1.0, 10.0 / Math.max(candidate.getDistanceToPickup(), 0.5));
+        double distanceScore = Math.min(1.0, 10.0 / Math.max(distanceKm, 0.5));
         
         // Rating score: 0-5 scale normalized to 0-1
-        double ratingScore = candidate.getDriverRating() / 5.0;
+        double ratingScore = rating / 5.0;
         
         // Acceptance rate score: already 0-100, normalize to 0-1
-        double acceptanceScore = candidate.getAcceptanceRate() / 100.0;
+        double acceptanceScore = acceptanceRate / 100.0;
         
         // ETA score: inverse relationship (faster is better)
         // Normalize: 5min = 1.0, 30min = 0.167
-        double etaScore = Math.min(1.0, 30.0 / Math.max(candidate.getEstimatedArrivalTime(), 1.0));
+        double etaScore = Math.min(1.0, 30.0 / Math.max(etaMinutes, 1.0));
         
         // Completion rate score: already 0-100, normalize to 0-1
-        double completionScore = candidate.getCompletionRate() / 100.0;
+        double completionScore = completionRate / 100.0;
 
         // Calculate weighted sum
-        double score = WEIGHT_DISTANCE * distanceScore +
-                       WEIGHT_RATING * ratingScore +
-                       WEIGHT_ACCEPTANCE_RATE * acceptanceScore +
-                       WEIGHT_ETA * etaScore +
-                       WEIGHT_COMPLETION_RATE * completionScore;
-
-        candidate.setMatchScore(score);
-        
-        log.debug("Driver {} score: {:.3f} (dist={:.2f}km, rating={:.1f}, acceptance={:.1f}%, ETA={}min)",
-                candidate.getDriverId(), score, candidate.getDistanceToPickup(), 
-                candidate.getDriverRating(), candidate.getAcceptanceRate(),
-                candidate.getEstimatedArrivalTime());
-    }
-
-    /**
-     * Calculate distance between two GPS coordinates using Haversine formula
-     * @return distance in kilometers
-     */
-    private double calculateHaversineDistance(Double lat1, Double lon1, Double lat2, Double lon2) {
-        final double EARTH_RADIUS_KM = 6371.0;
-
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                   Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
-                   Math.sin(dLon / 2) * Math.sin(dLon / 2);
-
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-
-        return EARTH_RADIUS_KM * c;
+        return WEIGHT_DISTANCE * distanceScore +
+               WEIGHT_RATING * ratingScore +
+               WEIGHT_ACCEPTANCE_RATE * acceptanceScore +
+               WEIGHT_ETA * etaScore +
+               WEIGHT_COMPLETION_RATE * completionScore;
     }
 
     /**
-     * Calculate estimated time of arrival in minutes
+     * Straight-line estimate of time of arrival in minutes, used when no road ETA is available
      */
-    private int calculateETA(double distanceKm) {
+    private static int calculateETA(double distanceKm) {
         double hours = distanceKm / AVERAGE_SPEED_KMH;
         return (int) Math.ceil(hours * 60); // Convert to minutes and round up
     }
-
-    /**
-     * Check if driver's location is valid
-     * Chỉ kiểm tra xem driver có location coordinates hay không
-     * Không kiểm tra thời gian stale vì location có thể được sync realtime từ Supabase
-     */
-    private boolean isLocationValid(User driver) {
-        if (driver.getCurrentLatitude() == null || driver.getCurrentLongitude() == null) {
-            log.debug("Driver {} has no location coordinates", driver.getId());
-            return false;
-        }
-
-        // Chỉ cần có location coordinates là đủ
-        // Không kiểm tra lastLocationUpdate vì location có thể được sync realtime từ Supabase
-        return true;
-    }
 }
@@ -0,0 +1,147 @@
+package com.ridemate.ridemate_server.application.service.match;
+
+import java.util.Arrays;
+
+/**
+ * Column-oriented snapshot of the drivers around one pickup point
+ * One primitive array per field instead of one DriverCandidate per driver, so a dense area can be
+ * scored in a single tight loop; DTOs are only built for the final top-N.
+ *
+ * Rows must be added in ascending distance (the order the spatial index returns them), which lets
+ * a radius step be expressed as a row prefix.
+ */
+public final class DriverScoringBatch {
+
+    long[] driverIds;
+    double[] latitudes;
+    double[] longitudes;
+    double[] distancesKm;
+    float[] ratings;
+    float[] acceptanceRates;
+    float[] completionRates;
+    // Road ETA in minutes when known, -1 until then (scoring falls back to the straight-line estimate)
+    int[] etaMinutes;
+    double[] scores;
+    int size;
+
+    public DriverScoringBatch(int capacity) {
+        int initial = Math.max(capacity, 8);
+        driverIds = new long[initial];
+        latitudes = new double[initial];
+        longitudes = new double[initial];
+        distancesKm = new double[initial];
+        ratings = new float[initial];
+        acceptanceRates = new float[initial];
+        completionRates = new float[initial];
+        etaMinutes = new int[initial];
+        scores = new double[initial];
+    }
+
+    /**
+     * Append a driver; null metrics count as 0
+     */
+    public void add(long driverId, double latitude, double longitude, double distanceKm,
+                    Float rating, Float acceptanceRate, Float completionRate) {
+        if (size == driverIds.length) {
+            grow();
+        }
+        driverIds[size] = driverId;
+        latitudes[size] = latitude;
+        longitudes[size] = longitude;
+        distancesKm[size] = distanceKm;
+        ratings[size] = rating != null ? rating : 0f;
+        acceptanceRates[size] = acceptanceRate != null ? acceptanceRate : 0f;
+        completionRates[size] = completionRate != null ? completionRate : 0f;
+        etaMinutes[size] = -1;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of leading rows within radiusKm
+     */
+    public int countWithin(double radiusKm) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (distancesKm[mid] <= radiusKm) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Rows with the n highest scores among the first count rows, best first.
+     * Equal scores keep row (distance) order.
+     */
+    public int[] topN(int count, int n) {
+        int limit = Math.min(n, count);
+        int[] top = new int[limit];
+        double[] topScores = new double[limit];
+        int filled = 0;
+
+        for (int row = 0; row < count; row++) {
+            double score = scores[row];
+            if (filled == limit && (limit == 0 || score <= topScores[limit - 1])) {
+                continue;
+            }
+            int position = filled < limit ? filled : limit - 1;
+            while (position > 0 && topScores[position - 1] < score) {
+                position--;
+            }
+            int moved = Math.min(filled, limit - 1) - position;
+            System.arraycopy(top, position, top, position + 1, moved);
+            System.arraycopy(topScores, position, topScores, position + 1, moved);
+            top[position] = row;
+            topScores[position] = score;
+            if (filled < limit) {
+                filled++;
+            }
+        }
+        return top;
+    }
+
+    public long driverId(int row) {
+        return driverIds[row];
+    }
+
+    public double latitude(int row) {
+        return latitudes[row];
+    }
+
+    public double longitude(int row) {
+        return longitudes[row];
+    }
+
+    public double distanceKm(int row) {
+        return distancesKm[row];
+    }
+
+    public int etaMinutes(int row) {
+        return etaMinutes[row];
+    }
+
+    public double score(int row) {
+        return scores[row];
+    }
+
+    private void grow() {
+        int capacity = driverIds.length * 2;
+        driverIds = Arrays.copyOf(driverIds, capacity);
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+        distancesKm = Arrays.copyOf(distancesKm, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+        acceptanceRates = Arrays.copyOf(acceptanceRates, capacity);
+        completionRates = Arrays.copyOf(completionRates, capacity);
+        etaMinutes = Arrays.copyOf(etaMinutes, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+    }
+}
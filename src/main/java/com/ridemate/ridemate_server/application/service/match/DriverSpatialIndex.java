@@ -0,0 +1,309 @@
+package com.ridemate.ridemate_server.application.service.match;
+
+import com.ridemate.ridemate_server.domain.entity.User;
+import com.ridemate.ridemate_server.domain.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * In-memory grid index of ONLINE drivers
+ * The city is split into fixed-size lat/lon cells; each cell keeps the ids of the drivers inside it.
+ * Radius and nearest queries only visit the cells overlapping the search circle,
+ * so matching no longer scans every online driver through Hibernate.
+ *
+ * Kept up to date by DriverLocationService (location pings, status changes) and by the
+ * match lifecycle (ONLINE -> BUSY -> ONLINE). Warmed from the database on startup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DriverSpatialIndex {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE_LAT = 111.32;
+
+    // ~1.1km per cell on the latitude axis, small enough that a 2km search touches ~25 cells
+    private static final double CELL_SIZE_DEGREES = 0.01;
+
+    private final UserRepository userRepository;
+
+    private final Map<Long, Position> positions = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+    private volatile Consumer<Long> indexedListener;
+
+    /**
+     * Driver position as stored in the index
+     */
+    public record Position(long driverId, double latitude, double longitude, long cellKey, long updatedAtMillis) {
+    }
+
+    /**
+     * Result of a spatial query: driver position plus great-circle distance to the query point
+     */
+    public record NearbyDriver(long driverId, double latitude, double longitude, double distanceKm) {
+    }
+
+    /**
+     * Load all ONLINE drivers once the application is up
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            List<User> onlineDrivers = userRepository.findByUserTypeAndDriverStatus(
+                    User.UserType.DRIVER,
+                    User.DriverStatus.ONLINE
+            );
+            for (User driver : onlineDrivers) {
+                if (driver.getCurrentLatitude() != null && driver.getCurrentLongitude() != null) {
+                    upsert(driver.getId(), driver.getCurrentLatitude(), driver.getCurrentLongitude());
+                }
+            }
+            log.info("Driver spatial index warmed with {} online drivers", positions.size());
+        } catch (Exception e) {
+            log.error("Failed to warm driver spatial index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Insert or move a driver. Safe to call on every location ping.
+     */
+    public void upsert(Long driverId, Double latitude, Double longitude) {
+        if (driverId == null || latitude == null || longitude == null) {
+            return;
+        }
+
+        long newCell = cellKey(latitude, longitude);
+        boolean[] added = new boolean[1];
+        positions.compute(driverId, (id, previous) -> {
+            if (previous != null && previous.cellKey() != newCell) {
+                removeFromCell(previous.cellKey(), id);
+            }
+            if (previous == null || previous.cellKey() != newCell) {
+                addToCell(newCell, id);
+            }
+            added[0] = previous == null;
+            return new Position(id, latitude, longitude, newCell, System.currentTimeMillis());
+        });
+
+        Consumer<Long> listener = indexedListener;
+        if (added[0] && listener != null) {
+            listener.accept(driverId);
+        }
+    }
+
+    /**
+     * Move a driver that is already indexed; drivers that are not (BUSY, OFFLINE) stay out
+     * @return true if the driver was indexed and has been moved
+     */
+    public boolean moveIfIndexed(Long driverId, double latitude, double longitude) {
+        if (driverId == null) {
+            return false;
+        }
+
+        long newCell = cellKey(latitude, longitude);
+        Position moved = positions.computeIfPresent(driverId, (id, previous) -> {
+            if (previous.cellKey() != newCell) {
+                removeFromCell(previous.cellKey(), id);
+                addToCell(newCell, id);
+            }
+            return new Position(id, latitude, longitude, newCell, System.currentTimeMillis());
+        });
+        return moved != null;
+    }
+
+    /**
+     * Remove a driver (went OFFLINE, BUSY or was removed)
+     */
+    public void remove(Long driverId) {
+        if (driverId == null) {
+            return;
+        }
+
+        positions.computeIfPresent(driverId, (id, previous) -> {
+            removeFromCell(previous.cellKey(), id);
+            return null;
+        });
+    }
+
+    /**
+     * Remove a driver whose position has not been updated since the cutoff (pinging drivers stay)
+     * @return true if the driver was removed
+     */
+    public boolean removeIfIdleSince(Long driverId, long cutoffMillis) {
+        if (driverId == null) {
+            return false;
+        }
+
+        boolean[] removed = new boolean[1];
+        positions.computeIfPresent(driverId, (id, current) -> {
+            if (current.updatedAtMillis() > cutoffMillis) {
+                return current;
+            }
+            removeFromCell(current.cellKey(), id);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Called with the id of every driver that enters the index (not on moves)
+     */
+    public void setIndexedListener(Consumer<Long> listener) {
+        this.indexedListener = listener;
+    }
+
+    /**
+     * Apply a driver status change: ONLINE drivers with a location are indexed, everyone else is removed
+     */
+    public void onStatusChanged(Long driverId, User.DriverStatus status, Double latitude, Double longitude) {
+        if (status == User.DriverStatus.ONLINE && latitude != null && longitude != null) {
+            upsert(driverId, latitude, longitude);
+        } else {
+            remove(driverId);
+        }
+    }
+
+    public Position getPosition(Long driverId) {
+        return driverId != null ? positions.get(driverId) : null;
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    /**
+     * Find all indexed drivers within radiusKm of the given point
+     * @return drivers sorted by distance (closest first)
+     */
+    public List<NearbyDriver> findWithinRadius(double latitude, double longitude, double radiusKm) {
+        List<NearbyDriver> result = new ArrayList<>();
+
+        int minLatIdx = cellIndex(latitude - radiusKm / KM_PER_DEGREE_LAT);
+        int maxLatIdx = cellIndex(latitude + radiusKm / KM_PER_DEGREE_LAT);
+        double lonSpan = radiusKm / (KM_PER_DEGREE_LAT * Math.max(Math.cos(Math.toRadians(latitude)), 0.01));
+        int minLonIdx = cellIndex(longitude - lonSpan);
+        int maxLonIdx = cellIndex(longitude + lonSpan);
+
+        for (int latIdx = minLatIdx; latIdx <= maxLatIdx; latIdx++) {
+            for (int lonIdx = minLonIdx; lonIdx <= maxLonIdx; lonIdx++) {
+                Set<Long> driverIds = cells.get(packCell(latIdx, lonIdx));
+                if (driverIds == null) {
+                    continue;
+                }
+                for (Long driverId : driverIds) {
+                    Position position = positions.get(driverId);
+                    if (position == null) {
+                        continue;
+                    }
+                    double distance = distanceKm(latitude, longitude, position.latitude(), position.longitude());
+                    if (distance <= radiusKm) {
+                        result.add(new NearbyDriver(driverId, position.latitude(), position.longitude(), distance));
+                    }
+                }
+            }
+        }
+
+        result.sort(Comparator.comparingDouble(NearbyDriver::distanceKm));
+        return result;
+    }
+
+    /**
+     * Find all indexed drivers inside a lat/lon box (e.g. a map viewport)
+     * @return drivers sorted by distance to the centre of the box
+     */
+    public List<NearbyDriver> findInBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        List<NearbyDriver> result = new ArrayList<>();
+        double centerLatitude = (minLatitude + maxLatitude) / 2;
+        double centerLongitude = (minLongitude + maxLongitude) / 2;
+
+        int maxLatIdx = cellIndex(maxLatitude);
+        int maxLonIdx = cellIndex(maxLongitude);
+        for (int latIdx = cellIndex(minLatitude); latIdx <= maxLatIdx; latIdx++) {
+            for (int lonIdx = cellIndex(minLongitude); lonIdx <= maxLonIdx; lonIdx++) {
+                Set<Long> driverIds = cells.get(packCell(latIdx, lonIdx));
+                if (driverIds == null) {
+                    continue;
+                }
+                for (Long driverId : driverIds) {
+                    Position position = positions.get(driverId);
+                    if (position == null
+                            || position.latitude() < minLatitude || position.latitude() > maxLatitude
+                            || position.longitude() < minLongitude || position.longitude() > maxLongitude) {
+                        continue;
+                    }
+                    double distance = distanceKm(centerLatitude, centerLongitude, position.latitude(), position.longitude());
+                    result.add(new NearbyDriver(driverId, position.latitude(), position.longitude(), distance));
+                }
+            }
+        }
+
+        result.sort(Comparator.comparingDouble(NearbyDriver::distanceKm));
+        return result;
+    }
+
+    /**
+     * Find up to k closest drivers, growing the search ring until k are found or maxRadiusKm is reached
+     */
+    public List<NearbyDriver> findNearest(double latitude, double longitude, int k, double maxRadiusKm) {
+        double radius = Math.min(CELL_SIZE_DEGREES * KM_PER_DEGREE_LAT, maxRadiusKm);
+        List<NearbyDriver> found = findWithinRadius(latitude, longitude, radius);
+
+        while (found.size() < k && radius < maxRadiusKm) {
+            radius = Math.min(radius * 2, maxRadiusKm);
+            found = findWithinRadius(latitude, longitude, radius);
+        }
+
+        return found.size() > k ? new ArrayList<>(found.subList(0, k)) : found;
+    }
+
+    private void addToCell(long cellKey, Long driverId) {
+        // Add inside compute so a concurrent removeFromCell cannot drop the set in between
+        cells.compute(cellKey, (key, members) -> {
+            Set<Long> cell = members != null ? members : ConcurrentHashMap.newKeySet();
+            cell.add(driverId);
+            return cell;
+        });
+    }
+
+    private void removeFromCell(long cellKey, Long driverId) {
+        cells.computeIfPresent(cellKey, (key, members) -> {
+            members.remove(driverId);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    private static int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / CELL_SIZE_DEGREES);
+    }
+
+    private static long cellKey(double latitude, double longitude) {
+        return packCell(cellIndex(latitude), cellIndex(longitude));
+    }
+
+    private static long packCell(int latIdx, int lonIdx) {
+        return ((long) latIdx << 32) | (lonIdx & 0xFFFFFFFFL);
+    }
+
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                   Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
+                   Math.sin(dLon / 2) * Math.sin(dLon / 2);
+
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
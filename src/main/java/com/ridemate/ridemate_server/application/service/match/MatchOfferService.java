@@ -0,0 +1,174 @@
+package com.ridemate.ridemate_server.application.service.match;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridemate.ridemate_server.application.dto.match.DriverCandidate;
+import com.ridemate.ridemate_server.application.service.outbox.OutboxService;
+import com.ridemate.ridemate_server.domain.entity.Match;
+import com.ridemate.ridemate_server.domain.entity.Notification;
+import com.ridemate.ridemate_server.domain.repository.MatchRepository;
+import com.ridemate.ridemate_server.presentation.exception.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands ranked driver candidates to a match:
+ * stores them on the match, moves it to WAITING and notifies the drivers.
+ * Notifications and the Supabase publish go through the outbox, so they leave only once the
+ * transaction commits and never hold up the booking request.
+ * Driven by OfferCascadeService, which decides which candidates are offered in each wave.
+ */
+@Service
+@Slf4j
+public class MatchOfferService {
+
+    @Autowired
+    private MatchRepository matchRepository;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    /**
+     * Open the first offer wave of a PENDING match
+     * @return the updated match, or the unchanged match if it is no longer PENDING (e.g. cancelled meanwhile)
+     */
+    @Transactional
+    public Match offerCandidates(Long matchId, List<DriverCandidate> candidates) {
+        Match match = matchRepository.findById(matchId)
+                .orElseThrow(() -> new ResourceNotFoundException("Match not found"));
+
+        if (match.getStatus() != Match.MatchStatus.PENDING) {
+            log.info("Match {} is {} - skipping candidate offer", matchId, match.getStatus());
+            return match;
+        }
+
+        // Update match status to WAITING (có driver available)
+        match.setStatus(Match.MatchStatus.WAITING);
+
+        // Save match first WITHOUT candidates to avoid type casting issues
+        match = matchRepository.save(match);
+
+        publishCandidates(match, candidates);
+        return match;
+    }
+
+    /**
+     * Replace the offered candidates of a WAITING match with the next wave and notify those drivers
+     * @return false if the match is gone or no longer WAITING (accepted or cancelled meanwhile)
+     */
+    @Transactional
+    public boolean offerNextWave(Long matchId, List<DriverCandidate> candidates) {
+        Match match = matchRepository.findById(matchId).orElse(null);
+        if (match == null || match.getStatus() != Match.MatchStatus.WAITING) {
+            return false;
+        }
+
+        publishCandidates(match, candidates);
+        return true;
+    }
+
+    /**
+     * Every candidate declined or timed out: put a WAITING match back to PENDING and tell the passenger
+     * @return false if the match is gone or no longer WAITING
+     */
+    @Transactional
+    public boolean expireOffer(Long matchId) {
+        Match match = matchRepository.findById(matchId).orElse(null);
+        if (match == null || match.getStatus() != Match.MatchStatus.WAITING) {
+            return false;
+        }
+
+        match.setStatus(Match.MatchStatus.PENDING);
+        match = matchRepository.save(match);
+        matchRepository.updateMatchedDriverCandidates(match.getId(), "[]");
+        log.info("No driver accepted match {} - back to PENDING", match.getId());
+
+        outboxService.notifyUsers(match.getId(), List.of(new OutboxService.UserNotification(
+                match.getPassenger().getId(),
+                "No Driver Found",
+                "No nearby driver accepted your ride. Please try booking again in a moment.",
+                Notification.NotificationType.SYSTEM.name(),
+                match.getId()
+        )));
+
+        Map<String, Object> matchData = new HashMap<>();
+        matchData.put("id", match.getId());
+        matchData.put("passenger_id", match.getPassenger().getId());
+        matchData.put("status", match.getStatus().name());
+        matchData.put("matched_driver_candidates", "[]");
+        outboxService.publishMatch(match.getId(), matchData);
+        return true;
+    }
+
+    private void publishCandidates(Match match, List<DriverCandidate> candidates) {
+
+        // ===== SAVE CANDIDATES TO DATABASE FOR SUPABASE REALTIME =====
+        // Use native query with explicit JSONB cast to avoid Hibernate type issues
+        String candidatesJson = null;
+        try {
+            ObjectMapper objectMapper = new ObjectMapper();
+            candidatesJson = objectMapper.writeValueAsString(candidates);
+
+            // Update using native SQL with JSONB cast
+            matchRepository.updateMatchedDriverCandidates(match.getId(), candidatesJson);
+
+            log.info("Serialized {} candidates to JSON for match {}", candidates.size(), match.getId());
+        } catch (Exception e) {
+            log.error("Failed to serialize candidates to JSON: {}", e.getMessage());
+            // Continue even if serialization fails
+        }
+
+
+        log.info("Found {} driver candidates for match {}. Top candidate: Driver {} (score: {:.3f})",
+                candidates.size(), match.getId(),
+                candidates.get(0).getDriverId(),
+                candidates.get(0).getMatchScore());
+        log.info("Match {} updated to WAITING status", match.getId());
+
+        // Log all candidates for debugging
+        for (int i = 0; i < candidates.size(); i++) {
+            DriverCandidate dc = candidates.get(i);
+            log.info("  Rank #{}: Driver {} - Distance: {:.2f}km, ETA: {}min, Score: {:.3f}",
+                    i + 1, dc.getDriverId(), dc.getDistanceToPickup(),
+                    dc.getEstimatedArrivalTime(), dc.getMatchScore());
+        }
+
+
+        // ===== NOTIFY DRIVERS AND PUBLISH TO SUPABASE (delivered by the outbox relay after commit) =====
+        List<OutboxService.UserNotification> notifications = new ArrayList<>(candidates.size());
+        for (DriverCandidate candidate : candidates) {
+            String body = String.format("From %s to %s. Distance: %.2fkm, Coin: %d",
+                    match.getPickupAddress(),
+                    match.getDestinationAddress(),
+                    candidate.getDistanceToPickup(),
+                    match.getCoin());
+            notifications.add(new OutboxService.UserNotification(candidate.getDriverId(), "🚗 New Ride Request!", body,
+                    Notification.NotificationType.MATCH_REQUEST.name(), match.getId()));
+        }
+        log.info("Queueing notifications to {} drivers for match {}", candidates.size(), match.getId());
+        outboxService.notifyUsers(match.getId(), notifications);
+
+        // One realtime upsert per wave, with the candidates just written (no reload needed)
+        Map<String, Object> matchData = new HashMap<>();
+        matchData.put("id", match.getId());
+        matchData.put("passenger_id", match.getPassenger().getId());
+        matchData.put("pickup_latitude", match.getPickupLatitude());
+        matchData.put("pickup_longitude", match.getPickupLongitude());
+        matchData.put("pickup_address", match.getPickupAddress());
+        matchData.put("destination_latitude", match.getDestinationLatitude());
+        matchData.put("destination_longitude", match.getDestinationLongitude());
+        matchData.put("destination_address", match.getDestinationAddress());
+        matchData.put("status", match.getStatus().name());
+        matchData.put("matched_driver_candidates", candidatesJson != null ? candidatesJson : "[]");
+        matchData.put("created_at", match.getCreatedAt() != null
+                ? match.getCreatedAt().toString()
+                : java.time.LocalDateTime.now().toString());
+        outboxService.publishMatch(match.getId(), matchData);
+    }
+}
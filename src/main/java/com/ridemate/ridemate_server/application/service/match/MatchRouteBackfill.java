@@ -0,0 +1,72 @@
+package com.ridemate.ridemate_server.application.service.match;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Copies the route polylines of matches booked before MatchRoute from the old
+ * matches.route_polyline text column into match_routes, once, on startup. Matches that already
+ * have a match_routes row are skipped, so a restart only picks up what is left; the text itself is
+ * left in place.
+ *
+ * Depends on MatchRouteService (and so MatchRouteRepository) so the match_routes table exists first.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MatchRouteBackfill {
+
+    private static final int PAGE_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MatchRouteService matchRouteService;
+
+    private record LegacyRoute(long matchId, String routePolyline) {
+    }
+
+    @PostConstruct
+    void backfill() {
+        Integer legacyColumns = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.columns
+                WHERE table_name = 'matches' AND column_name = 'route_polyline'
+                """, Integer.class);
+        if (legacyColumns == null || legacyColumns == 0) {
+            return;
+        }
+
+        int copied = 0;
+        int invalid = 0;
+        long afterId = 0;
+        while (true) {
+            List<LegacyRoute> page = jdbcTemplate.query("""
+                    SELECT m.id, m.route_polyline FROM matches m
+                    WHERE m.route_polyline IS NOT NULL AND m.route_polyline <> '' AND m.id > ?
+                    AND NOT EXISTS (SELECT 1 FROM match_routes r WHERE r.match_id = m.id)
+                    ORDER BY m.id LIMIT ?
+                    """, (rs, rowNum) -> new LegacyRoute(rs.getLong("id"), rs.getString("route_polyline")),
+                    afterId, PAGE_SIZE);
+            for (LegacyRoute legacy : page) {
+                MatchRouteService.ParsedRoute route = matchRouteService.parse(legacy.routePolyline());
+                if (route != null) {
+                    matchRouteService.save(legacy.matchId(), route);
+                    copied++;
+                } else {
+                    invalid++;
+                }
+            }
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+            afterId = page.get(page.size() - 1).matchId();
+        }
+        if (copied > 0 || invalid > 0) {
+            log.info("Copied the route polylines of {} matches to match_routes ({} not valid polylines skipped)",
+                    copied, invalid);
+        }
+    }
+}
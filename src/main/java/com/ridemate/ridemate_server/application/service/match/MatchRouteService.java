@@ -0,0 +1,135 @@
+package com.ridemate.ridemate_server.application.service.match;
+
+import com.ridemate.ridemate_server.application.dto.match.MatchResponse;
+import com.ridemate.ridemate_server.domain.entity.MatchRoute;
+import com.ridemate.ridemate_server.domain.repository.MatchRouteRepository;
+import com.ridemate.ridemate_server.infrastructure.codec.PolylineCodec;
+import com.ridemate.ridemate_server.infrastructure.routing.RoadGraph;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Parses the route polyline sent with a booking and stores it in compact form next to the match
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MatchRouteService {
+
+    private final MatchRouteRepository matchRouteRepository;
+
+    @Value("${matching.route.max-endpoint-offset-meters:500}")
+    private double maxEndpointOffsetMeters;
+
+    @Value("${matching.route.max-detour-factor:3}")
+    private double maxDetourFactor;
+
+    public record ParsedRoute(String encoded, byte[] polyline, int pointCount, double lengthMeters,
+                              double startLatitude, double startLongitude, double endLatitude, double endLongitude) {
+    }
+
+    /**
+     * @return the parsed route, or null if there is none or it is not a valid polyline with at least two points
+     */
+    public ParsedRoute parse(String encoded) {
+        if (encoded == null || encoded.isBlank()) {
+            return null;
+        }
+        try {
+            byte[] polyline = PolylineCodec.toBinary(encoded);
+            // First and last point
+            double[] ends = new double[4];
+            boolean[] first = {true};
+            int pointCount = PolylineCodec.decode(polyline, (latitude, longitude) -> {
+                checkRange(latitude, longitude);
+                if (first[0]) {
+                    ends[0] = latitude;
+                    ends[1] = longitude;
+                    first[0] = false;
+                }
+                ends[2] = latitude;
+                ends[3] = longitude;
+            });
+            if (pointCount < 2) {
+                return null;
+            }
+            return new ParsedRoute(encoded, polyline, pointCount, PolylineCodec.lengthMeters(polyline),
+                    ends[0], ends[1], ends[2], ends[3]);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring invalid route polyline: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Whether a booking's route really goes from its pickup to its destination, within
+     * matching.route.max-endpoint-offset-meters at both ends
+     */
+    public boolean connects(ParsedRoute route, double pickupLatitude, double pickupLongitude,
+                            double destinationLatitude, double destinationLongitude) {
+        return connects(route, pickupLatitude, pickupLongitude, maxEndpointOffsetMeters,
+                destinationLatitude, destinationLongitude, maxEndpointOffsetMeters);
+    }
+
+    /**
+     * Whether the route starts within startMeters of the start point, ends within endMeters of the
+     * end point, and is at most matching.route.max-detour-factor times the straight line between
+     * them (plus both offsets). The route length sets fares and distances, so a client must not be
+     * able to pad it with a detour or a path somewhere else.
+     */
+    public boolean connects(ParsedRoute route, double startLatitude, double startLongitude, double startMeters,
+                            double endLatitude, double endLongitude, double endMeters) {
+        if (RoadGraph.distanceMeters(route.startLatitude(), route.startLongitude(), startLatitude, startLongitude) > startMeters
+                || RoadGraph.distanceMeters(route.endLatitude(), route.endLongitude(), endLatitude, endLongitude) > endMeters) {
+            return false;
+        }
+        double straightMeters = RoadGraph.distanceMeters(startLatitude, startLongitude, endLatitude, endLongitude);
+        return route.lengthMeters() <= maxDetourFactor * straightMeters + startMeters + endMeters;
+    }
+
+    public void save(Long matchId, ParsedRoute route) {
+        matchRouteRepository.save(MatchRoute.builder()
+                .matchId(matchId)
+                .pointCount(route.pointCount())
+                .lengthMeters(route.lengthMeters())
+                .polyline(route.polyline())
+                .build());
+    }
+
+    /**
+     * @return the encoded polyline of the match, or null if it was booked without one
+     */
+    public String findEncoded(Long matchId) {
+        return matchRouteRepository.findByMatchId(matchId)
+                .map(route -> PolylineCodec.toEncoded(route.getPolyline()))
+                .orElse(null);
+    }
+
+    /**
+     * Set routePolyline on a list of responses with one query
+     */
+    public void fillEncoded(List<MatchResponse> responses) {
+        List<Long> matchIds = responses.stream().map(MatchResponse::getId).filter(Objects::nonNull).toList();
+        if (matchIds.isEmpty()) {
+            return;
+        }
+        Map<Long, String> encoded = new HashMap<>();
+        for (MatchRoute route : matchRouteRepository.findByMatchIdIn(matchIds)) {
+            encoded.put(route.getMatchId(), PolylineCodec.toEncoded(route.getPolyline()));
+        }
+        responses.forEach(response -> response.setRoutePolyline(encoded.get(response.getId())));
+    }
+
+    private static void checkRange(double latitude, double longitude) {
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Route point out of range");
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.ridemate.ridemate_server.application.dto.match.BookRideRequest;
 import com.ridemate.ridemate_server.application.dto.match.BroadcastDriverRequest;
 import com.ridemate.ridemate_server.application.dto.match.BroadcastPassengerRequest;
 import com.ridemate.ridemate_server.application.dto.match.FindMatchesRequest;
+import com.ridemate.ridemate_server.application.dto.match.MatchPageResponse;
 import com.ridemate.ridemate_server.application.dto.match.MatchResponse;
 import com.ridemate.ridemate_server.application.dto.match.UpdateMatchStatusRequest;
 import java.util.List;
@@ -13,10 +14,11 @@ public interface MatchService {
     MatchResponse getMatchById(Long matchId);
     List<MatchResponse> getMyHistory(Long userId);
     MatchResponse acceptRide(Long matchId, Long driverId);
+    void rejectRide(Long matchId, Long driverId);
     MatchResponse updateMatchStatus(Long matchId, Long userId, UpdateMatchStatusRequest request);
     MatchResponse cancelMatch(Long matchId, Long userId);
     List<MatchResponse> getWaitingMatches();
     void broadcastAsDriver(Long driverId, BroadcastDriverRequest request);
     void broadcastAsPassenger(Long passengerId, BroadcastPassengerRequest request);
-    List<MatchResponse> findMatches(Long userId, FindMatchesRequest request);
+    MatchPageResponse findMatches(Long userId, FindMatchesRequest request, int page, int size);
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.ridemate.ridemate_server.application.service.match;
+
+import java.util.Arrays;
+
+/**
+ * Min-cost bipartite assignment (Hungarian algorithm, O(n^2 * m))
+ * Rows are ride requests, columns are drivers. Every row gets at most one column and
+ * every column is used at most once, minimizing the total cost.
+ *
+ * Rows that should rather stay unassigned than take a bad driver are handled by padding
+ * one "unassigned" column per row at cost {@link #UNASSIGNED_COST}.
+ */
+public final class MinCostAssignment {
+
+    /**
+     * Cost for a pair that must never be assigned (driver not in the request's candidate pool)
+     */
+    public static final double INFEASIBLE = 1e9;
+
+    /**
+     * Cost of leaving a request unassigned in this round. Higher than any real pair cost (1 - score).
+     */
+    public static final double UNASSIGNED_COST = 10.0;
+
+    private MinCostAssignment() {
+    }
+
+    /**
+     * @param cost cost[row][col], rectangular; INFEASIBLE marks forbidden pairs
+     * @return assignment[row] = column index, or -1 if the row is left unassigned
+     */
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        if (rows == 0) {
+            return new int[0];
+        }
+        int realCols = cost[0].length;
+        int cols = realCols + rows; // padding guarantees rows <= cols
+
+        // 1-based potentials, as in the classic formulation
+        double[] u = new double[rows + 1];
+        double[] v = new double[cols + 1];
+        int[] rowOfCol = new int[cols + 1];
+        int[] way = new int[cols + 1];
+        double[] minv = new double[cols + 1];
+        boolean[] used = new boolean[cols + 1];
+
+        for (int i = 1; i <= rows; i++) {
+            rowOfCol[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+
+            do {
+                used[j0] = true;
+                int i0 = rowOfCol[j0];
+                double delta = Double.POSITIVE_INFINITY;
+                int j1 = 0;
+
+                for (int j = 1; j <= cols; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    double current = cell(cost, i0 - 1, j - 1, realCols) - u[i0] - v[j];
+                    if (current < minv[j]) {
+                        minv[j] = current;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+
+                for (int j = 0; j <= cols; j++) {
+                    if (used[j]) {
+                        u[rowOfCol[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (rowOfCol[j0] != 0);
+
+            do {
+                int j1 = way[j0];
+                rowOfCol[j0] = rowOfCol[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] assignment = new int[rows];
+        Arrays.fill(assignment, -1);
+        for (int j = 1; j <= realCols; j++) {
+            int row = rowOfCol[j];
+            if (row != 0 && cost[row - 1][j - 1] < INFEASIBLE) {
+                assignment[row - 1] = j - 1;
+            }
+        }
+        return assignment;
+    }
+
+    private static double cell(double[][] cost, int row, int col, int realCols) {
+        if (col < realCols) {
+            return cost[row][col];
+        }
+        // Each row owns exactly one padding column so "unassigned" cannot be shared
+        return col - realCols == row ? UNASSIGNED_COST : INFEASIBLE;
+    }
+}
@@ -0,0 +1,344 @@
+package com.ridemate.ridemate_server.application.service.match;
+
+import com.ridemate.ridemate_server.application.dto.match.DriverCandidate;
+import com.ridemate.ridemate_server.domain.entity.Match;
+import com.ridemate.ridemate_server.infrastructure.scheduling.HashedTimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sequential offer cascade for WAITING matches
+ *
+ * Ranked candidates are offered in small waves (matching.offer.wave-size drivers at a time). A wave
+ * ends when one of its drivers accepts, when all of them reject, or when its timeout fires; the
+ * next wave is then offered automatically. When the ranked list runs out the area is searched
+ * again (excluding drivers already asked), and after the last search round the match goes back
+ * to PENDING and the passenger is told no driver was found.
+ *
+ * Timeouts live in one {@link HashedTimingWheel}; wave changes run on a small worker pool.
+ * State is per node and in memory: a restart drops running cascades, leaving those matches WAITING
+ * and acceptable by any driver as before.
+ */
+@Service
+@Slf4j
+public class OfferCascadeService {
+
+    @Autowired
+    private MatchOfferService matchOfferService;
+
+    @Autowired
+    private DriverMatchingService driverMatchingService;
+
+    @Value("${matching.offer.wave-size:2}")
+    private int waveSize;
+
+    @Value("${matching.offer.timeout-seconds:20}")
+    private long offerTimeoutSeconds;
+
+    @Value("${matching.offer.max-search-rounds:2}")
+    private int maxSearchRounds;
+
+    @Value("${matching.offer.worker-threads:4}")
+    private int workerThreads;
+
+    @Value("${matching.dispatch.candidate-pool-size:10}")
+    private int candidatePoolSize;
+
+    private final Map<Long, Cascade> cascades = new ConcurrentHashMap<>();
+
+    private ExecutorService worker;
+    private HashedTimingWheel timingWheel;
+
+    /**
+     * Offer state of one match. Guarded by its own monitor.
+     */
+    private static final class Cascade {
+        final Long matchId;
+        double pickupLatitude;
+        double pickupLongitude;
+        final List<DriverCandidate> ranked = new ArrayList<>();
+        final Set<Long> offeredDrivers = new HashSet<>();
+        final Set<Long> currentWave = new HashSet<>();
+        final Set<Long> rejectedInWave = new HashSet<>();
+        int nextIndex;
+        int waveNumber;
+        int searchRound = 1;
+        boolean finished;
+        // A new search of the area is running outside the monitor
+        boolean searching;
+        HashedTimingWheel.Timeout timeout;
+
+        Cascade(Long matchId, List<DriverCandidate> candidates) {
+            this.matchId = matchId;
+            this.ranked.addAll(candidates);
+        }
+
+        /**
+         * Move to the next wave of drivers not asked yet
+         * @return the wave, empty when the ranked list is exhausted
+         */
+        List<DriverCandidate> nextWave(int size) {
+            List<DriverCandidate> wave = new ArrayList<>(size);
+            while (nextIndex < ranked.size() && wave.size() < size) {
+                DriverCandidate candidate = ranked.get(nextIndex++);
+                if (offeredDrivers.add(candidate.getDriverId())) {
+                    wave.add(candidate);
+                }
+            }
+            currentWave.clear();
+            rejectedInWave.clear();
+            wave.forEach(candidate -> currentWave.add(candidate.getDriverId()));
+            waveNumber++;
+            return wave;
+        }
+
+        boolean hasUnofferedCandidate() {
+            for (int i = nextIndex; i < ranked.size(); i++) {
+                if (!offeredDrivers.contains(ranked.get(i).getDriverId())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void cancelTimeout() {
+            if (timeout != null) {
+                timeout.cancel();
+                timeout = null;
+            }
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        worker = Executors.newFixedThreadPool(Math.max(workerThreads, 1), runnable -> {
+            Thread thread = new Thread(runnable, "offer-cascade-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 100ms ticks, 512 buckets: one rotation covers ~51s, more than any offer timeout
+        timingWheel = new HashedTimingWheel("offer-timeouts", 100, TimeUnit.MILLISECONDS, 512, worker);
+        log.info("Offer cascade enabled: waveSize={}, timeout={}s, maxSearchRounds={}",
+                waveSize, offerTimeoutSeconds, maxSearchRounds);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (timingWheel != null) {
+            timingWheel.stop();
+        }
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+
+    /**
+     * Start the cascade for a PENDING match: the first wave is offered right away (in the caller's
+     * transaction), the wave timeout is armed once that transaction commits.
+     * @param candidates all candidates, best first (not empty)
+     * @return the match as returned by {@link MatchOfferService#offerCandidates}
+     */
+    public Match offer(Long matchId, List<DriverCandidate> candidates) {
+        Cascade cascade = new Cascade(matchId, candidates);
+        Match match = matchOfferService.offerCandidates(matchId, cascade.nextWave(waveSize()));
+        if (match.getStatus() != Match.MatchStatus.WAITING) {
+            return match;
+        }
+
+        cascade.pickupLatitude = match.getPickupLatitude();
+        cascade.pickupLongitude = match.getPickupLongitude();
+        runAfterCommit(() -> {
+            cascades.put(matchId, cascade);
+            synchronized (cascade) {
+                armTimeout(cascade);
+            }
+        });
+        return match;
+    }
+
+    /**
+     * Whether the driver may accept the match right now.
+     * Matches without a running cascade (other node, restart, broadcast) are open to everyone.
+     */
+    public boolean isOfferedTo(Long matchId, Long driverId) {
+        Cascade cascade = cascades.get(matchId);
+        if (cascade == null) {
+            return true;
+        }
+        synchronized (cascade) {
+            return cascade.currentWave.contains(driverId);
+        }
+    }
+
+    /**
+     * Match accepted, cancelled or otherwise closed: stop the cascade once that is committed
+     */
+    public void close(Long matchId) {
+        runAfterCommit(() -> finish(matchId));
+    }
+
+    /**
+     * A driver declined the offer. When the whole wave has declined the next wave goes out immediately.
+     * @return false if the driver is not part of the current wave
+     */
+    public boolean onRejected(Long matchId, Long driverId) {
+        Cascade cascade = cascades.get(matchId);
+        if (cascade == null) {
+            return false;
+        }
+
+        int waveNumber;
+        synchronized (cascade) {
+            if (cascade.finished || !cascade.currentWave.contains(driverId)) {
+                return false;
+            }
+            cascade.rejectedInWave.add(driverId);
+            log.info("Driver {} declined match {} (wave {})", driverId, matchId, cascade.waveNumber);
+            if (!cascade.rejectedInWave.containsAll(cascade.currentWave)) {
+                return true;
+            }
+            cascade.cancelTimeout();
+            waveNumber = cascade.waveNumber;
+        }
+
+        worker.execute(() -> advance(cascade, waveNumber));
+        return true;
+    }
+
+    /**
+     * Matches with a cascade in flight on this node
+     */
+    public int activeCascades() {
+        return cascades.size();
+    }
+
+    private void finish(Long matchId) {
+        Cascade cascade = cascades.remove(matchId);
+        if (cascade != null) {
+            synchronized (cascade) {
+                cascade.finished = true;
+                cascade.cancelTimeout();
+            }
+        }
+    }
+
+    // Caller holds the cascade monitor
+    private void armTimeout(Cascade cascade) {
+        int waveNumber = cascade.waveNumber;
+        cascade.timeout = timingWheel.schedule(() -> {
+            log.info("Offer wave {} of match {} timed out", waveNumber, cascade.matchId);
+            advance(cascade, waveNumber);
+        }, offerTimeoutSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Offer the next wave, searching again when the ranked list is exhausted.
+     * Ignored if the wave already moved on (late timeout racing a full rejection), a search for this
+     * wave is already running, or the cascade ended. The search runs outside the cascade monitor so
+     * acceptances and rejections are not held up by it; only the results are merged under it.
+     */
+    private void advance(Cascade cascade, int expectedWave) {
+        try {
+            List<DriverCandidate> wave;
+            while (true) {
+                Set<Long> offered;
+                synchronized (cascade) {
+                    if (cascade.finished || cascade.searching || cascade.waveNumber != expectedWave) {
+                        return;
+                    }
+                    if (cascade.hasUnofferedCandidate() || cascade.searchRound >= maxSearchRounds) {
+                        wave = cascade.nextWave(waveSize());
+                        if (wave.isEmpty()) {
+                            cascade.finished = true;
+                        }
+                        break;
+                    }
+                    // The wave is over: nobody may accept from it while the area is searched again
+                    cascade.searchRound++;
+                    cascade.searching = true;
+                    cascade.currentWave.clear();
+                    cascade.rejectedInWave.clear();
+                    offered = new HashSet<>(cascade.offeredDrivers);
+                }
+
+                List<DriverCandidate> fresh;
+                try {
+                    fresh = driverMatchingService.findBestDrivers(
+                            cascade.pickupLatitude, cascade.pickupLongitude, candidatePoolSize);
+                } finally {
+                    synchronized (cascade) {
+                        cascade.searching = false;
+                    }
+                }
+                fresh.removeIf(candidate -> offered.contains(candidate.getDriverId()));
+
+                synchronized (cascade) {
+                    if (cascade.finished) {
+                        return;
+                    }
+                    if (!fresh.isEmpty()) {
+                        log.info("Match {} search round {}: {} new candidates",
+                                cascade.matchId, cascade.searchRound, fresh.size());
+                        cascade.ranked.addAll(fresh);
+                    }
+                }
+            }
+
+            if (wave.isEmpty()) {
+                cascades.remove(cascade.matchId, cascade);
+                matchOfferService.expireOffer(cascade.matchId);
+                return;
+            }
+
+            if (!matchOfferService.offerNextWave(cascade.matchId, wave)) {
+                // Accepted or cancelled in the meantime (possibly through another node)
+                finish(cascade.matchId);
+                return;
+            }
+
+            synchronized (cascade) {
+                if (!cascade.finished) {
+                    armTimeout(cascade);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Offer cascade for match {} failed: {}", cascade.matchId, e.getMessage(), e);
+            finish(cascade.matchId);
+        }
+    }
+
+    private int waveSize() {
+        return Math.max(waveSize, 1);
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
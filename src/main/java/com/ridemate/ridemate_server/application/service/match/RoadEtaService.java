@@ -0,0 +1,102 @@
+package com.ridemate.ridemate_server.application.service.match;
+
+import com.ridemate.ridemate_server.infrastructure.routing.RoadGraph;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Driving-time ETAs over the road graph built offline by OsmRoadGraphImporter
+ * Disabled when routing.graph-file is not set or cannot be loaded; callers then fall back
+ * to the straight-line estimate.
+ */
+@Service
+@Slf4j
+public class RoadEtaService {
+
+    // Speed assumed for the off-graph part (driver or pickup to the nearest road node)
+    private static final double SNAP_SPEED_METERS_PER_SECOND = 15.0 / 3.6;
+
+    @Value("${routing.graph-file:}")
+    private String graphFile;
+
+    @Value("${routing.max-snap-meters:300}")
+    private double maxSnapMeters;
+
+    @Value("${routing.max-eta-candidates:50}")
+    private int maxEtaCandidates;
+
+    private volatile RoadGraph graph;
+
+    @PostConstruct
+    public void loadGraph() {
+        if (graphFile == null || graphFile.isBlank()) {
+            log.info("No road graph configured, ETAs use straight-line distance");
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            graph = RoadGraph.open(Path.of(graphFile));
+            log.info("Loaded road graph {} ({} nodes) in {} ms",
+                    graphFile, graph.nodeCount(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Failed to load road graph {}, ETAs use straight-line distance: {}", graphFile, e.getMessage());
+        }
+    }
+
+    public boolean isAvailable() {
+        return graph != null;
+    }
+
+    /**
+     * How many of the closest candidates get a road ETA per request
+     */
+    public int getMaxEtaCandidates() {
+        return maxEtaCandidates;
+    }
+
+    /**
+     * Driving time in seconds from each of the first count driver positions to the pickup
+     * @return -1 for drivers that could not be routed (off the graph, unreachable, or no graph)
+     */
+    public int[] etaSeconds(double pickupLat, double pickupLon, double[] latitudes, double[] longitudes, int count) {
+        int[] etas = new int[count];
+        Arrays.fill(etas, -1);
+        RoadGraph current = graph;
+        if (current == null || count == 0) {
+            return etas;
+        }
+
+        int target = current.nearestNode(pickupLat, pickupLon, maxSnapMeters);
+        if (target < 0) {
+            return etas;
+        }
+        double targetSnapSeconds = snapSeconds(current, target, pickupLat, pickupLon);
+
+        int[] sources = new int[count];
+        double[] sourceSnapSeconds = new double[count];
+        for (int i = 0; i < count; i++) {
+            sources[i] = current.nearestNode(latitudes[i], longitudes[i], maxSnapMeters);
+            if (sources[i] >= 0) {
+                sourceSnapSeconds[i] = snapSeconds(current, sources[i], latitudes[i], longitudes[i]);
+            }
+        }
+
+        int[] millis = current.travelTimesTo(target, sources, count);
+        for (int i = 0; i < count; i++) {
+            if (millis[i] >= 0) {
+                etas[i] = (int) Math.ceil(millis[i] / 1000.0 + sourceSnapSeconds[i] + targetSnapSeconds);
+            }
+        }
+        return etas;
+    }
+
+    private static double snapSeconds(RoadGraph graph, int node, double latitude, double longitude) {
+        double meters = RoadGraph.distanceMeters(latitude, longitude, graph.latitude(node), graph.longitude(node));
+        return meters / SNAP_SPEED_METERS_PER_SECOND;
+    }
+}
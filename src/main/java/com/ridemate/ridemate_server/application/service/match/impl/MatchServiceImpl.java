@@ -7,16 +7,24 @@ import com.ridemate.ridemate_server.application.dto.match.DriverCandidate;
 import com.ridemate.ridemate_server.application.dto.match.UpdateMatchStatusRequest;
 import com.ridemate.ridemate_server.application.mapper.MatchMapper;
 import com.ridemate.ridemate_server.application.dto.match.FindMatchesRequest;
+import com.ridemate.ridemate_server.application.dto.match.MatchPageResponse;
 import com.ridemate.ridemate_server.application.dto.match.MatchResponse;
-import com.ridemate.ridemate_server.application.dto.user.UserDto;
 import com.ridemate.ridemate_server.application.mapper.UserMapper;
-import com.ridemate.ridemate_server.application.service.user.UserService;
+import com.ridemate.ridemate_server.application.service.match.BatchDispatchService;
+import com.ridemate.ridemate_server.application.service.match.BroadcastRegistry;
 import com.ridemate.ridemate_server.application.service.match.CoinCalculationService;
 import com.ridemate.ridemate_server.application.service.match.DriverMatchingService;
+import com.ridemate.ridemate_server.application.service.match.DriverSpatialIndex;
+import com.ridemate.ridemate_server.application.service.match.OfferCascadeService;
+import com.ridemate.ridemate_server.application.service.match.MatchRouteService;
 import com.ridemate.ridemate_server.application.service.match.MatchService;
 import com.ridemate.ridemate_server.application.service.notification.NotificationService;
 import com.ridemate.ridemate_server.application.service.session.SessionService;
+import com.ridemate.ridemate_server.application.service.vehicle.ApprovedVehicleCache;
+import com.ridemate.ridemate_server.application.service.driver.DriverLocationStore;
+import com.ridemate.ridemate_server.application.service.driver.LocationSamplingPolicy;
 import com.ridemate.ridemate_server.application.service.driver.SupabaseRealtimeService;
+import com.ridemate.ridemate_server.application.service.trajectory.TripTrajectoryRecorder;
 import com.ridemate.ridemate_server.domain.entity.Match;
 import com.ridemate.ridemate_server.domain.entity.User;
 import com.ridemate.ridemate_server.domain.entity.Vehicle;
@@ -26,12 +34,15 @@ import com.ridemate.ridemate_server.domain.repository.UserRepository;
 import com.ridemate.ridemate_server.domain.repository.VehicleRepository;
 import com.ridemate.ridemate_server.domain.entity.RouteBooking;
 import com.ridemate.ridemate_server.application.mapper.RouteBookingMapper;
+import com.ridemate.ridemate_server.infrastructure.routing.RoadGraph;
 import com.ridemate.ridemate_server.presentation.exception.ResourceNotFoundException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.util.HashMap;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
@@ -44,11 +55,8 @@ import java.util.stream.Collectors;
 @Slf4j
 public class MatchServiceImpl implements MatchService {
 
-    // Temporary storage for broadcasts (in production, use Redis or database)
-    private static final List<BroadcastDriverRequest> driverBroadcasts = new java.util.concurrent.CopyOnWriteArrayList<>();
-    private static final List<BroadcastPassengerRequest> passengerBroadcasts = new java.util.concurrent.CopyOnWriteArrayList<>();
-    private static final java.util.Map<Long, BroadcastDriverRequest> driverBroadcastMap = new java.util.concurrent.ConcurrentHashMap<>();
-    private static final java.util.Map<Long, BroadcastPassengerRequest> passengerBroadcastMap = new java.util.concurrent.ConcurrentHashMap<>();
+    // Upper bound on one page of findMatches results, whatever the client asks for
+    private static final int MAX_FIND_MATCHES_PAGE_SIZE = 50;
 
     @Autowired
     private MatchRepository matchRepository;
@@ -59,6 +67,9 @@ public class MatchServiceImpl implements MatchService {
     @Autowired
     private VehicleRepository vehicleRepository;
 
+    @Autowired
+    private ApprovedVehicleCache approvedVehicleCache;
+
     @Autowired
     private MatchMapper matchMapper;
 
@@ -68,6 +79,27 @@ public class MatchServiceImpl implements MatchService {
     @Autowired
     private DriverMatchingService driverMatchingService;
 
+    @Autowired
+    private DriverSpatialIndex driverSpatialIndex;
+
+    @Autowired
+    private DriverLocationStore driverLocationStore;
+
+    @Autowired
+    private TripTrajectoryRecorder tripTrajectoryRecorder;
+
+    @Autowired
+    private LocationSamplingPolicy locationSamplingPolicy;
+
+    @Autowired
+    private OfferCascadeService offerCascadeService;
+
+    @Autowired
+    private BroadcastRegistry broadcastRegistry;
+
+    @Autowired
+    private BatchDispatchService batchDispatchService;
+
     @Autowired
     private CoinCalculationService coinCalculationService;
     
@@ -77,9 +109,6 @@ public class MatchServiceImpl implements MatchService {
     @Autowired(required = false)
     private SupabaseRealtimeService supabaseRealtimeService;
 
-    @Autowired
-    private UserService userService;
-
     @Autowired
     private UserMapper userMapper;
 
@@ -89,6 +118,9 @@ public class MatchServiceImpl implements MatchService {
     @Autowired
     private RouteBookingMapper routeBookingMapper;
 
+    @Autowired
+    private MatchRouteService matchRouteService;
+
     @Override
     @Transactional
     public MatchResponse bookRide(Long passengerId, BookRideRequest request) {
@@ -100,13 +132,34 @@ public class MatchServiceImpl implements MatchService {
             throw new IllegalArgumentException("Pickup location (latitude, longitude) is required");
         }
 
+        locationSamplingPolicy.recordDemand(request.getPickupLatitude(), request.getPickupLongitude());
+
+        // Distance along the planned route when the client sent one, otherwise what the client reported
+        MatchRouteService.ParsedRoute route = matchRouteService.parse(request.getRoutePolyline());
+        Double distance = request.getDistance() != null ? request.getDistance().doubleValue() : null;
+
         // Calculate coin based on distance
         Integer coin = null;
         if (request.getDestinationLatitude() != null && request.getDestinationLongitude() != null) {
-            coin = coinCalculationService.calculateCoinFromCoordinates(
+            if (route != null && !matchRouteService.connects(route,
                     request.getPickupLatitude(), request.getPickupLongitude(),
-                    request.getDestinationLatitude(), request.getDestinationLongitude()
-            );
+                    request.getDestinationLatitude(), request.getDestinationLongitude())) {
+                // Ignored like a malformed polyline: priced on the straight line and not stored
+                log.warn("Ignoring route polyline of passenger {}: it does not run from pickup to destination", passengerId);
+                route = null;
+            }
+            if (route != null) {
+                // A road route is never shorter than the straight line; a truncated polyline must not lower the fare
+                distance = Math.max(route.lengthMeters(), RoadGraph.distanceMeters(
+                        request.getPickupLatitude(), request.getPickupLongitude(),
+                        request.getDestinationLatitude(), request.getDestinationLongitude()));
+                coin = coinCalculationService.calculateCoin(distance / 1000.0);
+            } else {
+                coin = coinCalculationService.calculateCoinFromCoordinates(
+                        request.getPickupLatitude(), request.getPickupLongitude(),
+                        request.getDestinationLatitude(), request.getDestinationLongitude()
+                );
+            }
             log.info("Calculated coin: {} for route ({}, {}) → ({}, {})",
                     coin,
                     request.getPickupLatitude(), request.getPickupLongitude(),
@@ -122,19 +175,32 @@ public class MatchServiceImpl implements MatchService {
                 .pickupLongitude(request.getPickupLongitude())
                 .destinationLatitude(request.getDestinationLatitude())
                 .destinationLongitude(request.getDestinationLongitude())
-                .distance(request.getDistance() != null ? request.getDistance().doubleValue() : null)
+                .distance(distance)
                 .duration(request.getDuration())
                 .coin(coin)
                 .fare(coin != null ? coin : 0)
                 .status(Match.MatchStatus.PENDING)  // Start as PENDING
-                .routePolyline(request.getRoutePolyline())  // Store route polyline from client
                 .build();
 
         match = matchRepository.save(match);
+        if (route != null) {
+            matchRouteService.save(match.getId(), route);
+        }
         log.info("Match {} created with status PENDING for passenger {}", match.getId(), passengerId);
         
         sessionService.createSession(match);
 
+        // ===== BATCHED DISPATCH: assignment is solved jointly for the area after a short window =====
+        if (batchDispatchService.isEnabled()) {
+            batchDispatchService.submit(match.getId(), request.getPickupLatitude(), request.getPickupLongitude());
+
+            MatchResponse response = matchMapper.toResponse(match);
+            response.setRoutePolyline(route != null ? route.encoded() : null);
+            response.setMatchedDriverCandidates(List.of());
+            response.setMessage("Finding the best driver for you...");
+            return response;
+        }
+
         // ===== AUTOMATIC DRIVER MATCHING =====
         log.info("Finding best drivers for match {} at pickup location ({}, {})", 
                 match.getId(), request.getPickupLatitude(), request.getPickupLongitude());
@@ -146,108 +212,13 @@ public class MatchServiceImpl implements MatchService {
             // Match stays in PENDING status - waiting for drivers to come online
             
         } else {
-            // Update match status to WAITING (có driver available)
-            match.setStatus(Match.MatchStatus.WAITING);
-            
-            // Save match first WITHOUT candidates to avoid type casting issues
-            match = matchRepository.save(match);
-            
-            // ===== SAVE CANDIDATES TO DATABASE FOR SUPABASE REALTIME =====
-            // Use native query with explicit JSONB cast to avoid Hibernate type issues
-            try {
-                ObjectMapper objectMapper = new ObjectMapper();
-                String candidatesJson = objectMapper.writeValueAsString(candidates);
-                
-                // Update using native SQL with JSONB cast
-                matchRepository.updateMatchedDriverCandidates(match.getId(), candidatesJson);
-                
-                log.info("Serialized {} candidates to JSON for match {}", candidates.size(), match.getId());
-            } catch (Exception e) {
-                log.error("Failed to serialize candidates to JSON: {}", e.getMessage());
-                // Continue even if serialization fails
-            }
-            
-            
-            log.info("Found {} driver candidates for match {}. Top candidate: Driver {} (score: {:.3f})",
-                    candidates.size(), match.getId(), 
-                    candidates.get(0).getDriverId(),
-                    candidates.get(0).getMatchScore());
-            log.info("Match {} updated to WAITING status", match.getId());
-            
-            // Log all candidates for debugging
-            for (int i = 0; i < candidates.size(); i++) {
-                DriverCandidate dc = candidates.get(i);
-                log.info("  Rank #{}: Driver {} - Distance: {:.2f}km, ETA: {}min, Score: {:.3f}",
-                        i + 1, dc.getDriverId(), dc.getDistanceToPickup(), 
-                        dc.getEstimatedArrivalTime(), dc.getMatchScore());
-            }
-            
-            
-            // ===== SEND NOTIFICATIONS TO DRIVERS =====
-            log.info("Sending notifications to {} drivers for match {}", candidates.size(), match.getId());
-            notificationService.notifyDriversOfNewMatch(match, candidates);
-            
-            // ===== PUBLISH MATCH TO SUPABASE FOR REALTIME DRIVER MODAL =====
-            try {
-                if (supabaseRealtimeService == null) {
-                    log.warn("⚠️ SupabaseRealtimeService is null, match {} will not be published to Supabase", match.getId());
-                } else {
-                    log.info("📤 Publishing match {} to Supabase (WAITING) for driver realtime modal...", match.getId());
-                    
-                    // Reload match to get updated candidates from DB
-                    Match reloadedMatch = matchRepository.findById(match.getId())
-                            .orElseThrow(() -> new ResourceNotFoundException("Match not found"));
-                    
-                    Map<String, Object> matchData = new HashMap<>();
-                    matchData.put("id", reloadedMatch.getId());
-                    matchData.put("passenger_id", reloadedMatch.getPassenger().getId());
-                    matchData.put("pickup_latitude", reloadedMatch.getPickupLatitude());
-                    matchData.put("pickup_longitude", reloadedMatch.getPickupLongitude());
-                    matchData.put("pickup_address", reloadedMatch.getPickupAddress());
-                    matchData.put("destination_latitude", reloadedMatch.getDestinationLatitude());
-                    matchData.put("destination_longitude", reloadedMatch.getDestinationLongitude());
-                    matchData.put("destination_address", reloadedMatch.getDestinationAddress());
-                    matchData.put("status", reloadedMatch.getStatus().name());
-                    
-                    // Add matched_driver_candidates from DB (JSONB string)
-                    if (reloadedMatch.getMatchedDriverCandidates() != null && !reloadedMatch.getMatchedDriverCandidates().isEmpty()) {
-                        matchData.put("matched_driver_candidates", reloadedMatch.getMatchedDriverCandidates());
-                    } else {
-                        // Fallback: serialize candidates list if not in DB yet
-                        try {
-                            ObjectMapper mapper = new ObjectMapper();
-                            String candidatesJson = mapper.writeValueAsString(candidates);
-                            matchData.put("matched_driver_candidates", candidatesJson);
-                        } catch (Exception e) {
-                            log.warn("Failed to serialize candidates: {}", e.getMessage());
-                            matchData.put("matched_driver_candidates", "[]");
-                        }
-                    }
-                    
-                    if (reloadedMatch.getCreatedAt() != null) {
-                        matchData.put("created_at", reloadedMatch.getCreatedAt().toString());
-                    } else {
-                        matchData.put("created_at", java.time.LocalDateTime.now().toString());
-                    }
-                    
-                    log.debug("Match data prepared for Supabase: {}", matchData);
-                    supabaseRealtimeService.publishMatch(matchData);
-                    log.info("✅ Published match {} to Supabase - Drivers should receive realtime modal", match.getId());
-                }
-            } catch (Exception e) {
-                log.error("❌ Failed to publish match {} to Supabase: {}", match.getId(), e.getMessage(), e);
-            }
-            
-            // TODO: In next phase, implement:
-            // 1. Send push notifications to top 3-5 drivers
-            // 2. Set up timeout mechanism (15-30 seconds per driver)
-            // 3. Handle driver accept/reject responses
-
-            // 4. Fallback to next driver if timeout or reject
+            // Moves the match to WAITING and offers it to the first wave of drivers; later waves follow on reject/timeout
+            match = offerCascadeService.offer(match.getId(), candidates);
         }
         
         // Build response with candidates
         MatchResponse response = matchMapper.toResponse(match);
+        response.setRoutePolyline(route != null ? route.encoded() : null);
         response.setMatchedDriverCandidates(candidates);
         response.setMessage(candidates.isEmpty() ? 
             "No drivers available at the moment. Your request is queued." : 
@@ -262,13 +233,15 @@ public class MatchServiceImpl implements MatchService {
                 .orElseThrow(() -> new ResourceNotFoundException("Match not found"));
         
         MatchResponse response = matchMapper.toResponse(match);
+        response.setRoutePolyline(matchRouteService.findEncoded(matchId));
         
         // ✅ If match has a driver, get CURRENT driver location from User entity
         if (match.getDriver() != null) {
             User driver = match.getDriver();
             Vehicle vehicle = match.getVehicle();
+            DriverLocationStore.Location location = driverLocationStore.latestOf(driver);
             
-            if (driver.getCurrentLatitude() != null && driver.getCurrentLongitude() != null) {
+            if (location != null) {
                 DriverCandidate currentDriverInfo = DriverCandidate.builder()
                         .driverId(driver.getId())
                         .driverName(driver.getFullName())
@@ -276,15 +249,15 @@ public class MatchServiceImpl implements MatchService {
                         .vehicleId(vehicle != null ? vehicle.getId() : null)
                         .vehicleInfo(vehicle != null ? 
                             vehicle.getMake() + " " + vehicle.getModel() + " - " + vehicle.getLicensePlate() : null)
-                        .currentLatitude(driver.getCurrentLatitude())
-                        .currentLongitude(driver.getCurrentLongitude())
+                        .currentLatitude(location.latitude())
+                        .currentLongitude(location.longitude())
                         .driverRating(driver.getRating())
                         .build();
                 
                 response.setMatchedDriverCandidates(List.of(currentDriverInfo));
                 
                 log.debug("✅ Loaded current driver location for match {}: ({}, {})", 
-                        matchId, driver.getCurrentLatitude(), driver.getCurrentLongitude());
+                        matchId, location.latitude(), location.longitude());
             } else {
                 log.debug("⚠️ Driver {} for match {} has no current location", 
                         driver.getId(), matchId);
@@ -357,18 +330,22 @@ public class MatchServiceImpl implements MatchService {
             return b.getCreatedAt().compareTo(a.getCreatedAt());
         });
         
-        return allMatches.stream()
+        List<MatchResponse> responses = allMatches.stream()
                 .map(matchMapper::toResponse)
                 .collect(Collectors.toList());
+        matchRouteService.fillEncoded(responses);
+        return responses;
     }
 
    @Override
     public List<MatchResponse> getWaitingMatches() {
         List<Match> matches = matchRepository.findByStatus(Match.MatchStatus.WAITING);
 
-        return matches.stream()
+        List<MatchResponse> responses = matches.stream()
                 .map(matchMapper::toResponse)
                 .collect(Collectors.toList());
+        matchRouteService.fillEncoded(responses);
+        return responses;
     }
  
     @Override
@@ -384,29 +361,33 @@ public class MatchServiceImpl implements MatchService {
             throw new IllegalArgumentException("Only users with DRIVER role can accept rides");
         }
 
-        List<Vehicle> vehicles = vehicleRepository.findByDriverIdAndStatus(driverId, Vehicle.VehicleStatus.APPROVED);
-        if (vehicles.isEmpty()) {
-            throw new IllegalArgumentException("Driver does not have an active vehicle");
-        }
+        ApprovedVehicleCache.ApprovedVehicle approvedVehicle = approvedVehicleCache.get(driverId)
+                .orElseThrow(() -> new IllegalArgumentException("Driver does not have an active vehicle"));
         
-        Vehicle vehicle = vehicles.get(0);
+        // Reference only, the vehicle row itself is not needed to link the match
+        Vehicle vehicle = vehicleRepository.getReferenceById(approvedVehicle.vehicleId());
 
         if (match != null) {
             // Existing match from database
             if (match.getStatus() != Match.MatchStatus.WAITING) {
                 throw new IllegalArgumentException("Match is no longer available");
             }
+            if (!offerCascadeService.isOfferedTo(matchId, driverId)) {
+                throw new IllegalArgumentException("This ride is no longer offered to you");
+            }
 
             match.setDriver(driver);
             match.setVehicle(vehicle);
             match.setStatus(Match.MatchStatus.ACCEPTED);
             match = matchRepository.save(match);
+            offerCascadeService.close(match.getId());
         } else {
             // Check if this is a broadcast match (matchId is actually passengerId)
-            BroadcastPassengerRequest broadcast = passengerBroadcastMap.get(matchId);
-            if (broadcast == null) {
+            BroadcastRegistry.Broadcast<BroadcastPassengerRequest> passengerBroadcast = broadcastRegistry.getPassenger(matchId);
+            if (passengerBroadcast == null) {
                 throw new ResourceNotFoundException("Broadcast match not found for passenger: " + matchId);
             }
+            BroadcastPassengerRequest broadcast = passengerBroadcast.request();
 
             // Create new match from broadcast data
             User passenger = userRepository.findById(matchId)
@@ -416,6 +397,11 @@ public class MatchServiceImpl implements MatchService {
                 throw new IllegalArgumentException("Driver does not have an approved vehicle");
             }
 
+            // Claim the broadcast before creating the match so two drivers cannot both take it
+            if (!broadcastRegistry.removePassenger(passengerBroadcast)) {
+                throw new IllegalArgumentException("This ride has already been taken");
+            }
+
             match = new Match();
             match.setPassenger(passenger);
             match.setDriver(driver);
@@ -442,40 +428,43 @@ public class MatchServiceImpl implements MatchService {
             
             match.setStatus(Match.MatchStatus.ACCEPTED);
             match = matchRepository.save(match);
-
-            // Remove from broadcast maps
-            passengerBroadcastMap.remove(matchId);
-            passengerBroadcasts.remove(broadcast);
         }
 
         // ===== UPDATE DRIVER METRICS =====
         driver.setTotalRidesAccepted(driver.getTotalRidesAccepted() + 1);
         driver.setDriverStatus(User.DriverStatus.BUSY); // Driver is now busy
+        driverLocationStore.applyLatest(driver);
         userRepository.save(driver);
+        // Out of the index once BUSY is committed; a rolled back accept leaves the driver matchable
+        runAfterCommit(() -> driverSpatialIndex.remove(driverId));
+        tripTrajectoryRecorder.startTrip(match.getId(), driverId);
+        locationSamplingPolicy.onTripStatus(driverId, Match.MatchStatus.ACCEPTED);
 
         log.info("Driver {} accepted match {}. Total rides accepted: {}", 
                 driverId, match.getId(), driver.getTotalRidesAccepted());
 
         // ✅ Build response with CURRENT driver location from User entity
         MatchResponse response = matchMapper.toResponse(match);
+        response.setRoutePolyline(matchRouteService.findEncoded(match.getId()));
         
         // Create a single DriverCandidate with current driver location
-        if (driver.getCurrentLatitude() != null && driver.getCurrentLongitude() != null) {
+        DriverLocationStore.Location location = driverLocationStore.latestOf(driver);
+        if (location != null) {
             DriverCandidate currentDriverInfo = DriverCandidate.builder()
                     .driverId(driver.getId())
                     .driverName(driver.getFullName())
                     .driverPhone(driver.getPhoneNumber())
-                    .vehicleId(vehicle.getId())
-                    .vehicleInfo(vehicle.getMake() + " " + vehicle.getModel() + " - " + vehicle.getLicensePlate())
-                    .currentLatitude(driver.getCurrentLatitude())
-                    .currentLongitude(driver.getCurrentLongitude())
+                    .vehicleId(approvedVehicle.vehicleId())
+                    .vehicleInfo(approvedVehicle.displayName())
+                    .currentLatitude(location.latitude())
+                    .currentLongitude(location.longitude())
                     .driverRating(driver.getRating())
                     .build();
             
             response.setMatchedDriverCandidates(List.of(currentDriverInfo));
             
             log.info("✅ Driver {} current location: ({}, {})", 
-                    driverId, driver.getCurrentLatitude(), driver.getCurrentLongitude());
+                    driverId, location.latitude(), location.longitude());
         } else {
             log.warn("⚠️ Driver {} has no current location in database", driverId);
         }
@@ -560,6 +549,12 @@ public class MatchServiceImpl implements MatchService {
 
         match.setStatus(newStatus);
         match = matchRepository.save(match);
+        if (newStatus == Match.MatchStatus.CANCELLED) {
+            offerCascadeService.close(matchId);
+        }
+        if (match.getDriver() != null) {
+            locationSamplingPolicy.onTripStatus(match.getDriver().getId(), newStatus);
+        }
 
         // ===== SEND REAL-TIME NOTIFICATIONS =====
         try {
@@ -710,7 +705,10 @@ public class MatchServiceImpl implements MatchService {
             // Set driver back to ONLINE (available for next ride)
             driver.setDriverStatus(User.DriverStatus.ONLINE);
             
+            // The row was loaded with the match; its coordinates are older than the pings since
+            driverLocationStore.applyLatest(driver);
             userRepository.save(driver);
+            reindexDriver(driver);
             
             log.info("Driver {} completed match {}. Earned {} coins. Total coins: {}. Stats - Completed: {}, Completion Rate: {:.1f}%", 
                     driver.getId(), matchId, earnedCoins, driver.getCoins(), driver.getTotalRidesCompleted(), driver.getCompletionRate());
@@ -720,10 +718,13 @@ public class MatchServiceImpl implements MatchService {
         if (newStatus == Match.MatchStatus.CANCELLED && match.getDriver() != null) {
             User driver = match.getDriver();
             driver.setDriverStatus(User.DriverStatus.ONLINE);
+            driverLocationStore.applyLatest(driver);
             userRepository.save(driver);
+            reindexDriver(driver);
         }
 
         if (newStatus == Match.MatchStatus.COMPLETED || newStatus == Match.MatchStatus.CANCELLED) {
+            tripTrajectoryRecorder.finishTrip(matchId);
             try {
                 sessionService.endSession(matchId);
             } catch (Exception e) {
@@ -755,6 +756,11 @@ public class MatchServiceImpl implements MatchService {
 
         match.setStatus(Match.MatchStatus.CANCELLED);
         match = matchRepository.save(match);
+        offerCascadeService.close(matchId);
+        tripTrajectoryRecorder.finishTrip(matchId);
+        if (match.getDriver() != null) {
+            locationSamplingPolicy.onTripStatus(match.getDriver().getId(), Match.MatchStatus.CANCELLED);
+        }
 
         // ===== SEND NOTIFICATION =====
         try {
@@ -782,14 +788,27 @@ public class MatchServiceImpl implements MatchService {
         return matchMapper.toResponse(match);
     }
 
+    @Override
+    public void rejectRide(Long matchId, Long driverId) {
+        Match match = matchRepository.findById(matchId)
+                .orElseThrow(() -> new ResourceNotFoundException("Match not found with id: " + matchId));
+
+        if (match.getStatus() != Match.MatchStatus.WAITING) {
+            throw new IllegalArgumentException("Match is no longer available");
+        }
+
+        if (!offerCascadeService.onRejected(matchId, driverId)) {
+            log.info("Driver {} declined match {} outside of an active offer - ignored", driverId, matchId);
+        }
+    }
+
     @Override
     public void broadcastAsDriver(Long driverId, BroadcastDriverRequest request) {
         log.info("Driver {} broadcasting for passengers from ({}, {}) to ({}, {})",
                 driverId, request.getPickupLatitude(), request.getPickupLongitude(),
                 request.getDestinationLatitude(), request.getDestinationLongitude());
 
-        driverBroadcastMap.put(driverId, request);
-        driverBroadcasts.add(request);
+        broadcastRegistry.putDriver(driverId, request);
     }
 
     @Override
@@ -798,125 +817,168 @@ public class MatchServiceImpl implements MatchService {
                 passengerId, request.getPickupLatitude(), request.getPickupLongitude(),
                 request.getDestinationLatitude(), request.getDestinationLongitude());
 
-        passengerBroadcastMap.put(passengerId, request);
-        passengerBroadcasts.add(request);
+        broadcastRegistry.putPassenger(passengerId, request);
     }
 
     @Override
-    public List<MatchResponse> findMatches(Long userId, FindMatchesRequest request) {
+    public MatchPageResponse findMatches(Long userId, FindMatchesRequest request, int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_FIND_MATCHES_PAGE_SIZE));
+        // long so a huge page number cannot overflow into a negative offset
+        long from = (long) page * pageSize;
         List<MatchResponse> matches = new java.util.ArrayList<>();
+        int total = 0;
 
         if ("driver".equals(request.getType())) {
-            // Driver tìm passengers đang broadcast
-            for (Map.Entry<Long, BroadcastPassengerRequest> entry : passengerBroadcastMap.entrySet()) {
-                BroadcastPassengerRequest broadcast = entry.getValue();
-                // Simple matching: check if locations are close (within 5km)
-                double distance = calculateDistance(
+            // Driver tìm passengers đang broadcast (nearby pickup, similar destination and direction)
+            List<BroadcastRegistry.Hit<BroadcastPassengerRequest>> all = broadcastRegistry.findPassengers(
                     request.getPickupLatitude(), request.getPickupLongitude(),
-                    broadcast.getPickupLatitude(), broadcast.getPickupLongitude()
-                );
-                if (distance <= 5.0) { // 5km radius
-                    // Create a MatchResponse for display
-                    MatchResponse response = new MatchResponse();
-                    response.setId(entry.getKey()); // Use passenger ID as match ID temporarily
-                    response.setPassengerId(entry.getKey()); // Set real passenger ID
-                    response.setPickupAddress(broadcast.getPickupAddress());
-                    response.setDestinationAddress(broadcast.getDestinationAddress());
-                    response.setPickupLatitude(broadcast.getPickupLatitude());
-                    response.setPickupLongitude(broadcast.getPickupLongitude());
-                    response.setDestinationLatitude(broadcast.getDestinationLatitude());
-                    response.setDestinationLongitude(broadcast.getDestinationLongitude());
-                    
-                    // Fetch real passenger info
-                    try {
-                        UserDto passenger = userService.getUserById(entry.getKey());
-                        response.setPassengerName(passenger.getFullName() != null ? passenger.getFullName() : "Passenger " + entry.getKey());
-                        response.setPassengerPhone(passenger.getPhoneNumber());
-                        response.setPassengerAvatar(passenger.getProfilePictureUrl() != null ? passenger.getProfilePictureUrl() : "https://i.pravatar.cc/150?img=" + entry.getKey());
-                        response.setPassengerRating(4.5); // Default rating, could be calculated from reviews
-                        response.setPassengerReviews(10); // Default reviews count
-                    } catch (Exception e) {
-                        // Fallback to mock data if user fetch fails
-                        response.setPassengerName("Passenger " + entry.getKey());
-                        response.setPassengerPhone("0901234567");
-                        response.setPassengerAvatar("https://i.pravatar.cc/150?img=" + entry.getKey());
-                        response.setPassengerRating(4.5);
-                        response.setPassengerReviews(10);
-                    }
-                    
-                    matches.add(response);
-                }
+                    request.getDestinationLatitude(), request.getDestinationLongitude());
+            total = all.size();
+            List<BroadcastRegistry.Hit<BroadcastPassengerRequest>> hits = pageOf(all, from, pageSize);
+
+            // Hydrate the page in one IN query instead of one lookup per passenger
+            Map<Long, User> passengers = loadUsers(hits);
+            for (BroadcastRegistry.Hit<BroadcastPassengerRequest> hit : hits) {
+                matches.add(toPassengerBroadcastResponse(hit.broadcast(), passengers.get(hit.broadcast().userId())));
             }
         } else if ("passenger".equals(request.getType())) {
-            // Passenger tìm drivers đang broadcast
-            for (Map.Entry<Long, BroadcastDriverRequest> entry : driverBroadcastMap.entrySet()) {
-                BroadcastDriverRequest broadcast = entry.getValue();
-                // Simple matching: check if locations are close (within 5km)
-                double distance = calculateDistance(
+            // Passenger tìm drivers đang broadcast (nearby pickup, similar destination and direction)
+            List<BroadcastRegistry.Hit<BroadcastDriverRequest>> all = broadcastRegistry.findDrivers(
                     request.getPickupLatitude(), request.getPickupLongitude(),
-                    broadcast.getPickupLatitude(), broadcast.getPickupLongitude()
-                );
-                if (distance <= 5.0) { // 5km radius
-                    // Create a MatchResponse for display
-                    MatchResponse response = new MatchResponse();
-                    response.setId(entry.getKey()); // Use driver ID as match ID temporarily
-                    response.setDriverId(entry.getKey()); // Set real driver ID
-                    response.setPickupAddress(broadcast.getPickupAddress());
-                    response.setDestinationAddress(broadcast.getDestinationAddress());
-                    response.setPickupLatitude(broadcast.getPickupLatitude());
-                    response.setPickupLongitude(broadcast.getPickupLongitude());
-                    response.setDestinationLatitude(broadcast.getDestinationLatitude());
-                    response.setDestinationLongitude(broadcast.getDestinationLongitude());
-                    response.setEstimatedPrice(broadcast.getEstimatedPrice());
-                    
-                    // Fetch real driver info
-                    try {
-                        UserDto driver = userService.getUserById(entry.getKey());
-                        response.setDriverName(driver.getFullName() != null ? driver.getFullName() : "Driver " + entry.getKey());
-                        response.setDriverPhone(driver.getPhoneNumber());
-                        response.setDriverAvatar(driver.getProfilePictureUrl() != null ? driver.getProfilePictureUrl() : "https://i.pravatar.cc/150?img=" + (entry.getKey() + 10));
-                        response.setDriverRating(4.7); // Default rating, could be calculated from reviews
-                        
-                        // Fetch driver's approved vehicle
-                        List<Vehicle> vehicles = vehicleRepository.findByDriverIdAndStatus(entry.getKey(), Vehicle.VehicleStatus.APPROVED);
-                        if (!vehicles.isEmpty()) {
-                            Vehicle vehicle = vehicles.get(0);
-                            response.setVehicleModel(vehicle.getMake() + " " + vehicle.getModel());
-                            response.setLicensePlate(vehicle.getLicensePlate());
-                        } else {
-                            response.setVehicleModel("Toyota Vios");
-                            response.setLicensePlate("30A-12345");
-                        }
-                    } catch (Exception e) {
-                        // Fallback to mock data if user fetch fails
-                        response.setDriverName("Driver " + entry.getKey());
-                        response.setDriverPhone("0901234568");
-                        response.setDriverAvatar("https://i.pravatar.cc/150?img=" + (entry.getKey() + 10));
-                        response.setDriverRating(4.7);
-                        response.setVehicleModel("Toyota Vios");
-                        response.setLicensePlate("30A-12345");
-                    }
-                    
-                    matches.add(response);
-                }
+                    request.getDestinationLatitude(), request.getDestinationLongitude());
+            total = all.size();
+            List<BroadcastRegistry.Hit<BroadcastDriverRequest>> hits = pageOf(all, from, pageSize);
+
+            Map<Long, User> drivers = loadUsers(hits);
+            Map<Long, ApprovedVehicleCache.ApprovedVehicle> vehicles = approvedVehicleCache.getAll(drivers.keySet());
+            for (BroadcastRegistry.Hit<BroadcastDriverRequest> hit : hits) {
+                Long driverId = hit.broadcast().userId();
+                matches.add(toDriverBroadcastResponse(hit.broadcast(), drivers.get(driverId), vehicles.get(driverId)));
             }
         }
 
-        log.info("Found {} matches for user {} of type {}", matches.size(), userId, request.getType());
-        return matches;
+        log.info("Found {} of {} matches for user {} of type {} (page {})", matches.size(), total, userId, request.getType(), page);
+        return MatchPageResponse.builder()
+                .matches(matches)
+                .page(page)
+                .size(pageSize)
+                .total((long) total)
+                .hasMore(from + matches.size() < total)
+                .build();
     }
 
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371; // Radius of the earth in km
+    private static <T> List<T> pageOf(List<T> items, long from, int pageSize) {
+        if (from >= items.size()) {
+            return List.of();
+        }
+        int start = (int) from;
+        return items.subList(start, Math.min(items.size(), start + pageSize));
+    }
 
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-        double distance = R * c;
+    private Map<Long, User> loadUsers(List<? extends BroadcastRegistry.Hit<?>> hits) {
+        if (hits.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> ids = hits.stream().map(hit -> hit.broadcast().userId()).collect(Collectors.toList());
+        return userRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(User::getId, user -> user));
+    }
 
-        return distance;
+    private MatchResponse toPassengerBroadcastResponse(BroadcastRegistry.Broadcast<BroadcastPassengerRequest> entry,
+                                                       User passenger) {
+        Long passengerId = entry.userId();
+        BroadcastPassengerRequest broadcast = entry.request();
+
+        // Create a MatchResponse for display
+        MatchResponse response = new MatchResponse();
+        response.setId(passengerId); // Use passenger ID as match ID temporarily
+        response.setPassengerId(passengerId); // Set real passenger ID
+        response.setPickupAddress(broadcast.getPickupAddress());
+        response.setDestinationAddress(broadcast.getDestinationAddress());
+        response.setPickupLatitude(broadcast.getPickupLatitude());
+        response.setPickupLongitude(broadcast.getPickupLongitude());
+        response.setDestinationLatitude(broadcast.getDestinationLatitude());
+        response.setDestinationLongitude(broadcast.getDestinationLongitude());
+        response.setPassengerRating(4.5); // Default rating, could be calculated from reviews
+        response.setPassengerReviews(10); // Default reviews count
+
+        if (passenger != null) {
+            response.setPassengerName(passenger.getFullName() != null ? passenger.getFullName() : "Passenger " + passengerId);
+            response.setPassengerPhone(passenger.getPhoneNumber());
+            response.setPassengerAvatar(passenger.getProfilePictureUrl() != null ? passenger.getProfilePictureUrl() : "https://i.pravatar.cc/150?img=" + passengerId);
+        } else {
+            // Fallback to mock data if the user is gone
+            response.setPassengerName("Passenger " + passengerId);
+            response.setPassengerPhone("0901234567");
+            response.setPassengerAvatar("https://i.pravatar.cc/150?img=" + passengerId);
+        }
+        return response;
+    }
+
+    private MatchResponse toDriverBroadcastResponse(BroadcastRegistry.Broadcast<BroadcastDriverRequest> entry,
+                                                    User driver, ApprovedVehicleCache.ApprovedVehicle vehicle) {
+        Long driverId = entry.userId();
+        BroadcastDriverRequest broadcast = entry.request();
+
+        // Create a MatchResponse for display
+        MatchResponse response = new MatchResponse();
+        response.setId(driverId); // Use driver ID as match ID temporarily
+        response.setDriverId(driverId); // Set real driver ID
+        response.setPickupAddress(broadcast.getPickupAddress());
+        response.setDestinationAddress(broadcast.getDestinationAddress());
+        response.setPickupLatitude(broadcast.getPickupLatitude());
+        response.setPickupLongitude(broadcast.getPickupLongitude());
+        response.setDestinationLatitude(broadcast.getDestinationLatitude());
+        response.setDestinationLongitude(broadcast.getDestinationLongitude());
+        response.setEstimatedPrice(broadcast.getEstimatedPrice());
+        response.setDriverRating(4.7); // Default rating, could be calculated from reviews
+
+        if (driver != null) {
+            response.setDriverName(driver.getFullName() != null ? driver.getFullName() : "Driver " + driverId);
+            response.setDriverPhone(driver.getPhoneNumber());
+            response.setDriverAvatar(driver.getProfilePictureUrl() != null ? driver.getProfilePictureUrl() : "https://i.pravatar.cc/150?img=" + (driverId + 10));
+        } else {
+            // Fallback to mock data if the user is gone
+            response.setDriverName("Driver " + driverId);
+            response.setDriverPhone("0901234568");
+            response.setDriverAvatar("https://i.pravatar.cc/150?img=" + (driverId + 10));
+        }
+
+        if (driver != null && vehicle != null) {
+            response.setVehicleModel(vehicle.make() + " " + vehicle.model());
+            response.setLicensePlate(vehicle.licensePlate());
+        } else {
+            response.setVehicleModel("Toyota Vios");
+            response.setLicensePlate("30A-12345");
+        }
+        return response;
+    }
+
+    /**
+     * Back to ONLINE: index the driver at the last ping, which may not be flushed to the User row yet,
+     * once the status change is committed
+     */
+    private void reindexDriver(User driver) {
+        Long driverId = driver.getId();
+        DriverLocationStore.Location location = driverLocationStore.latestOf(driver);
+        if (location != null) {
+            runAfterCommit(() -> driverSpatialIndex.upsert(driverId, location.latitude(), location.longitude()));
+        }
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,296 @@
+package com.ridemate.ridemate_server.application.service.outbox;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridemate.ridemate_server.application.service.driver.SupabaseRealtimeService;
+import com.ridemate.ridemate_server.domain.entity.Notification;
+import com.ridemate.ridemate_server.domain.entity.OutboxEvent;
+import com.ridemate.ridemate_server.domain.repository.NotificationRepository;
+import com.ridemate.ridemate_server.domain.repository.OutboxEventRepository;
+import com.ridemate.ridemate_server.domain.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers outbox events with a small pool of worker threads
+ *
+ * Each worker loop: claim a batch of due events (marking them PROCESSING with a lease) in a short
+ * transaction, deliver it outside any transaction, then delete the delivered events and reschedule
+ * the failed ones with exponential backoff. Only the oldest open event of a match is ever claimed,
+ * so events of one match are delivered in order even across workers and nodes. A worker that dies
+ * mid-batch leaves its events to be picked up again once the lease runs out.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired(required = false)
+    private SupabaseRealtimeService supabaseRealtimeService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${outbox.worker-threads:2}")
+    private int workerThreads;
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${outbox.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.publish-timeout-ms:5000}")
+    private long publishTimeoutMs;
+
+    private final Semaphore wakeUps = new Semaphore(0);
+    private TransactionTemplate transactionTemplate;
+    private ExecutorService workers;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(Math.max(workerThreads, 1), runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        for (int i = 0; i < Math.max(workerThreads, 1); i++) {
+            workers.submit(this::runLoop);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        wakeUps.release(Math.max(workerThreads, 1));
+        workers.shutdown();
+    }
+
+    /**
+     * New events were committed: deliver without waiting for the next poll
+     */
+    public void wakeUp() {
+        if (wakeUps.availablePermits() < Math.max(workerThreads, 1)) {
+            wakeUps.release();
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                int delivered = relayBatch();
+                // A full batch means there is likely more waiting
+                if (delivered < batchSize) {
+                    wakeUps.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Outbox relay iteration failed: {}", e.getMessage(), e);
+                try {
+                    Thread.sleep(pollIntervalMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claim, deliver and settle one batch
+     * @return number of events claimed
+     */
+    int relayBatch() {
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> claim());
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, String> failures = new HashMap<>();
+        List<OutboxEvent> notifications = new ArrayList<>();
+        List<OutboxEvent> publishes = new ArrayList<>();
+        for (OutboxEvent event : batch) {
+            (event.getType() == OutboxEvent.EventType.USER_NOTIFICATIONS ? notifications : publishes).add(event);
+        }
+
+        deliverNotifications(notifications, failures);
+        deliverPublishes(publishes, failures);
+
+        transactionTemplate.executeWithoutResult(status -> settle(batch, failures));
+        if (!failures.isEmpty()) {
+            log.warn("Outbox: {} of {} events failed, will retry", failures.size(), batch.size());
+        }
+        return batch.size();
+    }
+
+    private List<OutboxEvent> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> due = outboxEventRepository.lockDueEvents(now, batchSize);
+        for (OutboxEvent event : due) {
+            event.setStatus(OutboxEvent.Status.PROCESSING);
+            event.setAttempts(event.getAttempts() + 1);
+            event.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+        }
+        return outboxEventRepository.saveAll(due);
+    }
+
+    /**
+     * All notification rows of the batch in one transaction and one flush
+     */
+    private void deliverNotifications(List<OutboxEvent> events, Map<Long, String> failures) {
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Notification> rows = new ArrayList<>();
+                for (OutboxEvent event : events) {
+                    for (OutboxService.UserNotification message : readNotifications(event)) {
+                        rows.add(Notification.builder()
+                                .user(userRepository.getReferenceById(message.userId()))
+                                .title(message.title())
+                                .body(message.body())
+                                .type(Notification.NotificationType.valueOf(message.type()))
+                                .referenceId(message.referenceId())
+                                .isRead(false)
+                                .build());
+                    }
+                }
+                notificationRepository.saveAll(rows);
+            });
+        } catch (Exception e) {
+            // One bad row fails the whole insert; retry the events one by one to isolate it
+            if (events.size() == 1) {
+                failures.put(events.get(0).getId(), e.getMessage());
+                return;
+            }
+            for (OutboxEvent event : events) {
+                deliverNotifications(List.of(event), failures);
+            }
+        }
+    }
+
+    /**
+     * Concurrent upserts; the batch waits for all of them (bounded by the publish timeout)
+     */
+    private void deliverPublishes(List<OutboxEvent> events, Map<Long, String> failures) {
+        if (events.isEmpty() || supabaseRealtimeService == null) {
+            return;
+        }
+
+        List<Mono<Void>> calls = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            Mono<Void> call;
+            try {
+                call = supabaseRealtimeService.upsertMatch(readMatchData(event))
+                        .timeout(Duration.ofMillis(publishTimeoutMs))
+                        .then();
+            } catch (Exception e) {
+                call = Mono.error(e);
+            }
+            calls.add(call.onErrorResume(error -> {
+                synchronized (failures) {
+                    failures.put(event.getId(), String.valueOf(error.getMessage()));
+                }
+                return Mono.empty();
+            }));
+        }
+        Flux.merge(calls).blockLast(Duration.ofMillis(publishTimeoutMs * 2));
+    }
+
+    private void settle(List<OutboxEvent> batch, Map<Long, String> failures) {
+        List<Long> delivered = new ArrayList<>();
+        List<OutboxEvent> retries = new ArrayList<>();
+        for (OutboxEvent event : batch) {
+            String error = failures.get(event.getId());
+            if (error == null) {
+                delivered.add(event.getId());
+                continue;
+            }
+            event.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+            if (event.getAttempts() >= maxAttempts) {
+                event.setStatus(OutboxEvent.Status.FAILED);
+                log.error("Outbox event {} ({} for match {}) gave up after {} attempts: {}",
+                        event.getId(), event.getType(), event.getAggregateId(), event.getAttempts(), error);
+            } else {
+                event.setStatus(OutboxEvent.Status.PENDING);
+                event.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoffSeconds(event.getAttempts())));
+            }
+            retries.add(event);
+        }
+        if (!delivered.isEmpty()) {
+            outboxEventRepository.deleteAllByIdInBatch(delivered);
+        }
+        if (!retries.isEmpty()) {
+            outboxEventRepository.saveAll(retries);
+        }
+    }
+
+    /**
+     * 2s, 4s, 8s ... capped at 5 minutes
+     */
+    private static long backoffSeconds(int attempts) {
+        return Math.min(300, 1L << Math.min(attempts, 9));
+    }
+
+    private static List<OutboxService.UserNotification> readNotifications(OutboxEvent event) {
+        try {
+            return OBJECT_MAPPER.readValue(event.getPayload(), new TypeReference<List<OutboxService.UserNotification>>() {
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable notification payload in outbox event " + event.getId(), e);
+        }
+    }
+
+    private static Map<String, Object> readMatchData(OutboxEvent event) {
+        try {
+            return OBJECT_MAPPER.readValue(event.getPayload(), new TypeReference<Map<String, Object>>() {
+            });
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable match payload in outbox event " + event.getId(), e);
+        }
+    }
+}
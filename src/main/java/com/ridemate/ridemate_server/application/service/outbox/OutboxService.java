@@ -0,0 +1,86 @@
+package com.ridemate.ridemate_server.application.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridemate.ridemate_server.domain.entity.OutboxEvent;
+import com.ridemate.ridemate_server.domain.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records side effects in the caller's transaction; OutboxRelay delivers them after commit.
+ * A rolled-back booking therefore never notifies anyone, and a committed one always does
+ * (at least once), without the request thread waiting on Supabase or notification inserts.
+ */
+@Service
+@Slf4j
+public class OutboxService {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    /**
+     * One in-app notification row, as written by NotificationService.sendNotification
+     * @param type a Notification.NotificationType name
+     */
+    public record UserNotification(Long userId, String title, String body, String type, Long referenceId) {
+    }
+
+    /**
+     * Upsert of the match row in Supabase (realtime modal for drivers and passenger)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishMatch(Long matchId, Map<String, Object> matchData) {
+        enqueue(matchId, OutboxEvent.EventType.MATCH_REALTIME, matchData);
+    }
+
+    /**
+     * Notification rows for several users, written together by the relay
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void notifyUsers(Long matchId, List<UserNotification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        enqueue(matchId, OutboxEvent.EventType.USER_NOTIFICATIONS, notifications);
+    }
+
+    private void enqueue(Long aggregateId, OutboxEvent.EventType type, Object payload) {
+        String json;
+        try {
+            json = OBJECT_MAPPER.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Outbox payload is not serializable: " + e.getMessage(), e);
+        }
+
+        outboxEventRepository.save(OutboxEvent.builder()
+                .aggregateId(aggregateId)
+                .type(type)
+                .payload(json)
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+        log.debug("Queued {} for match {}", type, aggregateId);
+
+        // Deliver right after commit instead of waiting for the next poll
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                outboxRelay.wakeUp();
+            }
+        });
+    }
+}
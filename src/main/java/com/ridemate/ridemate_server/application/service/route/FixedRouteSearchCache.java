@@ -0,0 +1,182 @@
+package com.ridemate.ridemate_server.application.service.route;
+
+import com.ridemate.ridemate_server.application.dto.route.FixedRouteResponse;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Route search candidates per (pickup cell, dropoff cell, travel date, seats)
+ *
+ * Commuters repeat the same searches every morning, and every search from the same pair of grid
+ * cells has the same candidates: the ACTIVE routes of FixedRouteSpatialIndex.findCandidates with
+ * enough seats left on the date, already loaded and mapped. Callers still check the exact pickup
+ * and dropoff distances of their own points, so a cached result is never wider than a fresh one.
+ *
+ * Entries are dropped when a route covering their pickup cell changes in the index (create,
+ * update, delete, status change, also through the periodic refresh) and when seats of such a route
+ * are taken or given back on their date. Seat changes made by another instance are only seen once
+ * the entry expires.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FixedRouteSearchCache {
+
+    private final FixedRouteSpatialIndex fixedRouteSpatialIndex;
+
+    @Value("${route-search-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${route-search-cache.max-entries:10000}")
+    private int maxEntries;
+
+    private final Map<Key, CachedResult> results = new ConcurrentHashMap<>();
+    // Pickup cell -> cached keys with that pickup cell
+    private final Map<Long, Set<Key>> keysByPickupCell = new ConcurrentHashMap<>();
+    // Bumped before each invalidation so a load that overlapped one is not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidated = new LongAdder();
+
+    /**
+     * Cache key, see of()
+     * @param travelDate null for searches without a date
+     */
+    public record Key(long pickupCell, long dropoffCell, LocalDate travelDate, int seats) {
+
+        public static Key of(double pickupLatitude, double pickupLongitude,
+                             double dropoffLatitude, double dropoffLongitude, LocalDate travelDate, int seats) {
+            return new Key(FixedRouteSpatialIndex.cellOf(pickupLatitude, pickupLongitude),
+                    FixedRouteSpatialIndex.cellOf(dropoffLatitude, dropoffLongitude), travelDate, seats);
+        }
+    }
+
+    public record Stats(int entries, long hits, long misses, long invalidated, double hitRate) {
+    }
+
+    private record CachedResult(List<FixedRouteResponse> candidates, long expiresAtMillis) {
+    }
+
+    @PostConstruct
+    void init() {
+        fixedRouteSpatialIndex.setChangeListener(this::onRouteChanged);
+    }
+
+    /**
+     * Cached candidates for the key, loading and caching them on a miss
+     * @return shared list, callers copy the responses they change
+     */
+    public List<FixedRouteResponse> get(Key key, Supplier<List<FixedRouteResponse>> loader) {
+        CachedResult cached = results.get(key);
+        if (cached != null && cached.expiresAtMillis() > System.currentTimeMillis()) {
+            hits.increment();
+            return cached.candidates();
+        }
+        misses.increment();
+
+        long loadedAt = generation.get();
+        List<FixedRouteResponse> candidates = List.copyOf(loader.get());
+        if (results.size() >= maxEntries) {
+            removeExpired();
+        }
+        if (results.size() < maxEntries) {
+            // Add inside compute so a concurrent unlink cannot drop the set in between
+            keysByPickupCell.compute(key.pickupCell(), (cell, keys) -> {
+                Set<Key> cellKeys = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                cellKeys.add(key);
+                return cellKeys;
+            });
+            results.put(key, new CachedResult(candidates, System.currentTimeMillis() + ttlSeconds * 1000));
+            if (generation.get() != loadedAt) {
+                // A route or seat change may have landed after the load read the database
+                remove(key);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Drop the entries for the date whose pickup cell the route covers, after its seats changed
+     */
+    public void onSeatsChanged(long routeId, LocalDate travelDate) {
+        generation.incrementAndGet();
+        fixedRouteSpatialIndex.forEachPickupCell(routeId, cell -> invalidateCell(cell, travelDate));
+    }
+
+    public Stats getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return new Stats(results.size(), hitCount, missCount, invalidated.sum(),
+                total > 0 ? (double) hitCount / total : 0.0);
+    }
+
+    private void onRouteChanged(FixedRouteSpatialIndex.Entry previous, FixedRouteSpatialIndex.Entry current) {
+        generation.incrementAndGet();
+        if (previous != null) {
+            FixedRouteSpatialIndex.forEachCoveredCell(previous, cell -> invalidateCell(cell, null));
+        }
+        if (current != null) {
+            FixedRouteSpatialIndex.forEachCoveredCell(current, cell -> invalidateCell(cell, null));
+        }
+    }
+
+    /**
+     * @param travelDate only entries for this date, all entries of the cell if null
+     */
+    private void invalidateCell(long cell, LocalDate travelDate) {
+        Set<Key> keys = keysByPickupCell.get(cell);
+        if (keys == null) {
+            return;
+        }
+        for (Key key : keys) {
+            if (travelDate == null || Objects.equals(key.travelDate(), travelDate)) {
+                if (remove(key)) {
+                    invalidated.increment();
+                }
+            }
+        }
+    }
+
+    private boolean remove(Key key) {
+        boolean removed = results.remove(key) != null;
+        unlink(key);
+        return removed;
+    }
+
+    private void unlink(Key key) {
+        keysByPickupCell.computeIfPresent(key.pickupCell(), (cell, keys) -> {
+            // A concurrent load may have cached the key again
+            if (!results.containsKey(key)) {
+                keys.remove(key);
+            }
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private void removeExpired() {
+        long now = System.currentTimeMillis();
+        int before = results.size();
+        results.forEach((key, cached) -> {
+            if (cached.expiresAtMillis() <= now && results.remove(key, cached)) {
+                unlink(key);
+            }
+        });
+        log.debug("Route search cache full, removed {} expired entries", before - results.size());
+    }
+}
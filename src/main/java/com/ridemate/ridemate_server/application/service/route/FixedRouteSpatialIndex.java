@@ -0,0 +1,373 @@
+package com.ridemate.ridemate_server.application.service.route;
+
+import com.ridemate.ridemate_server.domain.entity.FixedRoute;
+import com.ridemate.ridemate_server.domain.entity.RouteSchedule;
+import com.ridemate.ridemate_server.domain.repository.FixedRouteRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory grid index of ACTIVE fixed routes for route search
+ *
+ * Each route is registered in every 0.01 degree cell where a passenger could board it: the cells
+ * within pickupRadius of its driving path (see RouteCorridor), or of its pickup point if it has
+ * no path. The cells where a passenger could get off (dropoffRadius) are kept sorted on the entry.
+ * A search only reads the one cell holding the passenger's pickup and keeps the routes whose
+ * dropoff cells include the dropoff cell. Candidates depend only on the two cells, which lets
+ * FixedRouteSearchCache share them between nearby searches; fit() then checks the exact points and
+ * their order along the path. A 20 km path with the default 500 m radius covers about 60 cells.
+ *
+ * Next to the grid, an inverted index maps each upcoming date (specific dates of the route
+ * schedules) and each weekday (weekly rules) to its routes. A search for a travel date walks the
+ * smaller side of (routes in the cell) x (routes on that day) and confirms the date with one bit
+ * test on the route's schedule.
+ *
+ * Kept up to date by FixedRouteServiceImpl after each commit, warmed on startup and refreshed from
+ * rows updated since the last pass (routes changed through another instance). Callers re-read the
+ * matching routes from the database, so a stale entry can only cost a wasted lookup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FixedRouteSpatialIndex {
+
+    private static final double CELL_SIZE_DEGREES = 0.01;
+    private static final double METERS_PER_DEGREE_LAT = 111_320.0;
+    // Spacing of the path samples whose surroundings make up the corridor cells
+    private static final double PATH_SAMPLE_METERS = 200.0;
+
+    private final FixedRouteRepository fixedRouteRepository;
+
+    @Value("${fixed-route-index.refresh-interval-seconds:30}")
+    private long refreshIntervalSeconds;
+
+    private final Map<Long, Entry> routes = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+    // Epoch day -> routes with that specific date (today and later)
+    private final Map<Long, Set<Long>> routesByDay = new ConcurrentHashMap<>();
+    private final Map<DayOfWeek, Set<Long>> routesByWeekday = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService refresher;
+    private volatile LocalDateTime refreshedUpTo;
+    private volatile BiConsumer<Entry, Entry> changeListener;
+
+    /**
+     * Search data of an indexed route
+     */
+    public record Entry(long routeId, int pickupRadius, int dropoffRadius, LocalTime departureTime,
+                        RouteSchedule schedule, RouteCorridor corridor, long[] pickupCells, long[] dropoffCells) {
+    }
+
+    @PostConstruct
+    void start() {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            routesByWeekday.put(day, ConcurrentHashMap.newKeySet());
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fixed-route-index-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Load all ACTIVE routes once the application is up, then refresh periodically
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        try {
+            warmUpRoutes();
+            refreshedUpTo = startedAt;
+            log.info("Fixed route index warmed with {} active routes", routes.size());
+        } catch (Exception e) {
+            log.error("Failed to warm fixed route index: {}", e.getMessage(), e);
+        }
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, refreshIntervalSeconds, refreshIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Apply a created or changed route once the current transaction commits (right away outside one)
+     */
+    public void onRouteSaved(FixedRoute route) {
+        Entry entry = isSearchable(route) ? toEntry(route) : null;
+        long routeId = route.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    put(routeId, entry);
+                }
+            });
+        } else {
+            put(routeId, entry);
+        }
+    }
+
+    /**
+     * Ids of the indexed routes a passenger could board in the pickup cell and leave in the dropoff
+     * cell (see cellOf). Callers check their exact points with fit().
+     * @param travelDate only routes running on this date, any date if null
+     * @return route ids by departure time
+     */
+    public List<Long> findCandidates(long pickupCell, long dropoffCell, LocalDate travelDate) {
+        Set<Long> inCell = cells.get(pickupCell);
+        if (inCell == null || (travelDate != null && travelDate.isBefore(LocalDate.now()))) {
+            return List.of();
+        }
+
+        List<Entry> matches = new ArrayList<>();
+        if (travelDate == null) {
+            for (Long routeId : inCell) {
+                addIfMatching(matches, routeId, dropoffCell, null);
+            }
+        } else {
+            Set<Long> onDate = routesByDay.getOrDefault(travelDate.toEpochDay(), Set.of());
+            Set<Long> weekly = routesByWeekday.get(travelDate.getDayOfWeek());
+            if (onDate.size() + weekly.size() < inCell.size()) {
+                for (Long routeId : onDate) {
+                    if (inCell.contains(routeId)) {
+                        addIfMatching(matches, routeId, dropoffCell, travelDate);
+                    }
+                }
+                for (Long routeId : weekly) {
+                    // Routes with both a specific date and a weekly rule on that day were seen above
+                    if (inCell.contains(routeId) && !onDate.contains(routeId)) {
+                        addIfMatching(matches, routeId, dropoffCell, travelDate);
+                    }
+                }
+            } else {
+                for (Long routeId : inCell) {
+                    addIfMatching(matches, routeId, dropoffCell, travelDate);
+                }
+            }
+        }
+        matches.sort(Comparator.comparing(Entry::departureTime).thenComparingLong(Entry::routeId));
+        return matches.stream().map(Entry::routeId).toList();
+    }
+
+    /**
+     * How the trip fits an indexed route, see RouteCorridor.fit
+     * @return null if the route is not indexed or the trip does not fit
+     */
+    public RouteCorridor.Fit fit(long routeId, double pickupLatitude, double pickupLongitude,
+                                 double dropoffLatitude, double dropoffLongitude) {
+        Entry entry = routes.get(routeId);
+        return entry == null ? null : entry.corridor().fit(pickupLatitude, pickupLongitude, entry.pickupRadius(),
+                dropoffLatitude, dropoffLongitude, entry.dropoffRadius());
+    }
+
+    /**
+     * Visit the cells where a passenger could board an indexed route (none if it is not indexed)
+     */
+    void forEachPickupCell(long routeId, LongConsumer action) {
+        Entry entry = routes.get(routeId);
+        if (entry != null) {
+            forEachCoveredCell(entry, action);
+        }
+    }
+
+    /**
+     * Listener called with the previous and new entry (either may be null) after a route changed in the index
+     */
+    public void setChangeListener(BiConsumer<Entry, Entry> changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Grid cell holding the point
+     */
+    public static long cellOf(double latitude, double longitude) {
+        return packCell(cellIndex(latitude), cellIndex(longitude));
+    }
+
+    public int size() {
+        return routes.size();
+    }
+
+    void refresh() {
+        LocalDateTime since = refreshedUpTo;
+        LocalDateTime startedAt = LocalDateTime.now();
+        if (since == null) {
+            warmUpRoutes();
+        } else {
+            // Look back one extra interval for rows whose transaction committed after their timestamp
+            for (FixedRoute route : fixedRouteRepository.findByUpdatedAtAfter(since.minusSeconds(refreshIntervalSeconds))) {
+                apply(route);
+            }
+        }
+        // Dates that have passed can no longer be searched
+        routesByDay.keySet().removeIf(epochDay -> epochDay < LocalDate.now().toEpochDay());
+        refreshedUpTo = startedAt;
+    }
+
+    private void warmUpRoutes() {
+        for (FixedRoute route : fixedRouteRepository.findByStatus(FixedRoute.RouteStatus.ACTIVE)) {
+            apply(route);
+        }
+    }
+
+    private void addIfMatching(List<Entry> matches, Long routeId, long dropoffCell, LocalDate travelDate) {
+        Entry entry = routes.get(routeId);
+        if (entry != null
+                && (travelDate == null || entry.schedule().includes(travelDate))
+                && Arrays.binarySearch(entry.dropoffCells(), dropoffCell) >= 0) {
+            matches.add(entry);
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Exception e) {
+            log.error("Fixed route index refresh failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void apply(FixedRoute route) {
+        put(route.getId(), isSearchable(route) ? toEntry(route) : null);
+    }
+
+    private void put(long routeId, Entry entry) {
+        Entry[] replaced = new Entry[1];
+        routes.compute(routeId, (id, previous) -> {
+            replaced[0] = previous;
+            if (previous != null) {
+                forEachCoveredCell(previous, cell -> removeFromCell(cell, id));
+                for (LocalDate date : previous.schedule().specificDates()) {
+                    removeFromDay(date.toEpochDay(), id);
+                }
+                for (DayOfWeek day : previous.schedule().recurringDaysOfWeek()) {
+                    routesByWeekday.get(day).remove(id);
+                }
+            }
+            if (entry != null) {
+                forEachCoveredCell(entry, cell -> addTo(cells, cell, id));
+                LocalDate today = LocalDate.now();
+                for (LocalDate date : entry.schedule().specificDates()) {
+                    if (!date.isBefore(today)) {
+                        addTo(routesByDay, date.toEpochDay(), id);
+                    }
+                }
+                for (DayOfWeek day : entry.schedule().recurringDaysOfWeek()) {
+                    routesByWeekday.get(day).add(id);
+                }
+            }
+            return entry;
+        });
+        BiConsumer<Entry, Entry> listener = changeListener;
+        if (listener != null && (replaced[0] != null || entry != null)) {
+            listener.accept(replaced[0], entry);
+        }
+    }
+
+    private static boolean isSearchable(FixedRoute route) {
+        return route.getStatus() == FixedRoute.RouteStatus.ACTIVE
+                && route.getSchedule() != null
+                && route.getPickupLatitude() != null && route.getPickupLongitude() != null
+                && route.getDropoffLatitude() != null && route.getDropoffLongitude() != null;
+    }
+
+    private static Entry toEntry(FixedRoute route) {
+        RouteCorridor corridor = RouteCorridor.of(route);
+        return new Entry(route.getId(), route.getPickupRadius(), route.getDropoffRadius(),
+                route.getDepartureTime(), route.getSchedule(), corridor,
+                coveredCells(corridor, route.getPickupLatitude(), route.getPickupLongitude(), route.getPickupRadius()),
+                coveredCells(corridor, route.getDropoffLatitude(), route.getDropoffLongitude(), route.getDropoffRadius()));
+    }
+
+    static void forEachCoveredCell(Entry entry, LongConsumer action) {
+        for (long cell : entry.pickupCells()) {
+            action.accept(cell);
+        }
+    }
+
+    /**
+     * Sorted cells within radiusMeters of the path, or of the given end point without a path
+     */
+    private static long[] coveredCells(RouteCorridor corridor, double latitude, double longitude, int radiusMeters) {
+        Set<Long> covered = new HashSet<>();
+        if (corridor.isAlongPath()) {
+            // Every point of the path is within half a step of a sample
+            corridor.forEachSample(PATH_SAMPLE_METERS, (sampleLatitude, sampleLongitude) ->
+                    addCellsAround(covered, sampleLatitude, sampleLongitude, radiusMeters + PATH_SAMPLE_METERS / 2));
+        } else {
+            addCellsAround(covered, latitude, longitude, radiusMeters);
+        }
+        return covered.stream().mapToLong(Long::longValue).sorted().toArray();
+    }
+
+    private static void addCellsAround(Set<Long> covered, double latitude, double longitude, double radiusMeters) {
+        double latSpan = radiusMeters / METERS_PER_DEGREE_LAT;
+        double lonSpan = radiusMeters / (METERS_PER_DEGREE_LAT * Math.max(Math.cos(Math.toRadians(latitude)), 0.01));
+        int maxLatIdx = cellIndex(latitude + latSpan);
+        int maxLonIdx = cellIndex(longitude + lonSpan);
+        for (int latIdx = cellIndex(latitude - latSpan); latIdx <= maxLatIdx; latIdx++) {
+            for (int lonIdx = cellIndex(longitude - lonSpan); lonIdx <= maxLonIdx; lonIdx++) {
+                covered.add(packCell(latIdx, lonIdx));
+            }
+        }
+    }
+
+    private static void addTo(Map<Long, Set<Long>> index, long key, Long routeId) {
+        // Add inside compute so a concurrent removeFromCell / removeFromDay cannot drop the set in between
+        index.compute(key, (k, members) -> {
+            Set<Long> set = members != null ? members : ConcurrentHashMap.newKeySet();
+            set.add(routeId);
+            return set;
+        });
+    }
+
+    private void removeFromCell(long cellKey, Long routeId) {
+        cells.computeIfPresent(cellKey, (key, members) -> {
+            members.remove(routeId);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    private void removeFromDay(long epochDay, Long routeId) {
+        routesByDay.computeIfPresent(epochDay, (key, members) -> {
+            members.remove(routeId);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    private static int cellIndex(double degrees) {
+        return (int) Math.floor(degrees / CELL_SIZE_DEGREES);
+    }
+
+    private static long packCell(int latIdx, int lonIdx) {
+        return ((long) latIdx << 32) | (lonIdx & 0xFFFFFFFFL);
+    }
+}
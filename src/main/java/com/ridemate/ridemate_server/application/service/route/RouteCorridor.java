@@ -0,0 +1,171 @@
+package com.ridemate.ridemate_server.application.service.route;
+
+import com.ridemate.ridemate_server.domain.entity.FixedRoute;
+import com.ridemate.ridemate_server.infrastructure.codec.PolylineCodec;
+import com.ridemate.ridemate_server.infrastructure.routing.RoadGraph;
+
+import java.util.Arrays;
+
+/**
+ * Where along a fixed route passengers can board and get off
+ *
+ * A route with a driving path accepts a pickup within pickupRadius of any path segment and a
+ * dropoff within dropoffRadius of a segment further along. A route without one (created before
+ * paths were stored) keeps the original rule: pickup near its start, dropoff near its end.
+ *
+ * Segment distances use a local flat projection, which is well under a meter off at these radii.
+ */
+public final class RouteCorridor {
+
+    private static final double METERS_PER_DEGREE_LAT = 111_320.0;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    // Meters from the start to each point
+    private final double[] along;
+    private final boolean alongPath;
+
+    /**
+     * How a passenger's trip fits the route
+     * @param pickupMeters distance from the pickup to the route
+     * @param dropoffMeters distance from the dropoff to the route
+     */
+    public record Fit(double pickupMeters, double dropoffMeters) {
+    }
+
+    @FunctionalInterface
+    public interface SampleConsumer {
+        void accept(double latitude, double longitude);
+    }
+
+    private RouteCorridor(double[] latitudes, double[] longitudes, int count, boolean alongPath) {
+        this.latitudes = Arrays.copyOf(latitudes, count);
+        this.longitudes = Arrays.copyOf(longitudes, count);
+        this.along = new double[count];
+        for (int i = 1; i < count; i++) {
+            along[i] = along[i - 1] + flatMeters(latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+        }
+        this.alongPath = alongPath;
+    }
+
+    /**
+     * Corridor of the route's stored path, or of its pickup and dropoff points if it has none
+     * @throws IllegalArgumentException if the stored path is malformed
+     */
+    public static RouteCorridor of(FixedRoute route) {
+        if (route.getPath() == null) {
+            return new RouteCorridor(
+                    new double[]{route.getPickupLatitude(), route.getDropoffLatitude()},
+                    new double[]{route.getPickupLongitude(), route.getDropoffLongitude()}, 2, false);
+        }
+        double[][] points = {new double[64], new double[64]};
+        int[] count = {0};
+        PolylineCodec.decode(route.getPath(), (latitude, longitude) -> {
+            if (count[0] == points[0].length) {
+                points[0] = Arrays.copyOf(points[0], count[0] * 2);
+                points[1] = Arrays.copyOf(points[1], count[0] * 2);
+            }
+            points[0][count[0]] = latitude;
+            points[1][count[0]] = longitude;
+            count[0]++;
+        });
+        if (count[0] < 2) {
+            throw new IllegalArgumentException("Route path has fewer than two points");
+        }
+        return new RouteCorridor(points[0], points[1], count[0], true);
+    }
+
+    public boolean isAlongPath() {
+        return alongPath;
+    }
+
+    /**
+     * Whether the trip fits: pickup near the route, dropoff near it further along
+     * @return the distances to the route, or null if the trip does not fit
+     */
+    public Fit fit(double pickupLatitude, double pickupLongitude, int pickupRadius,
+                   double dropoffLatitude, double dropoffLongitude, int dropoffRadius) {
+        int last = latitudes.length - 1;
+        if (!alongPath) {
+            double pickupMeters = RoadGraph.distanceMeters(pickupLatitude, pickupLongitude, latitudes[0], longitudes[0]);
+            double dropoffMeters = RoadGraph.distanceMeters(dropoffLatitude, dropoffLongitude, latitudes[last], longitudes[last]);
+            return pickupMeters <= pickupRadius && dropoffMeters <= dropoffRadius
+                    ? new Fit(pickupMeters, dropoffMeters) : null;
+        }
+
+        // Earliest point where the passenger can board
+        double[] projection = new double[1];
+        double earliestPickup = Double.NaN;
+        for (int i = 0; i < last && Double.isNaN(earliestPickup); i++) {
+            if (project(i, pickupLatitude, pickupLongitude, projection) <= pickupRadius) {
+                earliestPickup = projection[0];
+            }
+        }
+        if (Double.isNaN(earliestPickup)) {
+            return null;
+        }
+
+        // Closest dropoff after it, then the closest pickup before that dropoff
+        double dropoffMeters = Double.MAX_VALUE;
+        double dropoffAlong = Double.NaN;
+        for (int i = 0; i < last; i++) {
+            if (along[i + 1] < earliestPickup) {
+                continue;
+            }
+            double meters = project(i, dropoffLatitude, dropoffLongitude, projection);
+            if (meters <= dropoffRadius && projection[0] > earliestPickup && meters < dropoffMeters) {
+                dropoffMeters = meters;
+                dropoffAlong = projection[0];
+            }
+        }
+        if (Double.isNaN(dropoffAlong)) {
+            return null;
+        }
+        double pickupMeters = Double.MAX_VALUE;
+        for (int i = 0; i < last && along[i] < dropoffAlong; i++) {
+            double meters = project(i, pickupLatitude, pickupLongitude, projection);
+            if (projection[0] < dropoffAlong && meters < pickupMeters) {
+                pickupMeters = meters;
+            }
+        }
+        return new Fit(pickupMeters, dropoffMeters);
+    }
+
+    /**
+     * Visit points along the path at most stepMeters apart, both ends included
+     */
+    public void forEachSample(double stepMeters, SampleConsumer consumer) {
+        consumer.accept(latitudes[0], longitudes[0]);
+        for (int i = 1; i < latitudes.length; i++) {
+            int steps = Math.max(1, (int) Math.ceil((along[i] - along[i - 1]) / stepMeters));
+            for (int step = 1; step <= steps; step++) {
+                double t = (double) step / steps;
+                consumer.accept(latitudes[i - 1] + (latitudes[i] - latitudes[i - 1]) * t,
+                        longitudes[i - 1] + (longitudes[i] - longitudes[i - 1]) * t);
+            }
+        }
+    }
+
+    /**
+     * Distance from the point to segment i, with the meters from the start of the route to the
+     * nearest point of the segment in result[0]
+     */
+    private double project(int i, double latitude, double longitude, double[] result) {
+        double metersPerDegreeLon = METERS_PER_DEGREE_LAT * Math.cos(Math.toRadians(latitudes[i]));
+        double segmentX = (longitudes[i + 1] - longitudes[i]) * metersPerDegreeLon;
+        double segmentY = (latitudes[i + 1] - latitudes[i]) * METERS_PER_DEGREE_LAT;
+        double pointX = (longitude - longitudes[i]) * metersPerDegreeLon;
+        double pointY = (latitude - latitudes[i]) * METERS_PER_DEGREE_LAT;
+        double lengthSquared = segmentX * segmentX + segmentY * segmentY;
+        double t = lengthSquared > 0
+                ? Math.max(0, Math.min(1, (pointX * segmentX + pointY * segmentY) / lengthSquared)) : 0;
+        result[0] = along[i] + t * (along[i + 1] - along[i]);
+        return Math.hypot(pointX - t * segmentX, pointY - t * segmentY);
+    }
+
+    private static double flatMeters(double lat1, double lon1, double lat2, double lon2) {
+        double x = (lon2 - lon1) * METERS_PER_DEGREE_LAT * Math.cos(Math.toRadians(lat1));
+        double y = (lat2 - lat1) * METERS_PER_DEGREE_LAT;
+        return Math.hypot(x, y);
+    }
+}
@@ -0,0 +1,86 @@
+package com.ridemate.ridemate_server.application.service.route;
+
+import com.ridemate.ridemate_server.domain.entity.RouteSchedule;
+import com.ridemate.ridemate_server.domain.repository.FixedRouteRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts the comma-separated specific_dates text of routes created before RouteSchedule into the
+ * date bitmap, once, on startup. The old column is no longer written, so its NOT NULL constraint is
+ * dropped; the text itself is left in place. Routes whose text cannot be read keep no schedule and
+ * are listed in getStats() for an admin to fix.
+ *
+ * Depends on FixedRouteRepository so the schema update (new schedule columns) has run first.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RouteScheduleBackfill {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FixedRouteRepository fixedRouteRepository;
+
+    private volatile Stats stats = new Stats(0, 0, List.of());
+
+    /**
+     * Outcome of the startup conversion
+     * @param unparseableRouteIds routes left without a schedule because their specific dates cannot be read
+     */
+    public record Stats(int convertedRoutes, int unparseableRoutes, List<Long> unparseableRouteIds) {
+    }
+
+    private record LegacyRoute(long id, String specificDates) {
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+
+    @PostConstruct
+    void backfill() {
+        List<String> nullable = jdbcTemplate.queryForList("""
+                SELECT is_nullable FROM information_schema.columns
+                WHERE table_name = 'fixed_routes' AND column_name = 'specific_dates'
+                """, String.class);
+        if (nullable.isEmpty()) {
+            return;
+        }
+
+        if (nullable.contains("NO")) {
+            jdbcTemplate.execute("ALTER TABLE fixed_routes ALTER COLUMN specific_dates DROP NOT NULL");
+        }
+        List<LegacyRoute> legacyRoutes = jdbcTemplate.query("""
+                SELECT id, specific_dates FROM fixed_routes
+                WHERE schedule_days IS NULL AND recurring_weekdays IS NULL AND specific_dates IS NOT NULL
+                """, (rs, rowNum) -> new LegacyRoute(rs.getLong("id"), rs.getString("specific_dates")));
+        if (legacyRoutes.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> updates = new ArrayList<>(legacyRoutes.size());
+        List<Long> unparseable = new ArrayList<>();
+        for (LegacyRoute route : legacyRoutes) {
+            try {
+                RouteSchedule schedule = RouteSchedule.of(route.specificDates(), null, null, null);
+                updates.add(new Object[]{Date.valueOf(schedule.getStartDate()), schedule.getDays(), route.id()});
+            } catch (IllegalArgumentException e) {
+                unparseable.add(route.id());
+                log.warn("Route {} keeps no schedule, cannot read its specific dates '{}': {}",
+                        route.id(), route.specificDates(), e.getMessage());
+            }
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE fixed_routes SET schedule_start_date = ?, schedule_days = ? WHERE id = ?", updates);
+        stats = new Stats(updates.size(), unparseable.size(), List.copyOf(unparseable));
+        log.info("Converted the specific dates of {} fixed routes to schedules, {} could not be read",
+                updates.size(), unparseable.size());
+    }
+}
@@ -0,0 +1,94 @@
+package com.ridemate.ridemate_server.application.service.route;
+
+import com.ridemate.ridemate_server.domain.entity.FixedRoute;
+import com.ridemate.ridemate_server.domain.entity.RouteBooking;
+import com.ridemate.ridemate_server.domain.entity.RouteSeatInventory;
+import com.ridemate.ridemate_server.domain.repository.RouteSeatInventoryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Seats per (fixed route, travel date)
+ *
+ * A booking holds its seats from creation until it is rejected or cancelled. Seats are taken with
+ * one conditional UPDATE in the booking's transaction: a burst of bookings queues on the row lock
+ * of the route/date and the ones that no longer fit get 0 rows back, and a booking that rolls back
+ * takes its reservation with it.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RouteSeatInventoryService {
+
+    private final RouteSeatInventoryRepository routeSeatInventoryRepository;
+    private final FixedRouteSearchCache fixedRouteSearchCache;
+
+    /**
+     * Take the seats of a saved booking, in its transaction (the booking and its seats go together).
+     * The UPDATE locks the route/date row until commit, so call this last.
+     * @return false if not enough seats are left
+     */
+    public boolean reserve(RouteBooking booking) {
+        FixedRoute route = booking.getRoute();
+        Long routeId = route.getId();
+        LocalDate travelDate = booking.getBookingDate();
+        routeSeatInventoryRepository.insertIfAbsent(routeId, travelDate, route.getTotalSeats(), booking.getId());
+        if (routeSeatInventoryRepository.reserve(routeId, travelDate, booking.getNumberOfSeats()) != 1) {
+            return false;
+        }
+        onSeatsChangedAfterCommit(routeId, travelDate);
+        return true;
+    }
+
+    /**
+     * Give seats back, in the caller's transaction (the booking status change and the seats go together)
+     */
+    public void release(Long routeId, LocalDate travelDate, int seats) {
+        routeSeatInventoryRepository.release(routeId, travelDate, seats);
+        onSeatsChangedAfterCommit(routeId, travelDate);
+    }
+
+    private void onSeatsChangedAfterCommit(Long routeId, LocalDate travelDate) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    fixedRouteSearchCache.onSeatsChanged(routeId, travelDate);
+                }
+            });
+        } else {
+            fixedRouteSearchCache.onSeatsChanged(routeId, travelDate);
+        }
+    }
+
+    /**
+     * Apply a new seat count of the route to today and later dates
+     */
+    public void onTotalSeatsChanged(Long routeId, int totalSeats) {
+        routeSeatInventoryRepository.updateTotalSeats(routeId, LocalDate.now(), totalSeats);
+    }
+
+    /**
+     * Seats left on the date for each route (all seats for dates nobody booked yet)
+     */
+    public Map<Long, Integer> remainingSeats(Collection<FixedRoute> routes, LocalDate travelDate) {
+        Map<Long, Integer> remaining = new HashMap<>();
+        for (FixedRoute route : routes) {
+            remaining.put(route.getId(), route.getTotalSeats());
+        }
+        if (!remaining.isEmpty()) {
+            for (RouteSeatInventory inventory : routeSeatInventoryRepository.findByRouteIdInAndTravelDate(remaining.keySet(), travelDate)) {
+                remaining.put(inventory.getRouteId(), inventory.remainingSeats());
+            }
+        }
+        return remaining;
+    }
+}
@@ -2,13 +2,20 @@ package com.ridemate.ridemate_server.application.service.route.impl;
 
 import com.ridemate.ridemate_server.application.dto.route.*;
 import com.ridemate.ridemate_server.application.mapper.FixedRouteMapper;
+import com.ridemate.ridemate_server.application.service.match.MatchRouteService;
+import com.ridemate.ridemate_server.application.service.route.FixedRouteSearchCache;
 import com.ridemate.ridemate_server.application.service.route.FixedRouteService;
+import com.ridemate.ridemate_server.application.service.route.FixedRouteSpatialIndex;
+import com.ridemate.ridemate_server.application.service.route.RouteCorridor;
+import com.ridemate.ridemate_server.application.service.route.RouteSeatInventoryService;
 import com.ridemate.ridemate_server.domain.entity.FixedRoute;
+import com.ridemate.ridemate_server.domain.entity.RouteSchedule;
 import com.ridemate.ridemate_server.domain.entity.User;
 import com.ridemate.ridemate_server.domain.entity.Vehicle;
 import com.ridemate.ridemate_server.domain.repository.FixedRouteRepository;
 import com.ridemate.ridemate_server.domain.repository.UserRepository;
 import com.ridemate.ridemate_server.domain.repository.VehicleRepository;
+import com.ridemate.ridemate_server.infrastructure.codec.PolylineCodec;
 import com.ridemate.ridemate_server.presentation.exception.ResourceNotFoundException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,7 +24,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -36,6 +46,18 @@ public class FixedRouteServiceImpl implements FixedRouteService {
     @Autowired
     private FixedRouteMapper fixedRouteMapper;
 
+    @Autowired
+    private FixedRouteSpatialIndex fixedRouteSpatialIndex;
+
+    @Autowired
+    private RouteSeatInventoryService routeSeatInventoryService;
+
+    @Autowired
+    private FixedRouteSearchCache fixedRouteSearchCache;
+
+    @Autowired
+    private MatchRouteService matchRouteService;
+
     @Override
     @Transactional
     public FixedRouteResponse createRoute(Long driverId, CreateFixedRouteRequest request) {
@@ -62,11 +84,21 @@ public class FixedRouteServiceImpl implements FixedRouteService {
             throw new IllegalArgumentException("Vehicle is not approved");
         }
 
-        // Calculate distance between pickup and dropoff
+        // Calculate distance between pickup and dropoff, along the driving path if one is given
         Double distance = calculateDistance(
                 request.getPickupLatitude(), request.getPickupLongitude(),
                 request.getDropoffLatitude(), request.getDropoffLongitude()
         );
+        int pickupRadius = request.getPickupRadius() != null ? request.getPickupRadius() : 500;
+        int dropoffRadius = request.getDropoffRadius() != null ? request.getDropoffRadius() : 500;
+        byte[] path = null;
+        if (request.getRoutePolyline() != null && !request.getRoutePolyline().isBlank()) {
+            MatchRouteService.ParsedRoute parsed = parsePath(request.getRoutePolyline());
+            requireConnects(parsed, request.getPickupLatitude(), request.getPickupLongitude(), pickupRadius,
+                    request.getDropoffLatitude(), request.getDropoffLongitude(), dropoffRadius);
+            path = parsed.polyline();
+            distance = parsed.lengthMeters();
+        }
 
         FixedRoute route = FixedRoute.builder()
                 .driver(driver)
@@ -80,17 +112,20 @@ public class FixedRouteServiceImpl implements FixedRouteService {
                 .dropoffLatitude(request.getDropoffLatitude())
                 .dropoffLongitude(request.getDropoffLongitude())
                 .departureTime(request.getDepartureTime())
-                .specificDates(request.getSpecificDates())
+                .schedule(RouteSchedule.of(request.getSpecificDates(), request.getRecurringDays(),
+                        LocalDate.now(), request.getRecurringUntil()))
                 .pricePerSeat(request.getPricePerSeat())
                 .totalSeats(request.getTotalSeats())
                 .availableSeats(request.getTotalSeats()) // Initially all seats available
                 .distance(distance)
-                .pickupRadius(request.getPickupRadius() != null ? request.getPickupRadius() : 500)
-                .dropoffRadius(request.getDropoffRadius() != null ? request.getDropoffRadius() : 500)
+                .path(path)
+                .pickupRadius(pickupRadius)
+                .dropoffRadius(dropoffRadius)
                 .status(FixedRoute.RouteStatus.ACTIVE)
                 .build();
 
         route = fixedRouteRepository.save(route);
+        fixedRouteSpatialIndex.onRouteSaved(route);
         log.info("Fixed route {} created successfully", route.getId());
 
         return fixedRouteMapper.toResponse(route);
@@ -119,17 +154,39 @@ public class FixedRouteServiceImpl implements FixedRouteService {
         if (request.getDepartureTime() != null) {
             route.setDepartureTime(request.getDepartureTime());
         }
-        if (request.getSpecificDates() != null) {
-            route.setSpecificDates(request.getSpecificDates());
+        MatchRouteService.ParsedRoute parsed = null;
+        if (request.getRoutePolyline() != null) {
+            if (request.getRoutePolyline().isBlank()) {
+                route.setPath(null);
+                route.setDistance(calculateDistance(
+                        route.getPickupLatitude(), route.getPickupLongitude(),
+                        route.getDropoffLatitude(), route.getDropoffLongitude()));
+            } else {
+                parsed = parsePath(request.getRoutePolyline());
+                route.setPath(parsed.polyline());
+                route.setDistance(parsed.lengthMeters());
+            }
+        }
+        if (request.getSpecificDates() != null || request.getRecurringDays() != null || request.getRecurringUntil() != null) {
+            // Parts of the schedule that are not in the request stay as they are
+            RouteSchedule current = route.getSchedule();
+            route.setSchedule(RouteSchedule.of(
+                    request.getSpecificDates() != null ? request.getSpecificDates()
+                            : current != null ? current.specificDatesText() : null,
+                    request.getRecurringDays() != null ? request.getRecurringDays()
+                            : current != null ? current.recurringDayCodes() : null,
+                    current != null && current.getRecurringFrom() != null ? current.getRecurringFrom() : LocalDate.now(),
+                    request.getRecurringUntil() != null ? request.getRecurringUntil()
+                            : current != null ? current.getRecurringUntil() : null));
         }
         if (request.getPricePerSeat() != null) {
             route.setPricePerSeat(request.getPricePerSeat());
         }
         if (request.getTotalSeats() != null) {
-            // Adjust available seats proportionally
-            int seatsDiff = request.getTotalSeats() - route.getTotalSeats();
+            // Seats are counted per date; upcoming dates take the new total, reservations stay
             route.setTotalSeats(request.getTotalSeats());
-            route.setAvailableSeats(Math.max(0, route.getAvailableSeats() + seatsDiff));
+            route.setAvailableSeats(request.getTotalSeats());
+            routeSeatInventoryService.onTotalSeatsChanged(routeId, request.getTotalSeats());
         }
         if (request.getPickupRadius() != null) {
             route.setPickupRadius(request.getPickupRadius());
@@ -137,11 +194,20 @@ public class FixedRouteServiceImpl implements FixedRouteService {
         if (request.getDropoffRadius() != null) {
             route.setDropoffRadius(request.getDropoffRadius());
         }
+        if (route.getPath() != null
+                && (parsed != null || request.getPickupRadius() != null || request.getDropoffRadius() != null)) {
+            if (parsed == null) {
+                parsed = parsePath(PolylineCodec.toEncoded(route.getPath()));
+            }
+            requireConnects(parsed, route.getPickupLatitude(), route.getPickupLongitude(), route.getPickupRadius(),
+                    route.getDropoffLatitude(), route.getDropoffLongitude(), route.getDropoffRadius());
+        }
         if (request.getStatus() != null) {
             route.setStatus(FixedRoute.RouteStatus.valueOf(request.getStatus()));
         }
 
         route = fixedRouteRepository.save(route);
+        fixedRouteSpatialIndex.onRouteSaved(route);
         log.info("Fixed route {} updated successfully", routeId);
 
         return fixedRouteMapper.toResponse(route);
@@ -163,6 +229,7 @@ public class FixedRouteServiceImpl implements FixedRouteService {
         // Soft delete by setting status to CANCELLED
         route.setStatus(FixedRoute.RouteStatus.CANCELLED);
         fixedRouteRepository.save(route);
+        fixedRouteSpatialIndex.onRouteSaved(route);
 
         log.info("Fixed route {} deleted successfully", routeId);
     }
@@ -197,54 +264,30 @@ public class FixedRouteServiceImpl implements FixedRouteService {
                 request.getPickupLatitude(), request.getPickupLongitude(),
                 request.getDropoffLatitude(), request.getDropoffLongitude());
 
-        // Find routes within proximity
-        List<FixedRoute> routes = fixedRouteRepository.findRoutesNearLocations(
+        // Routes near the pickup and dropoff cells with enough seats on the travel date (if given),
+        // shared by searches from the same cells
+        int seatsWanted = request.getNumberOfSeats() != null ? request.getNumberOfSeats() : 1;
+        FixedRouteSearchCache.Key key = FixedRouteSearchCache.Key.of(
                 request.getPickupLatitude(), request.getPickupLongitude(),
-                request.getDropoffLatitude(), request.getDropoffLongitude()
+                request.getDropoffLatitude(), request.getDropoffLongitude(),
+                request.getTravelDate(), seatsWanted
         );
-
-        // Filter by travel date if provided
-        if (request.getTravelDate() != null) {
-            LocalDate travelDate = request.getTravelDate();
-            DayOfWeek dayOfWeek = travelDate.getDayOfWeek();
-            // Filter by specific date if provided
-            String dateStr = request.getTravelDate() != null ? request.getTravelDate().toString() : null;
-            if (dateStr != null) {
-                routes = routes.stream()
-                        .filter(route -> route.isAvailableOnDate(dateStr))
-                        .collect(Collectors.toList());
+        List<FixedRouteResponse> candidates = fixedRouteSearchCache.get(key, () -> loadSearchCandidates(key));
+
+        // Keep the routes passing near the user's pickup and then near the dropoff, with the distances to them
+        List<FixedRouteResponse> responses = new ArrayList<>();
+        for (FixedRouteResponse candidate : candidates) {
+            RouteCorridor.Fit fit = fixedRouteSpatialIndex.fit(candidate.getId(),
+                    request.getPickupLatitude(), request.getPickupLongitude(),
+                    request.getDropoffLatitude(), request.getDropoffLongitude());
+            if (fit != null) {
+                responses.add(candidate.toBuilder()
+                        .pickupDistanceFromUser(fit.pickupMeters())
+                        .dropoffDistanceFromUser(fit.dropoffMeters())
+                        .build());
             }
         }
 
-        // Filter by number of seats if provided
-        if (request.getNumberOfSeats() != null) {
-            routes = routes.stream()
-                    .filter(route -> route.getAvailableSeats() >= request.getNumberOfSeats())
-                    .collect(Collectors.toList());
-        }
-
-        // Convert to response and calculate distances
-        List<FixedRouteResponse> responses = routes.stream()
-                .map(route -> {
-                    FixedRouteResponse response = fixedRouteMapper.toResponse(route);
-                    
-                    // Calculate distance from user's location to route's pickup/dropoff
-                    Double pickupDist = calculateDistance(
-                            request.getPickupLatitude(), request.getPickupLongitude(),
-                            route.getPickupLatitude(), route.getPickupLongitude()
-                    );
-                    Double dropoffDist = calculateDistance(
-                            request.getDropoffLatitude(), request.getDropoffLongitude(),
-                            route.getDropoffLatitude(), route.getDropoffLongitude()
-                    );
-                    
-                    response.setPickupDistanceFromUser(pickupDist);
-                    response.setDropoffDistanceFromUser(dropoffDist);
-                    
-                    return response;
-                })
-                .collect(Collectors.toList());
-
         log.info("Found {} matching routes", responses.size());
         return responses;
     }
@@ -262,10 +305,61 @@ public class FixedRouteServiceImpl implements FixedRouteService {
 
         route.setStatus(FixedRoute.RouteStatus.valueOf(status));
         route = fixedRouteRepository.save(route);
+        fixedRouteSpatialIndex.onRouteSaved(route);
 
         return fixedRouteMapper.toResponse(route);
     }
 
+    /**
+     * ACTIVE routes of the index candidates with at least key.seats() seats left, in index order
+     */
+    private List<FixedRouteResponse> loadSearchCandidates(FixedRouteSearchCache.Key key) {
+        List<Long> routeIds = fixedRouteSpatialIndex.findCandidates(key.pickupCell(), key.dropoffCell(), key.travelDate());
+        Map<Long, FixedRoute> loaded = fixedRouteRepository.findAllById(routeIds).stream()
+                .collect(Collectors.toMap(FixedRoute::getId, Function.identity()));
+        List<FixedRoute> routes = routeIds.stream()
+                .map(loaded::get)
+                .filter(route -> route != null && route.getStatus() == FixedRoute.RouteStatus.ACTIVE)
+                .collect(Collectors.toList());
+
+        // Seats left on the travel date (every seat of the vehicle when no date is given)
+        Map<Long, Integer> seatsLeft = key.travelDate() != null
+                ? routeSeatInventoryService.remainingSeats(routes, key.travelDate())
+                : routes.stream().collect(Collectors.toMap(FixedRoute::getId, FixedRoute::getTotalSeats));
+        return routes.stream()
+                .filter(route -> seatsLeft.get(route.getId()) >= key.seats())
+                .map(route -> {
+                    FixedRouteResponse response = fixedRouteMapper.toResponse(route);
+                    response.setAvailableSeats(seatsLeft.get(route.getId()));
+                    return response;
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the polyline is not a valid path of at least two points
+     */
+    private MatchRouteService.ParsedRoute parsePath(String routePolyline) {
+        MatchRouteService.ParsedRoute parsed = matchRouteService.parse(routePolyline);
+        if (parsed == null) {
+            throw new IllegalArgumentException("Route polyline is not a valid path");
+        }
+        return parsed;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the path does not start within pickupRadius of the pickup, end
+     * within dropoffRadius of the dropoff, or is too long a detour between them
+     */
+    private void requireConnects(MatchRouteService.ParsedRoute parsed,
+                                 double pickupLatitude, double pickupLongitude, int pickupRadius,
+                                 double dropoffLatitude, double dropoffLongitude, int dropoffRadius) {
+        if (!matchRouteService.connects(parsed, pickupLatitude, pickupLongitude, pickupRadius,
+                dropoffLatitude, dropoffLongitude, dropoffRadius)) {
+            throw new IllegalArgumentException("Route polyline does not run from the pickup to the dropoff");
+        }
+    }
+
     /**
      * Calculate distance between two points using Haversine formula
      * Returns distance in meters
@@ -6,6 +6,8 @@ import com.ridemate.ridemate_server.application.mapper.RouteBookingMapper;
 import com.ridemate.ridemate_server.application.service.driver.SupabaseRealtimeService;
 import com.ridemate.ridemate_server.application.service.notification.NotificationService;
 import com.ridemate.ridemate_server.application.service.route.RouteBookingService;
+import com.ridemate.ridemate_server.application.service.route.RouteCorridor;
+import com.ridemate.ridemate_server.application.service.route.RouteSeatInventoryService;
 import com.ridemate.ridemate_server.application.service.session.SessionService;
 import com.ridemate.ridemate_server.domain.entity.*;
 import com.ridemate.ridemate_server.domain.repository.*;
@@ -48,6 +50,9 @@ public class RouteBookingServiceImpl implements RouteBookingService {
     @Autowired
     private SessionService sessionService;
 
+    @Autowired
+    private RouteSeatInventoryService routeSeatInventoryService;
+
     @Autowired(required = false)
     private SupabaseRealtimeService supabaseRealtimeService;
 
@@ -73,10 +78,9 @@ public class RouteBookingServiceImpl implements RouteBookingService {
             throw new IllegalArgumentException("Cannot book for past dates");
         }
 
-        // Validate booking date is in route's specific dates
-        String dateStr = bookingDate.toString();
-        if (!route.isAvailableOnDate(dateStr)) {
-            throw new IllegalArgumentException("Route is not available on date: " + dateStr);
+        // Validate the route runs on the booking date
+        if (!route.isAvailableOnDate(bookingDate)) {
+            throw new IllegalArgumentException("Route is not available on date: " + bookingDate);
         }
 
         // Check if passenger already has a booking for this route on this date
@@ -86,27 +90,14 @@ public class RouteBookingServiceImpl implements RouteBookingService {
             throw new IllegalArgumentException("You already have a booking for this route on this date");
         }
 
-        // Validate available seats
-        if (route.getAvailableSeats() < request.getNumberOfSeats()) {
-            throw new IllegalArgumentException("Not enough available seats");
-        }
-
-        // Calculate distances from passenger's location to route's pickup/dropoff
-        Double pickupDistance = calculateDistance(
-                request.getPickupLatitude(), request.getPickupLongitude(),
-                route.getPickupLatitude(), route.getPickupLongitude()
-        );
-        Double dropoffDistance = calculateDistance(
-                request.getDropoffLatitude(), request.getDropoffLongitude(),
-                route.getDropoffLatitude(), route.getDropoffLongitude()
-        );
-
-        // Validate proximity
-        if (pickupDistance > route.getPickupRadius()) {
-            throw new IllegalArgumentException("Pickup location is too far from route's pickup point");
-        }
-        if (dropoffDistance > route.getDropoffRadius()) {
-            throw new IllegalArgumentException("Dropoff location is too far from route's dropoff point");
+        // Validate the passenger boards near the route and gets off near it further along
+        RouteCorridor.Fit fit = RouteCorridor.of(route).fit(
+                request.getPickupLatitude(), request.getPickupLongitude(), route.getPickupRadius(),
+                request.getDropoffLatitude(), request.getDropoffLongitude(), route.getDropoffRadius());
+        if (fit == null) {
+            throw new IllegalArgumentException(route.getPath() != null
+                    ? "Pickup and dropoff must be near the route, in its direction of travel"
+                    : "Pickup or dropoff location is too far from route's pickup/dropoff point");
         }
 
         // Calculate total price
@@ -125,8 +116,8 @@ public class RouteBookingServiceImpl implements RouteBookingService {
                 .bookingDate(bookingDate)
                 .numberOfSeats(request.getNumberOfSeats())
                 .totalPrice(totalPrice)
-                .pickupDistanceFromRoute(pickupDistance)
-                .dropoffDistanceFromRoute(dropoffDistance)
+                .pickupDistanceFromRoute(fit.pickupMeters())
+                .dropoffDistanceFromRoute(fit.dropoffMeters())
                 .status(RouteBooking.BookingStatus.PENDING)
                 .build();
 
@@ -145,6 +136,12 @@ public class RouteBookingServiceImpl implements RouteBookingService {
 
         log.info("Notification sent to driver {}", route.getDriver().getId());
 
+        // Hold the seats for this date until the booking is rejected or cancelled. Last, so the
+        // route/date row stays locked only until commit; if it is full the booking rolls back
+        if (!routeSeatInventoryService.reserve(booking)) {
+            throw new IllegalArgumentException("Not enough available seats");
+        }
+
         return routeBookingMapper.toResponse(booking);
     }
 
@@ -166,15 +163,9 @@ public class RouteBookingServiceImpl implements RouteBookingService {
             throw new IllegalArgumentException("Booking is not in pending status");
         }
 
-        // Accept booking
+        // Accept booking (its seats were reserved when it was created)
         booking.accept();
-
-        // Decrease available seats
         FixedRoute route = booking.getRoute();
-        for (int i = 0; i < booking.getNumberOfSeats(); i++) {
-            route.decreaseAvailableSeats();
-        }
-        fixedRouteRepository.save(route);
 
         booking = routeBookingRepository.save(booking);
         log.info("Booking {} accepted successfully", bookingId);
@@ -212,8 +203,9 @@ public class RouteBookingServiceImpl implements RouteBookingService {
             throw new IllegalArgumentException("Booking is not in pending status");
         }
 
-        // Reject booking
+        // Reject booking and give its seats back
         booking.reject();
+        routeSeatInventoryService.release(booking.getRoute().getId(), booking.getBookingDate(), booking.getNumberOfSeats());
         booking = routeBookingRepository.save(booking);
         log.info("Booking {} rejected successfully", bookingId);
 
@@ -249,17 +241,9 @@ public class RouteBookingServiceImpl implements RouteBookingService {
             throw new IllegalArgumentException("Cannot cancel booking in current status");
         }
 
-        // If booking was accepted, restore available seats
-        if (booking.getStatus() == RouteBooking.BookingStatus.ACCEPTED) {
-            FixedRoute route = booking.getRoute();
-            for (int i = 0; i < booking.getNumberOfSeats(); i++) {
-                route.increaseAvailableSeats();
-            }
-            fixedRouteRepository.save(route);
-        }
-
-        // Cancel booking
+        // Cancel booking and give its seats back (held since it was created)
         booking.cancel();
+        routeSeatInventoryService.release(booking.getRoute().getId(), booking.getBookingDate(), booking.getNumberOfSeats());
         booking = routeBookingRepository.save(booking);
         log.info("Booking {} cancelled successfully", bookingId);
 
@@ -525,25 +509,6 @@ public class RouteBookingServiceImpl implements RouteBookingService {
         return routeBookingMapper.toResponse(booking);
     }
 
-    /**
-     * Calculate distance between two points using Haversine formula
-     * Returns distance in meters
-     */
-    private Double calculateDistance(Double lat1, Double lon1, Double lat2, Double lon2) {
-        final int EARTH_RADIUS = 6371000; // meters
-
-        double dLat = Math.toRadians(lat2 - lat1);
-        double dLon = Math.toRadians(lon2 - lon1);
-
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) *
-                        Math.sin(dLon / 2) * Math.sin(dLon / 2);
-
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-
-        return EARTH_RADIUS * c;
-    }
-
     /**
      * Convert DayOfWeek to day code
      */
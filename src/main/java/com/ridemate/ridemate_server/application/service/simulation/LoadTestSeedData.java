@@ -0,0 +1,116 @@
+package com.ridemate.ridemate_server.application.service.simulation;
+
+import com.ridemate.ridemate_server.domain.entity.User;
+import com.ridemate.ridemate_server.domain.entity.Vehicle;
+import com.ridemate.ridemate_server.domain.repository.UserRepository;
+import com.ridemate.ridemate_server.domain.repository.VehicleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Accounts for the fleet simulator (src/simulator/java)
+ * This will run only in the loadtest profile, against a local database
+ * To use: run the server once with --spring.profiles.active=loadtest
+ *
+ * Drivers get phone numbers 0990000001.., an APPROVED motorbike each; passengers 0980000001..
+ * All share SIMULATOR_PASSWORD. Accounts that already exist are left as they are.
+ */
+@Slf4j
+@Configuration
+@Profile("loadtest")
+@RequiredArgsConstructor
+public class LoadTestSeedData {
+
+    public static final String SIMULATOR_PASSWORD = "Sim@123456";
+
+    private static final int SAVE_BATCH_SIZE = 500;
+
+    private final UserRepository userRepository;
+    private final VehicleRepository vehicleRepository;
+    private final PasswordEncoder passwordEncoder;
+
+    @Value("${loadtest.seed.drivers:2000}")
+    private int drivers;
+
+    @Value("${loadtest.seed.passengers:5000}")
+    private int passengers;
+
+    public static String driverPhone(int index) {
+        return String.format("0990%06d", index + 1);
+    }
+
+    public static String passengerPhone(int index) {
+        return String.format("0980%06d", index + 1);
+    }
+
+    @Bean
+    CommandLineRunner initLoadTestAccounts() {
+        return args -> {
+            // BCrypt is slow on purpose: hash once, every simulated account uses the same password
+            String passwordHash = passwordEncoder.encode(SIMULATOR_PASSWORD);
+            int createdDrivers = seed(drivers, User.UserType.DRIVER, passwordHash);
+            int createdPassengers = seed(passengers, User.UserType.PASSENGER, passwordHash);
+            log.info("Load test accounts ready: {} drivers ({} new), {} passengers ({} new)",
+                    drivers, createdDrivers, passengers, createdPassengers);
+        };
+    }
+
+    private int seed(int total, User.UserType userType, String passwordHash) {
+        boolean driver = userType == User.UserType.DRIVER;
+        int created = 0;
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            String phone = driver ? driverPhone(i) : passengerPhone(i);
+            if (userRepository.existsByPhoneNumber(phone)) {
+                continue;
+            }
+            users.add(User.builder()
+                    .fullName((driver ? "Sim Driver " : "Sim Passenger ") + (i + 1))
+                    .phoneNumber(phone)
+                    .passwordHash(passwordHash)
+                    .userType(userType)
+                    .authProvider(User.AuthProvider.LOCAL)
+                    .driverApprovalStatus(driver ? User.DriverApprovalStatus.APPROVED : User.DriverApprovalStatus.NONE)
+                    .build());
+            if (users.size() == SAVE_BATCH_SIZE) {
+                created += save(users, driver);
+                users.clear();
+            }
+        }
+        if (!users.isEmpty()) {
+            created += save(users, driver);
+        }
+        return created;
+    }
+
+    private int save(List<User> users, boolean withVehicles) {
+        List<User> saved = userRepository.saveAll(users);
+        if (withVehicles) {
+            List<Vehicle> vehicles = new ArrayList<>(saved.size());
+            for (User user : saved) {
+                vehicles.add(Vehicle.builder()
+                        .driver(user)
+                        .licensePlate("SIM-" + user.getPhoneNumber().substring(4))
+                        .make("Honda")
+                        .model("Wave")
+                        .color("Black")
+                        .capacity(2)
+                        .vehicleType(Vehicle.VehicleType.MOTORBIKE)
+                        .registrationDocumentUrl("https://example.com/simulator/registration.pdf")
+                        .status(Vehicle.VehicleStatus.APPROVED)
+                        .build());
+            }
+            vehicleRepository.saveAll(vehicles);
+        }
+        return saved.size();
+    }
+}
@@ -0,0 +1,334 @@
+package com.ridemate.ridemate_server.application.service.trajectory;
+
+import com.ridemate.ridemate_server.domain.entity.Match;
+import com.ridemate.ridemate_server.domain.repository.MatchRepository;
+import com.ridemate.ridemate_server.infrastructure.codec.LocationBatchCodec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the driver's path during a match (ACCEPTED until COMPLETED / CANCELLED)
+ *
+ * Location ingest only appends the fix to the trip's in-memory buffer (primitive arrays, a map
+ * lookup and a short lock). Every flush interval a background thread seals each buffer into one
+ * LocationBatchCodec chunk and inserts all chunks in a JDBC batch. Fixes closer together than
+ * min-interval-ms are dropped, which together with the chunk size keeps a trip well under 1 KB
+ * per minute; a crash loses at most one flush interval of path.
+ */
+@Component
+@Slf4j
+public class TripTrajectoryRecorder {
+
+    // The sequence is taken from the table, not from this node: after a restart every instance
+    // resumes the same active trips, so per-node counters would hand out the same numbers
+    private static final String INSERT_SQL = "INSERT INTO trip_trajectory_chunks " +
+            "(match_id, driver_id, sequence, started_at, ended_at, point_count, data, created_at, updated_at) " +
+            "SELECT ?, ?, COALESCE(MAX(sequence) + 1, 0), ?, ?, ?, ?, ?, ? " +
+            "FROM trip_trajectory_chunks WHERE match_id = ?";
+
+    private static final List<Match.MatchStatus> ACTIVE_STATUSES = List.of(
+            Match.MatchStatus.ACCEPTED, Match.MatchStatus.DRIVER_ARRIVED, Match.MatchStatus.IN_PROGRESS);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MatchRepository matchRepository;
+
+    @Value("${trajectory.flush-interval-seconds:30}")
+    private long flushIntervalSeconds;
+
+    @Value("${trajectory.min-interval-ms:1000}")
+    private long minIntervalMs;
+
+    @Value("${trajectory.max-unwritten-chunks:10000}")
+    private int maxUnwrittenChunks;
+
+    private static final class Trip {
+        final long matchId;
+        final long driverId;
+        final LocationBatchCodec.Fixes buffer = new LocationBatchCodec.Fixes();
+        long lastTimeMillis = Long.MIN_VALUE;
+
+        Trip(long matchId, long driverId) {
+            this.matchId = matchId;
+            this.driverId = driverId;
+        }
+    }
+
+    private record Chunk(long matchId, long driverId, long startedAtMillis, long endedAtMillis,
+                         int pointCount, byte[] data) {
+    }
+
+    private final Map<Long, Trip> tripsByDriver = new ConcurrentHashMap<>();
+    private final Map<Long, Trip> tripsByMatch = new ConcurrentHashMap<>();
+    // Trips that ended but still have buffered fixes
+    private final Queue<Trip> finishedTrips = new ConcurrentLinkedQueue<>();
+    // Chunks whose insert failed, retried on the next flush (flush thread only)
+    private final List<Chunk> unwritten = new ArrayList<>();
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trajectory-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(flushIntervalSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    /**
+     * Resume recording the trips that were active when the application stopped
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeActiveTrips() {
+        try {
+            for (Object[] row : matchRepository.findMatchAndDriverIdsByStatusIn(ACTIVE_STATUSES)) {
+                register(new Trip(((Number) row[0]).longValue(), ((Number) row[1]).longValue()));
+            }
+            log.info("Trajectory recorder resumed {} active trips", tripsByMatch.size());
+        } catch (Exception e) {
+            log.error("Failed to resume trip trajectories: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Start recording the driver's path for this match once the current transaction commits
+     */
+    public void startTrip(Long matchId, Long driverId) {
+        afterCommit(() -> register(new Trip(matchId, driverId)));
+    }
+
+    /**
+     * Stop recording; the rest of the path is written right away so the trip can be replayed in full
+     */
+    public void finishTrip(Long matchId) {
+        afterCommit(() -> {
+            Trip trip = tripsByMatch.remove(matchId);
+            if (trip != null) {
+                tripsByDriver.remove(trip.driverId, trip);
+                finishedTrips.add(trip);
+                if (!flusher.isShutdown()) {
+                    flusher.execute(this::flushQuietly);
+                }
+            }
+        });
+    }
+
+    /**
+     * Append a fix if the driver is on a trip; cheap enough for the location ingest path
+     */
+    public void record(Long driverId, double latitude, double longitude, long timeMillis) {
+        Trip trip = tripsByDriver.get(driverId);
+        if (trip == null) {
+            return;
+        }
+        synchronized (trip) {
+            append(trip, latitude, longitude, timeMillis);
+        }
+    }
+
+    /**
+     * Append every fix of an uploaded batch (device clock clamped to ours)
+     */
+    public void recordAll(Long driverId, LocationBatchCodec.Fixes fixes) {
+        Trip trip = tripsByDriver.get(driverId);
+        if (trip == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (trip) {
+            for (int i = 0; i < fixes.count(); i++) {
+                append(trip, fixes.latitude(i), fixes.longitude(i), Math.min(fixes.timeMillis(i), now));
+            }
+        }
+    }
+
+    /**
+     * Copy the fixes of a trip that are not written yet (live replay)
+     */
+    void copyBuffered(Long matchId, LocationBatchCodec.Fixes into) {
+        Trip trip = tripsByMatch.get(matchId);
+        if (trip == null) {
+            return;
+        }
+        synchronized (trip) {
+            for (int i = 0; i < trip.buffer.count(); i++) {
+                into.add(trip.buffer.latitude(i), trip.buffer.longitude(i), trip.buffer.timeMillis(i));
+            }
+        }
+    }
+
+    private void append(Trip trip, double latitude, double longitude, long timeMillis) {
+        // Also drops fixes older than the last one (late batches overlapping live pings)
+        if (trip.lastTimeMillis != Long.MIN_VALUE && timeMillis < trip.lastTimeMillis + minIntervalMs) {
+            return;
+        }
+        trip.buffer.add(latitude, longitude, timeMillis);
+        trip.lastTimeMillis = timeMillis;
+    }
+
+    private void register(Trip trip) {
+        Trip previous = tripsByDriver.put(trip.driverId, trip);
+        if (previous != null && previous.matchId != trip.matchId) {
+            // The driver was still on an older trip that never got finished
+            tripsByMatch.remove(previous.matchId, previous);
+            finishedTrips.add(previous);
+        }
+        tripsByMatch.put(trip.matchId, trip);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error("Trajectory flush failed: {}", e.getMessage(), e);
+        }
+    }
+
+    synchronized void flush() {
+        List<Chunk> chunks = new ArrayList<>(unwritten);
+        unwritten.clear();
+        for (Trip trip : tripsByMatch.values()) {
+            seal(trip, chunks);
+        }
+        Trip finished;
+        while ((finished = finishedTrips.poll()) != null) {
+            seal(finished, chunks);
+        }
+        if (chunks.isEmpty()) {
+            return;
+        }
+
+        try {
+            insert(chunks);
+            log.debug("Wrote {} trajectory chunks", chunks.size());
+        } catch (DataIntegrityViolationException e) {
+            // One bad row fails the whole batch; write them one by one so only that row is lost
+            List<Chunk> failed = new ArrayList<>();
+            for (Chunk chunk : chunks) {
+                try {
+                    insert(List.of(chunk));
+                } catch (DuplicateKeyException collided) {
+                    // Another instance wrote a chunk of the same match at the same moment; retry with the next sequence
+                    failed.add(chunk);
+                } catch (DataIntegrityViolationException rejected) {
+                    log.error("Dropping trajectory chunk of match {} starting at {}: {}",
+                            chunk.matchId(), toTimestamp(chunk.startedAtMillis()), rejected.getMessage());
+                } catch (Exception retry) {
+                    failed.add(chunk);
+                }
+            }
+            keepUnwritten(failed, e);
+        } catch (Exception e) {
+            keepUnwritten(chunks, e);
+        }
+    }
+
+    /**
+     * Retry on the next flush, bounded (newest kept) so a long database outage cannot exhaust the heap
+     */
+    private void keepUnwritten(List<Chunk> chunks, Exception cause) {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        int keep = Math.min(chunks.size(), maxUnwrittenChunks);
+        unwritten.addAll(chunks.subList(chunks.size() - keep, chunks.size()));
+        log.error("Failed to write {} trajectory chunks ({} dropped): {}",
+                chunks.size(), chunks.size() - keep, cause.getMessage());
+    }
+
+    private static void seal(Trip trip, List<Chunk> chunks) {
+        synchronized (trip) {
+            LocationBatchCodec.Fixes buffer = trip.buffer;
+            if (buffer.count() == 0) {
+                return;
+            }
+            chunks.add(new Chunk(trip.matchId, trip.driverId,
+                    buffer.timeMillis(0), buffer.timeMillis(buffer.count() - 1), buffer.count(),
+                    LocationBatchCodec.encode(buffer)));
+            buffer.clear();
+        }
+    }
+
+    private void insert(List<Chunk> chunks) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                Chunk chunk = chunks.get(i);
+                statement.setLong(1, chunk.matchId());
+                statement.setLong(2, chunk.driverId());
+                statement.setTimestamp(3, toTimestamp(chunk.startedAtMillis()));
+                statement.setTimestamp(4, toTimestamp(chunk.endedAtMillis()));
+                statement.setInt(5, chunk.pointCount());
+                statement.setBytes(6, chunk.data());
+                statement.setTimestamp(7, now);
+                statement.setTimestamp(8, now);
+                statement.setLong(9, chunk.matchId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return chunks.size();
+            }
+        });
+    }
+
+    private static Timestamp toTimestamp(long epochMillis) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()));
+    }
+}
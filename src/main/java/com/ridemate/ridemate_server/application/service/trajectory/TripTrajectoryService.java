@@ -0,0 +1,198 @@
+package com.ridemate.ridemate_server.application.service.trajectory;
+
+import com.ridemate.ridemate_server.application.dto.match.TripTrajectoryResponse;
+import com.ridemate.ridemate_server.domain.entity.Match;
+import com.ridemate.ridemate_server.domain.entity.TripTrajectoryChunk;
+import com.ridemate.ridemate_server.domain.entity.User;
+import com.ridemate.ridemate_server.domain.repository.MatchRepository;
+import com.ridemate.ridemate_server.domain.repository.TripTrajectoryChunkRepository;
+import com.ridemate.ridemate_server.domain.repository.UserRepository;
+import com.ridemate.ridemate_server.infrastructure.codec.LocationBatchCodec;
+import com.ridemate.ridemate_server.infrastructure.routing.RoadGraph;
+import com.ridemate.ridemate_server.presentation.exception.ResourceNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Replay of recorded trip paths (disputes, fare audits, ETA tuning)
+ * The path is returned downsampled: Douglas-Peucker with the given tolerance first, then an even
+ * stride if it still has more than maxPoints points. First and last fixes are always kept.
+ */
+@Service
+@Slf4j
+public class TripTrajectoryService {
+
+    private static final int MAX_POINTS_LIMIT = 5000;
+    private static final double METERS_PER_DEGREE_LAT = 111_320.0;
+
+    @Autowired
+    private TripTrajectoryChunkRepository chunkRepository;
+
+    @Autowired
+    private TripTrajectoryRecorder recorder;
+
+    @Autowired
+    private MatchRepository matchRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * Path of a match as seen by its passenger, its driver or an admin
+     * @param toleranceMeters points closer than this to the simplified path are dropped (0 = keep all)
+     */
+    @Transactional(readOnly = true)
+    public TripTrajectoryResponse getTrajectory(Long matchId, Long userId, double toleranceMeters, int maxPoints) {
+        Match match = matchRepository.findById(matchId)
+                .orElseThrow(() -> new ResourceNotFoundException("Match not found with id: " + matchId));
+        checkAccess(match, userId);
+
+        LocationBatchCodec.Fixes path = load(matchId);
+        int count = path.count();
+        boolean[] keep = new boolean[count];
+        if (count > 0) {
+            simplify(path, Math.max(toleranceMeters, 0), keep);
+            strideDown(keep, Math.max(2, Math.min(maxPoints, MAX_POINTS_LIMIT)));
+        }
+
+        List<TripTrajectoryResponse.Point> points = new ArrayList<>();
+        double distanceMeters = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                distanceMeters += RoadGraph.distanceMeters(path.latitude(i - 1), path.longitude(i - 1),
+                        path.latitude(i), path.longitude(i));
+            }
+            if (keep[i]) {
+                points.add(new TripTrajectoryResponse.Point(path.latitude(i), path.longitude(i), path.timeMillis(i)));
+            }
+        }
+
+        return TripTrajectoryResponse.builder()
+                .matchId(matchId)
+                .recordedPoints(count)
+                .returnedPoints(points.size())
+                .distanceMeters(distanceMeters)
+                .durationSeconds(count > 1 ? (path.timeMillis(count - 1) - path.timeMillis(0)) / 1000 : 0L)
+                .points(points)
+                .build();
+    }
+
+    /**
+     * Every recorded fix of a match in time order: stored chunks, then what is still buffered
+     */
+    public LocationBatchCodec.Fixes load(Long matchId) {
+        LocationBatchCodec.Fixes path = new LocationBatchCodec.Fixes();
+        LocationBatchCodec.Fixes chunkFixes = new LocationBatchCodec.Fixes();
+        for (TripTrajectoryChunk chunk : chunkRepository.findByMatchIdOrderBySequenceAsc(matchId)) {
+            LocationBatchCodec.decode(chunk.getData(), chunk.getPointCount(), chunkFixes);
+            for (int i = 0; i < chunkFixes.count(); i++) {
+                path.add(chunkFixes.latitude(i), chunkFixes.longitude(i), chunkFixes.timeMillis(i));
+            }
+        }
+        recorder.copyBuffered(matchId, path);
+        return path;
+    }
+
+    private void checkAccess(Match match, Long userId) {
+        boolean isPassenger = match.getPassenger() != null && match.getPassenger().getId().equals(userId);
+        boolean isDriver = match.getDriver() != null && match.getDriver().getId().equals(userId);
+        if (isPassenger || isDriver) {
+            return;
+        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        if (user.getUserType() != User.UserType.ADMIN) {
+            throw new AccessDeniedException("You are not authorized to view this trip");
+        }
+    }
+
+    /**
+     * Iterative Douglas-Peucker on a local equirectangular projection (metres)
+     */
+    private static void simplify(LocationBatchCodec.Fixes path, double toleranceMeters, boolean[] keep) {
+        int count = path.count();
+        if (toleranceMeters <= 0) {
+            Arrays.fill(keep, true);
+            return;
+        }
+        keep[0] = true;
+        keep[count - 1] = true;
+        if (count < 3) {
+            return;
+        }
+
+        double metersPerDegreeLon = METERS_PER_DEGREE_LAT * Math.cos(Math.toRadians(path.latitude(0)));
+        double[] x = new double[count];
+        double[] y = new double[count];
+        for (int i = 0; i < count; i++) {
+            x[i] = path.longitude(i) * metersPerDegreeLon;
+            y[i] = path.latitude(i) * METERS_PER_DEGREE_LAT;
+        }
+
+        Deque<int[]> ranges = new ArrayDeque<>();
+        ranges.push(new int[]{0, count - 1});
+        while (!ranges.isEmpty()) {
+            int[] range = ranges.pop();
+            int first = range[0];
+            int last = range[1];
+            double maxDistance = -1;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                double distance = segmentDistance(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0 && maxDistance > toleranceMeters) {
+                keep[farthest] = true;
+                ranges.push(new int[]{first, farthest});
+                ranges.push(new int[]{farthest, last});
+            }
+        }
+    }
+
+    private static double segmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        double cx = ax + t * dx - px;
+        double cy = ay + t * dy - py;
+        return Math.sqrt(cx * cx + cy * cy);
+    }
+
+    /**
+     * Keep every n-th kept point (plus the last) until at most maxPoints remain
+     */
+    private static void strideDown(boolean[] keep, int maxPoints) {
+        int kept = 0;
+        for (boolean k : keep) {
+            if (k) {
+                kept++;
+            }
+        }
+        if (kept <= maxPoints) {
+            return;
+        }
+
+        int stride = (kept - 1 + maxPoints - 2) / (maxPoints - 1);
+        int seen = 0;
+        int last = keep.length - 1;
+        for (int i = 0; i < last; i++) {
+            if (keep[i]) {
+                keep[i] = seen % stride == 0;
+                seen++;
+            }
+        }
+    }
+}
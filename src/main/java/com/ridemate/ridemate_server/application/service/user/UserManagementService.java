@@ -1,6 +1,7 @@
 package com.ridemate.ridemate_server.application.service.user;
 
 import com.ridemate.ridemate_server.application.dto.user.*;
+import com.ridemate.ridemate_server.application.service.vehicle.ApprovedVehicleCache;
 import com.ridemate.ridemate_server.domain.entity.User;
 import com.ridemate.ridemate_server.domain.entity.Vehicle;
 import com.ridemate.ridemate_server.domain.repository.UserRepository;
@@ -24,6 +25,7 @@ public class UserManagementService {
 
     private final UserRepository userRepository;
     private final VehicleRepository vehicleRepository;
+    private final ApprovedVehicleCache approvedVehicleCache;
 
     /**
      * Get all users with pagination and filters
@@ -101,6 +103,7 @@ public class UserManagementService {
             vehicle.setStatus(Vehicle.VehicleStatus.APPROVED);
             vehicleRepository.save(vehicle);
         }
+        approvedVehicleCache.evict(userId);
         
         return mapToUserManagementDto(updatedUser);
     }
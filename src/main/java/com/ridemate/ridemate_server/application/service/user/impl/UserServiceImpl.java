@@ -4,6 +4,7 @@ import com.ridemate.ridemate_server.application.dto.user.UpdateDriverStatusReque
 import com.ridemate.ridemate_server.application.dto.user.UpdateProfileRequest;
 import com.ridemate.ridemate_server.application.dto.user.UserDto;
 import com.ridemate.ridemate_server.application.mapper.UserMapper;
+import com.ridemate.ridemate_server.application.service.match.DriverSpatialIndex;
 import com.ridemate.ridemate_server.application.service.user.UserService;
 import com.ridemate.ridemate_server.domain.entity.User;
 import com.ridemate.ridemate_server.domain.repository.UserRepository;
@@ -23,6 +24,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private DriverSpatialIndex driverSpatialIndex;
+
     @Override
     @Transactional(readOnly = true)
     public UserDto getUserProfile(Long userId) {
@@ -68,6 +72,7 @@ public class UserServiceImpl implements UserService {
         }
 
         user = userRepository.save(user);
+        driverSpatialIndex.onStatusChanged(user.getId(), newStatus, user.getCurrentLatitude(), user.getCurrentLongitude());
         
         return userMapper.toUserDto(user);
     }
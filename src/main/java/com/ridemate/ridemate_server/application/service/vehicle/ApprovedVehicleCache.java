@@ -0,0 +1,154 @@
+package com.ridemate.ridemate_server.application.service.vehicle;
+
+import com.ridemate.ridemate_server.domain.entity.Vehicle;
+import com.ridemate.ridemate_server.domain.repository.VehicleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of driver -> primary APPROVED vehicle
+ * Matching, accept and admin views all need the same lookup; without the cache every candidate
+ * driver costs one findByDriverIdAndStatus round-trip.
+ *
+ * Drivers without an approved vehicle are cached too (negative entries), so a dense area full of
+ * unapproved drivers does not keep hitting the database.
+ * Entries are evicted by VehicleServiceImpl / UserManagementService when a vehicle status changes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ApprovedVehicleCache {
+
+    private final VehicleRepository vehicleRepository;
+
+    // Upper bound on staleness for changes that bypass the services (manual SQL, other nodes)
+    @Value("${matching.vehicle-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Immutable view of the vehicle fields the matching/accept flows need
+     */
+    public record ApprovedVehicle(Long vehicleId, String make, String model, String licensePlate,
+                                  String color, Integer capacity, Vehicle.VehicleType vehicleType,
+                                  String displayName) {
+
+        static ApprovedVehicle of(Vehicle vehicle) {
+            return new ApprovedVehicle(
+                    vehicle.getId(),
+                    vehicle.getMake(),
+                    vehicle.getModel(),
+                    vehicle.getLicensePlate(),
+                    vehicle.getColor(),
+                    vehicle.getCapacity(),
+                    vehicle.getVehicleType(),
+                    vehicle.getMake() + " " + vehicle.getModel() + " - " + vehicle.getLicensePlate()
+            );
+        }
+    }
+
+    private record Entry(ApprovedVehicle vehicle, long loadedAtMillis) {
+    }
+
+    /**
+     * Get the primary approved vehicle of a driver, loading it on a miss
+     */
+    public Optional<ApprovedVehicle> get(Long driverId) {
+        if (driverId == null) {
+            return Optional.empty();
+        }
+
+        Entry entry = entries.get(driverId);
+        if (entry == null || isExpired(entry)) {
+            List<Vehicle> vehicles = vehicleRepository.findByDriverIdAndStatus(driverId, Vehicle.VehicleStatus.APPROVED);
+            entry = new Entry(primary(vehicles), System.currentTimeMillis());
+            entries.put(driverId, entry);
+        }
+        return Optional.ofNullable(entry.vehicle());
+    }
+
+    /**
+     * Bulk variant for matching: all misses are loaded with one IN query
+     * @return approved vehicle per driver; drivers without one are absent from the map
+     */
+    public Map<Long, ApprovedVehicle> getAll(Collection<Long> driverIds) {
+        Map<Long, ApprovedVehicle> result = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+
+        for (Long driverId : driverIds) {
+            Entry entry = entries.get(driverId);
+            if (entry == null || isExpired(entry)) {
+                misses.add(driverId);
+            } else if (entry.vehicle() != null) {
+                result.put(driverId, entry.vehicle());
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            Map<Long, List<Vehicle>> byDriver = new HashMap<>();
+            for (Vehicle vehicle : vehicleRepository.findByDriverIdInAndStatus(misses, Vehicle.VehicleStatus.APPROVED)) {
+                byDriver.computeIfAbsent(vehicle.getDriver().getId(), id -> new ArrayList<>()).add(vehicle);
+            }
+
+            long now = System.currentTimeMillis();
+            for (Long driverId : misses) {
+                ApprovedVehicle vehicle = primary(byDriver.getOrDefault(driverId, List.of()));
+                entries.put(driverId, new Entry(vehicle, now));
+                if (vehicle != null) {
+                    result.put(driverId, vehicle);
+                }
+            }
+            log.debug("Approved vehicle cache loaded {} drivers in one query", misses.size());
+        }
+
+        return result;
+    }
+
+    /**
+     * Drop a driver's entry. When called inside a transaction the entry is dropped again after commit,
+     * so a concurrent reader cannot re-cache the pre-commit state.
+     */
+    public void evict(Long driverId) {
+        if (driverId == null) {
+            return;
+        }
+
+        entries.remove(driverId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    entries.remove(driverId);
+                }
+            });
+        }
+    }
+
+    private boolean isExpired(Entry entry) {
+        return System.currentTimeMillis() - entry.loadedAtMillis() > ttlSeconds * 1000;
+    }
+
+    // Lowest id wins so the single and bulk paths agree on the primary vehicle
+    private static ApprovedVehicle primary(List<Vehicle> vehicles) {
+        Vehicle primary = null;
+        for (Vehicle vehicle : vehicles) {
+            if (primary == null || vehicle.getId() < primary.getId()) {
+                primary = vehicle;
+            }
+        }
+        return primary != null ? ApprovedVehicle.of(primary) : null;
+    }
+}
@@ -3,6 +3,7 @@ package com.ridemate.ridemate_server.application.service.vehicle.impl;
 import com.ridemate.ridemate_server.application.dto.vehicle.RegisterVehicleRequest;
 import com.ridemate.ridemate_server.application.dto.vehicle.UpdateVehicleStatusRequest;
 import com.ridemate.ridemate_server.application.dto.vehicle.VehicleResponse;
+import com.ridemate.ridemate_server.application.service.vehicle.ApprovedVehicleCache;
 import com.ridemate.ridemate_server.application.service.vehicle.VehicleService;
 import com.ridemate.ridemate_server.domain.entity.User;
 import com.ridemate.ridemate_server.domain.entity.Vehicle;
@@ -27,6 +28,9 @@ public class VehicleServiceImpl implements VehicleService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ApprovedVehicleCache approvedVehicleCache;
+
     @Override
     @Transactional
     public VehicleResponse registerVehicle(Long driverId, RegisterVehicleRequest request) {
@@ -125,6 +129,7 @@ public class VehicleServiceImpl implements VehicleService {
 
         vehicle.setStatus(newStatus);
         vehicle = vehicleRepository.save(vehicle);
+        approvedVehicleCache.evict(vehicle.getDriver().getId());
         
         // ===== AUTO APPROVE DRIVER WHEN VEHICLE IS APPROVED =====
         if (newStatus == Vehicle.VehicleStatus.APPROVED) {
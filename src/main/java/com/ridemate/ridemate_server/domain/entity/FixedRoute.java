@@ -2,6 +2,7 @@ package com.ridemate.ridemate_server.domain.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import java.time.LocalDate;
 import java.time.LocalTime;
 
 /**
@@ -55,9 +56,9 @@ public class FixedRoute extends BaseEntity {
     @Column(nullable = false)
     private LocalTime departureTime; // Scheduled departure time
 
-    // Specific dates (comma-separated: "2025-12-22,2025-12-23,2025-12-24")
-    @Column(nullable = false, columnDefinition = "TEXT")
-    private String specificDates; // Specific dates for this route
+    // Days the route runs (specific dates bitmap + weekly rule)
+    @Embedded
+    private RouteSchedule schedule;
 
     // Pricing
     @Column(nullable = false)
@@ -67,13 +68,18 @@ public class FixedRoute extends BaseEntity {
     @Column(nullable = false)
     private Integer totalSeats; // Total seats available
 
+    // Seats offered on each date; what is left on a given date is in RouteSeatInventory
     @Column(nullable = false)
     @Builder.Default
-    private Integer availableSeats = 0; // Current available seats
+    private Integer availableSeats = 0;
 
-    // Distance in meters
+    // Distance in meters (along the path when there is one)
     private Double distance;
 
+    // Driving path in PolylineCodec binary form, null for routes created without one
+    @Column(columnDefinition = "BYTEA")
+    private byte[] path;
+
     // Status
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
@@ -99,8 +105,8 @@ public class FixedRoute extends BaseEntity {
     /**
      * Check if route is available on a specific date
      */
-    public boolean isAvailableOnDate(String date) {
-        return specificDates != null && specificDates.contains(date);
+    public boolean isAvailableOnDate(LocalDate date) {
+        return schedule != null && schedule.includes(date);
     }
 
     /**
@@ -109,23 +115,5 @@ public class FixedRoute extends BaseEntity {
     public boolean hasAvailableSeats() {
         return availableSeats > 0;
     }
-
-    /**
-     * Decrease available seats when a booking is made
-     */
-    public void decreaseAvailableSeats() {
-        if (availableSeats > 0) {
-            availableSeats--;
-        }
-    }
-
-    /**
-     * Increase available seats when a booking is cancelled
-     */
-    public void increaseAvailableSeats() {
-        if (availableSeats < totalSeats) {
-            availableSeats++;
-        }
-    }
 }
 
@@ -67,10 +67,7 @@ public class Match extends BaseEntity {
     @Column(columnDefinition = "JSONB")
     private String matchedDriverCandidates;
 
-    // Store route polyline (encoded polyline string from OSRM/Google Directions API)
-    // This ensures both driver and passenger use the exact same route path
-    @Column(columnDefinition = "TEXT")
-    private String routePolyline;
+    // The route polyline lives in MatchRoute, loaded only where the route is drawn
 
     private LocalDateTime matchedAt;
 
@@ -0,0 +1,34 @@
+package com.ridemate.ridemate_server.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Route polyline of a match, in the binary form of PolylineCodec (about 30% smaller than the
+ * encoded string). Kept out of the matches table so loading a match for a status update does not
+ * pull the route along; only the views that draw the route read it.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "match_routes", indexes = {
+        @Index(name = "idx_match_routes_match_id", columnList = "match_id", unique = true)
+})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatchRoute extends BaseEntity {
+
+    @Column(name = "match_id", nullable = false)
+    private Long matchId;
+
+    @Column(name = "point_count", nullable = false)
+    private Integer pointCount;
+
+    // Length along the route in meters
+    @Column(name = "length_meters", nullable = false)
+    private Double lengthMeters;
+
+    @Column(nullable = false, columnDefinition = "BYTEA")
+    private byte[] polyline;
+}
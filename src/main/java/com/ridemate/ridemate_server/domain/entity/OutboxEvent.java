@@ -0,0 +1,61 @@
+package com.ridemate.ridemate_server.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Side effect (realtime publish, notification rows) recorded in the same transaction as the
+ * change that caused it, and delivered afterwards by OutboxRelay.
+ * Events of one aggregate (match) are delivered one at a time in id order.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_status_next_attempt", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_outbox_events_aggregate", columnList = "aggregate_id, id")
+})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent extends BaseEntity {
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 40)
+    private EventType type;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    // PENDING: earliest next delivery; PROCESSING: lease expiry, after which another worker may retry
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    public enum EventType {
+        MATCH_REALTIME,
+        USER_NOTIFICATIONS
+    }
+
+    public enum Status {
+        PENDING,
+        PROCESSING,
+        FAILED
+    }
+}
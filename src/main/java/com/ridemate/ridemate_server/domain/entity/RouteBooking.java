@@ -55,7 +55,7 @@ public class RouteBooking extends BaseEntity {
     @Column(nullable = false)
     private Integer totalPrice; // Price for this booking
 
-    // Distance from passenger's location to route's pickup/dropoff points
+    // Distance from passenger's pickup/dropoff to the route (its path, or its end points without one)
     private Double pickupDistanceFromRoute; // in meters
     private Double dropoffDistanceFromRoute; // in meters
 
@@ -0,0 +1,188 @@
+package com.ridemate.ridemate_server.domain.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Days a fixed route runs: a bitmap of specific dates plus an optional weekly rule
+ *
+ * Bit i of days is startDate + i days, so checking a date is one bit test. The weekly rule runs
+ * the route on the weekdays of recurringWeekdays (bit 0 = Monday) from recurringFrom until
+ * recurringUntil (no end if null). Immutable once built; a schedule change replaces it.
+ */
+@Getter
+@Embeddable
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class RouteSchedule {
+
+    // Specific dates may span about two years, so the bitmap stays under 100 bytes
+    public static final int MAX_SPAN_DAYS = 731;
+
+    @Column(name = "schedule_start_date")
+    private LocalDate startDate;
+
+    @Column(name = "schedule_days", columnDefinition = "BYTEA")
+    private byte[] days;
+
+    @Column(name = "recurring_weekdays")
+    private Integer recurringWeekdays;
+
+    @Column(name = "recurring_from")
+    private LocalDate recurringFrom;
+
+    @Column(name = "recurring_until")
+    private LocalDate recurringUntil;
+
+    /**
+     * Build a schedule from request values
+     * @param specificDates comma-separated yyyy-MM-dd dates, may be blank
+     * @param recurringDays day codes (MON..SUN) of the weekly rule, may be empty
+     * @throws IllegalArgumentException on a malformed date or day code, or if the route would never run
+     */
+    public static RouteSchedule of(String specificDates, Collection<String> recurringDays,
+                                   LocalDate recurringFrom, LocalDate recurringUntil) {
+        TreeSet<LocalDate> dates = new TreeSet<>();
+        if (specificDates != null) {
+            for (String value : specificDates.split(",")) {
+                if (!value.isBlank()) {
+                    try {
+                        dates.add(LocalDate.parse(value.trim()));
+                    } catch (DateTimeParseException e) {
+                        throw new IllegalArgumentException("Invalid date in specific dates: " + value.trim());
+                    }
+                }
+            }
+        }
+
+        int weekdays = 0;
+        if (recurringDays != null) {
+            for (String code : recurringDays) {
+                weekdays |= 1 << (parseDayCode(code).getValue() - 1);
+            }
+        }
+
+        if (dates.isEmpty() && weekdays == 0) {
+            throw new IllegalArgumentException("Route must have specific dates or recurring days");
+        }
+        if (weekdays != 0 && recurringFrom != null && recurringUntil != null && recurringUntil.isBefore(recurringFrom)) {
+            throw new IllegalArgumentException("Recurring end date is before its start");
+        }
+
+        RouteSchedule schedule = new RouteSchedule();
+        if (!dates.isEmpty()) {
+            LocalDate first = dates.first();
+            long span = ChronoUnit.DAYS.between(first, dates.last());
+            if (span >= MAX_SPAN_DAYS) {
+                throw new IllegalArgumentException("Specific dates must fall within " + MAX_SPAN_DAYS + " days");
+            }
+            byte[] bits = new byte[(int) (span / 8) + 1];
+            for (LocalDate date : dates) {
+                int offset = (int) ChronoUnit.DAYS.between(first, date);
+                bits[offset >> 3] |= (byte) (1 << (offset & 7));
+            }
+            schedule.startDate = first;
+            schedule.days = bits;
+        }
+        if (weekdays != 0) {
+            schedule.recurringWeekdays = weekdays;
+            schedule.recurringFrom = recurringFrom;
+            schedule.recurringUntil = recurringUntil;
+        }
+        return schedule;
+    }
+
+    /**
+     * Whether the route runs on the date
+     */
+    public boolean includes(LocalDate date) {
+        return includesSpecific(date) || includesRecurring(date);
+    }
+
+    public boolean includesSpecific(LocalDate date) {
+        if (days == null || startDate == null || date.isBefore(startDate)) {
+            return false;
+        }
+        long offset = date.toEpochDay() - startDate.toEpochDay();
+        return offset < days.length * 8L && (days[(int) (offset >> 3)] & (1 << (offset & 7))) != 0;
+    }
+
+    public boolean includesRecurring(LocalDate date) {
+        return recurringWeekdays != null
+                && (recurringWeekdays & (1 << (date.getDayOfWeek().getValue() - 1))) != 0
+                && (recurringFrom == null || !date.isBefore(recurringFrom))
+                && (recurringUntil == null || !date.isAfter(recurringUntil));
+    }
+
+    /**
+     * The specific dates, in order
+     */
+    public List<LocalDate> specificDates() {
+        List<LocalDate> dates = new ArrayList<>();
+        if (days == null || startDate == null) {
+            return dates;
+        }
+        for (int offset = 0; offset < days.length * 8; offset++) {
+            if ((days[offset >> 3] & (1 << (offset & 7))) != 0) {
+                dates.add(startDate.plusDays(offset));
+            }
+        }
+        return dates;
+    }
+
+    /**
+     * The specific dates in the comma-separated yyyy-MM-dd form clients send
+     */
+    public String specificDatesText() {
+        return specificDates().stream().map(LocalDate::toString).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Weekdays of the weekly rule, Monday first
+     */
+    public List<DayOfWeek> recurringDaysOfWeek() {
+        List<DayOfWeek> result = new ArrayList<>();
+        if (recurringWeekdays != null) {
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if ((recurringWeekdays & (1 << (day.getValue() - 1))) != 0) {
+                    result.add(day);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Day codes (MON..SUN) of the weekly rule
+     */
+    public List<String> recurringDayCodes() {
+        return recurringDaysOfWeek().stream().map(RouteSchedule::dayCode).toList();
+    }
+
+    public static String dayCode(DayOfWeek day) {
+        return day.name().substring(0, 3);
+    }
+
+    private static DayOfWeek parseDayCode(String code) {
+        if (code != null) {
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (dayCode(day).equalsIgnoreCase(code.trim())) {
+                    return day;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Invalid recurring day: " + code + " (expected MON..SUN)");
+    }
+}
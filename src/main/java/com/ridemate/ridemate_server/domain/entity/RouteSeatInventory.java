@@ -0,0 +1,41 @@
+package com.ridemate.ridemate_server.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Seats of one fixed route on one travel date. Created on the first booking for that date and
+ * changed only through the conditional updates in RouteSeatInventoryRepository, so concurrent
+ * bookings can never take more than totalSeats.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "route_seat_inventory", indexes = {
+        @Index(name = "idx_route_seat_inventory_route_date", columnList = "route_id, travel_date", unique = true)
+})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteSeatInventory extends BaseEntity {
+
+    @Column(name = "route_id", nullable = false)
+    private Long routeId;
+
+    @Column(name = "travel_date", nullable = false)
+    private LocalDate travelDate;
+
+    @Column(name = "total_seats", nullable = false)
+    private Integer totalSeats;
+
+    // Seats held by PENDING and ACCEPTED bookings
+    @Column(name = "reserved_seats", nullable = false)
+    @Builder.Default
+    private Integer reservedSeats = 0;
+
+    public int remainingSeats() {
+        return Math.max(0, totalSeats - reservedSeats);
+    }
+}
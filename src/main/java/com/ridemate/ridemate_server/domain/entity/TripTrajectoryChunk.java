@@ -0,0 +1,44 @@
+package com.ridemate.ridemate_server.domain.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A time slice of the driver's path during a match, encoded with LocationBatchCodec
+ * (delta + varint, a few bytes per fix). Chunks of one match are appended in sequence order
+ * by TripTrajectoryRecorder and never updated.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "trip_trajectory_chunks", indexes = {
+        @Index(name = "idx_trip_trajectory_chunks_match_sequence", columnList = "match_id, sequence", unique = true)
+})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripTrajectoryChunk extends BaseEntity {
+
+    @Column(name = "match_id", nullable = false)
+    private Long matchId;
+
+    @Column(name = "driver_id", nullable = false)
+    private Long driverId;
+
+    @Column(nullable = false)
+    private Integer sequence;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "ended_at", nullable = false)
+    private LocalDateTime endedAt;
+
+    @Column(name = "point_count", nullable = false)
+    private Integer pointCount;
+
+    @Column(nullable = false, columnDefinition = "BYTEA")
+    private byte[] data;
+}
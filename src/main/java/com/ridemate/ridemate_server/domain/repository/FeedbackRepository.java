@@ -2,7 +2,10 @@ package com.ridemate.ridemate_server.domain.repository;
 
 import com.ridemate.ridemate_server.domain.entity.Feedback;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,4 +13,11 @@ import java.util.Optional;
 public interface FeedbackRepository extends JpaRepository<Feedback, Long> {
     List<Feedback> findByReviewedId(Long reviewedId);
     Optional<Feedback> findByMatchIdAndReviewerId(Long matchId, Long reviewerId);
+
+    @Query("SELECT AVG(f.rating) FROM Feedback f WHERE f.rating IS NOT NULL")
+    Double findAverageRating();
+
+    // (reviewed user id, average rating counting missing ratings as 0) of the given users
+    @Query("SELECT f.reviewed.id, AVG(COALESCE(f.rating, 0)) FROM Feedback f WHERE f.reviewed.id IN :reviewedIds GROUP BY f.reviewed.id")
+    List<Object[]> findAverageRatingByReviewedIds(@Param("reviewedIds") Collection<Long> reviewedIds);
 }
\ No newline at end of file
@@ -10,6 +10,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,13 +23,62 @@ public interface MatchRepository extends JpaRepository<Match, Long>, JpaSpecific
     List<Match> findByStatus(Match.MatchStatus status);
     Page<Match> findByStatus(Match.MatchStatus status, Pageable pageable);
     long countByStatus(Match.MatchStatus status);
+    long countByStatusIn(List<Match.MatchStatus> statuses);
+    List<Match> findByStatusIn(List<Match.MatchStatus> statuses);
+    long countByCreatedAtGreaterThanEqual(LocalDateTime since);
     
     // Find matches by passenger with specific statuses
     List<Match> findByPassengerIdAndStatusIn(Long passengerId, List<Match.MatchStatus> statuses);
     
     // Find matches by driver with specific statuses
     List<Match> findByDriverIdAndStatusIn(Long driverId, List<Match.MatchStatus> statuses);
+
+    // (match id, driver id) of matches in the given statuses, without loading the entities
+    @Query("SELECT m.id, m.driver.id FROM Match m WHERE m.status IN :statuses AND m.driver IS NOT NULL")
+    List<Object[]> findMatchAndDriverIdsByStatusIn(@Param("statuses") List<Match.MatchStatus> statuses);
     
+    // Admin analytics: aggregated in the database so only the totals come back
+
+    @Query("SELECT COALESCE(SUM(m.coin), 0) FROM Match m WHERE m.status = :status")
+    long sumCoinByStatus(@Param("status") Match.MatchStatus status);
+
+    @Query("SELECT COALESCE(SUM(m.coin), 0) FROM Match m WHERE m.status = :status AND m.createdAt >= :from AND m.createdAt < :to")
+    long sumCoinByStatusBetween(@Param("status") Match.MatchStatus status,
+                                @Param("from") LocalDateTime from,
+                                @Param("to") LocalDateTime to);
+
+    // One row per day with matches, from findDailyTripVolume
+    interface DailyTripVolume {
+        LocalDate getDay();
+        Long getTripCount();
+        Long getCompletedTrips();
+        Long getCancelledTrips();
+        Long getTotalCoin();
+    }
+
+    @Query(value = "SELECT CAST(date_trunc('day', created_at) AS DATE) AS \"day\", " +
+                   "COUNT(*) AS \"tripCount\", " +
+                   "COUNT(*) FILTER (WHERE status = 'COMPLETED') AS \"completedTrips\", " +
+                   "COUNT(*) FILTER (WHERE status = 'CANCELLED') AS \"cancelledTrips\", " +
+                   "COALESCE(SUM(coin) FILTER (WHERE status = 'COMPLETED'), 0) AS \"totalCoin\" " +
+                   "FROM matches WHERE created_at >= :from AND created_at < :to " +
+                   "GROUP BY 1 ORDER BY 1",
+           nativeQuery = true)
+    List<DailyTripVolume> findDailyTripVolume(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // (driver id, completed trips, coins earned) of the drivers who earned the most
+    @Query("SELECT m.driver.id, COUNT(m), COALESCE(SUM(m.coin), 0) FROM Match m " +
+           "WHERE m.status = :status AND m.driver IS NOT NULL " +
+           "GROUP BY m.driver.id ORDER BY COALESCE(SUM(m.coin), 0) DESC")
+    List<Object[]> findTopDriverEarnings(@Param("status") Match.MatchStatus status, Pageable pageable);
+
+    // (driver id, matches, matches past PENDING/WAITING) of the given drivers
+    @Query("SELECT m.driver.id, COUNT(m), " +
+           "SUM(CASE WHEN m.status NOT IN (com.ridemate.ridemate_server.domain.entity.Match.MatchStatus.PENDING, " +
+           "com.ridemate.ridemate_server.domain.entity.Match.MatchStatus.WAITING) THEN 1 ELSE 0 END) " +
+           "FROM Match m WHERE m.driver.id IN :driverIds GROUP BY m.driver.id")
+    List<Object[]> countAcceptedByDriverIds(@Param("driverIds") Collection<Long> driverIds);
+
     // Native query to update JSONB field with explicit casting
     @Modifying
     @Transactional
@@ -0,0 +1,17 @@
+package com.ridemate.ridemate_server.domain.repository;
+
+import com.ridemate.ridemate_server.domain.entity.MatchRoute;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MatchRouteRepository extends JpaRepository<MatchRoute, Long> {
+
+    Optional<MatchRoute> findByMatchId(Long matchId);
+
+    List<MatchRoute> findByMatchIdIn(Collection<Long> matchIds);
+}
@@ -0,0 +1,27 @@
+package com.ridemate.ridemate_server.domain.repository;
+
+import com.ridemate.ridemate_server.domain.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Due events that are the oldest open event of their aggregate, locked for the caller.
+     * Rows locked by another worker are skipped rather than waited on.
+     */
+    @Query(value = "SELECT e.* FROM outbox_events e " +
+            "WHERE e.status IN ('PENDING', 'PROCESSING') AND e.next_attempt_at <= :now " +
+            "AND NOT EXISTS (SELECT 1 FROM outbox_events p WHERE p.aggregate_id = e.aggregate_id " +
+            "AND p.status IN ('PENDING', 'PROCESSING') AND p.id < e.id) " +
+            "ORDER BY e.id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockDueEvents(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    long countByStatus(OutboxEvent.Status status);
+}
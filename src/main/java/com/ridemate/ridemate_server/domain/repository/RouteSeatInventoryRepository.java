@@ -0,0 +1,76 @@
+package com.ridemate.ridemate_server.domain.repository;
+
+import com.ridemate.ridemate_server.domain.entity.RouteSeatInventory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RouteSeatInventoryRepository extends JpaRepository<RouteSeatInventory, Long> {
+
+    List<RouteSeatInventory> findByRouteIdInAndTravelDate(Collection<Long> routeIds, LocalDate travelDate);
+
+    /**
+     * Create the inventory row of a route and date if there is none yet,
+     * counting the seats of bookings made before the row existed
+     * @param excludedBookingId booking about to reserve its own seats, not counted
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO route_seat_inventory (route_id, travel_date, total_seats, reserved_seats, created_at, updated_at)
+        SELECT :routeId, :travelDate, :totalSeats, COALESCE(SUM(b.number_of_seats), 0), now(), now()
+        FROM route_bookings b
+        WHERE b.route_id = :routeId AND b.booking_date = :travelDate
+        AND b.status NOT IN ('REJECTED', 'CANCELLED', 'EXPIRED')
+        AND b.id <> :excludedBookingId
+        ON CONFLICT (route_id, travel_date) DO NOTHING
+        """, nativeQuery = true)
+    int insertIfAbsent(@Param("routeId") Long routeId,
+                       @Param("travelDate") LocalDate travelDate,
+                       @Param("totalSeats") Integer totalSeats,
+                       @Param("excludedBookingId") Long excludedBookingId);
+
+    /**
+     * Take seats if enough are left, in a single statement
+     * @return 1 if the seats were taken, 0 if not enough were left
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE route_seat_inventory
+        SET reserved_seats = reserved_seats + :seats, updated_at = now()
+        WHERE route_id = :routeId AND travel_date = :travelDate
+        AND reserved_seats + :seats <= total_seats
+        """, nativeQuery = true)
+    int reserve(@Param("routeId") Long routeId,
+                @Param("travelDate") LocalDate travelDate,
+                @Param("seats") Integer seats);
+
+    @Modifying
+    @Query(value = """
+        UPDATE route_seat_inventory
+        SET reserved_seats = GREATEST(reserved_seats - :seats, 0), updated_at = now()
+        WHERE route_id = :routeId AND travel_date = :travelDate
+        """, nativeQuery = true)
+    int release(@Param("routeId") Long routeId,
+                @Param("travelDate") LocalDate travelDate,
+                @Param("seats") Integer seats);
+
+    /**
+     * Apply a new seat count to the upcoming dates of a route; seats already reserved stay reserved
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE route_seat_inventory
+        SET total_seats = :totalSeats, updated_at = now()
+        WHERE route_id = :routeId AND travel_date >= :fromDate
+        """, nativeQuery = true)
+    int updateTotalSeats(@Param("routeId") Long routeId,
+                         @Param("fromDate") LocalDate fromDate,
+                         @Param("totalSeats") Integer totalSeats);
+}
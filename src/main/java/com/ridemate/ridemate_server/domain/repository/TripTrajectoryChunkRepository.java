@@ -0,0 +1,13 @@
+package com.ridemate.ridemate_server.domain.repository;
+
+import com.ridemate.ridemate_server.domain.entity.TripTrajectoryChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TripTrajectoryChunkRepository extends JpaRepository<TripTrajectoryChunk, Long> {
+
+    List<TripTrajectoryChunk> findByMatchIdOrderBySequenceAsc(Long matchId);
+}
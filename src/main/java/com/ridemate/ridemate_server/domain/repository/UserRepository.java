@@ -12,6 +12,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +26,21 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     List<User> findByUserTypeAndDriverStatus(User.UserType userType, User.DriverStatus driverStatus);
     
     long countByUserType(User.UserType userType);
+
+    // Status only, for location pings that must not load (and dirty-check) the whole user row
+    @Query("SELECT u.driverStatus FROM User u WHERE u.id = :userId")
+    Optional<User.DriverStatus> findDriverStatusById(@Param("userId") Long userId);
+
+    boolean existsByIdAndUserType(Long id, User.UserType userType);
+
+    // (id, user type, driver status, rating, acceptance rate, completion rate), for scoring match candidates
+    @Query("SELECT u.id, u.userType, u.driverStatus, u.rating, u.acceptanceRate, u.completionRate " +
+           "FROM User u WHERE u.id IN :ids")
+    List<Object[]> findScoringRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // (id, full name, phone number, completed rides) of the candidates offered a ride
+    @Query("SELECT u.id, u.fullName, u.phoneNumber, u.totalRidesCompleted FROM User u WHERE u.id IN :ids")
+    List<Object[]> findCandidateRowsByIdIn(@Param("ids") Collection<Long> ids);
     
     @Query("SELECT COUNT(u) FROM User u WHERE u.userType = :userType AND u.createdAt >= :startDate")
     long countByUserTypeSince(@Param("userType") User.UserType userType, 
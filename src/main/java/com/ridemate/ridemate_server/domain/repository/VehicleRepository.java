@@ -5,6 +5,7 @@ import com.ridemate.ridemate_server.domain.entity.Vehicle.VehicleStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,5 +16,6 @@ public interface VehicleRepository extends JpaRepository<Vehicle, Long> {
     List<Vehicle> findByStatus(VehicleStatus status);
     boolean existsByLicensePlate(String licensePlate);
     List<Vehicle> findByDriverIdAndStatus(Long driverId, VehicleStatus status);
+    List<Vehicle> findByDriverIdInAndStatus(Collection<Long> driverIds, VehicleStatus status);
 }
 
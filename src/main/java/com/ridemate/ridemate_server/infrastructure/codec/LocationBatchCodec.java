@@ -0,0 +1,202 @@
+package com.ridemate.ridemate_server.infrastructure.codec;
+
+import java.util.Arrays;
+
+/**
+ * Compact binary format for a batch of timestamped GPS fixes sent by the driver app
+ *
+ * <pre>
+ * byte     format version (1)
+ * varint   fix count n
+ * n times:
+ *   zigzag varint  latitude in 1e-6 degrees (first fix absolute, then delta from the previous fix)
+ *   zigzag varint  longitude in 1e-6 degrees (same)
+ *   varint         time in ms (first fix: epoch millis, then delta from the previous fix)
+ * </pre>
+ *
+ * Fixes are in time order. A fix a few metres and seconds after the previous one takes 4-7 bytes.
+ * Decoding fills the primitive arrays of a Fixes holder, nothing is allocated per point.
+ */
+public final class LocationBatchCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final double E6 = 1_000_000.0;
+
+    private LocationBatchCodec() {
+    }
+
+    /**
+     * Decoded fixes; arrays may be longer than count
+     */
+    public static final class Fixes {
+
+        private int[] latitudesE6 = new int[0];
+        private int[] longitudesE6 = new int[0];
+        private long[] timesMillis = new long[0];
+        private int count;
+
+        public int count() {
+            return count;
+        }
+
+        public double latitude(int i) {
+            return latitudesE6[i] / E6;
+        }
+
+        public double longitude(int i) {
+            return longitudesE6[i] / E6;
+        }
+
+        public long timeMillis(int i) {
+            return timesMillis[i];
+        }
+
+        public void clear() {
+            count = 0;
+        }
+
+        void reset(int capacity) {
+            if (latitudesE6.length < capacity) {
+                latitudesE6 = new int[capacity];
+                longitudesE6 = new int[capacity];
+                timesMillis = new long[capacity];
+            }
+            count = 0;
+        }
+
+        public void add(double latitude, double longitude, long timeMillis) {
+            if (count == latitudesE6.length) {
+                int capacity = Math.max(16, count * 2);
+                latitudesE6 = Arrays.copyOf(latitudesE6, capacity);
+                longitudesE6 = Arrays.copyOf(longitudesE6, capacity);
+                timesMillis = Arrays.copyOf(timesMillis, capacity);
+            }
+            latitudesE6[count] = (int) Math.round(latitude * E6);
+            longitudesE6[count] = (int) Math.round(longitude * E6);
+            timesMillis[count] = timeMillis;
+            count++;
+        }
+    }
+
+    /**
+     * Decode a batch into the given holder
+     * @throws IllegalArgumentException on a malformed batch, more than maxFixes fixes,
+     *         coordinates out of range or fixes out of time order
+     */
+    public static Fixes decode(byte[] data, int maxFixes, Fixes into) {
+        if (data.length > maxEncodedSize(maxFixes)) {
+            throw new IllegalArgumentException("Location batch is too large");
+        }
+        Reader reader = new Reader(data);
+        if (data.length == 0 || reader.readByte() != VERSION) {
+            throw new IllegalArgumentException("Unsupported location batch format");
+        }
+
+        long count = reader.readVarLong();
+        if (count < 1 || count > maxFixes) {
+            throw new IllegalArgumentException("Location batch must contain 1 to " + maxFixes + " fixes");
+        }
+
+        into.reset((int) count);
+        long latitude = 0;
+        long longitude = 0;
+        long time = 0;
+        for (int i = 0; i < count; i++) {
+            latitude += zigzagDecode(reader.readVarLong());
+            longitude += zigzagDecode(reader.readVarLong());
+            long timeDelta = reader.readVarLong();
+            if (timeDelta < 0) {
+                throw new IllegalArgumentException("Location fixes must be in time order");
+            }
+            time += timeDelta;
+            if (latitude < -90_000_000L || latitude > 90_000_000L
+                    || longitude < -180_000_000L || longitude > 180_000_000L) {
+                throw new IllegalArgumentException("Location fix " + i + " is out of range");
+            }
+            into.latitudesE6[i] = (int) latitude;
+            into.longitudesE6[i] = (int) longitude;
+            into.timesMillis[i] = time;
+        }
+        into.count = (int) count;
+
+        if (reader.position != data.length) {
+            throw new IllegalArgumentException("Trailing bytes after location batch");
+        }
+        return into;
+    }
+
+    /**
+     * Encode fixes (used by the fleet simulator and as the reference for client implementations)
+     */
+    public static byte[] encode(Fixes fixes) {
+        byte[] buffer = new byte[(int) maxEncodedSize(fixes.count)];
+        int position = 0;
+        buffer[position++] = VERSION;
+        position = writeVarLong(buffer, position, fixes.count);
+
+        long previousLatitude = 0;
+        long previousLongitude = 0;
+        long previousTime = 0;
+        for (int i = 0; i < fixes.count; i++) {
+            position = writeVarLong(buffer, position, zigzagEncode(fixes.latitudesE6[i] - previousLatitude));
+            position = writeVarLong(buffer, position, zigzagEncode(fixes.longitudesE6[i] - previousLongitude));
+            position = writeVarLong(buffer, position, fixes.timesMillis[i] - previousTime);
+            previousLatitude = fixes.latitudesE6[i];
+            previousLongitude = fixes.longitudesE6[i];
+            previousTime = fixes.timesMillis[i];
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    // Version byte, count varint, then at most two 5-byte coordinate varints and a 10-byte time varint per fix
+    private static long maxEncodedSize(int fixes) {
+        return 1 + 10 + fixes * 20L;
+    }
+
+    static long zigzagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long zigzagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int writeVarLong(byte[] buffer, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    private static final class Reader {
+
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        byte readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated location batch");
+            }
+            return data[position++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in location batch");
+        }
+    }
+}
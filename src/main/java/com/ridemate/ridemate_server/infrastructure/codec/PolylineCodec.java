@@ -0,0 +1,210 @@
+package com.ridemate.ridemate_server.infrastructure.codec;
+
+import com.ridemate.ridemate_server.infrastructure.routing.RoadGraph;
+
+import java.util.Arrays;
+
+/**
+ * Encoded polylines (Google / OSRM format, precision 5) and their compact binary form
+ *
+ * A polyline is a list of zigzag-encoded coordinate deltas in 1e-5 degrees, written 5 bits per
+ * printable character. The binary form stores the very same zigzag values as varints (7 bits per
+ * byte), so converting between the two never goes through doubles and is lossless:
+ *
+ * <pre>
+ * byte     format version (1)
+ * until the end:
+ *   varint   zigzag latitude delta in 1e-5 degrees (first point: absolute)
+ *   varint   zigzag longitude delta in 1e-5 degrees (same)
+ * </pre>
+ *
+ * Decoding streams points to a PointConsumer, nothing is allocated per point.
+ */
+public final class PolylineCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final double E5 = 100_000.0;
+    // A zigzag coordinate delta in 1e-5 degrees fits in 27 bits; anything longer is garbage
+    private static final int MAX_VALUE_BITS = 35;
+
+    private PolylineCodec() {
+    }
+
+    @FunctionalInterface
+    public interface PointConsumer {
+        void accept(double latitude, double longitude);
+    }
+
+    /**
+     * Stream the points of an encoded polyline
+     * @return number of points
+     * @throws IllegalArgumentException if the polyline is malformed
+     */
+    public static int decode(CharSequence encoded, PointConsumer consumer) {
+        TextReader reader = new TextReader(encoded);
+        long latitude = 0;
+        long longitude = 0;
+        int points = 0;
+        while (reader.hasMore()) {
+            latitude += LocationBatchCodec.zigzagDecode(reader.readValue());
+            longitude += LocationBatchCodec.zigzagDecode(reader.readValue());
+            consumer.accept(latitude / E5, longitude / E5);
+            points++;
+        }
+        return points;
+    }
+
+    /**
+     * Stream the points of the binary form
+     * @return number of points
+     * @throws IllegalArgumentException if the data is malformed
+     */
+    public static int decode(byte[] data, PointConsumer consumer) {
+        BinaryReader reader = new BinaryReader(data);
+        long latitude = 0;
+        long longitude = 0;
+        int points = 0;
+        while (reader.hasMore()) {
+            latitude += LocationBatchCodec.zigzagDecode(reader.readValue());
+            longitude += LocationBatchCodec.zigzagDecode(reader.readValue());
+            consumer.accept(latitude / E5, longitude / E5);
+            points++;
+        }
+        return points;
+    }
+
+    /**
+     * Convert an encoded polyline to the binary form
+     * @throws IllegalArgumentException if the polyline is malformed
+     */
+    public static byte[] toBinary(CharSequence encoded) {
+        TextReader reader = new TextReader(encoded);
+        // Each character carries 5 bits and each byte 7, so the binary form is never longer
+        byte[] buffer = new byte[encoded.length() + 1];
+        int position = 0;
+        buffer[position++] = VERSION;
+        while (reader.hasMore()) {
+            position = LocationBatchCodec.writeVarLong(buffer, position, reader.readValue());
+            position = LocationBatchCodec.writeVarLong(buffer, position, reader.readValue());
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * Convert the binary form back to an encoded polyline
+     * @throws IllegalArgumentException if the data is malformed
+     */
+    public static String toEncoded(byte[] data) {
+        BinaryReader reader = new BinaryReader(data);
+        StringBuilder out = new StringBuilder(data.length * 2);
+        while (reader.hasMore()) {
+            long value = reader.readValue();
+            while (value >= 0x20) {
+                out.append((char) (((value & 0x1F) | 0x20) + 63));
+                value >>>= 5;
+            }
+            out.append((char) (value + 63));
+        }
+        return out.toString();
+    }
+
+    /**
+     * Length along the polyline in meters
+     */
+    public static double lengthMeters(CharSequence encoded) {
+        LengthAccumulator length = new LengthAccumulator();
+        decode(encoded, length);
+        return length.meters;
+    }
+
+    /**
+     * Length along the binary form in meters
+     */
+    public static double lengthMeters(byte[] data) {
+        LengthAccumulator length = new LengthAccumulator();
+        decode(data, length);
+        return length.meters;
+    }
+
+    private static final class LengthAccumulator implements PointConsumer {
+
+        private double meters;
+        private double previousLatitude = Double.NaN;
+        private double previousLongitude;
+
+        @Override
+        public void accept(double latitude, double longitude) {
+            if (!Double.isNaN(previousLatitude)) {
+                meters += RoadGraph.distanceMeters(previousLatitude, previousLongitude, latitude, longitude);
+            }
+            previousLatitude = latitude;
+            previousLongitude = longitude;
+        }
+    }
+
+    private static final class TextReader {
+
+        private final CharSequence text;
+        private int position;
+
+        TextReader(CharSequence text) {
+            this.text = text;
+        }
+
+        boolean hasMore() {
+            return position < text.length();
+        }
+
+        long readValue() {
+            long value = 0;
+            for (int shift = 0; shift < MAX_VALUE_BITS; shift += 5) {
+                if (position >= text.length()) {
+                    throw new IllegalArgumentException("Truncated polyline");
+                }
+                int chunk = text.charAt(position++) - 63;
+                if (chunk < 0 || chunk > 0x3F) {
+                    throw new IllegalArgumentException("Invalid polyline character at offset " + (position - 1));
+                }
+                value |= (long) (chunk & 0x1F) << shift;
+                if (chunk < 0x20) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed value in polyline");
+        }
+    }
+
+    private static final class BinaryReader {
+
+        private final byte[] data;
+        private int position;
+
+        BinaryReader(byte[] data) {
+            if (data.length == 0 || data[0] != VERSION) {
+                throw new IllegalArgumentException("Unsupported polyline format");
+            }
+            this.data = data;
+            this.position = 1;
+        }
+
+        boolean hasMore() {
+            return position < data.length;
+        }
+
+        long readValue() {
+            long value = 0;
+            for (int shift = 0; shift < MAX_VALUE_BITS; shift += 7) {
+                if (position >= data.length) {
+                    throw new IllegalArgumentException("Truncated polyline data");
+                }
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in polyline data");
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package com.ridemate.ridemate_server.infrastructure.routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Offline contraction hierarchy construction for a directed road graph
+ *
+ * Nodes are contracted one by one in order of (shortcuts added - edges removed + contracted
+ * neighbours), with lazy priority updates. Contracting a node adds a shortcut u -> w for each
+ * in/out neighbour pair unless a bounded witness search finds a path that is at least as short.
+ * A witness search that gives up early only costs an extra shortcut, never a wrong answer.
+ *
+ * The result is written in the {@link RoadGraph} file format: for every node its upward
+ * out-edges (forward search) and upward in-edges (backward search), weights in milliseconds.
+ */
+public final class ContractionHierarchyBuilder {
+
+    // Witness searches settle at most this many nodes; more shortcuts, much faster preprocessing.
+    // Priority estimates only need to be roughly right, so they use a much tighter limit.
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+    private static final int ESTIMATE_SETTLE_LIMIT = 50;
+    private static final int INF = Integer.MAX_VALUE;
+
+    private final int nodeCount;
+    private final int[] latE6;
+    private final int[] lonE6;
+
+    // Adjacency among not-yet-contracted nodes: neighbour / weight pairs
+    private final EdgeList[] out;
+    private final EdgeList[] in;
+
+    // Upward edges in the final hierarchy, filled while contracting
+    private final EdgeList[] up;
+    private final EdgeList[] down;
+
+    private final boolean[] contracted;
+    private final int[] contractedNeighbours;
+
+    // Witness search scratch
+    private final int[] witnessDist;
+    private final int[] touched;
+    private int touchedCount;
+    private final LongMinHeap heap = new LongMinHeap();
+
+    private boolean built;
+
+    /**
+     * Growable list of (node, weight) pairs
+     */
+    private static final class EdgeList {
+        int[] nodes = new int[4];
+        int[] weights = new int[4];
+        int size;
+
+        int indexOf(int node) {
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] == node) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Add or lower the weight to node
+         */
+        void put(int node, int weight) {
+            int i = indexOf(node);
+            if (i >= 0) {
+                weights[i] = Math.min(weights[i], weight);
+                return;
+            }
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            nodes[size] = node;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(int node) {
+            int i = indexOf(node);
+            if (i >= 0) {
+                size--;
+                nodes[i] = nodes[size];
+                weights[i] = weights[size];
+            }
+        }
+    }
+
+    public ContractionHierarchyBuilder(int nodeCount) {
+        this.nodeCount = nodeCount;
+        this.latE6 = new int[nodeCount];
+        this.lonE6 = new int[nodeCount];
+        this.out = new EdgeList[nodeCount];
+        this.in = new EdgeList[nodeCount];
+        this.up = new EdgeList[nodeCount];
+        this.down = new EdgeList[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            out[i] = new EdgeList();
+            in[i] = new EdgeList();
+        }
+        this.contracted = new boolean[nodeCount];
+        this.contractedNeighbours = new int[nodeCount];
+        this.witnessDist = new int[nodeCount];
+        Arrays.fill(witnessDist, INF);
+        this.touched = new int[nodeCount];
+    }
+
+    public void setNode(int node, double latitude, double longitude) {
+        latE6[node] = (int) Math.round(latitude * 1e6);
+        lonE6[node] = (int) Math.round(longitude * 1e6);
+    }
+
+    /**
+     * Directed edge; parallel edges keep the fastest, self-loops are ignored
+     */
+    public void addEdge(int from, int to, int weightMillis) {
+        if (built) {
+            throw new IllegalStateException("Hierarchy already built");
+        }
+        if (from == to) {
+            return;
+        }
+        int weight = Math.max(weightMillis, 1);
+        out[from].put(to, weight);
+        in[to].put(from, weight);
+    }
+
+    /**
+     * Contract every node. Expensive; meant for the offline build.
+     */
+    public void build() {
+        if (built) {
+            return;
+        }
+
+        int[] priority = new int[nodeCount];
+        PriorityQueue<long[]> queue = new PriorityQueue<>(Math.max(nodeCount, 1),
+                (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        for (int node = 0; node < nodeCount; node++) {
+            priority[node] = priority(node);
+            queue.add(new long[]{priority[node], node});
+        }
+
+        while (!queue.isEmpty()) {
+            long[] entry = queue.poll();
+            int node = (int) entry[1];
+            if (contracted[node] || entry[0] != priority[node]) {
+                continue;
+            }
+
+            // Lazy update: the priority may have gone stale since it was queued
+            int current = priority(node);
+            if (current > priority[node] && !queue.isEmpty() && current > queue.peek()[0]) {
+                priority[node] = current;
+                queue.add(new long[]{current, node});
+                continue;
+            }
+
+            contract(node);
+
+            for (int i = 0; i < up[node].size; i++) {
+                requeue(up[node].nodes[i], priority, queue);
+            }
+            for (int i = 0; i < down[node].size; i++) {
+                requeue(down[node].nodes[i], priority, queue);
+            }
+        }
+        built = true;
+    }
+
+    private void requeue(int neighbour, int[] priority, PriorityQueue<long[]> queue) {
+        if (contracted[neighbour]) {
+            return;
+        }
+        int updated = priority(neighbour);
+        if (updated != priority[neighbour]) {
+            priority[neighbour] = updated;
+            queue.add(new long[]{updated, neighbour});
+        }
+    }
+
+    private int priority(int node) {
+        int shortcuts = processShortcuts(node, false);
+        return shortcuts - (in[node].size + out[node].size) + contractedNeighbours[node];
+    }
+
+    private void contract(int node) {
+        processShortcuts(node, true);
+
+        // Remaining edges all lead to higher-ranked nodes: they become the node's upward edges
+        EdgeList outEdges = out[node];
+        EdgeList inEdges = in[node];
+        for (int i = 0; i < outEdges.size; i++) {
+            in[outEdges.nodes[i]].remove(node);
+            contractedNeighbours[outEdges.nodes[i]]++;
+        }
+        for (int i = 0; i < inEdges.size; i++) {
+            out[inEdges.nodes[i]].remove(node);
+            contractedNeighbours[inEdges.nodes[i]]++;
+        }
+        up[node] = outEdges;
+        down[node] = inEdges;
+        out[node] = null;
+        in[node] = null;
+        contracted[node] = true;
+    }
+
+    /**
+     * Shortcuts needed to contract node; added to the graph when apply is set
+     */
+    private int processShortcuts(int node, boolean apply) {
+        EdgeList inEdges = in[node];
+        EdgeList outEdges = out[node];
+        if (inEdges.size == 0 || outEdges.size == 0) {
+            return 0;
+        }
+
+        int maxOut = 0;
+        for (int i = 0; i < outEdges.size; i++) {
+            maxOut = Math.max(maxOut, outEdges.weights[i]);
+        }
+
+        int shortcuts = 0;
+        for (int i = 0; i < inEdges.size; i++) {
+            int source = inEdges.nodes[i];
+            int toNode = inEdges.weights[i];
+            witnessSearch(source, node, toNode + maxOut, apply ? WITNESS_SETTLE_LIMIT : ESTIMATE_SETTLE_LIMIT);
+
+            for (int j = 0; j < outEdges.size; j++) {
+                int target = outEdges.nodes[j];
+                if (target == source) {
+                    continue;
+                }
+                int viaNode = toNode + outEdges.weights[j];
+                if (witnessDist[target] > viaNode) {
+                    shortcuts++;
+                    if (apply) {
+                        out[source].put(target, viaNode);
+                        in[target].put(source, viaNode);
+                    }
+                }
+            }
+            resetWitness();
+        }
+        return shortcuts;
+    }
+
+    /**
+     * Bounded Dijkstra from source over uncontracted nodes, skipping the node being contracted
+     */
+    private void witnessSearch(int source, int skipped, int maxCost, int settleLimit) {
+        heap.clear();
+        witnessDist[source] = 0;
+        touched[touchedCount++] = source;
+        heap.push(LongMinHeap.pack(0, source));
+
+        int settled = 0;
+        while (!heap.isEmpty() && settled < settleLimit) {
+            long entry = heap.pop();
+            int dist = LongMinHeap.key(entry);
+            int node = LongMinHeap.node(entry);
+            if (dist > witnessDist[node]) {
+                continue;
+            }
+            if (dist > maxCost) {
+                break;
+            }
+            settled++;
+
+            EdgeList edges = out[node];
+            for (int i = 0; i < edges.size; i++) {
+                int next = edges.nodes[i];
+                if (next == skipped) {
+                    continue;
+                }
+                int candidate = dist + edges.weights[i];
+                if (candidate < witnessDist[next]) {
+                    if (witnessDist[next] == INF) {
+                        touched[touchedCount++] = next;
+                    }
+                    witnessDist[next] = candidate;
+                    heap.push(LongMinHeap.pack(candidate, next));
+                }
+            }
+        }
+    }
+
+    private void resetWitness() {
+        for (int i = 0; i < touchedCount; i++) {
+            witnessDist[touched[i]] = INF;
+        }
+        touchedCount = 0;
+    }
+
+    /**
+     * Write the hierarchy in RoadGraph format. Nodes are renumbered by grid cell so that
+     * nearest-node lookups are a binary search and nearby nodes share pages.
+     */
+    public void write(Path file) throws IOException {
+        build();
+
+        Integer[] order = new Integer[nodeCount];
+        long[] cellOf = new long[nodeCount];
+        for (int node = 0; node < nodeCount; node++) {
+            order[node] = node;
+            cellOf[node] = RoadGraph.cellKey(latE6[node] / 1e6, lonE6[node] / 1e6);
+        }
+        Arrays.sort(order, (a, b) -> cellOf[a] != cellOf[b] ? Long.compare(cellOf[a], cellOf[b]) : Integer.compare(a, b));
+        int[] newId = new int[nodeCount];
+        for (int i = 0; i < nodeCount; i++) {
+            newId[order[i]] = i;
+        }
+
+        int upCount = 0;
+        int downCount = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            upCount += up[node].size;
+            downCount += down[node].size;
+        }
+
+        long bytes = RoadGraph.HEADER_BYTES
+                + 8L * nodeCount
+                + 4L * nodeCount * 2
+                + 4L * (nodeCount + 1) * 2
+                + 4L * upCount * 2
+                + 4L * downCount * 2;
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(bytes)).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(RoadGraph.MAGIC).putInt(RoadGraph.VERSION)
+                .putInt(nodeCount).putInt(upCount).putInt(downCount)
+                .putInt(0).putInt(0).putInt(0);
+        for (int i = 0; i < nodeCount; i++) {
+            buffer.putLong(cellOf[order[i]]);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            buffer.putInt(latE6[order[i]]);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            buffer.putInt(lonE6[order[i]]);
+        }
+        writeAdjacency(buffer, up, order, newId);
+        writeAdjacency(buffer, down, order, newId);
+
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * CSR layout: first[n + 1], then all targets, then all weights
+     */
+    private void writeAdjacency(ByteBuffer buffer, EdgeList[] lists, Integer[] order, int[] newId) {
+        int offset = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            buffer.putInt(offset);
+            offset += lists[order[i]].size;
+        }
+        buffer.putInt(offset);
+        for (int i = 0; i < nodeCount; i++) {
+            EdgeList edges = lists[order[i]];
+            for (int e = 0; e < edges.size; e++) {
+                buffer.putInt(newId[edges.nodes[e]]);
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            EdgeList edges = lists[order[i]];
+            for (int e = 0; e < edges.size; e++) {
+                buffer.putInt(edges.weights[e]);
+            }
+        }
+    }
+}
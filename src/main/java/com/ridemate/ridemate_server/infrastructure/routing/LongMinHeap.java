@@ -0,0 +1,70 @@
+package com.ridemate.ridemate_server.infrastructure.routing;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of packed (key, node) longs for Dijkstra-style searches
+ * No decrease-key: callers push again and skip stale entries when popped, which keeps the heap
+ * allocation-free once it has grown to the working size.
+ */
+final class LongMinHeap {
+
+    private long[] heap = new long[256];
+    private int size;
+
+    static long pack(int key, int node) {
+        return ((long) key << 32) | (node & 0xFFFFFFFFL);
+    }
+
+    static int key(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    static int node(long entry) {
+        return (int) entry;
+    }
+
+    void push(long entry) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    long pop() {
+        long top = heap[0];
+        long last = heap[--size];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return top;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        size = 0;
+    }
+}
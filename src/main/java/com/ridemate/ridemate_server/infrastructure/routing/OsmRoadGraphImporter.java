@@ -0,0 +1,259 @@
+package com.ridemate.ridemate_server.infrastructure.routing;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Offline build of a road graph file from an OpenStreetMap XML extract
+ *
+ * Usage (after mvn package, with a city extract converted from .pbf by osmium or osmconvert):
+ * <pre>
+ *   java -cp target/classes com.ridemate.ridemate_server.infrastructure.routing.OsmRoadGraphImporter city.osm city.graph
+ * </pre>
+ * Only drivable highways are kept. Graph nodes are way endpoints and intersections; the
+ * geometry in between is folded into the edge travel time.
+ */
+public final class OsmRoadGraphImporter {
+
+    // Default speeds (km/h) by highway type, used when a way has no usable maxspeed
+    private static final Map<String, Integer> DEFAULT_SPEEDS = Map.ofEntries(
+            Map.entry("motorway", 80),
+            Map.entry("motorway_link", 50),
+            Map.entry("trunk", 60),
+            Map.entry("trunk_link", 40),
+            Map.entry("primary", 45),
+            Map.entry("primary_link", 35),
+            Map.entry("secondary", 40),
+            Map.entry("secondary_link", 30),
+            Map.entry("tertiary", 35),
+            Map.entry("tertiary_link", 25),
+            Map.entry("unclassified", 30),
+            Map.entry("residential", 25),
+            Map.entry("living_street", 10),
+            Map.entry("service", 15),
+            Map.entry("road", 25)
+    );
+
+    private record Way(long[] nodeRefs, int speedKmh, boolean forward, boolean backward) {
+    }
+
+    private OsmRoadGraphImporter() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: OsmRoadGraphImporter <input.osm> <output.graph>");
+            System.exit(1);
+        }
+        Path input = Path.of(args[0]);
+        Path output = Path.of(args[1]);
+
+        long start = System.currentTimeMillis();
+        List<Way> ways = readWays(input);
+        System.out.println("Drivable ways: " + ways.size());
+
+        // Nodes referenced by more than one way (or way ends) become graph nodes
+        Map<Long, Integer> useCount = new HashMap<>();
+        for (Way way : ways) {
+            long[] refs = way.nodeRefs();
+            for (int i = 0; i < refs.length; i++) {
+                int weight = (i == 0 || i == refs.length - 1) ? 2 : 1;
+                useCount.merge(refs[i], weight, Integer::sum);
+            }
+        }
+
+        Map<Long, double[]> coordinates = readCoordinates(input, useCount);
+        Map<Long, Integer> graphIds = new HashMap<>();
+        for (Map.Entry<Long, Integer> entry : useCount.entrySet()) {
+            if (entry.getValue() > 1 && coordinates.containsKey(entry.getKey())) {
+                graphIds.put(entry.getKey(), graphIds.size());
+            }
+        }
+        System.out.println("Graph nodes: " + graphIds.size());
+
+        ContractionHierarchyBuilder builder = new ContractionHierarchyBuilder(graphIds.size());
+        for (Map.Entry<Long, Integer> entry : graphIds.entrySet()) {
+            double[] coordinate = coordinates.get(entry.getKey());
+            builder.setNode(entry.getValue(), coordinate[0], coordinate[1]);
+        }
+        for (Way way : ways) {
+            addWayEdges(builder, way, graphIds, coordinates);
+        }
+
+        builder.write(output);
+        System.out.println("Wrote " + output + " (" + Files.size(output) + " bytes) in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static void addWayEdges(ContractionHierarchyBuilder builder, Way way,
+                                    Map<Long, Integer> graphIds, Map<Long, double[]> coordinates) {
+        long[] refs = way.nodeRefs();
+        double metersPerMilli = way.speedKmh() / 3600.0;
+        Integer from = null;
+        double meters = 0;
+        double[] previous = null;
+
+        for (long ref : refs) {
+            double[] coordinate = coordinates.get(ref);
+            if (coordinate == null) {
+                // Node clipped out of the extract: split the way here
+                from = null;
+                previous = null;
+                meters = 0;
+                continue;
+            }
+            if (previous != null) {
+                meters += RoadGraph.distanceMeters(previous[0], previous[1], coordinate[0], coordinate[1]);
+            }
+            previous = coordinate;
+
+            Integer graphId = graphIds.get(ref);
+            if (graphId == null) {
+                continue;
+            }
+            if (from != null) {
+                int millis = (int) Math.min(Integer.MAX_VALUE / 4, Math.round(meters / metersPerMilli));
+                if (way.forward()) {
+                    builder.addEdge(from, graphId, millis);
+                }
+                if (way.backward()) {
+                    builder.addEdge(graphId, from, millis);
+                }
+            }
+            from = graphId;
+            meters = 0;
+        }
+    }
+
+    /**
+     * First pass: drivable ways with their node references, speed and direction
+     */
+    private static List<Way> readWays(Path input) throws IOException, XMLStreamException {
+        List<Way> ways = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(input)) {
+            XMLStreamReader reader = XMLInputFactory.newFactory().createXMLStreamReader(in);
+            List<Long> refs = new ArrayList<>();
+            Map<String, String> tags = new HashMap<>();
+            boolean inWay = false;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    switch (reader.getLocalName()) {
+                        case "way" -> {
+                            inWay = true;
+                            refs.clear();
+                            tags.clear();
+                        }
+                        case "nd" -> {
+                            if (inWay) {
+                                refs.add(Long.parseLong(reader.getAttributeValue(null, "ref")));
+                            }
+                        }
+                        case "tag" -> {
+                            if (inWay) {
+                                tags.put(reader.getAttributeValue(null, "k"), reader.getAttributeValue(null, "v"));
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && "way".equals(reader.getLocalName())) {
+                    inWay = false;
+                    Way way = toWay(refs, tags);
+                    if (way != null) {
+                        ways.add(way);
+                    }
+                }
+            }
+            reader.close();
+        }
+        return ways;
+    }
+
+    private static Way toWay(List<Long> refs, Map<String, String> tags) {
+        String highway = tags.get("highway");
+        if (highway == null || refs.size() < 2 || !DEFAULT_SPEEDS.containsKey(highway)) {
+            return null;
+        }
+        if ("no".equals(tags.get("access")) || "private".equals(tags.get("access"))) {
+            return null;
+        }
+
+        int speed = parseMaxSpeed(tags.get("maxspeed"), DEFAULT_SPEEDS.get(highway));
+
+        String oneway = tags.getOrDefault("oneway", "");
+        boolean forward = true;
+        boolean backward = true;
+        if ("yes".equals(oneway) || "1".equals(oneway) || "true".equals(oneway)
+                || "motorway".equals(highway) || "roundabout".equals(tags.get("junction"))) {
+            backward = false;
+        } else if ("-1".equals(oneway)) {
+            forward = false;
+        }
+        if ("no".equals(oneway)) {
+            forward = true;
+            backward = true;
+        }
+
+        long[] nodeRefs = new long[refs.size()];
+        for (int i = 0; i < nodeRefs.length; i++) {
+            nodeRefs[i] = refs.get(i);
+        }
+        return new Way(nodeRefs, speed, forward, backward);
+    }
+
+    /**
+     * "50", "50 km/h" or "30 mph"; anything else falls back to the highway default
+     */
+    private static int parseMaxSpeed(String value, int fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        String trimmed = value.trim();
+        boolean mph = trimmed.endsWith("mph");
+        String digits = trimmed.replaceAll("[^0-9].*$", "");
+        if (digits.isEmpty()) {
+            return fallback;
+        }
+        int speed = Integer.parseInt(digits);
+        if (mph) {
+            speed = (int) Math.round(speed * 1.609);
+        }
+        return speed > 0 ? speed : fallback;
+    }
+
+    /**
+     * Second pass: coordinates of the nodes used by drivable ways
+     */
+    private static Map<Long, double[]> readCoordinates(Path input, Map<Long, Integer> wanted)
+            throws IOException, XMLStreamException {
+        Map<Long, double[]> coordinates = new HashMap<>(wanted.size() * 2);
+        try (InputStream in = Files.newInputStream(input)) {
+            XMLStreamReader reader = XMLInputFactory.newFactory().createXMLStreamReader(in);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "node".equals(reader.getLocalName())) {
+                    long id = Long.parseLong(reader.getAttributeValue(null, "id"));
+                    if (wanted.containsKey(id)) {
+                        coordinates.put(id, new double[]{
+                                Double.parseDouble(reader.getAttributeValue(null, "lat")),
+                                Double.parseDouble(reader.getAttributeValue(null, "lon"))
+                        });
+                    }
+                }
+            }
+            reader.close();
+        }
+        return coordinates;
+    }
+}
@@ -0,0 +1,313 @@
+package com.ridemate.ridemate_server.infrastructure.routing;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Read-only contraction hierarchy over a memory-mapped road graph file
+ *
+ * File layout (little endian), written by {@link ContractionHierarchyBuilder}:
+ * <pre>
+ *   header   magic, version, nodeCount, upEdgeCount, downEdgeCount, 3 reserved ints
+ *   long     cellKey[nodeCount]          0.01 degree grid cell, ascending
+ *   int      latE6[nodeCount], lonE6[nodeCount]
+ *   int      upFirst[nodeCount + 1], upTarget[U], upWeight[U]
+ *   int      downFirst[nodeCount + 1], downTarget[D], downWeight[D]
+ * </pre>
+ * Weights are travel times in milliseconds. The mapping is shared between threads; each query
+ * borrows its own search scratch, so instances are thread-safe.
+ */
+public final class RoadGraph {
+
+    static final int MAGIC = 0x47524D52; // "RMRG"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+
+    private static final double CELL_DEGREES = 0.01;
+    private static final double EARTH_RADIUS_M = 6_371_000;
+    private static final int INF = Integer.MAX_VALUE;
+
+    private final int nodeCount;
+    private final LongBuffer cellKeys;
+    private final IntBuffer latE6;
+    private final IntBuffer lonE6;
+    private final IntBuffer upFirst;
+    private final IntBuffer upTarget;
+    private final IntBuffer upWeight;
+    private final IntBuffer downFirst;
+    private final IntBuffer downTarget;
+    private final IntBuffer downWeight;
+
+    private final ConcurrentLinkedQueue<Search> searchPool = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Per-query distances with a touched list, so reset is proportional to the search space
+     */
+    private static final class Search {
+        final int[] forward;
+        final int[] backward;
+        final int[] forwardTouched;
+        final int[] backwardTouched;
+        int forwardCount;
+        int backwardCount;
+        final LongMinHeap heap = new LongMinHeap();
+
+        Search(int nodeCount) {
+            forward = new int[nodeCount];
+            backward = new int[nodeCount];
+            Arrays.fill(forward, INF);
+            Arrays.fill(backward, INF);
+            forwardTouched = new int[nodeCount];
+            backwardTouched = new int[nodeCount];
+        }
+
+        void resetForward() {
+            for (int i = 0; i < forwardCount; i++) {
+                forward[forwardTouched[i]] = INF;
+            }
+            forwardCount = 0;
+        }
+
+        void resetBackward() {
+            for (int i = 0; i < backwardCount; i++) {
+                backward[backwardTouched[i]] = INF;
+            }
+            backwardCount = 0;
+        }
+    }
+
+    private RoadGraph(ByteBuffer data) {
+        if (data.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a road graph file");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported road graph version " + data.getInt(4));
+        }
+        nodeCount = data.getInt(8);
+        int upCount = data.getInt(12);
+        int downCount = data.getInt(16);
+
+        int offset = HEADER_BYTES;
+        cellKeys = slice(data, offset, 8L * nodeCount).asLongBuffer();
+        offset += 8 * nodeCount;
+        latE6 = ints(data, offset, nodeCount);
+        offset += 4 * nodeCount;
+        lonE6 = ints(data, offset, nodeCount);
+        offset += 4 * nodeCount;
+        upFirst = ints(data, offset, nodeCount + 1);
+        offset += 4 * (nodeCount + 1);
+        upTarget = ints(data, offset, upCount);
+        offset += 4 * upCount;
+        upWeight = ints(data, offset, upCount);
+        offset += 4 * upCount;
+        downFirst = ints(data, offset, nodeCount + 1);
+        offset += 4 * (nodeCount + 1);
+        downTarget = ints(data, offset, downCount);
+        offset += 4 * downCount;
+        downWeight = ints(data, offset, downCount);
+    }
+
+    /**
+     * Map a graph file read-only. Pages are loaded lazily by the OS and shared with other
+     * processes mapping the same file.
+     */
+    public static RoadGraph open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Road graph file too large to map: " + size + " bytes");
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return new RoadGraph(data.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer data, int offset, long length) {
+        return data.slice(offset, Math.toIntExact(length)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static IntBuffer ints(ByteBuffer data, int offset, int count) {
+        return slice(data, offset, 4L * count).asIntBuffer();
+    }
+
+    static long cellKey(double latitude, double longitude) {
+        return cellKey((int) Math.floor(latitude / CELL_DEGREES), (int) Math.floor(longitude / CELL_DEGREES));
+    }
+
+    private static long cellKey(int latIndex, int lonIndex) {
+        return ((long) latIndex << 32) | (lonIndex & 0xFFFFFFFFL);
+    }
+
+    public int nodeCount() {
+        return nodeCount;
+    }
+
+    public double latitude(int node) {
+        return latE6.get(node) / 1e6;
+    }
+
+    public double longitude(int node) {
+        return lonE6.get(node) / 1e6;
+    }
+
+    /**
+     * Closest graph node within maxMeters, or -1. Searches the point's cell and its neighbours,
+     * so maxMeters beyond roughly one cell (~1km) is not honoured.
+     */
+    public int nearestNode(double latitude, double longitude, double maxMeters) {
+        int latIndex = (int) Math.floor(latitude / CELL_DEGREES);
+        int lonIndex = (int) Math.floor(longitude / CELL_DEGREES);
+        int best = -1;
+        double bestMeters = maxMeters;
+
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            for (int dLon = -1; dLon <= 1; dLon++) {
+                long key = cellKey(latIndex + dLat, lonIndex + dLon);
+                int node = firstNodeInCell(key);
+                while (node < nodeCount && cellKeys.get(node) == key) {
+                    double meters = distanceMeters(latitude, longitude, latitude(node), longitude(node));
+                    if (meters <= bestMeters) {
+                        bestMeters = meters;
+                        best = node;
+                    }
+                    node++;
+                }
+            }
+        }
+        return best;
+    }
+
+    private int firstNodeInCell(long key) {
+        int low = 0;
+        int high = nodeCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cellKeys.get(mid) < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Travel times in milliseconds from each source to one target (many drivers to one pickup).
+     * Runs one backward upward search from the target, then a pruned forward upward search per
+     * source. Unreachable sources and negative node ids get -1.
+     */
+    public int[] travelTimesTo(int target, int[] sources, int count) {
+        int[] result = new int[count];
+        Search search = borrow();
+        try {
+            backwardSearch(search, target);
+            for (int i = 0; i < count; i++) {
+                result[i] = sources[i] < 0 ? -1 : forwardSearch(search, sources[i]);
+            }
+        } finally {
+            search.resetBackward();
+            searchPool.offer(search);
+        }
+        return result;
+    }
+
+    /**
+     * Shortest travel time in milliseconds between two nodes, or -1
+     */
+    public int travelTime(int source, int target) {
+        return travelTimesTo(target, new int[]{source}, 1)[0];
+    }
+
+    private Search borrow() {
+        Search search = searchPool.poll();
+        return search != null ? search : new Search(nodeCount);
+    }
+
+    private void backwardSearch(Search search, int target) {
+        int[] dist = search.backward;
+        LongMinHeap heap = search.heap;
+        heap.clear();
+        dist[target] = 0;
+        search.backwardTouched[search.backwardCount++] = target;
+        heap.push(LongMinHeap.pack(0, target));
+
+        while (!heap.isEmpty()) {
+            long entry = heap.pop();
+            int d = LongMinHeap.key(entry);
+            int node = LongMinHeap.node(entry);
+            if (d > dist[node]) {
+                continue;
+            }
+            int end = downFirst.get(node + 1);
+            for (int e = downFirst.get(node); e < end; e++) {
+                int next = downTarget.get(e);
+                int candidate = d + downWeight.get(e);
+                if (candidate < dist[next]) {
+                    if (dist[next] == INF) {
+                        search.backwardTouched[search.backwardCount++] = next;
+                    }
+                    dist[next] = candidate;
+                    heap.push(LongMinHeap.pack(candidate, next));
+                }
+            }
+        }
+    }
+
+    private int forwardSearch(Search search, int source) {
+        int[] dist = search.forward;
+        int[] backward = search.backward;
+        LongMinHeap heap = search.heap;
+        heap.clear();
+        dist[source] = 0;
+        search.forwardTouched[search.forwardCount++] = source;
+        heap.push(LongMinHeap.pack(0, source));
+        int best = INF;
+
+        while (!heap.isEmpty()) {
+            long entry = heap.pop();
+            int d = LongMinHeap.key(entry);
+            if (d >= best) {
+                break;
+            }
+            int node = LongMinHeap.node(entry);
+            if (d > dist[node]) {
+                continue;
+            }
+            if (backward[node] != INF && d + backward[node] < best) {
+                best = d + backward[node];
+            }
+            int end = upFirst.get(node + 1);
+            for (int e = upFirst.get(node); e < end; e++) {
+                int next = upTarget.get(e);
+                int candidate = d + upWeight.get(e);
+                if (candidate < dist[next] && candidate < best) {
+                    if (dist[next] == INF) {
+                        search.forwardTouched[search.forwardCount++] = next;
+                    }
+                    dist[next] = candidate;
+                    heap.push(LongMinHeap.pack(candidate, next));
+                }
+            }
+        }
+        search.resetForward();
+        return best == INF ? -1 : best;
+    }
+
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return EARTH_RADIUS_M * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
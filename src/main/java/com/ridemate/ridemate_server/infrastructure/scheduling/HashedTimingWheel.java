@@ -0,0 +1,232 @@
+package com.ridemate.ridemate_server.infrastructure.scheduling;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timing wheel for large numbers of short, mostly-cancelled timeouts
+ * (ride offers, heartbeats). One worker thread advances the wheel every tick; scheduling and
+ * cancelling are O(1) and lock-free, so thousands of pending timeouts cost one list node each
+ * instead of one ScheduledFuture/thread each.
+ *
+ * Expiry precision is one tick. Expired tasks run on the given executor, never on the wheel thread.
+ */
+@Slf4j
+public final class HashedTimingWheel {
+
+    // New timeouts are moved into buckets at most this many per tick, so a burst cannot stall the wheel
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final String name;
+    private final long tickNanos;
+    private final Bucket[] buckets;
+    private final int mask;
+    private final Executor taskExecutor;
+
+    private final Queue<WheelTimeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final long startNanos;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    // Worker thread only
+    private long tick;
+
+    /**
+     * Handle of a scheduled task
+     */
+    public interface Timeout {
+        /**
+         * @return true if the task was still pending and will not run
+         */
+        boolean cancel();
+
+        boolean isExpired();
+    }
+
+    /**
+     * @param ticksPerWheel rounded up to a power of two; delay / tick beyond it costs extra rounds, not accuracy
+     */
+    public HashedTimingWheel(String name, long tickDuration, TimeUnit unit, int ticksPerWheel, Executor taskExecutor) {
+        if (tickDuration <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("tickDuration and ticksPerWheel must be positive");
+        }
+        this.name = name;
+        this.tickNanos = unit.toNanos(tickDuration);
+        int size = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        this.buckets = new Bucket[Math.max(size, 1)];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new Bucket();
+        }
+        this.mask = buckets.length - 1;
+        this.taskExecutor = taskExecutor;
+        this.startNanos = System.nanoTime();
+
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Run task once after the given delay (rounded up to the next tick)
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("Timing wheel " + name + " is stopped");
+        }
+        long deadline = System.nanoTime() - startNanos + Math.max(unit.toNanos(delay), 0);
+        WheelTimeout timeout = new WheelTimeout(task, deadline);
+        pending.incrementAndGet();
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Number of scheduled tasks that have neither run nor been cancelled
+     */
+    public int pendingTimeouts() {
+        return pending.get();
+    }
+
+    /**
+     * Stop the wheel; pending tasks are dropped
+     */
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                }
+                continue;
+            }
+
+            try {
+                transferNewTimeouts();
+                expire(buckets[(int) (tick & mask)]);
+            } catch (Exception e) {
+                log.error("Timing wheel {} tick failed: {}", name, e.getMessage(), e);
+            }
+            tick++;
+        }
+    }
+
+    private void transferNewTimeouts() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            WheelTimeout timeout = newTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.state.get() != WheelTimeout.PENDING) {
+                continue;
+            }
+            long expiryTick = Math.max(timeout.deadlineNanos / tickNanos, tick);
+            timeout.remainingRounds = (expiryTick - tick) / buckets.length;
+            buckets[(int) (expiryTick & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Bucket bucket) {
+        WheelTimeout timeout = bucket.head;
+        while (timeout != null) {
+            WheelTimeout next = timeout.next;
+            if (timeout.state.get() != WheelTimeout.PENDING) {
+                bucket.remove(timeout);
+            } else if (timeout.remainingRounds <= 0) {
+                bucket.remove(timeout);
+                if (timeout.state.compareAndSet(WheelTimeout.PENDING, WheelTimeout.EXPIRED)) {
+                    pending.decrementAndGet();
+                    try {
+                        taskExecutor.execute(timeout.task);
+                    } catch (Exception e) {
+                        log.error("Timing wheel {} could not run expired task: {}", name, e.getMessage());
+                    }
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    private final class WheelTimeout implements Timeout {
+        static final int PENDING = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+
+        final Runnable task;
+        final long deadlineNanos;
+        final AtomicInteger state = new AtomicInteger(PENDING);
+
+        // Worker thread only
+        long remainingRounds;
+        WheelTimeout prev;
+        WheelTimeout next;
+
+        WheelTimeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        public boolean cancel() {
+            // Unlinked lazily by the worker when it next visits the bucket
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                pending.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+    }
+
+    private static final class Bucket {
+        WheelTimeout head;
+        WheelTimeout tail;
+
+        void add(WheelTimeout timeout) {
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(WheelTimeout timeout) {
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+        }
+    }
+}
@@ -14,7 +14,10 @@ import com.ridemate.ridemate_server.application.service.admin.AdminTripAnalytics
 import com.ridemate.ridemate_server.application.service.admin.AdminTripDetailService;
 import com.ridemate.ridemate_server.application.service.admin.AdminVoucherAndMembershipService;
 import com.ridemate.ridemate_server.application.service.admin.AdminService;
+import com.ridemate.ridemate_server.application.service.driver.SupabaseRealtimePublisher;
 import com.ridemate.ridemate_server.application.service.mission.MissionService;
+import com.ridemate.ridemate_server.application.service.route.FixedRouteSearchCache;
+import com.ridemate.ridemate_server.application.service.route.RouteScheduleBackfill;
 import com.ridemate.ridemate_server.application.service.user.impl.UserSyncService;
 import com.ridemate.ridemate_server.domain.entity.Match.MatchStatus;
 import com.ridemate.ridemate_server.presentation.dto.admin.*;
@@ -53,6 +56,9 @@ public class AdminController {
     private final AdminVoucherAndMembershipService voucherAndMembershipService;
     private final MissionService missionService;
     private final UserSyncService userSyncService;
+    private final SupabaseRealtimePublisher supabaseRealtimePublisher;
+    private final FixedRouteSearchCache fixedRouteSearchCache;
+    private final RouteScheduleBackfill routeScheduleBackfill;
 
     @GetMapping("/trips")
     @PreAuthorize("hasAuthority('ADMIN')")
@@ -132,6 +138,27 @@ public class AdminController {
         return ResponseEntity.ok(realTimeMonitoringService.getActiveTrips());
     }
 
+    @GetMapping("/realtime/publisher")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @Operation(summary = "Get Supabase publisher metrics", description = "Queue depth, coalesced/dropped writes and request latency of the realtime publisher")
+    public ResponseEntity<SupabaseRealtimePublisher.Stats> getRealtimePublisherStats() {
+        return ResponseEntity.ok(supabaseRealtimePublisher.getStats());
+    }
+
+    @GetMapping("/routes/search-cache")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @Operation(summary = "Get route search cache metrics", description = "Entries, hits, misses and invalidations of the fixed route search cache")
+    public ResponseEntity<FixedRouteSearchCache.Stats> getRouteSearchCacheStats() {
+        return ResponseEntity.ok(fixedRouteSearchCache.getStats());
+    }
+
+    @GetMapping("/routes/schedule-backfill")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @Operation(summary = "Get route schedule conversion results", description = "Fixed routes converted to schedules on startup and the ones whose legacy specific dates could not be read")
+    public ResponseEntity<RouteScheduleBackfill.Stats> getRouteScheduleBackfillStats() {
+        return ResponseEntity.ok(routeScheduleBackfill.getStats());
+    }
+
     @GetMapping("/trips/{tripId}")
     @Operation(summary = "Get trip detail by ID")
     public ResponseEntity<TripDetailResponse> getTripDetail(@PathVariable Long tripId) {
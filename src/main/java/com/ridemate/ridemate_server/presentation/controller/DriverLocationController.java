@@ -2,19 +2,28 @@ package com.ridemate.ridemate_server.presentation.controller;
 
 import com.ridemate.ridemate_server.application.dto.location.UpdateLocationRequest;
 import com.ridemate.ridemate_server.application.service.driver.DriverLocationService;
-import com.ridemate.ridemate_server.application.service.driver.SupabaseRealtimeService;
+import com.ridemate.ridemate_server.application.service.driver.NearbyDriverStreamService;
+import com.ridemate.ridemate_server.application.service.match.DriverSpatialIndex;
+import com.ridemate.ridemate_server.domain.entity.User;
+import com.ridemate.ridemate_server.infrastructure.codec.LocationBatchCodec;
 import com.ridemate.ridemate_server.presentation.dto.response.ApiResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/driver/location")
@@ -23,41 +32,123 @@ import java.util.Map;
 public class DriverLocationController {
 
     private final DriverLocationService driverLocationService;
-    private final SupabaseRealtimeService supabaseRealtimeService;
+    private final DriverSpatialIndex driverSpatialIndex;
+    private final NearbyDriverStreamService nearbyDriverStreamService;
+
+    @Value("${driver-location.batch.max-fixes:600}")
+    private int maxBatchFixes;
+
+    // Same limit as the stream endpoint: the circle may be at most this many km across
+    @Value("${driver-stream.max-area-km:30}")
+    private double maxAreaKm;
 
     @PostMapping
-    @Operation(summary = "Update driver location", description = "Update current driver location (called from driver app)")
+    @Operation(summary = "Update driver location", description = "Update current driver location (called from driver app); " +
+            "nextReportSeconds tells the app when to report again")
     @SecurityRequirement(name = "bearerAuth")
-    public ResponseEntity<ApiResponse<Void>> updateLocation(
+    public ResponseEntity<ApiResponse<Map<String, Object>>> updateLocation(
             @Valid @RequestBody UpdateLocationRequest request,
             @AuthenticationPrincipal Long userId) {
 
-        driverLocationService.updateDriverLocation(
+        DriverLocationService.LocationAck ack = driverLocationService.updateDriverLocation(
                 userId,
                 request.getLatitude(),
                 request.getLongitude()
         );
 
-        return ResponseEntity.ok(ApiResponse.success("Location updated successfully", null));
+        return ResponseEntity.ok(ApiResponse.success("Location updated successfully",
+                Map.of("nextReportSeconds", ack.nextReportSeconds())));
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Upload buffered location fixes",
+            description = "Several timestamped fixes in the compact delta-encoded format of LocationBatchCodec; " +
+                    "the newest fix becomes the driver's current location; nextReportSeconds tells the app when to upload again")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> uploadLocationBatch(
+            @RequestBody byte[] body,
+            @AuthenticationPrincipal Long userId) {
+
+        LocationBatchCodec.Fixes fixes = LocationBatchCodec.decode(body, maxBatchFixes, new LocationBatchCodec.Fixes());
+        DriverLocationService.LocationAck ack = driverLocationService.ingestFixes(userId, fixes);
+
+        return ResponseEntity.ok(ApiResponse.success("Location batch received",
+                Map.of("fixes", fixes.count(), "applied", ack.applied(), "nextReportSeconds", ack.nextReportSeconds())));
     }
 
     @GetMapping("/nearby")
-    @Operation(summary = "Get nearby drivers", description = "Get all online drivers within specified radius")
+    @Operation(summary = "Get nearby drivers", description = "Get all online drivers within specified radius " +
+            "(at most half of driver-stream.max-area-km, 400 above it)")
     @SecurityRequirement(name = "bearerAuth")
     public ResponseEntity<ApiResponse<List<Map<String, Object>>>> getNearbyDrivers(
             @RequestParam Double latitude,
             @RequestParam Double longitude,
             @RequestParam(defaultValue = "7.0") Double radiusKm) {
 
-        List<Map<String, Object>> drivers = supabaseRealtimeService
-                .getNearbyDrivers(latitude, longitude, radiusKm)
-                .block(); // Block to convert Mono to synchronous
+        if (!(radiusKm > 0) || radiusKm * 2 > maxAreaKm) {
+            throw new IllegalArgumentException("radiusKm must be greater than 0 and at most " + maxAreaKm / 2);
+        }
+        // Served from the in-memory index of ONLINE drivers, actually filtered by radius
+        List<Map<String, Object>> drivers = driverSpatialIndex.findWithinRadius(latitude, longitude, radiusKm).stream()
+                .map(driver -> {
+                    DriverSpatialIndex.Position position = driverSpatialIndex.getPosition(driver.driverId());
+                    Map<String, Object> driverData = new HashMap<>();
+                    driverData.put("driver_id", driver.driverId());
+                    driverData.put("latitude", driver.latitude());
+                    driverData.put("longitude", driver.longitude());
+                    driverData.put("driver_status", User.DriverStatus.ONLINE.name());
+                    driverData.put("distance_km", driver.distanceKm());
+                    driverData.put("last_updated", position != null ? Instant.ofEpochMilli(position.updatedAtMillis()).toString() : null);
+                    return driverData;
+                })
+                .collect(Collectors.toList());
         
         return ResponseEntity.ok(
                 ApiResponse.success("Nearby drivers retrieved successfully", drivers)
         );
     }
 
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream nearby drivers",
+            description = "Server-sent events for the online drivers in a viewport (min/max lat/lon) or a radius " +
+                    "(latitude, longitude, radiusKm). The first event is 'subscribed' with the subscription id; " +
+                    "then 'drivers' events carry entered/moved/left deltas, at most one per intervalMs")
+    @SecurityRequirement(name = "bearerAuth")
+    public SseEmitter streamNearbyDrivers(
+            @RequestParam(required = false) Double minLatitude,
+            @RequestParam(required = false) Double minLongitude,
+            @RequestParam(required = false) Double maxLatitude,
+            @RequestParam(required = false) Double maxLongitude,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(required = false) Long intervalMs,
+            @AuthenticationPrincipal Long userId) {
+
+        NearbyDriverStreamService.Area area = toArea(minLatitude, minLongitude, maxLatitude, maxLongitude,
+                latitude, longitude, radiusKm);
+        return nearbyDriverStreamService.subscribe(userId, area, intervalMs);
+    }
+
+    @PutMapping("/stream/{subscriptionId}")
+    @Operation(summary = "Move a nearby-driver stream", description = "Change the viewport or radius of an open stream (map panned or zoomed)")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<ApiResponse<Void>> moveNearbyDriverStream(
+            @PathVariable String subscriptionId,
+            @RequestParam(required = false) Double minLatitude,
+            @RequestParam(required = false) Double minLongitude,
+            @RequestParam(required = false) Double maxLatitude,
+            @RequestParam(required = false) Double maxLongitude,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double radiusKm,
+            @AuthenticationPrincipal Long userId) {
+
+        nearbyDriverStreamService.updateArea(userId, subscriptionId, toArea(minLatitude, minLongitude,
+                maxLatitude, maxLongitude, latitude, longitude, radiusKm));
+        return ResponseEntity.ok(ApiResponse.success("Stream area updated", null));
+    }
+
     @GetMapping("/online")
     @Operation(summary = "Get all online drivers", description = "Get list of all online drivers with their locations")
     @SecurityRequirement(name = "bearerAuth")
@@ -77,4 +168,16 @@ public class DriverLocationController {
         driverLocationService.setDriverOnlineStatus(userId, status);
         return ResponseEntity.ok(ApiResponse.success("Driver status updated to " + status, null));
     }
+
+    private static NearbyDriverStreamService.Area toArea(Double minLatitude, Double minLongitude,
+                                                         Double maxLatitude, Double maxLongitude,
+                                                         Double latitude, Double longitude, Double radiusKm) {
+        if (minLatitude != null && minLongitude != null && maxLatitude != null && maxLongitude != null) {
+            return NearbyDriverStreamService.Area.box(minLatitude, minLongitude, maxLatitude, maxLongitude);
+        }
+        if (latitude != null && longitude != null && radiusKm != null) {
+            return NearbyDriverStreamService.Area.circle(latitude, longitude, radiusKm);
+        }
+        throw new IllegalArgumentException("Either a viewport (min/max latitude and longitude) or latitude, longitude and radiusKm is required");
+    }
 }
@@ -4,9 +4,12 @@ import com.ridemate.ridemate_server.application.dto.match.BookRideRequest;
 import com.ridemate.ridemate_server.application.dto.match.BroadcastDriverRequest;
 import com.ridemate.ridemate_server.application.dto.match.BroadcastPassengerRequest;
 import com.ridemate.ridemate_server.application.dto.match.FindMatchesRequest;
+import com.ridemate.ridemate_server.application.dto.match.MatchPageResponse;
 import com.ridemate.ridemate_server.application.dto.match.MatchResponse;
+import com.ridemate.ridemate_server.application.dto.match.TripTrajectoryResponse;
 import com.ridemate.ridemate_server.application.dto.match.UpdateMatchStatusRequest;
 import com.ridemate.ridemate_server.application.service.match.MatchService;
+import com.ridemate.ridemate_server.application.service.trajectory.TripTrajectoryService;
 import com.ridemate.ridemate_server.presentation.dto.response.ApiResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -31,6 +34,9 @@ public class MatchController {
     @Autowired
     private MatchService matchService;
 
+    @Autowired
+    private TripTrajectoryService tripTrajectoryService;
+
     @PostMapping("/book")
     @Operation(summary = "Book a new ride", description = "Passenger requests a ride")
     @SecurityRequirement(name = "bearerAuth")
@@ -66,6 +72,22 @@ public class MatchController {
         return ResponseEntity.ok(ApiResponse.success("Ride accepted successfully", response));
     }
 
+    @PostMapping("/{id}/reject")
+    @Operation(summary = "Decline a ride offer", description = "Driver declines a ride offered to them. The ride is offered to the next drivers right away once everyone in the current wave has declined.")
+    @SecurityRequirement(name = "bearerAuth")
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Offer declined"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Ride not available"),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Match not found")
+    })
+    public ResponseEntity<ApiResponse<String>> rejectRide(
+            @PathVariable Long id,
+            @AuthenticationPrincipal Long driverId) {
+        
+        matchService.rejectRide(id, driverId);
+        return ResponseEntity.ok(ApiResponse.success("Ride offer declined", null));
+    }
+
     @PutMapping("/{id}/status")
     @Operation(summary = "Update match status", description = "Update the status of a ride (e.g., IN_PROGRESS, COMPLETED, CANCELLED)")
     @SecurityRequirement(name = "bearerAuth")
@@ -106,6 +128,19 @@ public class MatchController {
         return ResponseEntity.ok(ApiResponse.success("Match details retrieved", response));
     }
 
+    @GetMapping("/{id}/trajectory")
+    @Operation(summary = "Replay trip path", description = "Recorded driver path of a match (passenger, driver or admin), " +
+            "simplified to toleranceMeters and at most maxPoints points; distance and duration use every recorded fix")
+    @SecurityRequirement(name = "bearerAuth")
+    public ResponseEntity<ApiResponse<TripTrajectoryResponse>> getTrajectory(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "5") double toleranceMeters,
+            @RequestParam(defaultValue = "1000") int maxPoints,
+            @AuthenticationPrincipal Long userId) {
+        TripTrajectoryResponse response = tripTrajectoryService.getTrajectory(id, userId, toleranceMeters, maxPoints);
+        return ResponseEntity.ok(ApiResponse.success("Trip path retrieved", response));
+    }
+
     @GetMapping("/history")
     @Operation(summary = "Get ride history", description = "Get history of rides for current user")
     @SecurityRequirement(name = "bearerAuth")
@@ -155,19 +190,21 @@ public class MatchController {
     }
 
     @PostMapping("/find")
-    @Operation(summary = "Find matches", description = "Find available matches based on criteria")
+    @Operation(summary = "Find matches", description = "Find available matches based on criteria, closest pickup first (max 50 per page), with the total count and whether more pages follow")
     @SecurityRequirement(name = "bearerAuth")
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Matches found",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = MatchResponse.class))),
-            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid input"),
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = MatchPageResponse.class))),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "400", description = "Invalid input or negative page"),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "401", description = "Unauthorized")
     })
-    public ResponseEntity<ApiResponse<List<MatchResponse>>> findMatches(
+    public ResponseEntity<ApiResponse<MatchPageResponse>> findMatches(
             @Valid @RequestBody FindMatchesRequest request,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
             @AuthenticationPrincipal Long userId) {
         
-        List<MatchResponse> response = matchService.findMatches(userId, request);
+        MatchPageResponse response = matchService.findMatches(userId, request, page, size);
         return ResponseEntity.ok(ApiResponse.success("Matches found", response));
     }
 }
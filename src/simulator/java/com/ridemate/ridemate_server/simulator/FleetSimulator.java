@@ -0,0 +1,429 @@
+package com.ridemate.ridemate_server.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.ridemate.ridemate_server.application.service.simulation.LoadTestSeedData;
+import com.ridemate.ridemate_server.infrastructure.codec.LocationBatchCodec;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load generator: virtual drivers and passengers against a running server
+ *
+ * Every virtual user is a virtual thread doing what the app does. Drivers log in (which sets them
+ * ONLINE), drive between random waypoints at motorbike speed, upload 1 Hz fixes as compressed
+ * batches as often as the server's nextReportSeconds asks, poll their notifications for ride offers, accept or decline them, drive to the pickup
+ * and the destination while moving the match through its statuses, and now and then go OFFLINE
+ * for a few minutes. Passengers look at the nearby drivers, book a ride, poll it and cancel when
+ * nobody accepts in time, then think for a while before the next booking.
+ *
+ * Per-endpoint latency histograms (count, errors, mean, p50/p90/p99/p99.9, max) are rewritten to
+ * the output file every few seconds and printed at the end.
+ *
+ * Accounts come from LoadTestSeedData: start the server once with --spring.profiles.active=loadtest
+ * (loadtest.seed.drivers / loadtest.seed.passengers at least as large as the counts used here).
+ *
+ * Usage: FleetSimulator [baseUrl] [drivers] [passengers] [durationSeconds] [bookingsPerMinute] [outputFile] [rampSeconds]
+ */
+public final class FleetSimulator {
+
+    // Ho Chi Minh City centre, drivers and trips spread over roughly 13 x 13 km
+    private static final double CENTER_LATITUDE = 10.7769;
+    private static final double CENTER_LONGITUDE = 106.7009;
+    private static final double SPREAD_DEGREES = 0.06;
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private static final long TICK_MILLIS = 1000;
+    private static final int DEFAULT_UPLOAD_SECONDS = 5;
+    private static final int OFFER_POLL_EVERY_TICKS = 3;
+    private static final double ACCEPT_PROBABILITY = 0.8;
+    private static final double OFFLINE_PROBABILITY_PER_MINUTE = 0.02;
+    private static final int BOARDING_TICKS = 20;
+    private static final long PASSENGER_PATIENCE_SECONDS = 90;
+    private static final double MIN_TRIP_METERS = 1500;
+    private static final long REPORT_INTERVAL_SECONDS = 10;
+
+    private final SimulatorClient client;
+    private final long deadlineMillis;
+
+    private final AtomicLong driversOnline = new AtomicLong();
+    private final AtomicLong offersAccepted = new AtomicLong();
+    private final AtomicLong offersDeclined = new AtomicLong();
+    private final AtomicLong tripsCompleted = new AtomicLong();
+    private final AtomicLong bookings = new AtomicLong();
+    private final AtomicLong bookingsMatched = new AtomicLong();
+    private final AtomicLong bookingsAbandoned = new AtomicLong();
+
+    private FleetSimulator(SimulatorClient client, long deadlineMillis) {
+        this.client = client;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080/api";
+        int drivers = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int passengers = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        long durationSeconds = args.length > 3 ? Long.parseLong(args[3]) : 600;
+        double bookingsPerMinute = args.length > 4 ? Double.parseDouble(args[4]) : 300;
+        Path output = Path.of(args.length > 5 ? args[5] : "target/fleet-simulator-latency.txt");
+        long rampSeconds = args.length > 6 ? Long.parseLong(args[6]) : 60;
+
+        System.out.printf("Simulating %d drivers and %d passengers (~%.0f bookings/min) against %s for %ds, ramp-up %ds%n",
+                drivers, passengers, bookingsPerMinute, baseUrl, durationSeconds, rampSeconds);
+
+        long startMillis = System.currentTimeMillis();
+        FleetSimulator simulator = new FleetSimulator(new SimulatorClient(baseUrl),
+                startMillis + TimeUnit.SECONDS.toMillis(durationSeconds));
+        // Each passenger books at rate / passengers, so together they produce the requested rate
+        double meanThinkSeconds = passengers * 60.0 / Math.max(bookingsPerMinute, 0.01);
+
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < drivers; i++) {
+                long delay = rampSeconds * 1000L * i / Math.max(drivers, 1);
+                int index = i;
+                users.execute(() -> simulator.runDriver(index, delay));
+            }
+            for (int i = 0; i < passengers; i++) {
+                long delay = rampSeconds * 1000L * i / Math.max(passengers, 1);
+                int index = i;
+                users.execute(() -> simulator.runPassenger(index, delay, meanThinkSeconds));
+            }
+
+            while (System.currentTimeMillis() < simulator.deadlineMillis) {
+                Thread.sleep(Math.min(TimeUnit.SECONDS.toMillis(REPORT_INTERVAL_SECONDS),
+                        Math.max(1, simulator.deadlineMillis - System.currentTimeMillis())));
+                simulator.client.writeReport(output, simulator.summary(startMillis));
+            }
+            users.shutdownNow();
+        }
+
+        simulator.client.writeReport(output, simulator.summary(startMillis));
+        System.out.println(simulator.summary(startMillis));
+        System.out.println("Latency report written to " + output.toAbsolutePath());
+    }
+
+    private String summary(long startMillis) {
+        long elapsedSeconds = Math.max(1, (System.currentTimeMillis() - startMillis) / 1000);
+        long requests = client.totalRequests();
+        return String.format("elapsed=%ds requests=%d (%.0f/s) errors=%d driversOnline=%d offersAccepted=%d " +
+                        "offersDeclined=%d tripsCompleted=%d bookings=%d matched=%d abandoned=%d",
+                elapsedSeconds, requests, (double) requests / elapsedSeconds, client.totalErrors(),
+                driversOnline.get(), offersAccepted.get(), offersDeclined.get(), tripsCompleted.get(),
+                bookings.get(), bookingsMatched.get(), bookingsAbandoned.get());
+    }
+
+    private boolean running() {
+        return System.currentTimeMillis() < deadlineMillis && !Thread.currentThread().isInterrupted();
+    }
+
+    private static boolean pause(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private String login(String phone, double latitude, double longitude) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("phoneNumber", phone);
+        body.put("password", LoadTestSeedData.SIMULATOR_PASSWORD);
+        body.put("currentLatitude", latitude);
+        body.put("currentLongitude", longitude);
+        JsonNode data = client.call(null, "POST", "/auth/login", "/auth/login", body);
+        return data != null ? data.path("accessToken").asText(null) : null;
+    }
+
+    // ===== DRIVERS =====
+
+    private enum TripPhase { TO_PICKUP, BOARDING, TO_DESTINATION }
+
+    private static final class Driver {
+        double latitude = randomLatitude();
+        double longitude = randomLongitude();
+        double targetLatitude = randomLatitude();
+        double targetLongitude = randomLongitude();
+        final double speedMetersPerSecond = 6 + ThreadLocalRandom.current().nextDouble(6);
+        final LocationBatchCodec.Fixes pending = new LocationBatchCodec.Fixes();
+        String token;
+        long nextUploadTick = DEFAULT_UPLOAD_SECONDS;
+        boolean online;
+        int offlineTicksLeft;
+
+        long matchId;
+        TripPhase phase;
+        double destinationLatitude;
+        double destinationLongitude;
+        int boardingTicksLeft;
+    }
+
+    private void runDriver(int index, long startDelayMillis) {
+        if (!pause(startDelayMillis)) {
+            return;
+        }
+        Driver driver = new Driver();
+        driver.token = login(LoadTestSeedData.driverPhone(index), driver.latitude, driver.longitude);
+        if (driver.token == null) {
+            return;
+        }
+        driver.online = true;
+        driversOnline.incrementAndGet();
+
+        long tick = 0;
+        while (running()) {
+            long tickStart = System.currentTimeMillis();
+            tick++;
+
+            boolean arrived = move(driver);
+            driver.pending.add(jitter(driver.latitude), jitter(driver.longitude), tickStart);
+            if (tick >= driver.nextUploadTick) {
+                // The app stops tracking while the driver is off duty
+                if (driver.online || driver.phase != null) {
+                    JsonNode ack = client.call(driver.token, "POST", "/driver/location/batch", "/driver/location/batch",
+                            LocationBatchCodec.encode(driver.pending));
+                    // The server decides when the app reports next (adaptive sampling)
+                    int nextReportSeconds = ack != null ? ack.path("nextReportSeconds").asInt(DEFAULT_UPLOAD_SECONDS) : DEFAULT_UPLOAD_SECONDS;
+                    driver.nextUploadTick = tick + Math.max(1, nextReportSeconds * 1000L / TICK_MILLIS);
+                } else {
+                    driver.nextUploadTick = tick + DEFAULT_UPLOAD_SECONDS;
+                }
+                driver.pending.clear();
+            }
+
+            if (driver.phase != null) {
+                advanceTrip(driver, arrived);
+            } else if (driver.online) {
+                if (tick % OFFER_POLL_EVERY_TICKS == 0) {
+                    pollOffers(driver);
+                }
+                if (driver.phase == null && chance(OFFLINE_PROBABILITY_PER_MINUTE / 60)) {
+                    setOnline(driver, false);
+                    driver.offlineTicksLeft = 60 + ThreadLocalRandom.current().nextInt(240);
+                }
+            } else if (--driver.offlineTicksLeft <= 0) {
+                setOnline(driver, true);
+            }
+
+            if (arrived && driver.phase == null) {
+                driver.targetLatitude = randomLatitude();
+                driver.targetLongitude = randomLongitude();
+            }
+            if (!pause(Math.max(0, TICK_MILLIS - (System.currentTimeMillis() - tickStart)))) {
+                break;
+            }
+        }
+        if (driver.online) {
+            driversOnline.decrementAndGet();
+        }
+    }
+
+    private void setOnline(Driver driver, boolean online) {
+        String status = online ? "ONLINE" : "OFFLINE";
+        if (client.call(driver.token, "POST", "/driver/location/status", "/driver/location/status?status=" + status, null) != null) {
+            driver.online = online;
+            driversOnline.addAndGet(online ? 1 : -1);
+        }
+    }
+
+    private void pollOffers(Driver driver) {
+        JsonNode notifications = client.call(driver.token, "GET", "/notifications", "/notifications", null);
+        if (notifications == null) {
+            return;
+        }
+        for (JsonNode notification : notifications) {
+            if (notification.path("isRead").asBoolean(false)
+                    || !"MATCH_REQUEST".equals(notification.path("type").asText())) {
+                continue;
+            }
+            long notificationId = notification.path("id").asLong();
+            client.call(driver.token, "PUT", "/notifications/{id}/read", "/notifications/" + notificationId + "/read", null);
+            long matchId = notification.path("referenceId").asLong();
+            if (driver.phase != null || matchId == 0) {
+                continue;
+            }
+
+            if (!chance(ACCEPT_PROBABILITY)) {
+                client.call(driver.token, "POST", "/matches/{id}/reject", "/matches/" + matchId + "/reject", null);
+                offersDeclined.incrementAndGet();
+                continue;
+            }
+            JsonNode match = client.call(driver.token, "POST", "/matches/{id}/accept", "/matches/" + matchId + "/accept", null);
+            if (match == null) {
+                // Taken by another driver or cancelled meanwhile
+                continue;
+            }
+            offersAccepted.incrementAndGet();
+            driver.matchId = matchId;
+            driver.phase = TripPhase.TO_PICKUP;
+            driver.targetLatitude = match.path("pickupLatitude").asDouble(driver.latitude);
+            driver.targetLongitude = match.path("pickupLongitude").asDouble(driver.longitude);
+            driver.destinationLatitude = match.path("destinationLatitude").asDouble(randomLatitude());
+            driver.destinationLongitude = match.path("destinationLongitude").asDouble(randomLongitude());
+        }
+    }
+
+    private void advanceTrip(Driver driver, boolean arrived) {
+        switch (driver.phase) {
+            case TO_PICKUP -> {
+                if (arrived) {
+                    driver.phase = updateStatus(driver, "DRIVER_ARRIVED") ? TripPhase.BOARDING : null;
+                    driver.boardingTicksLeft = BOARDING_TICKS;
+                }
+            }
+            case BOARDING -> {
+                if (--driver.boardingTicksLeft <= 0) {
+                    driver.phase = updateStatus(driver, "IN_PROGRESS") ? TripPhase.TO_DESTINATION : null;
+                    driver.targetLatitude = driver.destinationLatitude;
+                    driver.targetLongitude = driver.destinationLongitude;
+                }
+            }
+            case TO_DESTINATION -> {
+                if (arrived) {
+                    if (updateStatus(driver, "COMPLETED")) {
+                        tripsCompleted.incrementAndGet();
+                    }
+                    driver.phase = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false if the match can no longer be moved (e.g. the passenger cancelled); the driver drops it
+     */
+    private boolean updateStatus(Driver driver, String status) {
+        return client.call(driver.token, "PUT", "/matches/{id}/status", "/matches/" + driver.matchId + "/status",
+                Map.of("status", status)) != null;
+    }
+
+    /**
+     * Move one tick towards the target
+     * @return true if the target was reached
+     */
+    private static boolean move(Driver driver) {
+        double metersPerDegreeLon = METERS_PER_DEGREE * Math.cos(Math.toRadians(driver.latitude));
+        double dy = (driver.targetLatitude - driver.latitude) * METERS_PER_DEGREE;
+        double dx = (driver.targetLongitude - driver.longitude) * metersPerDegreeLon;
+        double remaining = Math.sqrt(dx * dx + dy * dy);
+        double step = driver.speedMetersPerSecond * TICK_MILLIS / 1000.0;
+        if (remaining <= step) {
+            driver.latitude = driver.targetLatitude;
+            driver.longitude = driver.targetLongitude;
+            return true;
+        }
+        driver.latitude += dy / remaining * step / METERS_PER_DEGREE;
+        driver.longitude += dx / remaining * step / metersPerDegreeLon;
+        return false;
+    }
+
+    // ===== PASSENGERS =====
+
+    private void runPassenger(int index, long startDelayMillis, double meanThinkSeconds) {
+        if (!pause(startDelayMillis)) {
+            return;
+        }
+        double latitude = randomLatitude();
+        double longitude = randomLongitude();
+        String token = login(LoadTestSeedData.passengerPhone(index), latitude, longitude);
+        if (token == null) {
+            return;
+        }
+
+        while (running()) {
+            // Exponential think time: bookings across all passengers form a Poisson stream
+            double thinkSeconds = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * meanThinkSeconds;
+            if (!pause((long) (thinkSeconds * 1000)) || !running()) {
+                return;
+            }
+            bookRide(token);
+        }
+    }
+
+    private void bookRide(String token) {
+        double pickupLatitude = randomLatitude();
+        double pickupLongitude = randomLongitude();
+        double destinationLatitude;
+        double destinationLongitude;
+        double meters;
+        do {
+            destinationLatitude = randomLatitude();
+            destinationLongitude = randomLongitude();
+            meters = approximateMeters(pickupLatitude, pickupLongitude, destinationLatitude, destinationLongitude);
+        } while (meters < MIN_TRIP_METERS);
+
+        client.call(token, "GET", "/driver/location/nearby", String.format(
+                "/driver/location/nearby?latitude=%.6f&longitude=%.6f&radiusKm=3", pickupLatitude, pickupLongitude), null);
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("pickupAddress", "Simulated pickup");
+        body.put("destinationAddress", "Simulated destination");
+        body.put("pickupLatitude", pickupLatitude);
+        body.put("pickupLongitude", pickupLongitude);
+        body.put("destinationLatitude", destinationLatitude);
+        body.put("destinationLongitude", destinationLongitude);
+        body.put("vehicleType", "MOTORBIKE");
+        body.put("distance", (int) meters);
+        body.put("duration", (int) Math.ceil(meters / 8 / 60));
+        JsonNode match = client.call(token, "POST", "/matches/book", "/matches/book", body);
+        if (match == null || !match.hasNonNull("id")) {
+            return;
+        }
+        bookings.incrementAndGet();
+        long matchId = match.path("id").asLong();
+
+        long giveUpAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(PASSENGER_PATIENCE_SECONDS);
+        boolean matched = false;
+        while (running()) {
+            if (!pause(TimeUnit.SECONDS.toMillis(matched ? 10 : 3))) {
+                return;
+            }
+            JsonNode current = client.call(token, "GET", "/matches/{id}", "/matches/" + matchId, null);
+            String status = current != null ? current.path("status").asText() : "";
+            if ("COMPLETED".equals(status) || "CANCELLED".equals(status)) {
+                return;
+            }
+            if (!matched && ("ACCEPTED".equals(status) || "DRIVER_ARRIVED".equals(status) || "IN_PROGRESS".equals(status))) {
+                matched = true;
+                bookingsMatched.incrementAndGet();
+            }
+            if (!matched && System.currentTimeMillis() > giveUpAt) {
+                client.call(token, "POST", "/matches/{id}/cancel", "/matches/" + matchId + "/cancel", null);
+                bookingsAbandoned.incrementAndGet();
+                return;
+            }
+        }
+    }
+
+    // ===== HELPERS =====
+
+    private static double randomLatitude() {
+        return CENTER_LATITUDE + (ThreadLocalRandom.current().nextDouble() - 0.5) * 2 * SPREAD_DEGREES;
+    }
+
+    private static double randomLongitude() {
+        return CENTER_LONGITUDE + (ThreadLocalRandom.current().nextDouble() - 0.5) * 2 * SPREAD_DEGREES;
+    }
+
+    // GPS noise of a few metres
+    private static double jitter(double degrees) {
+        return degrees + ThreadLocalRandom.current().nextGaussian() * 3 / METERS_PER_DEGREE;
+    }
+
+    private static boolean chance(double probability) {
+        return ThreadLocalRandom.current().nextDouble() < probability;
+    }
+
+    private static double approximateMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dy = (lat2 - lat1) * METERS_PER_DEGREE;
+        double dx = (lon2 - lon1) * METERS_PER_DEGREE * Math.cos(Math.toRadians(lat1));
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,93 @@
+package com.ridemate.ridemate_server.simulator;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets (about 3% relative error)
+ *
+ * Each power of two of microseconds is split into 32 linear sub-buckets, in a fixed array of
+ * counters covering anything a request can take. Recording is a few atomic increments, so thousands
+ * of virtual drivers can share one histogram per endpoint.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAGNITUDES = 32;
+
+    private final AtomicLongArray counts = new AtomicLongArray(MAGNITUDES * SUB_BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    void record(long micros, boolean error) {
+        long value = Math.max(micros, 0);
+        counts.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        totalMicros.addAndGet(value);
+        maxMicros.accumulateAndGet(value, Math::max);
+        if (error) {
+            errors.incrementAndGet();
+        }
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    long errors() {
+        return errors.get();
+    }
+
+    double meanMillis() {
+        long n = count.get();
+        return n > 0 ? totalMicros.get() / 1000.0 / n : 0;
+    }
+
+    double maxMillis() {
+        return maxMicros.get() / 1000.0;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile (0-100), in milliseconds
+     */
+    double percentileMillis(double percentile) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(n * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), maxMicros.get()) / 1000.0;
+            }
+        }
+        return maxMillis();
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS + 1;
+        if (magnitude >= MAGNITUDES) {
+            return MAGNITUDES * SUB_BUCKETS - 1;
+        }
+        int subBucket = (int) (micros >>> magnitude) - SUB_BUCKETS / 2;
+        return magnitude * SUB_BUCKETS + SUB_BUCKETS / 2 + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        int magnitude = bucket / SUB_BUCKETS;
+        int offset = bucket % SUB_BUCKETS;
+        if (magnitude == 0) {
+            return offset;
+        }
+        // Sub-buckets below SUB_BUCKETS / 2 are never used above magnitude 0
+        return ((long) (offset + 1) << magnitude) - 1;
+    }
+}
@@ -0,0 +1,123 @@
+package com.ridemate.ridemate_server.simulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+
+/**
+ * Thin JSON client for the RideMate API that times every call
+ *
+ * Latencies are recorded per endpoint template ("POST /matches/{id}/accept"), not per URL, so the
+ * report has one line per endpoint. A call that fails (transport error or HTTP status >= 400)
+ * counts as an error and returns null; the virtual user decides what to do next.
+ */
+final class SimulatorClient {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final HttpClient http;
+    private final ObjectMapper json = new ObjectMapper();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    SimulatorClient(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    /**
+     * Call the API; endpoint is the template used as histogram key, path the actual URL path
+     * @return the "data" node of the ApiResponse wrapper (a missing node if there is none), or null on failure
+     */
+    JsonNode call(String token, String method, String endpoint, String path, Object body) {
+        HttpRequest.BodyPublisher publisher;
+        String contentType;
+        if (body instanceof byte[] bytes) {
+            publisher = HttpRequest.BodyPublishers.ofByteArray(bytes);
+            contentType = "application/octet-stream";
+        } else if (body != null) {
+            try {
+                publisher = HttpRequest.BodyPublishers.ofByteArray(json.writeValueAsBytes(body));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Cannot serialize request body", e);
+            }
+            contentType = "application/json";
+        } else {
+            publisher = HttpRequest.BodyPublishers.noBody();
+            contentType = "application/json";
+        }
+
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", contentType)
+                .method(method, publisher);
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+
+        long startNanos = System.nanoTime();
+        boolean failed = true;
+        try {
+            HttpResponse<byte[]> response = http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() >= 400) {
+                return null;
+            }
+            failed = false;
+            byte[] payload = response.body();
+            return payload.length == 0 ? json.missingNode() : json.readTree(payload).path("data");
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            histograms.computeIfAbsent(method + " " + endpoint, key -> new LatencyHistogram())
+                    .record((System.nanoTime() - startNanos) / 1000, failed);
+        }
+    }
+
+    /**
+     * Write the per-endpoint latency table, replacing the file atomically so it can be tailed during a run
+     */
+    void writeReport(Path file, String header) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(temp))) {
+            out.println(header);
+            out.printf("%-40s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                    "endpoint", "count", "errors", "mean_ms", "p50_ms", "p90_ms", "p99_ms", "p99.9_ms", "max_ms");
+            for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+                LatencyHistogram h = entry.getValue();
+                out.printf("%-40s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                        entry.getKey(), h.count(), h.errors(), h.meanMillis(),
+                        h.percentileMillis(50), h.percentileMillis(90), h.percentileMillis(99),
+                        h.percentileMillis(99.9), h.maxMillis());
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    long totalRequests() {
+        return histograms.values().stream().mapToLong(LatencyHistogram::count).sum();
+    }
+
+    long totalErrors() {
+        return histograms.values().stream().mapToLong(LatencyHistogram::errors).sum();
+    }
+}
@@ -0,0 +1,223 @@
+package com.ridemate.ridemate_server.application.service.driver;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SupabaseRealtimePublisher against a local stub of the PostgREST endpoints
+ */
+class SupabaseRealtimePublisherTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private record Request(String method, String path, String query, String body) {
+    }
+
+    private final List<Request> received = new CopyOnWriteArrayList<>();
+    // Status codes to answer with, in order; 201 once empty
+    private final Queue<Integer> statuses = new ConcurrentLinkedQueue<>();
+
+    private HttpServer server;
+    private SupabaseRealtimePublisher publisher;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            received.add(new Request(exchange.getRequestMethod(), exchange.getRequestURI().getPath(),
+                    exchange.getRequestURI().getQuery(), body));
+            Integer status = statuses.poll();
+            exchange.sendResponseHeaders(status != null ? status : 201, -1);
+            exchange.close();
+        });
+        server.start();
+
+        publisher = new SupabaseRealtimePublisher();
+        ReflectionTestUtils.setField(publisher, "supabaseWebClient",
+                WebClient.builder().baseUrl("http://localhost:" + server.getAddress().getPort()).build());
+        // Ticks are driven by the tests through flush()
+        ReflectionTestUtils.setField(publisher, "flushIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(publisher, "maxBatchSize", 500);
+        ReflectionTestUtils.setField(publisher, "maxInFlight", 1);
+        ReflectionTestUtils.setField(publisher, "maxPending", 1000);
+        ReflectionTestUtils.setField(publisher, "requestTimeoutMs", 2000L);
+        ReflectionTestUtils.setField(publisher, "maxAttempts", 3);
+        publisher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        publisher.stop();
+        server.stop(0);
+    }
+
+    @Test
+    void coalescesPingsIntoOneBulkUpsert() throws Exception {
+        publisher.upsertDriverLocation(1L, driverRow(1L, 10.0));
+        publisher.upsertDriverLocation(2L, driverRow(2L, 10.1));
+        publisher.upsertDriverLocation(1L, driverRow(1L, 10.2));
+
+        publisher.flush();
+        awaitSettled();
+
+        assertThat(received).hasSize(1);
+        Request request = received.get(0);
+        assertThat(request.method()).isEqualTo("POST");
+        assertThat(request.path()).isEqualTo("/driver_locations");
+        assertThat(request.query()).isEqualTo("on_conflict=driver_id");
+        List<Map<String, Object>> rows = OBJECT_MAPPER.readValue(request.body(), new TypeReference<>() {
+        });
+        assertThat(rows).hasSize(2);
+        assertThat(rows).anySatisfy(row -> {
+            assertThat(row.get("driver_id")).isEqualTo(1);
+            assertThat(row.get("latitude")).isEqualTo(10.2);
+        });
+
+        SupabaseRealtimePublisher.Stats stats = publisher.getStats();
+        assertThat(stats.enqueued()).isEqualTo(3);
+        assertThat(stats.coalesced()).isEqualTo(1);
+        assertThat(stats.publishedRows()).isEqualTo(2);
+        assertThat(stats.pendingDriverLocations()).isZero();
+    }
+
+    @Test
+    void retriesAfterServerError() throws Exception {
+        statuses.add(503);
+        publisher.upsertDriverLocation(1L, driverRow(1L, 10.0));
+
+        publisher.flush();
+        awaitSettled();
+        assertThat(publisher.getStats().failedRows()).isEqualTo(1);
+        assertThat(publisher.getStats().pendingDriverLocations()).isEqualTo(1);
+
+        publisher.flush();
+        awaitSettled();
+        assertThat(received).hasSize(2);
+        assertThat(received.get(1).body()).isEqualTo(received.get(0).body());
+        assertThat(publisher.getStats().publishedRows()).isEqualTo(1);
+        assertThat(publisher.getStats().pendingDriverLocations()).isZero();
+    }
+
+    @Test
+    void newerWriteReplacesFailedOne() throws Exception {
+        statuses.add(500);
+        publisher.upsertDriverLocation(1L, driverRow(1L, 10.0));
+
+        publisher.flush();
+        publisher.upsertDriverLocation(1L, driverRow(1L, 10.5));
+        awaitSettled();
+
+        publisher.flush();
+        awaitSettled();
+        assertThat(received).hasSize(2);
+        assertThat(received.get(1).body()).contains("10.5");
+    }
+
+    @Test
+    void discardsRowsRejectedWithClientError() throws Exception {
+        statuses.add(400);
+        publisher.upsertDriverLocation(1L, driverRow(1L, 10.0));
+
+        publisher.flush();
+        awaitSettled();
+        publisher.flush();
+        awaitSettled();
+
+        assertThat(received).hasSize(1);
+        SupabaseRealtimePublisher.Stats stats = publisher.getStats();
+        assertThat(stats.discardedRows()).isEqualTo(1);
+        assertThat(stats.pendingDriverLocations()).isZero();
+    }
+
+    @Test
+    void discardsRowsAfterMaxAttempts() throws Exception {
+        statuses.add(500);
+        statuses.add(502);
+        statuses.add(503);
+        publisher.upsertDriverLocation(1L, driverRow(1L, 10.0));
+
+        for (int i = 0; i < 4; i++) {
+            publisher.flush();
+            awaitSettled();
+        }
+
+        assertThat(received).hasSize(3);
+        SupabaseRealtimePublisher.Stats stats = publisher.getStats();
+        assertThat(stats.failedRows()).isEqualTo(3);
+        assertThat(stats.discardedRows()).isEqualTo(1);
+        assertThat(stats.pendingDriverLocations()).isZero();
+    }
+
+    @Test
+    void patchesMatchesWhenBulkUpsertIsRejected() throws Exception {
+        statuses.add(409);
+        publisher.upsertMatch(7L, Map.of("id", 7, "status", "ACCEPTED"));
+
+        publisher.flush();
+        awaitSettled();
+
+        assertThat(received).hasSize(2);
+        assertThat(received.get(0).method()).isEqualTo("POST");
+        assertThat(received.get(1).method()).isEqualTo("PATCH");
+        assertThat(received.get(1).path()).isEqualTo("/matches");
+        assertThat(received.get(1).query()).isEqualTo("id=eq.7");
+        assertThat(publisher.getStats().pendingMatches()).isZero();
+    }
+
+    @Test
+    void stopWritesWhatIsQueued() {
+        publisher.upsertDriverLocation(1L, driverRow(1L, 10.0));
+        publisher.removeDriverLocation(2L);
+        publisher.upsertMatch(7L, Map.of("id", 7, "status", "WAITING"));
+
+        publisher.stop();
+
+        // No waiting: stop() returns only once the requests have settled
+        assertThat(received).extracting(Request::method).containsExactlyInAnyOrder("POST", "DELETE", "POST");
+        assertThat(received).anySatisfy(request -> {
+            assertThat(request.method()).isEqualTo("DELETE");
+            assertThat(request.query()).isEqualTo("driver_id=in.(2)");
+        });
+        SupabaseRealtimePublisher.Stats stats = publisher.getStats();
+        assertThat(stats.pendingDriverLocations()).isZero();
+        assertThat(stats.pendingMatches()).isZero();
+        assertThat(stats.inFlightRequests()).isZero();
+    }
+
+    private static Map<String, Object> driverRow(long driverId, double latitude) {
+        return Map.of("driver_id", driverId, "latitude", latitude, "longitude", 106.7, "status", "ONLINE");
+    }
+
+    private void awaitSettled() throws InterruptedException {
+        await(() -> publisher.getStats().inFlightRequests() == 0);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Condition not met within 5s");
+            }
+            Thread.sleep(10);
+        }
+    }
+}